@@ -3,6 +3,7 @@ package com.codetest.agent.config;
 import com.codetest.agent.security.JwtAuthenticationFilter;
 import com.codetest.agent.security.JwtTokenProvider;
 import com.codetest.agent.security.OAuth2SuccessHandler;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -42,6 +43,10 @@ public class SecurityConfig {
                                 .sessionManagement(session -> session
                                                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                                 .authorizeHttpRequests(auth -> auth
+                                                // Async dispatches (SSE streams) and error pages were authorized
+                                                // on the original request; the JWT filter does not run again
+                                                .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR)
+                                                .permitAll()
                                                 .requestMatchers("/api/auth/**", "/oauth2/**", "/login/**").permitAll()
                                                 .requestMatchers("/api/parse").permitAll() // Allow problem parsing
                                                                                            // without login
@@ -1,22 +1,74 @@
 package com.codetest.agent.controller;
 
+import com.codetest.agent.dto.ExecutionJob;
 import com.codetest.agent.dto.ExecutionRequest;
-import com.codetest.agent.dto.ExecutionResponse;
-import com.codetest.agent.service.CodeExecutionService;
+import com.codetest.agent.dto.StressTestRequest;
+import com.codetest.agent.service.ExecutionJobService;
+import com.codetest.agent.service.execution.ExecutionRejectedException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.security.Principal;
+import java.util.Map;
+
+/**
+ * Submissions and stress tests run asynchronously: POST returns a job right
+ * away, and results are polled by job id or streamed per test case as
+ * server-sent events.
+ */
 @RestController
 @RequestMapping("/api/execute")
 @RequiredArgsConstructor
 public class CodeExecutionController {
 
-    private final CodeExecutionService executionService;
+    private final ExecutionJobService executionJobService;
 
     @PostMapping
-    public ResponseEntity<ExecutionResponse> executeCode(@RequestBody ExecutionRequest request) {
-        ExecutionResponse response = executionService.execute(request);
-        return ResponseEntity.ok(response);
+    public ResponseEntity<?> executeCode(@RequestBody ExecutionRequest request, Principal principal) {
+        try {
+            ExecutionJob job = executionJobService.submit(request, userId(principal));
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (ExecutionRejectedException e) {
+            // Shed load quickly instead of queueing without bound
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /** Queued like a submission; the job's stressResult is set once it is done. */
+    @PostMapping("/stress")
+    public ResponseEntity<?> stressTest(@RequestBody StressTestRequest request, Principal principal) {
+        try {
+            ExecutionJob job = executionJobService.submitStress(request, userId(principal));
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (ExecutionRejectedException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ExecutionJob> getJob(@PathVariable String jobId, Principal principal) {
+        ExecutionJob job = executionJobService.find(jobId, userId(principal));
+        return job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
+    }
+
+    @GetMapping(path = "/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamJob(@PathVariable String jobId, Principal principal) {
+        if (executionJobService.find(jobId, userId(principal)) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(executionJobService.stream(jobId));
+    }
+
+    private static String userId(Principal principal) {
+        return principal != null ? principal.getName() : "anonymous";
     }
 }
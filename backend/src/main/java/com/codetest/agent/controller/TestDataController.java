@@ -0,0 +1,69 @@
+package com.codetest.agent.controller;
+
+import com.codetest.agent.domain.StoredTestCase;
+import com.codetest.agent.dto.TestDataRequest;
+import com.codetest.agent.service.TestDataService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stored test cases per problem. Listed and saved here, then run by putting
+ * their ids in {@code TestCase.testDataId} of an execution request.
+ */
+@RestController
+@RequestMapping("/api/test-data")
+@RequiredArgsConstructor
+public class TestDataController {
+
+    private final TestDataService testDataService;
+
+    @GetMapping
+    public List<StoredTestCase> list(@RequestParam String source, @RequestParam String sourceId) {
+        return testDataService.list(TestDataService.problemKey(source, sourceId));
+    }
+
+    @PostMapping
+    public ResponseEntity<?> save(@RequestBody TestDataRequest request, Authentication authentication) {
+        if (request.getSource() == null || request.getSourceId() == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "source and sourceId are required"));
+        }
+        String problemKey = TestDataService.problemKey(request.getSource(), request.getSourceId());
+        try {
+            StoredTestCase stored;
+            if (request.getGenerator() != null && !request.getGenerator().isBlank()) {
+                stored = testDataService.saveGenerated(problemKey, request.getLabel(), request.getGenerator(),
+                        request.getSeed(), request.getExpectedOutput(), authentication.getName(),
+                        isStaff(authentication));
+            } else if (request.getInput() != null) {
+                stored = testDataService.save(problemKey, request.getLabel(), request.getInput(),
+                        request.getExpectedOutput(), authentication.getName(), isStaff(authentication));
+            } else {
+                return ResponseEntity.badRequest().body(Map.of("error", "input or generator is required"));
+            }
+            return ResponseEntity.status(HttpStatus.CREATED).body(stored);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> delete(@PathVariable String id, Authentication authentication) {
+        if (testDataService.find(id) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return testDataService.delete(id, authentication.getName(), isStaff(authentication))
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+    }
+
+    private static boolean isStaff(Authentication authentication) {
+        return authentication.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+    }
+}
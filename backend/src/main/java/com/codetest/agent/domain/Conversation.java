@@ -23,6 +23,10 @@ public class Conversation {
     private String problemUrl;
     private String strategy; // AI's persisted strategy roadmap
     private com.codetest.agent.dto.ProblemSpec problemSpec;
+    private com.codetest.agent.dto.ComplexityProfile complexityProfile; // measured for the current code (solution mode)
+    private String complexityCodeHash; // the code complexityProfile was last attempted for, even if it came out null
+    private com.codetest.agent.dto.ProfileReport hotSpotProfile; // sampled for the current code (debugging mode)
+    private String hotSpotCodeHash; // the code hotSpotProfile was sampled for
     private String category; // e.g. graph, dp, greedy
     private List<String> topics; // e.g. ["BFS", "Shortest Path"]
     private String status; // ongoing, resolved
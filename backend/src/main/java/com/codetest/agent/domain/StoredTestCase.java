@@ -0,0 +1,38 @@
+package com.codetest.agent.domain;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * A test case kept for a problem so it can be run by id (TestCase.testDataId).
+ * Only the description lives here; the input and expected output are files
+ * in the TestDataStore, archived in GridFS.
+ */
+@Data
+@Document(collection = "test_data")
+public class StoredTestCase {
+    @Id
+    private String id;
+    private String problemKey; // source:sourceId, or a statement hash for pasted problems
+    private Kind kind;
+    private String label;
+    private String createdBy; // user id; null for imported samples
+    private long inputBytes;
+    private boolean expectedOutput; // whether an expected output is stored
+    private String generator; // GENERATED only: the InputGenerator spec the input was written from
+    private Long seed;
+    private String referenceHash; // VERIFIED only: the reference solution that reproduced the expected output
+    private LocalDateTime createdAt;
+    private boolean missing; // contents lost and not archived, so it cannot be run
+
+    public enum Kind {
+        SAMPLE, // from the problem statement's examples
+        USER,
+        STAFF, // saved by an admin
+        GENERATED,
+        VERIFIED // written by the LLM in counterexample mode, its expected output reproduced by the reference
+    }
+}
@@ -0,0 +1,25 @@
+package com.codetest.agent.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/** How a solution's run time grew over generated inputs of increasing size (see ComplexityProfileService). */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ComplexityProfile {
+    private String codeHash; // language and code the profile was measured for
+    private String variable;
+    private long maxN; // largest size the constraints allow
+    private long timeLimitMs;
+    private List<ScalingPoint> points; // sizes that finished within the limits
+    private Long failedAt; // first size that did not, if any
+    private String failure; // its verdict, e.g. "Time Limit Exceeded ..."
+    private String complexity; // best-fitting class, e.g. "O(N log N)"; null if too fast to tell
+    private Long estimatedMaxMs; // measured or extrapolated time at maxN
+    private Boolean feasible; // estimatedMaxMs within the time limit and no size failed
+    private String error; // could not be measured (compilation failed, ...)
+}
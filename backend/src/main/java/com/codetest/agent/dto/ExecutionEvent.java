@@ -0,0 +1,49 @@
+package com.codetest.agent.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One step of a running submission, in order: COMPILED, then CASE_STARTED /
+ * CASE_FINISHED per test case, then SUMMARY with the complete response. A stress
+ * test only has the SUMMARY, with its own response.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExecutionEvent {
+
+    public enum Type {
+        COMPILED, CASE_STARTED, CASE_FINISHED, SUMMARY
+    }
+
+    private Type type;
+    private Integer caseIndex; // CASE_* only, 0-based
+    private Integer totalCases; // CASE_STARTED only
+    private Boolean compileSuccess; // COMPILED only
+    private String compileOutput; // COMPILED only: compiler messages, warnings included
+    private TestResult testResult; // CASE_FINISHED only
+    private ExecutionResponse summary; // SUMMARY only
+    private StressTestResponse stressSummary; // SUMMARY of a stress test only
+
+    public static ExecutionEvent compiled(boolean success, String output) {
+        return new ExecutionEvent(Type.COMPILED, null, null, success, output, null, null, null);
+    }
+
+    public static ExecutionEvent caseStarted(int caseIndex, int totalCases) {
+        return new ExecutionEvent(Type.CASE_STARTED, caseIndex, totalCases, null, null, null, null, null);
+    }
+
+    public static ExecutionEvent caseFinished(int caseIndex, TestResult result) {
+        return new ExecutionEvent(Type.CASE_FINISHED, caseIndex, null, null, null, result, null, null);
+    }
+
+    public static ExecutionEvent summary(ExecutionResponse response) {
+        return new ExecutionEvent(Type.SUMMARY, null, null, null, null, null, response, null);
+    }
+
+    public static ExecutionEvent stressSummary(StressTestResponse response) {
+        return new ExecutionEvent(Type.SUMMARY, null, null, null, null, null, null, response);
+    }
+}
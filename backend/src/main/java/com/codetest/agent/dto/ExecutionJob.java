@@ -0,0 +1,38 @@
+package com.codetest.agent.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An asynchronous submission (POST /api/execute) or stress test (POST
+ * /api/execute/stress). Stored in Redis so that any backend instance can answer
+ * polls and event streams for it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExecutionJob {
+
+    public enum Status {
+        QUEUED, RUNNING, DONE, FAILED
+    }
+
+    private String jobId;
+    private String userId;
+    private Status status;
+    private int totalTestCases;
+    private Boolean compileSuccess; // null until compiled
+    private String compileOutput;
+    private Integer currentCase; // index of the case started last
+    private List<TestResult> testResults = new ArrayList<>(); // grows as cases finish
+    private ExecutionResponse result; // set once DONE
+    private StressTestResponse stressResult; // instead of result, for stress tests
+    private String error; // set when FAILED (e.g. waited too long in the queue)
+    private long submittedAt;
+    private Long startedAt;
+    private Long finishedAt;
+}
@@ -11,4 +11,9 @@ public class ExecutionRequest {
     private String language; // "java", "python", "cpp"
     private String code;
     private java.util.List<TestCase> testCases;
+    private String timeLimit; // ProblemSpec.timeLimit, e.g. "1 초" (default 2 s)
+    private String memoryLimit; // ProblemSpec.memoryLimit, e.g. "128 MB" (default 256 MB)
+    private Boolean failFast; // stop at the first test case that does not pass
+    private String checker; // OutputChecker name, optionally with an argument: "tokens" (default), "structural", "exact", "float:1e-6", "unordered"
+    private Boolean profile; // sample the user's code for hot spots (Java); see ExecutionResponse.profile
 }
@@ -10,8 +10,12 @@ import lombok.NoArgsConstructor;
 public class ExecutionResponse {
     private String output;
     private String error;
-    private long executionTimeMs;
+    private long executionTimeMs; // sum of user time over all test cases
+    private long timeLimitMs; // the problem's limit that verdicts are relative to
+    private int memoryLimitMb;
     private int exitCode;
     private java.util.List<TestResult> testResults;
     private boolean allPassed;
+    private java.util.List<ScalingPoint> scaling; // runtime per size of generated test cases, if any
+    private ProfileReport profile; // hot spots of the slowest case, when requested and supported
 }
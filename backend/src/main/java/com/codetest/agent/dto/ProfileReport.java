@@ -0,0 +1,35 @@
+package com.codetest.agent.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Where a profiled run spent its time: stack samples of the user's code taken
+ * by the runner (Java only), for the slowest test case of the submission.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProfileReport {
+    private int testCase; // index in testResults
+    private int samples;
+    private int intervalMs;
+    private Long allocatedBytes; // by the user's code (main thread), if the JVM reports it
+    private Long gcCount;
+    private Long gcTimeMs;
+    private List<HotSpot> methods; // by self samples: the frame that was running
+    private List<HotSpot> lines; // by the innermost line of the user's own code
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class HotSpot {
+        private String location; // "java.util.HashMap.resize" or "Solution.solve:12"
+        private int samples;
+        private Integer totalSamples; // methods only: samples with the method anywhere on the stack
+        private double percent; // of all samples
+    }
+}
@@ -0,0 +1,18 @@
+package com.codetest.agent.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** One size of a generated test case whose generator lists several sizes, e.g. {@code n = 1e4 | 1e5 | 2e5}. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScalingPoint {
+    private int testCase; // index of the generated test case in the request
+    private String variable;
+    private long value;
+    private Long userTimeMs;
+    private Long peakRssKb;
+    private Double exponent; // log(time ratio) / log(size ratio) against the previous size; null if too fast to tell
+}
@@ -0,0 +1,26 @@
+package com.codetest.agent.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Differential test: random inputs from a generator are run through a trusted
+ * (usually brute-force) reference and the user's code, and their answers compared.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StressTestRequest {
+    private String language; // the code under test
+    private String code;
+    private String referenceLanguage; // default "python"
+    private String referenceCode;
+    private String generatorLanguage; // default "python"
+    private String generatorCode; // reads "<seed> <size>" from stdin, prints one input
+    private Integer iterations; // random inputs to try (default and cap: codegenie.execution.stress.*)
+    private Integer maxSize; // largest size passed to the generator; sizes grow from 1
+    private String timeLimit; // as in ExecutionRequest
+    private String memoryLimit;
+    private String checker;
+}
@@ -0,0 +1,29 @@
+package com.codetest.agent.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StressTestResponse {
+
+    public enum Outcome {
+        COUNTEREXAMPLE_FOUND,
+        NO_COUNTEREXAMPLE,
+        COMPILATION_FAILED, // the code under test
+        GENERATOR_FAILED,
+        REFERENCE_FAILED,
+        ERROR
+    }
+
+    private Outcome outcome;
+    private String error; // everything but COUNTEREXAMPLE_FOUND / NO_COUNTEREXAMPLE
+    private int casesRun; // inputs the code under test was judged on
+    private int parallelism; // lanes the inputs were spread over
+    private long elapsedMs;
+    private Long seed; // COUNTEREXAMPLE_FOUND: generator arguments that reproduce the input
+    private Integer size;
+    private TestResult counterexample; // expectedOutput is the reference's answer
+}
@@ -10,4 +10,11 @@ import lombok.NoArgsConstructor;
 public class TestCase {
     private String input;
     private String expectedOutput;
+    private String generator; // input generator spec used instead of input (see InputGenerator)
+    private Long seed; // for the generator; 1 when unset
+    private String testDataId; // a stored case (see TestDataService) run instead of input; expectedOutput overrides its own
+
+    public TestCase(String input, String expectedOutput) {
+        this(input, expectedOutput, null, null, null);
+    }
 }
@@ -0,0 +1,22 @@
+package com.codetest.agent.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A test case to store for a problem: typed in ({@code input}) or written once
+ * from an input generator spec ({@code generator}, for large inputs).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TestDataRequest {
+    private String source; // ProblemSpec.source, e.g. "BAEKJOON"
+    private String sourceId;
+    private String label;
+    private String input;
+    private String generator; // see InputGenerator; one size only
+    private Long seed; // for the generator; 1 when unset
+    private String expectedOutput; // optional
+}
@@ -13,4 +13,12 @@ public class TestResult {
     private String actualOutput;
     private boolean passed;
     private String error;
+    private String difference; // where a wrong answer first differs from the expected output
+    private Long userTimeMs; // wall time of the user's code only (solution(...) or main)
+    private Long userCpuTimeMs; // CPU time of the same section
+    private Long harnessTimeMs; // JVM start, class loading and argument parsing
+    private Long wallTimeMs; // whole child process
+    private Long peakRssKb; // sampled peak resident set size of the child
+    private Long gcTimeMs;
+    private Long gcCount;
 }
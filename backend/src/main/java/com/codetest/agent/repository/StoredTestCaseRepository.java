@@ -0,0 +1,18 @@
+package com.codetest.agent.repository;
+
+import com.codetest.agent.domain.StoredTestCase;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface StoredTestCaseRepository extends MongoRepository<StoredTestCase, String> {
+    List<StoredTestCase> findByProblemKeyOrderByCreatedAtAsc(String problemKey);
+
+    long countByProblemKey(String problemKey);
+
+    List<StoredTestCase> findByCreatedBy(String createdBy);
+
+    List<StoredTestCase> findByProblemKeyAndKind(String problemKey, StoredTestCase.Kind kind);
+}
@@ -2,7 +2,21 @@ package com.codetest.agent.service;
 
 import com.codetest.agent.domain.Conversation;
 import com.codetest.agent.domain.Message;
+import com.codetest.agent.dto.ComplexityProfile;
+import com.codetest.agent.dto.ExecutionEvent;
+import com.codetest.agent.dto.ExecutionRequest;
+import com.codetest.agent.dto.ExecutionResponse;
+import com.codetest.agent.dto.ProblemSpec;
+import com.codetest.agent.dto.ProfileReport;
+import com.codetest.agent.dto.ScalingPoint;
+import com.codetest.agent.dto.StressTestRequest;
+import com.codetest.agent.dto.StressTestResponse;
+import com.codetest.agent.dto.TestCase;
+import com.codetest.agent.dto.TestResult;
 import com.codetest.agent.repository.ConversationRepository;
+import com.codetest.agent.service.execution.ExecutionListener;
+import com.codetest.agent.service.execution.ExecutionRejectedException;
+import com.codetest.agent.service.execution.OutputCheckers;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -23,8 +37,18 @@ public class ChatService {
     private final ConversationRepository conversationRepository;
     private final LlmService llmService;
     private final CodeExecutionService codeExecutionService;
+    private final StressTestService stressTestService;
+    private final StressTestSourceService stressTestSourceService;
+    private final ComplexityProfileService complexityProfileService;
+    private final CounterexampleCaseService counterexampleCaseService;
+    private final HotSpotProfileService hotSpotProfileService;
     private final com.codetest.agent.service.guardrail.GuardrailService guardrailService; // Injected
-    private final com.fasterxml.jackson.databind.ObjectMapper objectMapper = new com.fasterxml.jackson.databind.ObjectMapper();
+    private final LlmJsonExtractor jsonExtractor;
+
+    /** One case of the LLM's counterexample answer. */
+    @com.fasterxml.jackson.annotation.JsonIgnoreProperties(ignoreUnknown = true)
+    record GeneratedCase(String input, String expected) {
+    }
 
     public Conversation startChat(String mode, String problemText, String userCode, String title, String userId) {
         Conversation conversation = new Conversation();
@@ -92,6 +116,11 @@ public class ChatService {
         messages.add(Map.of("role", "system", "content", systemPrompt));
 
         // 2. Context (Problem & Code)
+        if ("solution".equalsIgnoreCase(conversation.getMode())) {
+            refreshComplexityProfile(conversation);
+        } else if ("debugging".equalsIgnoreCase(conversation.getMode())) {
+            refreshHotSpotProfile(conversation);
+        }
         String context = buildContextString(conversation);
         if (!context.isEmpty()) {
             messages.add(Map.of("role", "user", "content", "Context Info:\n" + context));
@@ -280,65 +309,108 @@ public class ChatService {
     }
 
     private String handleCounterexampleLoop(Conversation conversation, List<Map<String, Object>> messages) {
-        // 1. Get JSON Test Cases from LLM
-        String rawJson = llmService.getChatResponse(messages);
-
-        // Sanitize JSON (sometimes LLM wraps it in markdown code blocks)
-        String jsonContent = rawJson;
-        if (jsonContent.contains("```json")) {
-            jsonContent = jsonContent.substring(jsonContent.indexOf("```json") + 7);
-            if (jsonContent.contains("```")) {
-                jsonContent = jsonContent.substring(0, jsonContent.lastIndexOf("```"));
+        // 0. Cases confirmed in earlier conversations on this problem, the cheapest check:
+        // if one of them fails, there is no need for a stress test or the LLM's cases
+        ProblemSpec spec = conversation.getProblemSpec();
+        int cachedCasesPassed = 0;
+        if (spec != null && conversation.getUserCode() != null && !conversation.getUserCode().isBlank()) {
+            StringBuilder cachedVerdicts = new StringBuilder();
+            ExecutionResponse cached = null;
+            try {
+                cached = counterexampleCaseService.runCached(spec, conversation.getCodeLanguage(),
+                        conversation.getUserCode(), checkerFor(spec), conversation.getUserId(),
+                        verdictListener(cachedVerdicts));
+            } catch (ExecutionRejectedException e) {
+                // busy: the LLM's cases still run below
             }
-        } else if (jsonContent.contains("```")) {
-            jsonContent = jsonContent.substring(jsonContent.indexOf("```") + 3);
-            if (jsonContent.contains("```")) {
-                jsonContent = jsonContent.substring(0, jsonContent.lastIndexOf("```"));
+            if (cached != null) {
+                String report = failureReport(cached, cachedVerdicts,
+                        "이 문제에서 참조 풀이로 검증된 기존 테스트 케이스를 서버에서 실행한 결과, 예상 값과 다릅니다.");
+                if (report != null) {
+                    return report;
+                }
+                cachedCasesPassed = cached.getTestResults().size();
             }
         }
-        jsonContent = jsonContent.trim();
 
-        try {
-            // 2. Parse Test Cases
-            List<Map<String, String>> testCases = objectMapper.readValue(jsonContent,
-                    new com.fasterxml.jackson.core.type.TypeReference<>() {
-                    });
+        // 0-1. Stress test against a brute-force reference: hundreds of random inputs whose
+        // expected outputs come from running code, not from the LLM
+        StressTestResponse stress = stressTest(conversation);
+        if (stress != null && stress.getOutcome() == StressTestResponse.Outcome.COUNTEREXAMPLE_FOUND) {
+            return stressTestReport(stress);
+        }
 
-            // 3. Execute & Verify
-            StringBuilder report = new StringBuilder();
-            boolean foundCounterexample = false;
+        // 1. Get JSON Test Cases from LLM
+        String rawJson = llmService.getChatResponse(messages);
 
-            for (Map<String, String> testCase : testCases) {
-                String input = testCase.get("input");
-                String expected = testCase.get("expected");
+        try {
+            // 2. Parse Test Cases: the answer may be fenced, wrapped in prose or cut off;
+            // the cases that parse are kept
+            List<TestCase> generated = new ArrayList<>();
+            jsonExtractor.readArray(rawJson, GeneratedCase.class,
+                    testCase -> generated.add(new TestCase(testCase.input(), testCase.expected())));
+            if (generated.isEmpty()) {
+                throw new IllegalStateException("No test cases in LLM response");
+            }
+            List<TestCase> cases = generated;
+
+            // 2-1. Drop cases whose expected output the reference solution contradicts,
+            // and keep the confirmed ones for later conversations
+            int refuted = 0;
+            if (spec != null) {
+                try {
+                    List<TestCase> checked = counterexampleCaseService.crossValidate(spec, cases, checkerFor(spec),
+                            conversation.getUserId());
+                    refuted = cases.size() - checked.size();
+                    cases = checked;
+                } catch (ExecutionRejectedException e) {
+                    // busy: run them unchecked
+                }
+            }
 
-                CodeExecutionService.ExecutionResult result = codeExecutionService.runCode(conversation.getUserCode(),
-                        input, "java");
+            // 3. Execute & Verify: one fail-fast submission, so the code is compiled once
+            // and the run stops at the first counterexample
+            ExecutionRequest request = new ExecutionRequest();
+            request.setLanguage(conversation.getCodeLanguage());
+            request.setCode(conversation.getUserCode());
+            request.setTestCases(cases);
+            request.setFailFast(true);
+            if (spec != null) {
+                request.setTimeLimit(spec.getTimeLimit());
+                request.setMemoryLimit(spec.getMemoryLimit());
+                request.setChecker(checkerFor(spec));
+            }
 
-                if (!result.success()) {
-                    // Compilation or Runtime Error
-                    return "❌ **실행 오류 발생 (Execution Error)**\n\n" +
-                            "코드 실행 중 오류가 발생했습니다:\n" +
-                            "```\n" + result.error() + "\n```";
-                }
+            StringBuilder verdicts = new StringBuilder();
+            ExecutionResponse response;
+            try {
+                response = codeExecutionService.execute(request, conversation.getUserId(),
+                        verdictListener(verdicts));
+            } catch (ExecutionRejectedException e) {
+                return "❌ **실행 오류 발생 (Execution Error)**\n\n" + e.getMessage();
+            }
 
-                String actual = result.output();
-                if (!expected.trim().equals(actual.trim())) {
-                    // Counterexample Found!
-                    foundCounterexample = true;
-                    report.append("❌ **반례 발견 (Counterexample Found)!**\n\n")
-                            .append("**입력 (Input)**: `").append(input).append("`\n")
-                            .append("**예상 결과 (Expected)**: `").append(expected).append("`\n")
-                            .append("**실제 실행 결과 (Actual Execution)**: `").append(actual).append("`\n")
-                            .append("**이유**: 서버에서 실제 코드를 실행한 결과, 예상 값과 다릅니다.");
-                    break;
-                }
+            String failure = failureReport(response, verdicts, "서버에서 실제 코드를 실행한 결과, 예상 값과 다릅니다.");
+            if (failure != null) {
+                return failure;
             }
 
-            if (!foundCounterexample) {
-                report.append("✅ **검증 통과 (Verification Passed)!**\n\n")
-                        .append("LLM이 생성한 5개의 테스트 케이스(Edge Case 포함)를 실제 서버에서 돌려본 결과, 모두 정답과 일치합니다.\n")
-                        .append("작성하신 로직은 현재 검증 범위 내에서 올바릅니다.");
+            StringBuilder report = new StringBuilder();
+            report.append("✅ **검증 통과 (Verification Passed)!** ").append(verdicts).append("\n\n")
+                    .append("LLM이 생성한 ").append(cases.size())
+                    .append("개의 테스트 케이스(Edge Case 포함)를 실제 서버에서 돌려본 결과, 모두 정답과 일치합니다.\n")
+                    .append("작성하신 로직은 현재 검증 범위 내에서 올바릅니다.");
+            if (refuted > 0) {
+                report.append("\n참조 풀이와 기대값이 달라 잘못 만들어진 것으로 보이는 케이스 ").append(refuted)
+                        .append("개는 제외했습니다.");
+            }
+            if (cachedCasesPassed > 0) {
+                report.append("\n이 문제에서 이전에 검증된 테스트 케이스 ").append(cachedCasesPassed)
+                        .append("개도 모두 통과했습니다.");
+            }
+            if (stress != null && stress.getOutcome() == StressTestResponse.Outcome.NO_COUNTEREXAMPLE) {
+                report.append("\n무작위 입력 ").append(stress.getCasesRun())
+                        .append("개에서도 완전 탐색 참조 풀이와 결과가 모두 같았습니다.");
             }
 
             return report.toString();
@@ -351,6 +423,106 @@ public class ChatService {
         }
     }
 
+    private static ExecutionListener verdictListener(StringBuilder verdicts) {
+        return event -> {
+            if (event.getType() == ExecutionEvent.Type.CASE_FINISHED) {
+                verdicts.append(event.getTestResult().isPassed() ? "✅" : "❌");
+            }
+        };
+    }
+
+    /** The error or first counterexample of a run; {@code null} if every case passed. */
+    private static String failureReport(ExecutionResponse response, StringBuilder verdicts, String reason) {
+        TestResult failed = response.getTestResults().stream()
+                .filter(result -> !result.isPassed())
+                .findFirst()
+                .orElse(null);
+        String error = response.getError() != null ? response.getError()
+                : failed != null ? failed.getError() : null;
+
+        if (error != null && !error.isEmpty()) {
+            // Compilation or Runtime Error
+            return "❌ **실행 오류 발생 (Execution Error)**\n\n" +
+                    "코드 실행 중 오류가 발생했습니다:\n" +
+                    "```\n" + error + "\n```";
+        }
+        if (failed == null) {
+            return null;
+        }
+        // Counterexample Found!
+        StringBuilder report = new StringBuilder()
+                .append("❌ **반례 발견 (Counterexample Found)!** ").append(verdicts).append("\n\n")
+                .append("**입력 (Input)**: `").append(failed.getInput()).append("`\n")
+                .append("**예상 결과 (Expected)**: `").append(failed.getExpectedOutput()).append("`\n")
+                .append("**실제 실행 결과 (Actual Execution)**: `").append(failed.getActualOutput()).append("`\n");
+        if (failed.getDifference() != null) {
+            report.append("**차이**: ").append(failed.getDifference()).append("\n");
+        }
+        return report.append("**이유**: ").append(reason).toString();
+    }
+
+    /**
+     * Runs the user's code against the problem's cached (or newly written)
+     * reference solution and input generator; {@code null} when there is no
+     * problem spec or no usable reference.
+     */
+    private StressTestResponse stressTest(Conversation conversation) {
+        ProblemSpec spec = conversation.getProblemSpec();
+        if (spec == null || conversation.getUserCode() == null || conversation.getUserCode().isBlank()) {
+            return null;
+        }
+        StressTestSourceService.StressTestSources sources = stressTestSourceService.forProblem(spec);
+        if (sources == null) {
+            return null;
+        }
+        StressTestRequest request = new StressTestRequest();
+        request.setLanguage(conversation.getCodeLanguage());
+        request.setCode(conversation.getUserCode());
+        request.setReferenceLanguage(sources.language());
+        request.setReferenceCode(sources.referenceCode());
+        request.setGeneratorLanguage(sources.language());
+        request.setGeneratorCode(sources.generatorCode());
+        request.setTimeLimit(spec.getTimeLimit());
+        request.setMemoryLimit(spec.getMemoryLimit());
+        request.setChecker(checkerFor(spec));
+
+        StressTestResponse response;
+        try {
+            response = stressTestService.run(request, conversation.getUserId());
+        } catch (ExecutionRejectedException e) {
+            return null; // busy: the LLM's cases still run below
+        }
+        if (response.getOutcome() == StressTestResponse.Outcome.GENERATOR_FAILED
+                || response.getOutcome() == StressTestResponse.Outcome.REFERENCE_FAILED) {
+            System.err.println("Stress test sources are broken, evicting: " + response.getError());
+            stressTestSourceService.evict(spec);
+        }
+        return response;
+    }
+
+    private String stressTestReport(StressTestResponse stress) {
+        TestResult failed = stress.getCounterexample();
+        StringBuilder report = new StringBuilder()
+                .append("❌ **반례 발견 (Counterexample Found)!** 무작위 입력 ").append(stress.getCasesRun())
+                .append("개 중 (seed ").append(stress.getSeed()).append(", size ").append(stress.getSize())
+                .append(")\n\n")
+                .append("**입력 (Input)**: `").append(failed.getInput()).append("`\n")
+                .append("**예상 결과 (Expected)**: `").append(failed.getExpectedOutput()).append("`\n")
+                .append("**실제 실행 결과 (Actual Execution)**: `").append(failed.getActualOutput()).append("`\n");
+        if (failed.getError() != null && !failed.getError().isEmpty()) {
+            report.append("**오류**: ").append(failed.getError()).append("\n");
+        }
+        if (failed.getDifference() != null) {
+            report.append("**차이**: ").append(failed.getDifference()).append("\n");
+        }
+        return report.append("**이유**: 완전 탐색 참조 풀이를 서버에서 함께 실행한 결과, 예상 값과 다릅니다.").toString();
+    }
+
+    private static String checkerFor(ProblemSpec spec) {
+        return OutputCheckers.suggest(spec.getDescription() + "\n" + spec.getOutputFormat() + "\n"
+                + spec.getConstraints());
+    }
+
     private final List<com.codetest.agent.strategy.prompt.PromptStrategy> promptStrategies;
 
     private String getSystemPrompt(Conversation conversation) {
@@ -399,6 +571,127 @@ public class ChatService {
             sb.append("\n[User Code]\n").append(conversation.getUserCode()).append("\n");
         }
 
+        if ("solution".equalsIgnoreCase(conversation.getMode()) && conversation.getComplexityProfile() != null) {
+            sb.append("\n[Measured Complexity]\n").append(describe(conversation.getComplexityProfile()));
+        }
+        ProfileReport hotSpots = conversation.getHotSpotProfile();
+        if ("debugging".equalsIgnoreCase(conversation.getMode()) && hotSpots != null && hotSpots.getSamples() > 0) {
+            sb.append("\n[Hot Spots]\n").append(describe(hotSpots));
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Profiles the user's code on generated inputs unless that was tried for the
+     * same code already, whatever came of it. Best effort: without a problem spec,
+     * a usable input shape or a free execution slot the context simply goes without.
+     */
+    private void refreshComplexityProfile(Conversation conversation) {
+        ProblemSpec spec = conversation.getProblemSpec();
+        String code = conversation.getUserCode();
+        if (spec == null || code == null || code.isBlank() || conversation.getCodeLanguage() == null) {
+            return;
+        }
+        String codeHash = ComplexityProfileService.codeHash(conversation.getCodeLanguage(), code);
+        if (codeHash.equals(conversation.getComplexityCodeHash())) {
+            return;
+        }
+        try {
+            conversation.setComplexityProfile(complexityProfileService.profile(spec, conversation.getCodeLanguage(),
+                    code, conversation.getUserId()));
+            conversation.setComplexityCodeHash(codeHash);
+        } catch (ExecutionRejectedException e) {
+            System.err.println("Complexity profile skipped: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Samples where the user's code spends its time unless the stored profile is
+     * for the same code already. Best effort, like {@link #refreshComplexityProfile}.
+     */
+    private void refreshHotSpotProfile(Conversation conversation) {
+        ProblemSpec spec = conversation.getProblemSpec();
+        String code = conversation.getUserCode();
+        String language = conversation.getCodeLanguage();
+        if (spec == null || code == null || code.isBlank() || language == null
+                || !hotSpotProfileService.supports(language)) {
+            return;
+        }
+        String codeHash = ComplexityProfileService.codeHash(language, code);
+        if (codeHash.equals(conversation.getHotSpotCodeHash())) {
+            return;
+        }
+        try {
+            conversation.setHotSpotProfile(hotSpotProfileService.profile(spec, language, code,
+                    conversation.getUserId()));
+            conversation.setHotSpotCodeHash(codeHash);
+        } catch (ExecutionRejectedException e) {
+            System.err.println("Hot-spot profile skipped: " + e.getMessage());
+        }
+    }
+
+    private static String describe(ProfileReport profile) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("The user's code was sampled every ").append(profile.getIntervalMs())
+                .append(" ms on its slowest input (").append(profile.getSamples()).append(" samples");
+        if (profile.getAllocatedBytes() != null) {
+            sb.append(", ").append(profile.getAllocatedBytes() / (1024 * 1024)).append(" MB allocated");
+        }
+        if (profile.getGcCount() != null) {
+            sb.append(", ").append(profile.getGcCount()).append(" GCs taking ").append(profile.getGcTimeMs())
+                    .append(" ms");
+        }
+        sb.append(").\nMethods (self % = running in the method itself, total % = anywhere on the stack):\n");
+        for (ProfileReport.HotSpot method : profile.getMethods()) {
+            sb.append("- ").append(method.getLocation()).append(": self ").append(method.getPercent()).append("%");
+            if (method.getTotalSamples() != null) {
+                long totalPermille = Math.round(method.getTotalSamples() * 1000.0 / profile.getSamples());
+                sb.append(", total ").append(totalPermille / 10.0).append("%");
+            }
+            sb.append("\n");
+        }
+        sb.append("Lines of the user's code:\n");
+        for (ProfileReport.HotSpot line : profile.getLines()) {
+            sb.append("- ").append(line.getLocation()).append(": ").append(line.getPercent()).append("%\n");
+        }
+        return sb.toString();
+    }
+
+    private static String describe(ComplexityProfile profile) {
+        StringBuilder sb = new StringBuilder();
+        String n = profile.getVariable();
+        if (profile.getError() != null) {
+            return sb.append("Could not be measured: ").append(profile.getError().lines().findFirst().orElse(""))
+                    .append("\n").toString();
+        }
+        sb.append("The user's code was run on generated worst-case inputs (time limit ")
+                .append(profile.getTimeLimitMs()).append(" ms, ").append(n).append(" up to ")
+                .append(profile.getMaxN()).append("):\n");
+        for (ScalingPoint point : profile.getPoints()) {
+            sb.append("- ").append(n).append("=").append(point.getValue()).append(": ")
+                    .append(point.getUserTimeMs()).append(" ms\n");
+        }
+        if (profile.getFailedAt() != null) {
+            sb.append("- ").append(n).append("=").append(profile.getFailedAt()).append(": ")
+                    .append(profile.getFailure()).append("\n");
+        }
+        if (profile.getComplexity() != null) {
+            sb.append("Best fit: ").append(profile.getComplexity()).append("\n");
+        }
+        if (profile.getEstimatedMaxMs() != null) {
+            sb.append("Time at ").append(n).append("=").append(profile.getMaxN()).append(": ~")
+                    .append(profile.getEstimatedMaxMs()).append(" ms");
+            boolean measured = !profile.getPoints().isEmpty()
+                    && profile.getPoints().get(profile.getPoints().size() - 1).getValue() == profile.getMaxN();
+            sb.append(measured ? " (measured)\n" : " (extrapolated)\n");
+        }
+        if (profile.getFeasible() != null) {
+            sb.append(profile.getFeasible() ? "Verdict: fits the time limit.\n"
+                    : "Verdict: exceeds the time limit.\n");
+        } else {
+            sb.append("Verdict: too fast to tell apart at the measured sizes.\n");
+        }
         return sb.toString();
     }
 
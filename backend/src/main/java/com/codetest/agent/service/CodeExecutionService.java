@@ -1,88 +1,188 @@
 package com.codetest.agent.service;
 
+import com.codetest.agent.domain.StoredTestCase;
+import com.codetest.agent.dto.ExecutionEvent;
 import com.codetest.agent.dto.ExecutionRequest;
 import com.codetest.agent.dto.ExecutionResponse;
 import com.codetest.agent.dto.TestCase;
+import com.codetest.agent.dto.ProblemSpec;
+import com.codetest.agent.dto.ProfileReport;
+import com.codetest.agent.dto.ScalingPoint;
 import com.codetest.agent.dto.TestResult;
+import com.codetest.agent.service.execution.ArtifactCache;
+import com.codetest.agent.service.execution.CaseExecutor;
+import com.codetest.agent.service.execution.CompilationResult;
+import com.codetest.agent.service.execution.ExecutionBudget;
+import com.codetest.agent.service.execution.ExecutionListener;
+import com.codetest.agent.service.execution.ExecutionRejectedException;
+import com.codetest.agent.service.execution.ExecutionScheduler;
+import com.codetest.agent.service.execution.InputGenerator;
+import com.codetest.agent.service.execution.LanguageRuntime;
+import com.codetest.agent.service.execution.LanguageRuntimes;
+import com.codetest.agent.service.execution.OutputChecker;
+import com.codetest.agent.service.execution.OutputCheckers;
+import com.codetest.agent.service.execution.ProcessRun;
+import com.codetest.agent.service.execution.ResourceLimits;
+import com.codetest.agent.service.execution.SandboxExecutor;
+import com.codetest.agent.service.execution.StdinSource;
+import com.codetest.agent.service.execution.TestDataStore;
+import com.codetest.agent.service.execution.WorkspaceManager;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
 
-import java.io.*;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
 @Slf4j
+@RequiredArgsConstructor
 public class CodeExecutionService {
 
-    private static final long COMPILE_TIME_LIMIT_MS = 5000;
-    private static final long EXECUTION_TIME_LIMIT_MS = 2000;
+    private static final String STATS_MARKER = "===CODEGENIE_STATS===";
+    private static final String PROFILE_MARKER = "===CODEGENIE_PROFILE===";
+    private static final String INVOKE_MARKER = "===CODEGENIE_INVOKE_START===";
+    // Below this the millisecond timer says too little about growth
+    private static final long MIN_SCALING_TIME_MS = 10;
+    private static final String ANONYMOUS = "anonymous";
+    // Stored inputs up to this size are shown in the results like inline ones
+    private static final int SHOWN_STORED_INPUT_BYTES = 4096;
+
+    // Caps on the limits a request states, which otherwise let one case hold a slot for hours
+    // or a heap the host cannot give
+    @Value("${codegenie.execution.max-time-limit-ms:10000}")
+    private long maxTimeLimitMs;
+
+    @Value("${codegenie.execution.max-memory-limit-mb:1024}")
+    private int maxMemoryLimitMb;
+
+    // Head-room above -Xmx for metaspace, code cache, thread stacks and the JVM itself
+    @Value("${codegenie.execution.rss-overhead-mb:128}")
+    private int rssOverheadMb;
+
+    // Stdout kept per test case; a run printing more is killed and judged Output Limit Exceeded
+    @Value("${codegenie.execution.output-limit-kb:1024}")
+    private int outputLimitKb;
+
+    @Value("${codegenie.execution.compile-time-limit-ms:10000}")
+    private long compileTimeLimitMs;
+
+    // JVM boot, class loading and argument parsing get their own, generous bound;
+    // the problem's time limit applies to user time only (see ExecutionBudget)
+    @Value("${codegenie.execution.harness-time-limit-ms:5000}")
+    private long harnessTimeLimitMs;
+
+    // Wall time for all test cases of one submission together
+    @Value("${codegenie.execution.submission-budget-ms:30000}")
+    private long submissionBudgetMs;
+
+    // Language multipliers: codegenie.execution.time-multiplier.<language>
+    private final Environment environment;
+    private final LanguageRuntimes languageRuntimes;
+    private final ArtifactCache artifactCache;
+    private final ExecutionScheduler executionScheduler;
+    private final WorkspaceManager workspaceManager;
+    private final SandboxExecutor sandboxExecutor;
+    private final OutputCheckers outputCheckers;
+    private final TestDataService testDataService;
+    private final TestDataStore testDataStore;
 
     /**
      * Main entry point: Executes code against multiple test cases.
-     * 1. Creates Temp Dir
-     * 2. Compiles Code
-     * 3. Runs each Test Case
+     * 1. Picks the LanguageRuntime for request.language
+     * 2. Compiles Code (cached by source hash)
+     * 3. Runs each Test Case in a scratch Temp Dir
      * 4. Returns consolidated results
      */
     // --- Main Logic ---
 
     public ExecutionResponse execute(ExecutionRequest request) {
-        String runId = UUID.randomUUID().toString();
-        Path tempDir = null;
+        return execute(request, ANONYMOUS);
+    }
+
+    /**
+     * Waits for an execution slot in {@code userId}'s turn, then runs the submission.
+     *
+     * @throws ExecutionRejectedException if the server is too busy to queue it
+     */
+    public ExecutionResponse execute(ExecutionRequest request, String userId) {
+        return execute(request, userId, ExecutionListener.NONE);
+    }
+
+    /** Whether {@link ExecutionRequest#getProfile() profiled} runs of the language report hot spots. */
+    public boolean supportsProfiling(String language) {
+        LanguageRuntime runtime = languageRuntimes.forLanguage(language);
+        return runtime != null && runtime.supportsProfiling();
+    }
+
+    /** As {@link #execute(ExecutionRequest, String)}, reporting progress to {@code listener}. */
+    public ExecutionResponse execute(ExecutionRequest request, String userId, ExecutionListener listener) {
+        try (ExecutionScheduler.Slot slot = executionScheduler.admit(userId != null ? userId : ANONYMOUS)) {
+            return execute(request, slot, listener);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            ExecutionResponse response = new ExecutionResponse();
+            response.setTestResults(new ArrayList<>());
+            response.setAllPassed(false);
+            response.setError("System Error: execution was interrupted");
+            return response;
+        }
+    }
+
+    /**
+     * Runs a submission that already holds an execution slot (see
+     * {@link ExecutionScheduler#admitAsync}). {@code listener} gets COMPILED, then
+     * CASE_STARTED/CASE_FINISHED for every case as it runs, and always a final
+     * SUMMARY with the returned response.
+     */
+    public ExecutionResponse execute(ExecutionRequest request, ExecutionScheduler.Slot slot,
+            ExecutionListener listener) {
+        ExecutionResponse response = runSubmission(request, listener);
+        listener.onEvent(ExecutionEvent.summary(response));
+        return response;
+    }
+
+    private ExecutionResponse runSubmission(ExecutionRequest request, ExecutionListener listener) {
+        WorkspaceManager.Workspace workspace = null;
         ExecutionResponse response = new ExecutionResponse();
         response.setTestResults(new ArrayList<>());
 
-        try {
-            tempDir = Files.createTempDirectory("codegenie_" + runId);
-
-            // 1. Prepare Code
-            // If user code has 'class Solution', we rename it if needed, or leave it.
-            // But we assume the file should be named Solution.java usually.
-            // If user code defines 'public class Main', we handle that too.
-            // Let's rely on prepareJavaCode logic properly.
-
-            // Logic:
-            // If code has "public static void main", treating as standard Main execution.
-            // If NOT, we treat as Solution execution requiring ReflectionRunner.
-
-            boolean hasMain = hasMainMethod(request.getCode());
-            String finalCode;
-            String mainClassName;
-
-            if (hasMain) {
-                // Determine class name ? Or force Solution/Main?
-                // Logic in prepareJavaCode replaces "public class X" with "public class
-                // Solution"
-                // Let's stick to Solution.java as the user file.
-                finalCode = prepareJavaCode(request.getCode(), "Solution");
-                mainClassName = "Solution";
-            } else {
-                // It is a Solution class without main.
-                // We ensure it is "public class Solution"
-                finalCode = prepareJavaCode(request.getCode(), "Solution");
-                mainClassName = "ReflectionRunner";
-            }
+        LanguageRuntime runtime = languageRuntimes.forLanguage(request.getLanguage());
+        if (runtime == null) {
+            response.setAllPassed(false);
+            response.setError("Unsupported language: " + request.getLanguage());
+            response.setExitCode(1);
+            return response;
+        }
 
-            Path sourcePath = tempDir.resolve("Solution.java");
-            Files.writeString(sourcePath, finalCode);
+        List<PlannedCase> plan;
+        try {
+            plan = planCases(request.getTestCases());
+        } catch (IllegalArgumentException e) {
+            response.setAllPassed(false);
+            response.setError(e.getMessage());
+            response.setExitCode(1);
+            return response;
+        }
 
-            if (!hasMain) {
-                // Write ReflectionRunner
-                Path runnerPath = tempDir.resolve("ReflectionRunner.java");
-                Files.writeString(runnerPath, REFLECTION_RUNNER_SOURCE);
-            }
+        ResourceLimits limits = limitsFor(request.getMemoryLimit());
+        CaseExecutor executor = null;
 
-            // 2. Compile
-            // If hasMain is false, we need to compile ReflectionRunner.java too?
-            // Passing useReflectionRunner flag
-            CompilationResult compileResult = compileJava(sourcePath, !hasMain, tempDir);
+        // 1. Compile (or reuse the cached artifact for identical code)
+        try (SandboxExecutor.Session sandbox = sandboxExecutor.open();
+                ArtifactCache.Lease artifact = artifactCache.acquire(runtime, request.getCode(), compileTimeLimitMs,
+                        sandbox)) {
+            CompilationResult compileResult = artifact.compilation();
+            listener.onEvent(ExecutionEvent.compiled(compileResult.success(), compileResult.output()));
 
             if (!compileResult.success()) {
                 response.setAllPassed(false);
@@ -91,27 +191,69 @@ public class CodeExecutionService {
                 return response;
             }
 
+            // 2. Scratch working directory; the artifact directory is shared and read-only
+            ExecutionBudget budget = budgetFor(runtime, request);
+            workspace = workspaceManager.acquire();
+            boolean profiled = Boolean.TRUE.equals(request.getProfile()) && runtime.supportsProfiling();
+            executor = profiled
+                    ? runtime.openProfiledExecutor(artifact.dir(), workspace.dir(), limits, sandbox,
+                            budget.perCaseMs())
+                    : runtime.openExecutor(artifact.dir(), workspace.dir(), limits, sandbox);
+
             // 3. Run Test Cases
+
+            OutputChecker checker = outputCheckers.forName(request.getChecker());
+            response.setTimeLimitMs(budget.timeLimitMs());
+            response.setMemoryLimitMb(limits.memoryLimitMb());
+
             boolean allPassed = true;
-            if (request.getTestCases() != null && !request.getTestCases().isEmpty()) {
-                for (TestCase testCase : request.getTestCases()) {
-                    // If hasMain -> Run Solution
-                    // If !hasMain -> Run ReflectionRunner
-                    TestResult result = runSingleTestCase(tempDir, mainClassName, testCase);
+            long totalUserTimeMs = 0;
+            if (!plan.isEmpty()) {
+                boolean failFast = Boolean.TRUE.equals(request.getFailFast());
+                long submissionStartedAt = System.nanoTime();
+                for (int i = 0; i < plan.size(); i++) {
+                    TestCase testCase = plan.get(i).testCase();
+                    listener.onEvent(ExecutionEvent.caseStarted(i, plan.size()));
+                    long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - submissionStartedAt);
+                    TestResult result;
+                    if (elapsedMs > budget.submissionBudgetMs()) {
+                        result = skippedTestCase(testCase, budget);
+                    } else {
+                        CaseRun run = runCase(runtime, executor, testCase, plan.get(i).stdin(), limits, budget,
+                                checker);
+                        result = run.result();
+                        keepSlowestProfile(response, i, run);
+                    }
                     response.getTestResults().add(result);
+                    listener.onEvent(ExecutionEvent.caseFinished(i, result));
+                    if (result.getUserTimeMs() != null) {
+                        totalUserTimeMs += result.getUserTimeMs();
+                    }
                     if (!result.isPassed()) {
                         allPassed = false;
+                        if (failFast) {
+                            break; // the remaining cases are left out of testResults
+                        }
                     }
                 }
+                response.setScaling(scaling(plan, response.getTestResults()));
             } else {
                 // Run once
-                TestResult result = runSingleTestCase(tempDir, mainClassName, new TestCase("", ""));
+                listener.onEvent(ExecutionEvent.caseStarted(0, 1));
+                CaseRun run = runCase(runtime, executor, new TestCase("", ""), limits, budget, checker);
+                TestResult result = run.result();
+                keepSlowestProfile(response, 0, run);
+                if (result.getUserTimeMs() != null) {
+                    totalUserTimeMs = result.getUserTimeMs();
+                }
                 result.setPassed(true);
                 response.getTestResults().add(result);
+                listener.onEvent(ExecutionEvent.caseFinished(0, result));
                 response.setOutput(result.getActualOutput());
             }
 
             response.setAllPassed(allPassed);
+            response.setExecutionTimeMs(totalUserTimeMs);
             response.setExitCode(0);
 
         } catch (Exception e) {
@@ -119,8 +261,11 @@ public class CodeExecutionService {
             response.setError("System Error: " + e.getMessage());
             response.setAllPassed(false);
         } finally {
-            if (tempDir != null) {
-                deleteDirectory(tempDir.toFile());
+            if (executor != null) {
+                executor.close();
+            }
+            if (workspace != null) {
+                workspace.close();
             }
         }
 
@@ -128,8 +273,30 @@ public class CodeExecutionService {
     }
 
     public ExecutionResult runCode(String userCode, String input, String language) {
-        ExecutionRequest request = new ExecutionRequest(language, userCode, List.of(new TestCase(input, "")));
-        ExecutionResponse response = execute(request);
+        return runCode(userCode, input, language, null);
+    }
+
+    /** Runs with the problem's time and memory limits when a spec is available. */
+    public ExecutionResult runCode(String userCode, String input, String language, ProblemSpec spec) {
+        return runCode(userCode, input, language, spec, ANONYMOUS);
+    }
+
+    public ExecutionResult runCode(String userCode, String input, String language, ProblemSpec spec,
+            String userId) {
+        ExecutionRequest request = new ExecutionRequest();
+        request.setLanguage(language);
+        request.setCode(userCode);
+        request.setTestCases(List.of(new TestCase(input, "")));
+        if (spec != null) {
+            request.setTimeLimit(spec.getTimeLimit());
+            request.setMemoryLimit(spec.getMemoryLimit());
+        }
+        ExecutionResponse response;
+        try {
+            response = execute(request, userId);
+        } catch (ExecutionRejectedException e) {
+            return new ExecutionResult(false, "", e.getMessage());
+        }
 
         if (response.getError() != null && !response.getError().isEmpty()) {
             return new ExecutionResult(false, "", response.getError());
@@ -149,99 +316,179 @@ public class CodeExecutionService {
 
     // --- Helper Methods ---
 
-    // --- Helper Methods ---
-
-    // --- Helper Methods ---
-
-    private boolean hasMainMethod(String code) {
-        return code.contains("public static void main");
+    /** A case to run: a request's test case, or one size of a generated one. */
+    private record PlannedCase(int index, TestCase testCase, StdinSource stdin, InputGenerator generator) {
     }
 
-    private CompilationResult compileJava(Path sourcePath, boolean useReflectionRunner, Path tempDir)
-            throws IOException, InterruptedException {
-        List<String> command = new ArrayList<>();
-        command.add("javac");
-        command.add("-encoding");
-        command.add("UTF-8");
-        command.add(sourcePath.toString());
-
-        if (useReflectionRunner) {
-            command.add(tempDir.resolve("ReflectionRunner.java").toString());
+    /**
+     * Inline test cases run as given; a generated one runs once per size its
+     * generator lists and is shown by its spec, never by the (possibly huge) input.
+     * Stored ones stream from their file, which starts loading into the page
+     * cache now, while the code compiles.
+     *
+     * @throws IllegalArgumentException if a generator spec is invalid or a stored case does not exist
+     */
+    private List<PlannedCase> planCases(List<TestCase> testCases) {
+        List<PlannedCase> plan = new ArrayList<>();
+        if (testCases == null) {
+            return plan;
         }
+        for (int i = 0; i < testCases.size(); i++) {
+            TestCase testCase = testCases.get(i);
+            if (testCase.getTestDataId() != null) {
+                plan.add(storedCase(i, testCase));
+                continue;
+            }
+            if (testCase.getGenerator() == null || testCase.getGenerator().isBlank()) {
+                plan.add(new PlannedCase(i, testCase, StdinSource.of(testCase.getInput()), null));
+                continue;
+            }
+            long seed = testCase.getSeed() != null ? testCase.getSeed() : 1L;
+            List<InputGenerator> variants;
+            try {
+                variants = InputGenerator.parse(testCase.getGenerator()).variants();
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid input generator: " + e.getMessage(), e);
+            }
+            for (InputGenerator variant : variants) {
+                TestCase shown = new TestCase("[generated, seed " + seed + "] " + variant.describe(),
+                        testCase.getExpectedOutput());
+                plan.add(new PlannedCase(i, shown, variant.stdin(seed), variant));
+            }
+        }
+        return plan;
+    }
 
-        ProcessBuilder compileBuilder = new ProcessBuilder(command);
-        compileBuilder.redirectErrorStream(true);
-        Process compileProcess = compileBuilder.start();
-
-        // Close stdin
-        compileProcess.getOutputStream().close();
+    /** A stored case, shown by its input if that is short and by its label otherwise. */
+    private PlannedCase storedCase(int index, TestCase testCase) {
+        String id = testCase.getTestDataId();
+        StoredTestCase stored = testDataService.find(id);
+        if (stored == null) {
+            throw new IllegalArgumentException("Unknown test data: " + id);
+        }
+        StdinSource input = testDataService.restore(stored) ? testDataStore.input(id) : null;
+        if (input == null) {
+            throw new IllegalArgumentException("Test data is no longer available: " + id);
+        }
+        testDataStore.prefetch(id);
+        try {
+            String expectedOutput = testCase.getExpectedOutput() != null ? testCase.getExpectedOutput()
+                    : testDataStore.expectedOutput(id);
+            String shown = stored.getInputBytes() <= SHOWN_STORED_INPUT_BYTES ? testDataStore.inputText(id)
+                    : "[stored, " + stored.getInputBytes() + " bytes] " + stored.getLabel();
+            return new PlannedCase(index, new TestCase(shown, expectedOutput), input, null);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Unreadable test data: " + id, e);
+        }
+    }
 
-        // Capture output
-        StringBuilder output = new StringBuilder();
-        Thread outputThread = new Thread(() -> {
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(compileProcess.getInputStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    output.append(line).append("\n");
-                }
-            } catch (IOException e) {
-                // Ignore
+    /**
+     * User time per size of each generated case with several sizes, and the
+     * growth exponent between neighbouring sizes (about 1 for linear, 2 for quadratic).
+     */
+    private static List<ScalingPoint> scaling(List<PlannedCase> plan, List<TestResult> results) {
+        List<ScalingPoint> points = new ArrayList<>();
+        ScalingPoint previous = null;
+        for (int i = 0; i < results.size(); i++) {
+            InputGenerator generator = plan.get(i).generator();
+            if (generator == null || generator.scalingVariable() == null) {
+                continue;
+            }
+            TestResult result = results.get(i);
+            ScalingPoint point = new ScalingPoint(plan.get(i).index(), generator.scalingVariable(),
+                    generator.scalingValue(), result.getUserTimeMs(), result.getPeakRssKb(), null);
+            if (previous != null && previous.getTestCase() == point.getTestCase()
+                    && previous.getValue() > 0 && point.getValue() > previous.getValue()
+                    && previous.getUserTimeMs() != null && previous.getUserTimeMs() >= MIN_SCALING_TIME_MS
+                    && point.getUserTimeMs() != null && point.getUserTimeMs() >= MIN_SCALING_TIME_MS) {
+                double exponent = Math.log((double) point.getUserTimeMs() / previous.getUserTimeMs())
+                        / Math.log((double) point.getValue() / previous.getValue());
+                point.setExponent(Math.round(exponent * 100) / 100.0);
             }
-        });
-        outputThread.start();
+            points.add(point);
+            previous = point;
+        }
+        return points.isEmpty() ? null : points;
+    }
 
-        boolean finished = compileProcess.waitFor(15000, TimeUnit.MILLISECONDS);
+    private ExecutionBudget budgetFor(LanguageRuntime runtime, ExecutionRequest request) {
+        return budgetFor(runtime, request.getTimeLimit());
+    }
 
-        if (!finished) {
-            compileProcess.destroyForcibly();
-            outputThread.interrupt();
-            return new CompilationResult(false, "Compilation Time Limit Exceeded (15s)");
-        }
+    ExecutionBudget budgetFor(LanguageRuntime runtime, String timeLimit) {
+        double multiplier = environment.getProperty("codegenie.execution.time-multiplier." + runtime.language(),
+                Double.class, 1.0);
+        return ExecutionBudget.of(timeLimit, multiplier, submissionBudgetMs, maxTimeLimitMs);
+    }
 
-        outputThread.join(1000);
+    ResourceLimits limitsFor(String memoryLimit) {
+        return ResourceLimits.forMemoryLimit(memoryLimit, maxMemoryLimitMb, rssOverheadMb, outputLimitKb);
+    }
 
-        if (compileProcess.exitValue() != 0) {
-            return new CompilationResult(false, output.toString());
-        }
-        return new CompilationResult(true, output.toString());
+    long compileTimeLimitMs() {
+        return compileTimeLimitMs;
     }
 
-    private TestResult runSingleTestCase(Path tempDir, String className, TestCase testCase) {
+    private TestResult skippedTestCase(TestCase testCase, ExecutionBudget budget) {
         TestResult result = new TestResult();
         result.setInput(testCase.getInput());
         result.setExpectedOutput(testCase.getExpectedOutput());
+        result.setActualOutput("");
+        result.setPassed(false);
+        result.setError("Skipped: submission time budget (" + budget.submissionBudgetMs() + " ms) exhausted");
+        return result;
+    }
 
-        try {
-            ProcessBuilder runBuilder = new ProcessBuilder("java", "-cp", tempDir.toString(), className,
-                    "-Dfile.encoding=UTF-8");
-            runBuilder.directory(tempDir.toFile());
+    /**
+     * Runs and judges one test case. Also used by {@link StressTestService}, where
+     * one program's answer becomes the expected output or the input of the next.
+     */
+    CaseRun runCase(LanguageRuntime runtime, CaseExecutor executor, TestCase testCase,
+            ResourceLimits limits, ExecutionBudget budget, OutputChecker checker) {
+        return runCase(runtime, executor, testCase, StdinSource.of(testCase.getInput()), limits, budget, checker);
+    }
 
-            Process runProcess = runBuilder.start();
+    private CaseRun runCase(LanguageRuntime runtime, CaseExecutor executor, TestCase testCase, StdinSource stdin,
+            ResourceLimits limits, ExecutionBudget budget, OutputChecker checker) {
+        TestResult result = new TestResult();
+        String answer = null;
+        ProfileReport profile = null;
+        result.setInput(testCase.getInput());
+        result.setExpectedOutput(testCase.getExpectedOutput());
 
-            // Write Input
-            if (testCase.getInput() != null) {
-                try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(runProcess.getOutputStream()))) {
-                    writer.write(testCase.getInput());
-                    writer.flush();
-                }
-            } else {
-                runProcess.getOutputStream().close();
+        try {
+            ProcessRun run = executor.run(stdin, budget.perCaseMs() + harnessTimeLimitMs);
+            profile = parseProfile(run.stderr());
+            long wallTimeMs = run.wallTimeMs();
+            result.setWallTimeMs(wallTimeMs);
+            if (run.peakRssKb() > 0) {
+                result.setPeakRssKb(run.peakRssKb());
             }
 
-            CommonProcessOutput outputHandler = new CommonProcessOutput(runProcess);
-            outputHandler.start();
-
-            boolean finished = runProcess.waitFor(EXECUTION_TIME_LIMIT_MS, TimeUnit.MILLISECONDS);
-
-            if (!finished) {
-                runProcess.destroyForcibly();
+            if (run.memoryLimitExceeded()) {
+                // The watchdog killed it; whatever was printed so far is not an answer.
+                applyRunnerStats(run.stderr(), wallTimeMs, result);
                 result.setPassed(false);
-                result.setError("Time Limit Exceeded");
                 result.setActualOutput("");
+                result.setError(memoryLimitExceeded(limits));
+            } else if (run.outputLimitExceeded()) {
+                applyRunnerStats(run.stderr(), wallTimeMs, result);
+                result.setPassed(false);
+                result.setActualOutput("");
+                result.setError("Output Limit Exceeded (limit " + limits.outputLimitKb() + " KB)");
+            } else if (!run.finished()) {
+                result.setPassed(false);
+                result.setActualOutput("");
+                if (run.stderr().contains(INVOKE_MARKER)) {
+                    result.setError(budget.timeLimitExceeded());
+                } else {
+                    // Killed before the user's code even started: not the user's fault.
+                    result.setError("Harness Time Limit Exceeded (start-up or input parsing took longer than "
+                            + harnessTimeLimitMs + " ms)");
+                }
             } else {
-                outputHandler.join();
-                String stdout = outputHandler.getStdout();
-                String stderr = outputHandler.getStderr();
+                String stdout = run.stdout();
+                String stderr = applyRunnerStats(run.stderr(), wallTimeMs, result);
 
                 String separator = "===CODEGENIE_OUTPUT_START===";
                 String outputForValidation = stdout;
@@ -272,8 +519,15 @@ public class CodeExecutionService {
                 }
 
                 result.setActualOutput(outputForDisplay.trim());
+                answer = outputForValidation;
 
-                if (runProcess.exitValue() != 0) {
+                if (run.exitCode() != 0 && runtime.isOutOfMemory(stderr)) {
+                    result.setPassed(false);
+                    result.setError(memoryLimitExceeded(limits) + "\n" + stderr);
+                } else if (result.getUserTimeMs() != null && result.getUserTimeMs() > budget.perCaseMs()) {
+                    result.setPassed(false);
+                    result.setError(budget.timeLimitExceeded(result.getUserTimeMs()));
+                } else if (run.exitCode() != 0) {
                     result.setPassed(false);
                     // If we have semantic error but also exit code !0 (unlikely for logic error,
                     // but likely for crash)
@@ -283,10 +537,13 @@ public class CodeExecutionService {
                     if (testCase.getExpectedOutput() == null || testCase.getExpectedOutput().isEmpty()) {
                         result.setPassed(true);
                     } else {
-                        // Normalize line endings and trim
-                        String expected = testCase.getExpectedOutput().trim().replace("\r\n", "\n");
-                        String actual = outputForValidation.trim().replace("\r\n", "\n");
-                        result.setPassed(expected.equals(actual));
+                        OutputChecker caseChecker = stdout.contains(separator)
+                                ? checker.forPrintedResult()
+                                : checker;
+                        OutputChecker.Result verdict = caseChecker.check(testCase.getExpectedOutput(),
+                                outputForValidation);
+                        result.setPassed(verdict.accepted());
+                        result.setDifference(verdict.difference());
                     }
                 }
             }
@@ -295,189 +552,139 @@ public class CodeExecutionService {
             result.setPassed(false);
             result.setError("Execution Error: " + e.getMessage());
         }
-        return result;
-    }
-
-    private String prepareJavaCode(String code, String className) {
-        if (code.contains("class " + className)) {
-            return code;
+        if (profile != null) {
+            profile.setGcCount(result.getGcCount());
+            profile.setGcTimeMs(result.getGcTimeMs());
         }
-        return code.replaceAll("public\\s+class\\s+\\w+", "public class " + className);
+        return new CaseRun(result, answer, profile);
     }
 
-    // Helper class to capture stdout and stderr in background threads
-    private static class CommonProcessOutput {
-        private final Process process;
-        private final StringBuilder stdout = new StringBuilder();
-        private final StringBuilder stderr = new StringBuilder();
-        private Thread outThread;
-        private Thread errThread;
-
-        public CommonProcessOutput(Process process) {
-            this.process = process;
+    /** The profile of the case with the most user time is the one reported. */
+    private static void keepSlowestProfile(ExecutionResponse response, int index, CaseRun run) {
+        if (run.profile() == null) {
+            return;
         }
-
-        public void start() {
-            outThread = new Thread(() -> readStream(process.getInputStream(), stdout));
-            errThread = new Thread(() -> readStream(process.getErrorStream(), stderr));
-            outThread.start();
-            errThread.start();
+        ProfileReport kept = response.getProfile();
+        Long keptTimeMs = kept != null ? response.getTestResults().get(kept.getTestCase()).getUserTimeMs() : null;
+        Long timeMs = run.result().getUserTimeMs();
+        if (kept == null || (timeMs != null && (keptTimeMs == null || timeMs > keptTimeMs))) {
+            run.profile().setTestCase(index);
+            response.setProfile(run.profile());
         }
+    }
 
-        public void join() throws InterruptedException {
-            if (outThread != null)
-                outThread.join(1000);
-            if (errThread != null)
-                errThread.join(1000);
+    /**
+     * Reads the runner's PROFILE lines: a header with the sample count, then the
+     * top frames by self samples ("self"), by samples anywhere on the stack
+     * ("total", merged into the same entries) and the top lines of the user's code.
+     * {@code null} if the run was not profiled.
+     */
+    private static ProfileReport parseProfile(String stderr) {
+        if (!stderr.contains(PROFILE_MARKER)) {
+            return null;
         }
-
-        public String getStdout() {
-            return stdout.toString();
+        ProfileReport profile = new ProfileReport();
+        Map<String, ProfileReport.HotSpot> methods = new LinkedHashMap<>();
+        List<ProfileReport.HotSpot> lines = new ArrayList<>();
+        for (String line : stderr.split("\n")) {
+            if (!line.startsWith(PROFILE_MARKER)) {
+                continue;
+            }
+            String body = line.substring(PROFILE_MARKER.length()).trim();
+            String[] parts = body.split(" ", 3);
+            try {
+                switch (parts[0]) {
+                    case "self" -> methods.put(parts[2],
+                            new ProfileReport.HotSpot(parts[2], Integer.parseInt(parts[1]), null, 0));
+                    case "total" -> methods.computeIfAbsent(parts[2],
+                            location -> new ProfileReport.HotSpot(location, 0, null, 0))
+                            .setTotalSamples(Integer.parseInt(parts[1]));
+                    case "line" -> lines.add(new ProfileReport.HotSpot(parts[2], Integer.parseInt(parts[1]), null, 0));
+                    default -> readProfileHeader(body, profile);
+                }
+            } catch (RuntimeException e) {
+                log.debug("Unreadable profile line: {}", line);
+            }
         }
-
-        public String getStderr() {
-            return stderr.toString();
+        for (ProfileReport.HotSpot hotSpot : methods.values()) {
+            hotSpot.setPercent(percent(hotSpot.getSamples(), profile.getSamples()));
         }
+        for (ProfileReport.HotSpot hotSpot : lines) {
+            hotSpot.setPercent(percent(hotSpot.getSamples(), profile.getSamples()));
+        }
+        profile.setMethods(new ArrayList<>(methods.values()));
+        profile.setLines(lines);
+        return profile;
+    }
 
-        private void readStream(InputStream is, StringBuilder sb) {
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(is))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    sb.append(line).append("\n");
+    private static void readProfileHeader(String header, ProfileReport profile) {
+        for (String pair : header.split(" ")) {
+            int eq = pair.indexOf('=');
+            if (eq <= 0) {
+                continue;
+            }
+            long value = Long.parseLong(pair.substring(eq + 1));
+            switch (pair.substring(0, eq)) {
+                case "samples" -> profile.setSamples((int) value);
+                case "intervalMs" -> profile.setIntervalMs((int) value);
+                case "allocatedBytes" -> profile.setAllocatedBytes(value >= 0 ? value : null);
+                default -> {
                 }
-            } catch (IOException e) {
-                // Ignore
             }
         }
     }
 
-    // --- Reflection Runner Wrapper Code ---
-    // This wrapper handles parsing input arguments from stdin based on the method
-    // signature
-    // and printing the result to stdout.
-    private static final String REFLECTION_RUNNER_SOURCE = """
-            import java.lang.reflect.Method;
-            import java.util.*;
-            import java.io.*;
-            import java.util.regex.*;
-
-            public class ReflectionRunner {
-                public static void main(String[] args) {
-                    try {
-                        Class<?> clazz = Class.forName("Solution");
-                        Method method = null;
-                        for (Method m : clazz.getDeclaredMethods()) {
-                            if (m.getName().equals("solution")) { // Convention: 'solution'
-                                method = m;
-                                break;
-                            }
-                        }
-                        if (method == null) {
-                            // Fallback: use the first public method that returns something
-                            for (Method m : clazz.getMethods()) {
-                                if (m.getDeclaringClass() != Object.class && !m.getName().equals("main")) {
-                                    method = m;
-                                    break;
-                                }
-                            }
-                        }
-
-                        if (method == null) {
-                            System.err.println("No solution method found in Solution class.");
-                            System.exit(1);
-                        }
-
-                        Object instance = clazz.getDeclaredConstructor().newInstance();
-                        Class<?>[] paramTypes = method.getParameterTypes();
-                        Object[] params = new Object[paramTypes.length];
-
-                        Scanner scanner = new Scanner(System.in);
-                        scanner.useDelimiter("[,\\\\s]+");
-                        // Use a custom delimiter pattern? Maybe just tokenize by whitespace unless string contains spaces.
-                        // Ideally, we parse tokens based on type.
-
-                        // Simple Parser:
-                        // If type is int/long/double -> scanner.next[Type]()
-                        // If type is String -> scanner.next()
-                        // If type is array -> parse [a, b, c] string
-
-                        for (int i = 0; i < paramTypes.length; i++) {
-                            params[i] = parseArg(scanner, paramTypes[i]);
-                        }
-
-                        Object result = method.invoke(instance, params);
-                        System.out.println("===CODEGENIE_OUTPUT_START===");
-                        printResult(result);
-
-                    } catch (Throwable e) {
-                        e.printStackTrace();
-                        System.exit(1);
-                    }
-                }
-
-                private static Object parseArg(Scanner scanner, Class<?> type) {
-                    if (type == int.class) return scanner.nextInt();
-                    if (type == long.class) return scanner.nextLong();
-                    if (type == double.class) return scanner.nextDouble();
-                    if (type == String.class) return scanner.next();
-                    if (type == int[].class) {
-                        // Parse array string e.g. [1, 2, 3] or [1,2,3]
-                        // Consume token. Since array might have spaces, this is tricky with simple Scanner.
-                        // Assuming input format is properly spaced or we read whole remaining line?
-                        // Let's assume input text provided by user matches tokens.
-                        // But array inputs like `[1, 2, 3]` are often passed as single token logic if we use regex.
-
-                         String token = scanner.findInLine(Pattern.compile("\\\\[.*\\\\]"));
-                         if (token == null) token = scanner.next(); // Fallback
-
-                         token = token.replaceAll("[\\\\[\\\\]]", "");
-                         if (token.trim().isEmpty()) return new int[0];
-                         String[] parts = token.split("[,\\\\s]+");
-                         int[] arr = new int[parts.length];
-                         for(int i=0; i<parts.length; i++) arr[i] = Integer.parseInt(parts[i].trim());
-                         return arr;
-                    }
-                    if (type == String[].class) {
-                         String token = scanner.findInLine(Pattern.compile("\\\\[.*\\\\]"));
-                         if (token == null) token = scanner.next();
-                         token = token.replaceAll("[\\\\[\\\\]]", "");
-                         if (token.trim().isEmpty()) return new String[0];
-                         return token.split("[,\\\\s]+");
-                    }
-                    return null;
-                }
+    private static double percent(int samples, int total) {
+        return total == 0 ? 0 : Math.round(samples * 1000.0 / total) / 10.0;
+    }
 
-                private static void printResult(Object result) {
-                    if (result == null) {
-                        System.out.println("null");
-                    } else if (result.getClass().isArray()) {
-                        if (result instanceof int[]) System.out.println(Arrays.toString((int[]) result));
-                        else if (result instanceof long[]) System.out.println(Arrays.toString((long[]) result));
-                        else if (result instanceof double[]) System.out.println(Arrays.toString((double[]) result));
-                        else if (result instanceof Object[]) System.out.println(Arrays.deepToString((Object[]) result));
-                        else System.out.println(result); // Fallback
-                    } else {
-                        System.out.println(result);
+    /**
+     * Strips the runner's marker/stats lines from stderr and splits the wall time into
+     * user time (the solution call) and harness time (JVM boot, reflection, parsing).
+     */
+    private String applyRunnerStats(String stderr, long wallTimeMs, TestResult result) {
+        Map<String, Long> stats = new HashMap<>();
+        StringBuilder userStderr = new StringBuilder();
+        for (String line : stderr.split("\n", -1)) {
+            if (line.startsWith(STATS_MARKER)) {
+                for (String pair : line.substring(STATS_MARKER.length()).trim().split(" ")) {
+                    int eq = pair.indexOf('=');
+                    if (eq > 0) {
+                        stats.put(pair.substring(0, eq), Long.parseLong(pair.substring(eq + 1)));
                     }
                 }
+            } else if (!line.equals(INVOKE_MARKER) && !line.startsWith(PROFILE_MARKER)) {
+                userStderr.append(line).append("\n");
             }
-            """;
+        }
 
-    private void deleteDirectory(File directory) {
-        File[] allContents = directory.listFiles();
-        if (allContents != null) {
-            for (File file : allContents) {
-                deleteDirectory(file);
-            }
+        if (stats.containsKey("invokeNanos")) {
+            long userTimeMs = TimeUnit.NANOSECONDS.toMillis(stats.get("invokeNanos"));
+            result.setUserTimeMs(userTimeMs);
+            result.setUserCpuTimeMs(TimeUnit.NANOSECONDS.toMillis(stats.getOrDefault("invokeCpuNanos", 0L)));
+            result.setHarnessTimeMs(Math.max(0, wallTimeMs - userTimeMs));
+        }
+        if (stats.containsKey("gcTimeMs")) {
+            result.setGcTimeMs(stats.get("gcTimeMs"));
+            result.setGcCount(stats.getOrDefault("gcCount", 0L));
         }
-        directory.delete();
+        return userStderr.toString().trim();
+    }
+
+    private String memoryLimitExceeded(ResourceLimits limits) {
+        return "Memory Limit Exceeded (limit " + limits.memoryLimitMb() + " MB)";
     }
 
     // Inner Classes
     public record ExecutionResult(boolean success, String output, String error) {
     }
 
-    private record CompilationResult(boolean success, String output) {
+    /**
+     * @param answer the output that is compared: what follows the output marker,
+     *               without the program's own logs; {@code null} if it did not finish
+     * @param profile hot spots, when the run was profiled
+     */
+    record CaseRun(TestResult result, String answer, ProfileReport profile) {
     }
 
 }
@@ -0,0 +1,194 @@
+package com.codetest.agent.service;
+
+import com.codetest.agent.dto.ProblemSpec;
+import com.codetest.agent.service.execution.InputGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The worst-case input shape a {@link ComplexityProfileService} run scales up:
+ * an {@link InputGenerator} spec over a size variable {@code N}, and the largest
+ * N the constraints allow. Written by the LLM once per problem and kept in Redis
+ * next to the stress test sources; ones that turn out broken are
+ * {@link #evict evicted}. When the LLM gives no usable spec, that is remembered
+ * for a few hours, so every message on the problem does not ask again.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ComplexityInputSourceService {
+
+    public static final String SIZE_VARIABLE = "N";
+    private static final String KEY_PREFIX = "complexity:input:";
+    private static final String UNUSABLE_KEY_PREFIX = "complexity:input-unusable:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final LlmService llmService;
+    private final LlmJsonExtractor jsonExtractor;
+
+    @Value("${codegenie.execution.profile.sources-retention-days:30}")
+    private long retentionDays;
+
+    @Value("${codegenie.execution.profile.unusable-retention-hours:6}")
+    private long unusableRetentionHours;
+
+    /** {@code generator} uses {@link #SIZE_VARIABLE} without defining it. */
+    public record ComplexityInput(String generator, long maxN) {
+    }
+
+    /**
+     * @return the cached or newly written input, or {@code null} if the LLM gave none usable,
+     *         now or within the last few hours
+     */
+    public ComplexityInput forProblem(ProblemSpec spec) {
+        ComplexityInput cached = get(spec);
+        if (cached != null) {
+            return cached;
+        }
+        if (knownUnusable(spec)) {
+            return null;
+        }
+        ComplexityInput input = generate(spec);
+        if (input != null) {
+            put(spec, input);
+        } else {
+            markUnusable(spec);
+        }
+        return input;
+    }
+
+    public void evict(ProblemSpec spec) {
+        try {
+            redisTemplate.delete(key(spec));
+        } catch (Exception e) {
+            log.warn("Complexity input eviction failed for {}: {}", spec.getTitle(), e.getMessage());
+        }
+    }
+
+    private ComplexityInput get(ProblemSpec spec) {
+        try {
+            String json = redisTemplate.opsForValue().get(key(spec));
+            return json == null ? null : objectMapper.readValue(json, ComplexityInput.class);
+        } catch (Exception e) {
+            log.warn("Complexity input cache read failed for {}: {}", spec.getTitle(), e.getMessage());
+            return null;
+        }
+    }
+
+    private void put(ProblemSpec spec, ComplexityInput input) {
+        try {
+            redisTemplate.opsForValue().set(key(spec), objectMapper.writeValueAsString(input),
+                    Duration.ofDays(retentionDays));
+        } catch (Exception e) {
+            log.warn("Complexity input cache write failed for {}: {}", spec.getTitle(), e.getMessage());
+        }
+    }
+
+    private boolean knownUnusable(ProblemSpec spec) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.hasKey(unusableKey(spec)));
+        } catch (Exception e) {
+            log.warn("Complexity input cache read failed for {}: {}", spec.getTitle(), e.getMessage());
+            return false;
+        }
+    }
+
+    private void markUnusable(ProblemSpec spec) {
+        try {
+            redisTemplate.opsForValue().set(unusableKey(spec), "1", Duration.ofHours(unusableRetentionHours));
+        } catch (Exception e) {
+            log.warn("Complexity input cache write failed for {}: {}", spec.getTitle(), e.getMessage());
+        }
+    }
+
+    private ComplexityInput generate(ProblemSpec spec) {
+        boolean functionStyle = "PROGRAMMERS".equalsIgnoreCase(spec.getSource());
+        String layout = functionStyle
+                ? "The spec prints the solution's arguments in parameter order; write arrays `as list`."
+                : "The spec prints one complete input in the input format (if it starts with a test case count, "
+                        + "print 1).";
+        String prompt = String.format("""
+                Describe the largest, slowest input of this problem as a generator spec.
+
+                Problem Title: %s
+                Description: %s
+                Input Format: %s
+                Constraints: %s
+
+                Spec language, one clause per line:
+                  k = int in [1, N]                  random variable
+                  m = N - 1                          computed variable
+                  N m                                a line with these values (no spaces inside expressions)
+                  array of N ints in [1, 1e9]        one line of N values; may be followed by
+                                                     sorted, desc, distinct or as list
+                  permutation of N                   1..N shuffled
+                  m lines of 2 ints in [1, N]        m lines of 2 values each
+                  string of N chars in [a-z]         one line; or in "#."
+                  N strings of m chars in "#."       N lines
+                Numbers may be written 2e5, 10^9 or 10^9+7.
+
+                Rules:
+                - N is the main size parameter (number of elements, vertices, length...). Do not define N;
+                  it is set for you. Every other size must be derived from N.
+                - Use the maximum values the constraints allow and the shape that makes typical solutions slowest.
+                - %s
+
+                Answer with JSON only: {"maxN": <largest N the constraints allow>, "generator": "<spec, lines separated by \\n>"}
+                """,
+                spec.getTitle(), spec.getDescription(), spec.getInputFormat(), spec.getConstraints(), layout);
+
+        String response = llmService.getChatResponse(List.of(
+                Map.of("role", "system", "content", "You are a competitive programming expert. Output only JSON."),
+                Map.of("role", "user", "content", prompt)));
+        try {
+            JsonNode json = jsonExtractor.readObject(response);
+            if (json == null) {
+                log.warn("No complexity input in LLM response for {}", spec.getTitle());
+                return null;
+            }
+            long maxN = json.path("maxN").asLong();
+            String generator = json.path("generator").asText("");
+            if (maxN < 1 || generator.isBlank()) {
+                log.warn("Incomplete complexity input in LLM response for {}", spec.getTitle());
+                return null;
+            }
+            InputGenerator.parse(SIZE_VARIABLE + " = 1\n" + generator);
+            if (parsesAlone(generator)) {
+                log.warn("Complexity input for {} does not depend on {}", spec.getTitle(), SIZE_VARIABLE);
+                return null;
+            }
+            return new ComplexityInput(generator, maxN);
+        } catch (Exception e) {
+            log.warn("Unusable complexity input for {}: {}", spec.getTitle(), e.getMessage());
+            return null;
+        }
+    }
+
+    /** A spec that parses without N defines N itself or never uses it; either way it cannot be scaled. */
+    private static boolean parsesAlone(String generator) {
+        try {
+            InputGenerator.parse(generator);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static String key(ProblemSpec spec) {
+        return KEY_PREFIX + StressTestSourceService.problemKey(spec);
+    }
+
+    private static String unusableKey(ProblemSpec spec) {
+        return UNUSABLE_KEY_PREFIX + StressTestSourceService.problemKey(spec);
+    }
+}
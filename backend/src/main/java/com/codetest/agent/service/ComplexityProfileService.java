@@ -0,0 +1,243 @@
+package com.codetest.agent.service;
+
+import com.codetest.agent.dto.ComplexityProfile;
+import com.codetest.agent.dto.ExecutionRequest;
+import com.codetest.agent.dto.ExecutionResponse;
+import com.codetest.agent.dto.ProblemSpec;
+import com.codetest.agent.dto.ScalingPoint;
+import com.codetest.agent.dto.TestCase;
+import com.codetest.agent.dto.TestResult;
+import com.codetest.agent.service.ComplexityInputSourceService.ComplexityInput;
+import com.codetest.agent.service.execution.ExecutionRejectedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.DoubleUnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * Measures how a solution scales instead of guessing from its code: it runs on
+ * the problem's worst-case input shape ({@link ComplexityInputSourceService}) at
+ * sizes growing by a factor of 4 up to the constraint maximum, as one fail-fast
+ * submission, so a size that exceeds the time limit ends the run. The timings
+ * are fitted to the usual complexity classes and extrapolated to the maximum
+ * when the run did not get there.
+ */
+@Slf4j
+@Service
+public class ComplexityProfileService {
+
+    private static final double SIZE_RATIO = 4;
+    // Below this the millisecond timer says too little about growth
+    private static final long MIN_FIT_TIME_MS = 10;
+
+    /** Complexity classes, as log f(N) so that 2^N does not overflow. */
+    private enum Growth {
+        CONSTANT("O(1)", n -> 0),
+        LOGARITHMIC("O(log N)", n -> Math.log(Math.log(Math.max(n, 3)))),
+        SQUARE_ROOT("O(√N)", n -> 0.5 * Math.log(n)),
+        LINEAR("O(N)", Math::log),
+        LINEARITHMIC("O(N log N)", n -> Math.log(n) + Math.log(Math.log(Math.max(n, 3)))),
+        QUADRATIC("O(N^2)", n -> 2 * Math.log(n)),
+        CUBIC("O(N^3)", n -> 3 * Math.log(n)),
+        EXPONENTIAL("O(2^N)", n -> n * Math.log(2));
+
+        private final String label;
+        private final DoubleUnaryOperator logOf;
+
+        Growth(String label, DoubleUnaryOperator logOf) {
+            this.label = label;
+            this.logOf = logOf;
+        }
+    }
+
+    record Fit(Growth growth, double logScale) {
+        String complexity() {
+            return growth.label;
+        }
+
+        long estimateMs(long n) {
+            double estimate = Math.exp(logScale + growth.logOf.applyAsDouble(n));
+            return estimate >= Long.MAX_VALUE ? Long.MAX_VALUE : Math.round(estimate);
+        }
+    }
+
+    private final CodeExecutionService codeExecutionService;
+    private final ComplexityInputSourceService inputSources;
+    private final MeterRegistry meterRegistry;
+    private final int sizeCount;
+    private final long maxSize;
+
+    public ComplexityProfileService(CodeExecutionService codeExecutionService,
+            ComplexityInputSourceService inputSources, MeterRegistry meterRegistry,
+            @Value("${codegenie.execution.profile.sizes:6}") int sizeCount,
+            @Value("${codegenie.execution.profile.max-size:10000000}") long maxSize) {
+        this.codeExecutionService = codeExecutionService;
+        this.inputSources = inputSources;
+        this.meterRegistry = meterRegistry;
+        this.sizeCount = Math.max(2, sizeCount);
+        this.maxSize = maxSize;
+    }
+
+    /** Identifies the code a profile was measured for. */
+    public static String codeHash(String language, String code) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest((language + "\n" + code).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Waits for an execution slot in {@code userId}'s turn, then profiles the code.
+     *
+     * @return {@code null} if there is no usable input shape for the problem
+     * @throws ExecutionRejectedException if the server is too busy to queue it
+     */
+    public ComplexityProfile profile(ProblemSpec spec, String language, String code, String userId) {
+        ComplexityInput input = inputSources.forProblem(spec);
+        if (input == null) {
+            return null;
+        }
+        List<Long> sizes = sizesUpTo(Math.min(input.maxN(), maxSize), sizeCount);
+        if (sizes.size() < 2) {
+            return null;
+        }
+        String variable = ComplexityInputSourceService.SIZE_VARIABLE;
+        String generator = variable + " = "
+                + sizes.stream().map(String::valueOf).collect(Collectors.joining(" | ")) + "\n" + input.generator();
+
+        ExecutionRequest request = new ExecutionRequest();
+        request.setLanguage(language);
+        request.setCode(code);
+        request.setTestCases(List.of(new TestCase(null, "", generator, 1L, null)));
+        request.setTimeLimit(spec.getTimeLimit());
+        request.setMemoryLimit(spec.getMemoryLimit());
+        request.setFailFast(true);
+        ExecutionResponse response = codeExecutionService.execute(request, userId);
+
+        ComplexityProfile profile = new ComplexityProfile();
+        profile.setCodeHash(codeHash(language, code));
+        profile.setVariable(variable);
+        profile.setMaxN(input.maxN());
+        profile.setTimeLimitMs(response.getTimeLimitMs());
+        if (response.getError() != null && !response.getError().isEmpty()) {
+            if (response.getError().startsWith("Invalid input generator")) {
+                inputSources.evict(spec);
+            }
+            profile.setError(response.getError());
+            return record(profile, "error");
+        }
+
+        List<ScalingPoint> points = new ArrayList<>();
+        List<TestResult> results = response.getTestResults();
+        for (int i = 0; i < results.size(); i++) {
+            TestResult result = results.get(i);
+            if (!result.isPassed()) {
+                String error = result.getError() != null ? result.getError() : "Wrong output";
+                if (error.startsWith("Skipped")) {
+                    break; // out of submission budget; the sizes so far still count
+                }
+                if (error.startsWith("Execution Error: Input generator")) {
+                    inputSources.evict(spec);
+                    profile.setError(error);
+                    return record(profile, "error");
+                }
+                profile.setFailedAt(response.getScaling().get(i).getValue());
+                profile.setFailure(error.lines().findFirst().orElse(error));
+                break;
+            }
+            points.add(response.getScaling().get(i));
+        }
+        estimate(profile, points);
+        return record(profile, profile.getFeasible() == null ? "unknown"
+                : profile.getFeasible() ? "feasible" : "infeasible");
+    }
+
+    /**
+     * Sets the profile's points, best-fitting class, time at its maxN (measured if
+     * the run got there, extrapolated otherwise) and verdict; its maxN, time limit
+     * and any failed size must be set already.
+     */
+    static void estimate(ComplexityProfile profile, List<ScalingPoint> points) {
+        profile.setPoints(points);
+        Fit fit = fit(points);
+        if (fit != null) {
+            profile.setComplexity(fit.complexity());
+        }
+        ScalingPoint largest = points.isEmpty() ? null : points.get(points.size() - 1);
+        if (largest != null && largest.getValue() == profile.getMaxN() && largest.getUserTimeMs() != null) {
+            profile.setEstimatedMaxMs(largest.getUserTimeMs());
+        } else if (fit != null) {
+            profile.setEstimatedMaxMs(fit.estimateMs(profile.getMaxN()));
+        }
+        if (profile.getFailedAt() != null) {
+            profile.setFeasible(false);
+        } else if (profile.getEstimatedMaxMs() != null) {
+            profile.setFeasible(profile.getEstimatedMaxMs() <= profile.getTimeLimitMs());
+        }
+    }
+
+    /** At most {@code count} geometric sizes ending at {@code top}, ascending and distinct. */
+    static List<Long> sizesUpTo(long top, int count) {
+        List<Long> sizes = new ArrayList<>();
+        double size = top;
+        for (int i = 0; i < count && size >= 1; i++, size /= SIZE_RATIO) {
+            long rounded = Math.round(size);
+            if (sizes.isEmpty() || sizes.get(0) != rounded) {
+                sizes.add(0, rounded);
+            }
+        }
+        return sizes;
+    }
+
+    /**
+     * Least squares in log space with each class's exponent fixed, so only the
+     * constant factor is fitted; the class with the smallest residual wins, the
+     * simpler one on ties. {@code null} with fewer than two usable timings.
+     */
+    static Fit fit(List<ScalingPoint> points) {
+        List<ScalingPoint> timed = points.stream()
+                .filter(point -> point.getUserTimeMs() != null && point.getUserTimeMs() >= MIN_FIT_TIME_MS)
+                .toList();
+        if (timed.size() < 2) {
+            return null;
+        }
+        Fit best = null;
+        double bestError = Double.MAX_VALUE;
+        for (Growth growth : Growth.values()) {
+            double[] residuals = new double[timed.size()];
+            double mean = 0;
+            for (int i = 0; i < residuals.length; i++) {
+                residuals[i] = Math.log(timed.get(i).getUserTimeMs())
+                        - growth.logOf.applyAsDouble(timed.get(i).getValue());
+                mean += residuals[i] / residuals.length;
+            }
+            double error = 0;
+            for (double residual : residuals) {
+                error += (residual - mean) * (residual - mean);
+            }
+            if (error < bestError - 1e-9) {
+                best = new Fit(growth, mean);
+                bestError = error;
+            }
+        }
+        return best;
+    }
+
+    private ComplexityProfile record(ComplexityProfile profile, String outcome) {
+        meterRegistry.counter("codegenie.execution.profile.runs", "outcome", outcome).increment();
+        log.debug("Complexity profile: {} {} failedAt={} estimate={} ms", outcome, profile.getComplexity(),
+                profile.getFailedAt(), profile.getEstimatedMaxMs());
+        return profile;
+    }
+}
@@ -0,0 +1,144 @@
+package com.codetest.agent.service;
+
+import com.codetest.agent.domain.StoredTestCase;
+import com.codetest.agent.dto.ExecutionRequest;
+import com.codetest.agent.dto.ExecutionResponse;
+import com.codetest.agent.dto.ProblemSpec;
+import com.codetest.agent.dto.TestCase;
+import com.codetest.agent.dto.TestResult;
+import com.codetest.agent.service.execution.ExecutionListener;
+import com.codetest.agent.service.execution.ExecutionRejectedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counterexample-mode test cases worth keeping: ones the LLM wrote whose
+ * expected output the problem's reference solution ({@link StressTestSourceService})
+ * reproduces. They are stored per problem as {@link StoredTestCase.Kind#VERIFIED}
+ * test data and run before the LLM is asked again, so once a problem has been
+ * through a few conversations most wrong solutions are caught without a
+ * generation round-trip.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CounterexampleCaseService {
+
+    private final CodeExecutionService codeExecutionService;
+    private final StressTestSourceService stressTestSourceService;
+    private final TestDataService testDataService;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * The problem's cases confirmed by its current reference, to run by id. Cases
+     * an earlier reference confirmed are left out: their expected outputs are only
+     * as good as that reference was.
+     */
+    public List<TestCase> cached(ProblemSpec spec) {
+        List<TestCase> cases = new ArrayList<>();
+        StressTestSourceService.StressTestSources sources = stressTestSourceService.cached(spec);
+        if (sources == null) {
+            return cases;
+        }
+        String referenceHash = sources.referenceHash();
+        for (StoredTestCase stored : testDataService.list(StressTestSourceService.problemKey(spec))) {
+            if (stored.getKind() == StoredTestCase.Kind.VERIFIED && !stored.isMissing()
+                    && referenceHash.equals(stored.getReferenceHash())) {
+                TestCase testCase = new TestCase();
+                testCase.setTestDataId(stored.getId());
+                cases.add(testCase);
+            }
+        }
+        return cases;
+    }
+
+    /**
+     * Runs the code on the problem's confirmed cases as one fail-fast submission.
+     *
+     * @return {@code null} if the problem has none
+     * @throws ExecutionRejectedException if the server is too busy to queue it
+     */
+    public ExecutionResponse runCached(ProblemSpec spec, String language, String code, String checker,
+            String userId, ExecutionListener listener) {
+        List<TestCase> cases = cached(spec);
+        if (cases.isEmpty()) {
+            meterRegistry.counter("codegenie.counterexample.cached.runs", "outcome", "none").increment();
+            return null;
+        }
+        ExecutionResponse response = codeExecutionService.execute(
+                request(spec, language, code, cases, checker, true), userId, listener);
+        boolean failed = response.getError() != null && !response.getError().isEmpty()
+                || response.getTestResults().stream().anyMatch(result -> !result.isPassed());
+        meterRegistry.counter("codegenie.counterexample.cached.runs", "outcome", failed ? "failed" : "passed")
+                .increment();
+        return response;
+    }
+
+    /**
+     * Checks the LLM's cases against the reference solution. Cases whose expected
+     * output it reproduces are stored; cases it answers differently are dropped,
+     * since their expected output is wrong. Cases it could not finish stay, unconfirmed.
+     * Without a usable reference the cases are returned as they are.
+     *
+     * @throws ExecutionRejectedException if the server is too busy to queue the reference run
+     */
+    public List<TestCase> crossValidate(ProblemSpec spec, List<TestCase> cases, String checker, String userId) {
+        StressTestSourceService.StressTestSources sources = stressTestSourceService.forProblem(spec);
+        if (sources == null || cases.isEmpty()) {
+            return cases;
+        }
+        ExecutionResponse response = codeExecutionService.execute(
+                request(spec, sources.language(), sources.referenceCode(), cases, checker, false), userId);
+        if (response.getError() != null && !response.getError().isEmpty()) {
+            log.debug("Reference could not check the LLM's cases: {}", response.getError());
+            return cases;
+        }
+
+        String problemKey = StressTestSourceService.problemKey(spec);
+        List<TestCase> kept = new ArrayList<>();
+        List<TestResult> results = response.getTestResults();
+        for (int i = 0; i < cases.size(); i++) {
+            TestCase testCase = cases.get(i);
+            TestResult result = i < results.size() ? results.get(i) : null;
+            String outcome;
+            if (result == null || testCase.getExpectedOutput() == null) {
+                outcome = "unverified";
+                kept.add(testCase);
+            } else if (result.isPassed()) {
+                outcome = "confirmed";
+                kept.add(testCase);
+                try {
+                    testDataService.saveVerified(problemKey, testCase.getInput(), testCase.getExpectedOutput(),
+                            sources.referenceHash());
+                } catch (RuntimeException e) {
+                    log.warn("Confirmed case could not be stored for {}: {}", spec.getTitle(), e.getMessage());
+                }
+            } else if (result.getError() == null || result.getError().isEmpty()) {
+                outcome = "refuted";
+            } else {
+                outcome = "unverified";
+                kept.add(testCase);
+            }
+            meterRegistry.counter("codegenie.counterexample.cases", "outcome", outcome).increment();
+        }
+        return kept;
+    }
+
+    private static ExecutionRequest request(ProblemSpec spec, String language, String code, List<TestCase> cases,
+            String checker, boolean failFast) {
+        ExecutionRequest request = new ExecutionRequest();
+        request.setLanguage(language);
+        request.setCode(code);
+        request.setTestCases(cases);
+        request.setTimeLimit(spec.getTimeLimit());
+        request.setMemoryLimit(spec.getMemoryLimit());
+        request.setChecker(checker);
+        request.setFailFast(failFast);
+        return request;
+    }
+}
@@ -0,0 +1,321 @@
+package com.codetest.agent.service;
+
+import com.codetest.agent.dto.ExecutionEvent;
+import com.codetest.agent.dto.ExecutionJob;
+import com.codetest.agent.dto.ExecutionRequest;
+import com.codetest.agent.dto.ExecutionResponse;
+import com.codetest.agent.dto.StressTestRequest;
+import com.codetest.agent.dto.StressTestResponse;
+import com.codetest.agent.service.execution.ExecutionRejectedException;
+import com.codetest.agent.service.execution.ExecutionScheduler;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Submit/poll execution: a submission is admitted (or rejected) by the
+ * {@link ExecutionScheduler} right away, stored as an {@link ExecutionJob} and
+ * run in the background once it gets a slot, so no HTTP thread waits for
+ * compile and test cases. Stress tests are queued and run the same way.
+ * Progress is written to Redis on every execution event; event streams replay it
+ * from there, so any instance can serve them.
+ */
+@Slf4j
+@Service
+public class ExecutionJobService {
+
+    private final CodeExecutionService codeExecutionService;
+    private final StressTestService stressTestService;
+    private final ExecutionScheduler executionScheduler;
+    private final ExecutionJobStore jobStore;
+    private final long streamTimeoutMs;
+    private final long streamPollMs;
+
+    // Only submissions holding a slot run here, so the scheduler bounds its size.
+    private final ExecutorService jobRunner = Executors.newCachedThreadPool(daemonThreads("execution-job"));
+    private final ScheduledExecutorService streamPoller = Executors.newScheduledThreadPool(2,
+            daemonThreads("execution-job-stream"));
+
+    public ExecutionJobService(CodeExecutionService codeExecutionService, StressTestService stressTestService,
+            ExecutionScheduler executionScheduler, ExecutionJobStore jobStore,
+            @Value("${codegenie.execution.jobs.stream-timeout-ms:300000}") long streamTimeoutMs,
+            @Value("${codegenie.execution.jobs.stream-poll-ms:250}") long streamPollMs) {
+        this.codeExecutionService = codeExecutionService;
+        this.stressTestService = stressTestService;
+        this.executionScheduler = executionScheduler;
+        this.jobStore = jobStore;
+        this.streamTimeoutMs = streamTimeoutMs;
+        this.streamPollMs = streamPollMs;
+    }
+
+    /**
+     * Queues a submission and returns its job without waiting for it to run.
+     *
+     * @throws ExecutionRejectedException if the scheduler's backlog is full
+     */
+    public ExecutionJob submit(ExecutionRequest request, String userId) {
+        int totalTestCases = request.getTestCases() != null ? request.getTestCases().size() : 0;
+        return enqueue(userId, totalTestCases, (job, slot) -> run(job, request, slot));
+    }
+
+    /**
+     * Queues a stress test like a submission; its result is the job's
+     * {@code stressResult}.
+     *
+     * @throws ExecutionRejectedException if the scheduler's backlog is full
+     */
+    public ExecutionJob submitStress(StressTestRequest request, String userId) {
+        return enqueue(userId, 0, (job, slot) -> runStress(job, request, slot));
+    }
+
+    private ExecutionJob enqueue(String userId, int totalTestCases,
+            BiConsumer<ExecutionJob, ExecutionScheduler.Slot> runner) {
+        CompletableFuture<ExecutionScheduler.Slot> ticket = executionScheduler.admitAsync(userId);
+
+        String jobId = UUID.randomUUID().toString();
+        long submittedAt = System.currentTimeMillis();
+        ExecutionJob job = queuedJob(jobId, userId, totalTestCases, submittedAt);
+        try {
+            jobStore.save(job);
+        } catch (RuntimeException e) {
+            if (!ticket.completeExceptionally(e)) {
+                ticket.join().close();
+            }
+            throw e;
+        }
+
+        ticket.whenCompleteAsync((slot, error) -> {
+            if (error != null) {
+                fail(job, error.getMessage());
+            } else {
+                runner.accept(job, slot);
+            }
+        }, jobRunner);
+        // The runner thread keeps updating its own copy; the caller may serialize this one.
+        return queuedJob(jobId, userId, totalTestCases, submittedAt);
+    }
+
+    private static ExecutionJob queuedJob(String jobId, String userId, int totalTestCases, long submittedAt) {
+        ExecutionJob job = new ExecutionJob();
+        job.setJobId(jobId);
+        job.setUserId(userId);
+        job.setStatus(ExecutionJob.Status.QUEUED);
+        job.setTotalTestCases(totalTestCases);
+        job.setSubmittedAt(submittedAt);
+        return job;
+    }
+
+    /** The job, or {@code null} if it does not exist (any more) or belongs to someone else. */
+    public ExecutionJob find(String jobId, String userId) {
+        ExecutionJob job = jobStore.get(jobId);
+        return job != null && job.getUserId().equals(userId) ? job : null;
+    }
+
+    /**
+     * Streams a job as server-sent events carrying {@link ExecutionEvent}s:
+     * {@code compiled}, then {@code caseStarted} / {@code caseFinished} per case,
+     * then {@code summary} (or {@code error}) before the stream completes, with a
+     * {@code status} event on every status change. Whatever happened before the
+     * client connected is replayed first.
+     */
+    public SseEmitter stream(String jobId) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        StreamState state = new StreamState();
+        state.poll = streamPoller.scheduleWithFixedDelay(() -> pushUpdates(jobId, emitter, state), 0, streamPollMs,
+                TimeUnit.MILLISECONDS);
+        if (state.done) {
+            state.poll.cancel(false); // finished on the first poll, before poll was assigned
+        }
+        emitter.onCompletion(state::stop);
+        emitter.onTimeout(state::stop);
+        emitter.onError(error -> state.stop());
+        return emitter;
+    }
+
+    private void run(ExecutionJob job, ExecutionRequest request, ExecutionScheduler.Slot slot) {
+        try (slot) {
+            job.setStatus(ExecutionJob.Status.RUNNING);
+            job.setStartedAt(System.currentTimeMillis());
+            saveProgress(job);
+
+            // Per-case progress is a small write, not the whole job again
+            ExecutionResponse response = codeExecutionService.execute(request, slot, event -> {
+                switch (event.getType()) {
+                    case COMPILED -> {
+                        job.setCompileSuccess(event.getCompileSuccess());
+                        job.setCompileOutput(event.getCompileOutput());
+                        saveProgress(job);
+                    }
+                    case CASE_STARTED -> {
+                        job.setCurrentCase(event.getCaseIndex());
+                        if (event.getTotalCases() != job.getTotalTestCases()) {
+                            job.setTotalTestCases(event.getTotalCases());
+                            saveProgress(job);
+                        } else {
+                            saveProgress(job, () -> jobStore.markCaseStarted(job.getJobId(), event.getCaseIndex()));
+                        }
+                    }
+                    case CASE_FINISHED -> {
+                        job.getTestResults().add(event.getTestResult());
+                        saveProgress(job, () -> jobStore.appendResult(job.getJobId(), event.getTestResult()));
+                    }
+                    case SUMMARY -> {
+                        // stored below, together with the DONE status
+                    }
+                }
+            });
+
+            job.setResult(response);
+            job.setStatus(ExecutionJob.Status.DONE);
+            job.setFinishedAt(System.currentTimeMillis());
+            saveProgress(job);
+        } catch (RuntimeException e) {
+            log.error("Execution job {} failed", job.getJobId(), e);
+            fail(job, "System Error: " + e.getMessage());
+        }
+    }
+
+    private void runStress(ExecutionJob job, StressTestRequest request, ExecutionScheduler.Slot slot) {
+        try (slot) {
+            job.setStatus(ExecutionJob.Status.RUNNING);
+            job.setStartedAt(System.currentTimeMillis());
+            saveProgress(job);
+
+            StressTestResponse response = stressTestService.run(request, job.getUserId(), slot);
+
+            job.setStressResult(response);
+            job.setStatus(ExecutionJob.Status.DONE);
+            job.setFinishedAt(System.currentTimeMillis());
+            saveProgress(job);
+        } catch (RuntimeException e) {
+            log.error("Stress test job {} failed", job.getJobId(), e);
+            fail(job, "System Error: " + e.getMessage());
+        }
+    }
+
+    private void fail(ExecutionJob job, String error) {
+        job.setStatus(ExecutionJob.Status.FAILED);
+        job.setError(error);
+        job.setFinishedAt(System.currentTimeMillis());
+        saveProgress(job);
+    }
+
+    private void saveProgress(ExecutionJob job) {
+        saveProgress(job, () -> jobStore.save(job));
+    }
+
+    private void saveProgress(ExecutionJob job, Runnable write) {
+        try {
+            write.run();
+        } catch (RuntimeException e) {
+            // Keep running; the final update still carries the whole result.
+            log.warn("Could not store progress of execution job {}: {}", job.getJobId(), e.getMessage());
+        }
+    }
+
+    private void pushUpdates(String jobId, SseEmitter emitter, StreamState state) {
+        if (state.done) {
+            return;
+        }
+        try {
+            ExecutionJob job = jobStore.get(jobId);
+            if (job == null) {
+                emitter.send(SseEmitter.event().name("error").data("Execution job not found or expired"));
+                finish(emitter, state);
+                return;
+            }
+            if (job.getCompileSuccess() != null && !state.sentCompiled) {
+                state.sentCompiled = true;
+                emitter.send(SseEmitter.event().name("compiled")
+                        .data(ExecutionEvent.compiled(job.getCompileSuccess(), job.getCompileOutput())));
+            }
+            // A case may start and finish between two polls; still send both, in order.
+            int finished = job.getTestResults().size();
+            int started = Math.max(finished, job.getCurrentCase() != null ? job.getCurrentCase() + 1 : 0);
+            while (state.sentFinished < finished) {
+                if (state.sentStarted == state.sentFinished) {
+                    sendCaseStarted(emitter, state, job);
+                }
+                int index = state.sentFinished++;
+                emitter.send(SseEmitter.event().name("caseFinished")
+                        .data(ExecutionEvent.caseFinished(index, job.getTestResults().get(index))));
+            }
+            while (state.sentStarted < started) {
+                sendCaseStarted(emitter, state, job);
+            }
+            if (job.getStatus() != state.status) {
+                state.status = job.getStatus();
+                emitter.send(SseEmitter.event().name("status").data(job.getStatus()));
+            }
+            if (job.getStatus() == ExecutionJob.Status.DONE) {
+                emitter.send(SseEmitter.event().name("summary").data(job.getStressResult() != null
+                        ? ExecutionEvent.stressSummary(job.getStressResult())
+                        : ExecutionEvent.summary(job.getResult())));
+                finish(emitter, state);
+            } else if (job.getStatus() == ExecutionJob.Status.FAILED) {
+                emitter.send(SseEmitter.event().name("error").data(job.getError()));
+                finish(emitter, state);
+            }
+        } catch (IOException | RuntimeException e) {
+            // Client went away or Redis is unreachable
+            state.stop();
+            emitter.completeWithError(e);
+        }
+    }
+
+    private static void sendCaseStarted(SseEmitter emitter, StreamState state, ExecutionJob job) throws IOException {
+        emitter.send(SseEmitter.event().name("caseStarted")
+                .data(ExecutionEvent.caseStarted(state.sentStarted++, job.getTotalTestCases())));
+    }
+
+    private static void finish(SseEmitter emitter, StreamState state) {
+        state.stop();
+        emitter.complete();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        streamPoller.shutdownNow();
+        jobRunner.shutdownNow();
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class StreamState {
+        private volatile ScheduledFuture<?> poll;
+        private volatile boolean done;
+        private ExecutionJob.Status status;
+        private boolean sentCompiled;
+        private int sentStarted;
+        private int sentFinished;
+
+        void stop() {
+            done = true;
+            ScheduledFuture<?> scheduled = poll;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+        }
+    }
+}
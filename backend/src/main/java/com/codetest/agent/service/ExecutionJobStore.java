@@ -0,0 +1,111 @@
+package com.codetest.agent.service;
+
+import com.codetest.agent.dto.ExecutionJob;
+import com.codetest.agent.dto.TestResult;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Redis-backed store of {@link ExecutionJob}s, shared by every backend instance.
+ * A job is kept as a hash holding its state and the index of the case started
+ * last, next to a list of the results of its finished cases, so progress during
+ * a run is a small write instead of the whole job. Jobs expire after the
+ * retention period.
+ */
+@Component
+@RequiredArgsConstructor
+public class ExecutionJobStore {
+
+    private static final String KEY_PREFIX = "execution:job:";
+    private static final String STATE_FIELD = "state";
+    private static final String CURRENT_CASE_FIELD = "currentCase";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${codegenie.execution.jobs.retention-minutes:60}")
+    private long retentionMinutes;
+
+    public ExecutionJob get(String jobId) {
+        Map<String, String> fields = hash().entries(stateKey(jobId));
+        String state = fields.get(STATE_FIELD);
+        if (state == null) {
+            return null;
+        }
+        try {
+            ExecutionJob job = objectMapper.readValue(state, ExecutionJob.class);
+            String currentCase = fields.get(CURRENT_CASE_FIELD);
+            job.setCurrentCase(currentCase != null ? Integer.valueOf(currentCase) : null);
+            List<String> results = redisTemplate.opsForList().range(resultsKey(jobId), 0, -1);
+            List<TestResult> testResults = new ArrayList<>();
+            if (results != null) {
+                for (String result : results) {
+                    testResults.add(objectMapper.readValue(result, TestResult.class));
+                }
+            }
+            job.setTestResults(testResults);
+            return job;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupt execution job " + jobId, e);
+        }
+    }
+
+    /**
+     * Writes the job's state. Its test results are not written: they are appended
+     * one by one with {@link #appendResult}.
+     */
+    public void save(ExecutionJob job) {
+        ObjectNode state = objectMapper.valueToTree(job);
+        state.remove("testResults");
+        state.remove("currentCase");
+        String key = stateKey(job.getJobId());
+        hash().put(key, STATE_FIELD, state.toString());
+        if (job.getCurrentCase() != null) {
+            hash().put(key, CURRENT_CASE_FIELD, job.getCurrentCase().toString());
+        }
+        redisTemplate.expire(key, retention());
+    }
+
+    public void markCaseStarted(String jobId, int caseIndex) {
+        hash().put(stateKey(jobId), CURRENT_CASE_FIELD, Integer.toString(caseIndex));
+    }
+
+    public void appendResult(String jobId, TestResult result) {
+        String key = resultsKey(jobId);
+        try {
+            Long size = redisTemplate.opsForList().rightPush(key, objectMapper.writeValueAsString(result));
+            if (size != null && size == 1) {
+                redisTemplate.expire(key, retention());
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize a test result of execution job " + jobId, e);
+        }
+    }
+
+    private HashOperations<String, String, String> hash() {
+        return redisTemplate.opsForHash();
+    }
+
+    private Duration retention() {
+        return Duration.ofMinutes(retentionMinutes);
+    }
+
+    private static String stateKey(String jobId) {
+        return KEY_PREFIX + jobId + ":state";
+    }
+
+    private static String resultsKey(String jobId) {
+        return KEY_PREFIX + jobId + ":results";
+    }
+}
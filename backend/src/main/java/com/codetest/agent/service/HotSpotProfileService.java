@@ -0,0 +1,92 @@
+package com.codetest.agent.service;
+
+import com.codetest.agent.dto.Example;
+import com.codetest.agent.dto.ExecutionRequest;
+import com.codetest.agent.dto.ExecutionResponse;
+import com.codetest.agent.dto.ProblemSpec;
+import com.codetest.agent.dto.ProfileReport;
+import com.codetest.agent.dto.TestCase;
+import com.codetest.agent.service.ComplexityInputSourceService.ComplexityInput;
+import com.codetest.agent.service.execution.ExecutionRejectedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds where the user's code spends its time, for debugging questions about
+ * slowness: one profiled run on the problem's worst-case input shape at the
+ * largest size (the same input {@link ComplexityProfileService} scales), or on
+ * the statement's examples when there is none. The runner stops a run at the
+ * time limit and still reports, so a too slow solution gets a profile too.
+ */
+@Slf4j
+@Service
+public class HotSpotProfileService {
+
+    private final CodeExecutionService codeExecutionService;
+    private final ComplexityInputSourceService inputSources;
+    private final MeterRegistry meterRegistry;
+    private final long maxSize;
+
+    public HotSpotProfileService(CodeExecutionService codeExecutionService,
+            ComplexityInputSourceService inputSources, MeterRegistry meterRegistry,
+            @Value("${codegenie.execution.profile.max-size:10000000}") long maxSize) {
+        this.codeExecutionService = codeExecutionService;
+        this.inputSources = inputSources;
+        this.meterRegistry = meterRegistry;
+        this.maxSize = maxSize;
+    }
+
+    public boolean supports(String language) {
+        return codeExecutionService.supportsProfiling(language);
+    }
+
+    /**
+     * Waits for an execution slot in {@code userId}'s turn, then profiles the code.
+     *
+     * @return {@code null} if the language cannot be profiled, there is nothing
+     *         to run it on, or it did not get as far as running
+     * @throws ExecutionRejectedException if the server is too busy to queue it
+     */
+    public ProfileReport profile(ProblemSpec spec, String language, String code, String userId) {
+        if (!supports(language)) {
+            return null;
+        }
+        List<TestCase> testCases = new ArrayList<>();
+        ComplexityInput input = inputSources.forProblem(spec);
+        if (input != null) {
+            long size = Math.min(input.maxN(), maxSize);
+            testCases.add(new TestCase(null, "",
+                    ComplexityInputSourceService.SIZE_VARIABLE + " = " + size + "\n" + input.generator(), 1L, null));
+        } else if (spec.getExamples() != null) {
+            for (Example example : spec.getExamples()) {
+                testCases.add(new TestCase(example.getInput(), ""));
+            }
+        }
+        if (testCases.isEmpty()) {
+            return null;
+        }
+
+        ExecutionRequest request = new ExecutionRequest();
+        request.setLanguage(language);
+        request.setCode(code);
+        request.setTestCases(testCases);
+        request.setTimeLimit(spec.getTimeLimit());
+        request.setMemoryLimit(spec.getMemoryLimit());
+        request.setProfile(true);
+        ExecutionResponse response = codeExecutionService.execute(request, userId);
+
+        if (response.getError() != null && response.getError().startsWith("Invalid input generator")) {
+            inputSources.evict(spec);
+        }
+        ProfileReport profile = response.getProfile();
+        String outcome = profile == null ? "none" : profile.getSamples() == 0 ? "empty" : "sampled";
+        meterRegistry.counter("codegenie.execution.hotspot.runs", "outcome", outcome).increment();
+        log.debug("Hot-spot profile: {} ({} samples)", outcome, profile == null ? 0 : profile.getSamples());
+        return profile;
+    }
+}
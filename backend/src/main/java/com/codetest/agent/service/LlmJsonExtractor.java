@@ -0,0 +1,149 @@
+package com.codetest.agent.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.function.Consumer;
+
+/**
+ * Reads the JSON out of an LLM answer, which is seldom only JSON: it may be
+ * fenced as a markdown code block, introduced or followed by prose, or cut off.
+ * The answer is scanned for the first bracket that starts a value of the wanted
+ * kind and parsed from there with the shared mapper's streaming parser, which
+ * stops at the end of that value; whatever follows is never read. A bracket in
+ * the prose that does not start one is skipped. Parsing tolerates what models
+ * tend to get wrong: comments, single quotes, unquoted names and trailing commas.
+ */
+@Slf4j
+@Component
+public class LlmJsonExtractor {
+
+    // How far a failed attempt can be rewound to retry from the next bracket
+    private static final int MAX_ATTEMPT_CHARS = 1 << 16;
+
+    private final ObjectMapper objectMapper;
+
+    public LlmJsonExtractor(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /** @return the first complete JSON object in the text, or {@code null} if there is none */
+    public JsonNode readObject(String text) {
+        if (text == null) {
+            return null;
+        }
+        try (BufferedReader reader = new BufferedReader(new StringReader(text))) {
+            while (skipTo(reader, '{')) {
+                try (JsonParser parser = parser(reader)) {
+                    return objectMapper.readTree(parser);
+                } catch (IOException e) {
+                    if (!rewind(reader)) {
+                        return null;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.debug("LLM answer could not be read: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    /** {@link #readArray(Reader, Class, Consumer)} over a complete answer. */
+    public <T> int readArray(String text, Class<T> elementType, Consumer<? super T> consumer) {
+        return text == null ? 0 : readArray(new StringReader(text), elementType, consumer);
+    }
+
+    /**
+     * Reads the first JSON array whose elements are {@code elementType}s, handing
+     * each element to {@code consumer} as soon as it is parsed, so a caller reading
+     * an answer as it arrives can act on the first elements before the rest is in.
+     * An array that is cut off or broken part way keeps the elements before the break.
+     *
+     * @return the number of elements handed over, 0 if there is no such array
+     */
+    public <T> int readArray(Reader text, Class<T> elementType, Consumer<? super T> consumer) {
+        JavaType type = objectMapper.constructType(elementType);
+        try (BufferedReader reader = new BufferedReader(text)) {
+            while (skipTo(reader, '[')) {
+                int count = 0;
+                try (JsonParser parser = parser(reader)) {
+                    parser.nextToken();
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        T element = objectMapper.readValue(parser, type);
+                        consumer.accept(element);
+                        count++;
+                    }
+                    if (count > 0) {
+                        return count;
+                    }
+                    // an empty array in the prose; keep looking
+                    if (!rewind(reader)) {
+                        return 0;
+                    }
+                } catch (IOException e) {
+                    if (count > 0) {
+                        log.debug("LLM answer array broken after {} elements: {}", count, e.getMessage());
+                        return count;
+                    }
+                    if (!rewind(reader)) {
+                        return 0;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.debug("LLM answer could not be read: {}", e.getMessage());
+        }
+        return 0;
+    }
+
+    /**
+     * Reads up to the next {@code bracket} and marks it, so a failed attempt can
+     * be rewound to retry past it.
+     */
+    private static boolean skipTo(BufferedReader reader, char bracket) throws IOException {
+        while (true) {
+            reader.mark(MAX_ATTEMPT_CHARS);
+            int c = reader.read();
+            if (c < 0) {
+                return false;
+            }
+            if (c == bracket) {
+                reader.reset();
+                return true;
+            }
+        }
+    }
+
+    // Back to the bracket that was tried, then past it
+    private static boolean rewind(BufferedReader reader) {
+        try {
+            reader.reset();
+            reader.skip(1);
+            return true;
+        } catch (IOException e) {
+            // the attempt read too far to be retried
+            return false;
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private JsonParser parser(Reader reader) throws IOException {
+        JsonParser parser = objectMapper.getFactory().createParser(reader);
+        // The reader outlives the attempt
+        parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+        parser.enable(JsonParser.Feature.ALLOW_COMMENTS);
+        parser.enable(JsonParser.Feature.ALLOW_SINGLE_QUOTES);
+        parser.enable(JsonParser.Feature.ALLOW_UNQUOTED_FIELD_NAMES);
+        parser.enable(JsonParser.Feature.ALLOW_TRAILING_COMMA);
+        return parser;
+    }
+}
@@ -0,0 +1,378 @@
+package com.codetest.agent.service;
+
+import com.codetest.agent.dto.StressTestRequest;
+import com.codetest.agent.dto.StressTestResponse;
+import com.codetest.agent.dto.StressTestResponse.Outcome;
+import com.codetest.agent.dto.TestCase;
+import com.codetest.agent.dto.TestResult;
+import com.codetest.agent.service.execution.ArtifactCache;
+import com.codetest.agent.service.execution.CaseExecutor;
+import com.codetest.agent.service.execution.ExecutionBudget;
+import com.codetest.agent.service.execution.ExecutionRejectedException;
+import com.codetest.agent.service.execution.ExecutionScheduler;
+import com.codetest.agent.service.execution.LanguageRuntime;
+import com.codetest.agent.service.execution.LanguageRuntimes;
+import com.codetest.agent.service.execution.OutputChecker;
+import com.codetest.agent.service.execution.OutputCheckers;
+import com.codetest.agent.service.execution.ResourceLimits;
+import com.codetest.agent.service.execution.SandboxExecutor;
+import com.codetest.agent.service.execution.WorkspaceManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Differential stress testing: a generator program prints random inputs, a
+ * trusted reference (usually a brute force) answers them, and the code under
+ * test must give the same answers. All three are compiled once (through the
+ * {@link ArtifactCache}); the inputs are then spread over several lanes, each
+ * with its own sandbox session, workspace and executors, so Python programs
+ * keep running on warm workers.
+ *
+ * The generator reads {@code "<seed> <size>"} from stdin. Seeds count up from 1
+ * and sizes grow from 1 to {@code maxSize}, so the first differences found are
+ * on the smallest inputs; once one is found, lanes finish the input in hand and
+ * stop, and the shortest differing input is reported.
+ *
+ * A stress test holds one execution slot like a submission, plus as many
+ * further slots as are free right now, one per extra lane.
+ */
+@Slf4j
+@Service
+public class StressTestService {
+
+    private static final String DEFAULT_HELPER_LANGUAGE = "python";
+
+    private final CodeExecutionService codeExecutionService;
+    private final LanguageRuntimes languageRuntimes;
+    private final ArtifactCache artifactCache;
+    private final ExecutionScheduler executionScheduler;
+    private final WorkspaceManager workspaceManager;
+    private final SandboxExecutor sandboxExecutor;
+    private final OutputCheckers outputCheckers;
+    private final MeterRegistry meterRegistry;
+    private final int parallelism;
+    private final int defaultIterations;
+    private final int maxIterations;
+    private final int defaultMaxSize;
+    private final long budgetMs;
+
+    private final AtomicInteger laneThreads = new AtomicInteger();
+    private final ExecutorService lanes = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "stress-test-" + laneThreads.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public StressTestService(CodeExecutionService codeExecutionService, LanguageRuntimes languageRuntimes,
+            ArtifactCache artifactCache, ExecutionScheduler executionScheduler, WorkspaceManager workspaceManager,
+            SandboxExecutor sandboxExecutor, OutputCheckers outputCheckers, MeterRegistry meterRegistry,
+            @Value("${codegenie.execution.stress.parallelism:4}") int parallelism,
+            @Value("${codegenie.execution.stress.iterations:500}") int defaultIterations,
+            @Value("${codegenie.execution.stress.max-iterations:5000}") int maxIterations,
+            @Value("${codegenie.execution.stress.max-size:8}") int defaultMaxSize,
+            @Value("${codegenie.execution.stress.budget-ms:20000}") long budgetMs) {
+        this.codeExecutionService = codeExecutionService;
+        this.languageRuntimes = languageRuntimes;
+        this.artifactCache = artifactCache;
+        this.executionScheduler = executionScheduler;
+        this.workspaceManager = workspaceManager;
+        this.sandboxExecutor = sandboxExecutor;
+        this.outputCheckers = outputCheckers;
+        this.meterRegistry = meterRegistry;
+        this.parallelism = Math.max(1, parallelism);
+        this.defaultIterations = defaultIterations;
+        this.maxIterations = maxIterations;
+        this.defaultMaxSize = defaultMaxSize;
+        this.budgetMs = budgetMs;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        lanes.shutdownNow();
+    }
+
+    /**
+     * Waits for an execution slot in {@code userId}'s turn, then runs the stress test.
+     *
+     * @throws ExecutionRejectedException if the server is too busy to queue it
+     */
+    public StressTestResponse run(StressTestRequest request, String userId) {
+        try (ExecutionScheduler.Slot slot = executionScheduler.admit(userId)) {
+            return run(request, userId, slot);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return failed(Outcome.ERROR, "System Error: stress test was interrupted");
+        }
+    }
+
+    /** Runs the stress test in a slot the caller was granted and closes afterwards. */
+    public StressTestResponse run(StressTestRequest request, String userId, ExecutionScheduler.Slot slot) {
+        long startedAt = System.nanoTime();
+        List<ExecutionScheduler.Slot> slots = new ArrayList<>();
+        slots.add(slot);
+        slots.addAll(freeSlots(userId, parallelism - 1));
+        StressTestResponse response;
+        try {
+            response = runAdmitted(request, slots);
+        } finally {
+            slots.subList(1, slots.size()).forEach(ExecutionScheduler.Slot::close);
+        }
+        response.setElapsedMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        meterRegistry.counter("codegenie.execution.stress.runs",
+                "outcome", response.getOutcome().name().toLowerCase(Locale.ROOT)).increment();
+        meterRegistry.counter("codegenie.execution.stress.cases").increment(response.getCasesRun());
+        return response;
+    }
+
+    /** Slots that can be had without waiting; extra lanes never queue behind other users. */
+    private List<ExecutionScheduler.Slot> freeSlots(String userId, int wanted) {
+        List<ExecutionScheduler.Slot> slots = new ArrayList<>();
+        while (slots.size() < wanted) {
+            CompletableFuture<ExecutionScheduler.Slot> ticket;
+            try {
+                ticket = executionScheduler.admitAsync(userId);
+            } catch (ExecutionRejectedException e) {
+                break;
+            }
+            if (ticket.completeExceptionally(new CancellationException())) {
+                break; // had to queue: withdrawn
+            }
+            slots.add(ticket.join());
+        }
+        return slots;
+    }
+
+    /** One lane per slot held. */
+    private StressTestResponse runAdmitted(StressTestRequest request, List<ExecutionScheduler.Slot> slots) {
+        int laneCount = slots.size();
+        LanguageRuntime targetRuntime = languageRuntimes.forLanguage(request.getLanguage());
+        LanguageRuntime referenceRuntime = languageRuntimes.forLanguage(helperLanguage(request.getReferenceLanguage()));
+        LanguageRuntime generatorRuntime = languageRuntimes.forLanguage(helperLanguage(request.getGeneratorLanguage()));
+        if (targetRuntime == null || referenceRuntime == null || generatorRuntime == null) {
+            return failed(Outcome.ERROR, "Unsupported language");
+        }
+        if (isBlank(request.getCode()) || isBlank(request.getReferenceCode()) || isBlank(request.getGeneratorCode())) {
+            return failed(Outcome.ERROR, "code, referenceCode and generatorCode are required");
+        }
+
+        List<SandboxExecutor.Session> sessions = new ArrayList<>();
+        List<ArtifactCache.Lease> artifacts = new ArrayList<>();
+        try {
+            for (int i = 0; i < laneCount; i++) {
+                sessions.add(sandboxExecutor.open());
+            }
+            long compileTimeLimitMs = codeExecutionService.compileTimeLimitMs();
+            ArtifactCache.Lease target = artifactCache.acquire(targetRuntime, request.getCode(), compileTimeLimitMs,
+                    sessions.get(0));
+            artifacts.add(target);
+            if (!target.compilation().success()) {
+                return failed(Outcome.COMPILATION_FAILED, "Compilation Failed:\n" + target.compilation().output());
+            }
+            ArtifactCache.Lease generator = artifactCache.acquire(generatorRuntime, request.getGeneratorCode(),
+                    compileTimeLimitMs, sessions.get(0));
+            artifacts.add(generator);
+            if (!generator.compilation().success()) {
+                return failed(Outcome.GENERATOR_FAILED,
+                        "Generator does not compile:\n" + generator.compilation().output());
+            }
+            ArtifactCache.Lease reference = artifactCache.acquire(referenceRuntime, request.getReferenceCode(),
+                    compileTimeLimitMs, sessions.get(0));
+            artifacts.add(reference);
+            if (!reference.compilation().success()) {
+                return failed(Outcome.REFERENCE_FAILED,
+                        "Reference solution does not compile:\n" + reference.compilation().output());
+            }
+
+            Search search = new Search(request,
+                    new Program(targetRuntime, target, codeExecutionService.budgetFor(targetRuntime,
+                            request.getTimeLimit())),
+                    new Program(referenceRuntime, reference, codeExecutionService.budgetFor(referenceRuntime,
+                            request.getTimeLimit())),
+                    new Program(generatorRuntime, generator, codeExecutionService.budgetFor(generatorRuntime,
+                            request.getTimeLimit())));
+            List<Future<?>> running = new ArrayList<>();
+            for (SandboxExecutor.Session session : sessions) {
+                running.add(lanes.submit(() -> search.lane(session)));
+            }
+            for (Future<?> lane : running) {
+                lane.get();
+            }
+            StressTestResponse response = search.response();
+            response.setParallelism(laneCount);
+            return response;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return failed(Outcome.ERROR, "System Error: stress test was interrupted");
+        } catch (IOException | ExecutionException | RuntimeException e) {
+            log.error("Stress test failed", e);
+            return failed(Outcome.ERROR, "System Error: " + e.getMessage());
+        } finally {
+            artifacts.forEach(ArtifactCache.Lease::close);
+            sessions.forEach(SandboxExecutor.Session::close);
+        }
+    }
+
+    private static String helperLanguage(String language) {
+        return isBlank(language) ? DEFAULT_HELPER_LANGUAGE : language;
+    }
+
+    private static boolean isBlank(String text) {
+        return text == null || text.isBlank();
+    }
+
+    private static StressTestResponse failed(Outcome outcome, String error) {
+        StressTestResponse response = new StressTestResponse();
+        response.setOutcome(outcome);
+        response.setError(error);
+        return response;
+    }
+
+    private record Program(LanguageRuntime runtime, ArtifactCache.Lease artifact, ExecutionBudget budget) {
+    }
+
+    private record Difference(long seed, int size, TestResult result) {
+    }
+
+    /** The shared state of one stress test's lanes. */
+    private final class Search {
+        private final Program target;
+        private final Program reference;
+        private final Program generator;
+        private final ResourceLimits limits;
+        private final OutputChecker checker;
+        private final int iterations;
+        private final int maxSize;
+        private final long deadline;
+
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicInteger casesRun = new AtomicInteger();
+        private final List<Difference> differences = new ArrayList<>();
+        private volatile StressTestResponse failure;
+        private volatile boolean stopped;
+
+        private Search(StressTestRequest request, Program target, Program reference, Program generator) {
+            this.target = target;
+            this.reference = reference;
+            this.generator = generator;
+            this.limits = codeExecutionService.limitsFor(request.getMemoryLimit());
+            this.checker = outputCheckers.forName(request.getChecker());
+            this.iterations = clamp(request.getIterations(), defaultIterations, maxIterations);
+            this.maxSize = clamp(request.getMaxSize(), defaultMaxSize, Integer.MAX_VALUE);
+            this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMs);
+        }
+
+        private void lane(SandboxExecutor.Session sandbox) {
+            try (WorkspaceManager.Workspace workspace = workspaceManager.acquire();
+                    CaseExecutor generatorExecutor = open(generator, workspace, sandbox);
+                    CaseExecutor referenceExecutor = open(reference, workspace, sandbox);
+                    CaseExecutor targetExecutor = open(target, workspace, sandbox)) {
+                while (!stopped && System.nanoTime() < deadline) {
+                    int i = next.getAndIncrement();
+                    if (i >= iterations) {
+                        return;
+                    }
+                    long seed = i + 1;
+                    int size = 1 + (int) ((long) i * maxSize / iterations);
+                    runOne(seed, size, generatorExecutor, referenceExecutor, targetExecutor);
+                }
+            } catch (IOException | RuntimeException e) {
+                log.error("Stress test lane failed", e);
+                fail(Outcome.ERROR, "System Error: " + e.getMessage());
+            }
+        }
+
+        private void runOne(long seed, int size, CaseExecutor generatorExecutor, CaseExecutor referenceExecutor,
+                CaseExecutor targetExecutor) {
+            String arguments = "seed " + seed + ", size " + size;
+            CodeExecutionService.CaseRun generated = codeExecutionService.runCase(generator.runtime(),
+                    generatorExecutor, new TestCase(seed + " " + size + "\n", ""), limits, generator.budget(), checker);
+            if (!generated.result().isPassed() || isBlank(generated.answer())) {
+                fail(Outcome.GENERATOR_FAILED, "Generator failed (" + arguments + "): "
+                        + orElse(generated.result().getError(), "printed nothing"));
+                return;
+            }
+            String input = generated.answer();
+
+            CodeExecutionService.CaseRun answered = codeExecutionService.runCase(reference.runtime(),
+                    referenceExecutor, new TestCase(input, ""), limits, reference.budget(), checker);
+            if (!answered.result().isPassed() || isBlank(answered.answer())) {
+                fail(Outcome.REFERENCE_FAILED, "Reference solution failed (" + arguments + "): "
+                        + orElse(answered.result().getError(), "printed nothing"));
+                return;
+            }
+
+            TestResult result = codeExecutionService.runCase(target.runtime(), targetExecutor,
+                    new TestCase(input, answered.answer()), limits, target.budget(), checker).result();
+            casesRun.incrementAndGet();
+            if (!result.isPassed()) {
+                synchronized (differences) {
+                    differences.add(new Difference(seed, size, result));
+                }
+                stopped = true;
+            }
+        }
+
+        private CaseExecutor open(Program program, WorkspaceManager.Workspace workspace,
+                SandboxExecutor.Session sandbox) throws IOException {
+            return program.runtime().openExecutor(program.artifact().dir(), workspace.dir(), limits, sandbox);
+        }
+
+        private synchronized void fail(Outcome outcome, String error) {
+            if (failure == null) {
+                failure = failed(outcome, error);
+            }
+            stopped = true;
+        }
+
+        private StressTestResponse response() {
+            StressTestResponse response = new StressTestResponse();
+            response.setCasesRun(casesRun.get());
+            Difference smallest;
+            synchronized (differences) {
+                smallest = differences.stream()
+                        .min(Comparator.comparingInt((Difference d) -> d.result().getInput().length())
+                                .thenComparingLong(Difference::seed))
+                        .orElse(null);
+            }
+            if (smallest != null) {
+                // A difference is the answer even if a helper broke down in another lane meanwhile
+                response.setOutcome(Outcome.COUNTEREXAMPLE_FOUND);
+                response.setSeed(smallest.seed());
+                response.setSize(smallest.size());
+                response.setCounterexample(smallest.result());
+            } else if (failure != null) {
+                response.setOutcome(failure.getOutcome());
+                response.setError(failure.getError());
+            } else {
+                response.setOutcome(Outcome.NO_COUNTEREXAMPLE);
+            }
+            return response;
+        }
+    }
+
+    private static int clamp(Integer requested, int defaultValue, int max) {
+        int value = requested != null && requested > 0 ? requested : defaultValue;
+        return Math.max(1, Math.min(value, max));
+    }
+
+    private static String orElse(String text, String fallback) {
+        return isBlank(text) ? fallback : text;
+    }
+}
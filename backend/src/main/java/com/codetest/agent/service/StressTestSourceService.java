@@ -0,0 +1,177 @@
+package com.codetest.agent.service;
+
+import com.codetest.agent.dto.ProblemSpec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The reference solution and input generator a {@link StressTestService} run
+ * needs, written by the LLM once per problem and kept in Redis, shared by
+ * every backend instance. Both are Python. Cache failures are logged and
+ * treated as misses; sources that turn out broken are {@link #evict evicted}
+ * so the next request writes new ones.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StressTestSourceService {
+
+    private static final String KEY_PREFIX = "stress:sources:";
+    private static final String LANGUAGE = "python";
+    private static final Pattern CODE_BLOCK = Pattern.compile("```[a-zA-Z0-9]*\\s*\\n(.*?)```", Pattern.DOTALL);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final LlmService llmService;
+    private final TestDataService testDataService;
+
+    @Value("${codegenie.execution.stress.sources-retention-days:30}")
+    private long retentionDays;
+
+    public record StressTestSources(String language, String referenceCode, String generatorCode) {
+
+        /** Identifies the reference, so cases it confirmed are not taken for another one's. */
+        public String referenceHash() {
+            return hash(referenceCode);
+        }
+    }
+
+    /**
+     * @return the cached or newly written sources, or {@code null} if the LLM gave none usable.
+     *         New sources replace the problem's cases confirmed by an earlier reference.
+     */
+    public StressTestSources forProblem(ProblemSpec spec) {
+        StressTestSources cached = cached(spec);
+        if (cached != null) {
+            return cached;
+        }
+        StressTestSources sources = generate(spec);
+        if (sources != null) {
+            put(spec, sources);
+            testDataService.dropVerified(problemKey(spec), sources.referenceHash());
+        }
+        return sources;
+    }
+
+    /** Drops broken sources, and the cases their reference confirmed. */
+    public void evict(ProblemSpec spec) {
+        try {
+            redisTemplate.delete(key(spec));
+        } catch (Exception e) {
+            log.warn("Stress test source eviction failed for {}: {}", spec.getTitle(), e.getMessage());
+        }
+        testDataService.dropVerified(problemKey(spec), null);
+    }
+
+    /** @return the cached sources, or {@code null}; never asks the LLM */
+    public StressTestSources cached(ProblemSpec spec) {
+        try {
+            String json = redisTemplate.opsForValue().get(key(spec));
+            return json == null ? null : objectMapper.readValue(json, StressTestSources.class);
+        } catch (Exception e) {
+            log.warn("Stress test source cache read failed for {}: {}", spec.getTitle(), e.getMessage());
+            return null;
+        }
+    }
+
+    private void put(ProblemSpec spec, StressTestSources sources) {
+        try {
+            redisTemplate.opsForValue().set(key(spec), objectMapper.writeValueAsString(sources),
+                    Duration.ofDays(retentionDays));
+        } catch (Exception e) {
+            log.warn("Stress test source cache write failed for {}: {}", spec.getTitle(), e.getMessage());
+        }
+    }
+
+    private StressTestSources generate(ProblemSpec spec) {
+        boolean functionStyle = "PROGRAMMERS".equalsIgnoreCase(spec.getSource());
+        String inputRules = functionStyle
+                ? """
+                        - The reference defines `def solution(...)` with the problem's parameters and returns the answer.
+                        - The generator prints the arguments on one line, comma-separated, lists as [1, 2, 3] and
+                          strings in double quotes, e.g. `10, [1, 2, 3], "abc"`.
+                        """
+                : """
+                        - The reference reads the input from stdin exactly as described and prints the answer.
+                        - The generator prints one complete input in that format (if the input starts with a
+                          test case count, print 1 test case).
+                        """;
+        String prompt = String.format("""
+                Write two Python 3 programs for stress-testing solutions to this problem.
+
+                Problem Title: %s
+                Description: %s
+                Input Format: %s
+                Output Format: %s
+                Constraints: %s
+
+                1. Reference: the simplest obviously correct solution (brute force is fine; inputs will be tiny).
+                2. Generator: reads two integers `seed size` from stdin, calls random.seed(seed), and prints one
+                   random valid input whose counts and lengths are at most `size` and whose values are small,
+                   including edge cases such as minimum sizes, duplicates and negative values where allowed.
+                %s
+                Output exactly two ```python code blocks, the reference first and the generator second,
+                and nothing else.
+                """,
+                spec.getTitle(), spec.getDescription(), spec.getInputFormat(), spec.getOutputFormat(),
+                spec.getConstraints(), inputRules);
+
+        String response = llmService.getChatResponse(List.of(
+                Map.of("role", "system", "content", "You are a competitive programming expert. Output only code blocks."),
+                Map.of("role", "user", "content", prompt)));
+
+        List<String> blocks = new ArrayList<>();
+        Matcher matcher = CODE_BLOCK.matcher(response);
+        while (matcher.find()) {
+            blocks.add(matcher.group(1));
+        }
+        if (blocks.size() < 2) {
+            log.warn("No stress test sources in LLM response for {}", spec.getTitle());
+            return null;
+        }
+        return new StressTestSources(LANGUAGE, blocks.get(0), blocks.get(1));
+    }
+
+    private static String key(ProblemSpec spec) {
+        return KEY_PREFIX + problemKey(spec);
+    }
+
+    private static String hash(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Identifies a problem in cache keys: its source and id, or a hash of a pasted statement. */
+    static String problemKey(ProblemSpec spec) {
+        if (spec.getSource() != null && spec.getSourceId() != null) {
+            return spec.getSource() + ":" + spec.getSourceId();
+        }
+        // Pasted problems have no id; the statement identifies them
+        String statement = spec.getTitle() + "\n" + spec.getDescription() + "\n" + spec.getInputFormat();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return "text:" + HexFormat.of().formatHex(digest.digest(statement.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,461 @@
+package com.codetest.agent.service;
+
+import com.codetest.agent.domain.StoredTestCase;
+import com.codetest.agent.dto.Example;
+import com.codetest.agent.dto.ProblemSpec;
+import com.codetest.agent.repository.StoredTestCaseRepository;
+import com.codetest.agent.service.execution.InputGenerator;
+import com.codetest.agent.service.execution.StdinSource;
+import com.codetest.agent.service.execution.TestDataStore;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.gridfs.GridFsCriteria;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test cases kept per problem and run by id instead of being pasted into every
+ * request: the statement's examples (imported when the problem is parsed),
+ * cases users and staff save, and large inputs written once from an
+ * {@link InputGenerator} spec, plus counterexample-mode cases confirmed by the
+ * problem's reference solution. Descriptions are in Mongo, contents in the
+ * {@link TestDataStore}, which is local to the instance. So that another
+ * instance, or this one after a redeploy, can still run a case, its contents are
+ * archived in GridFS and {@link #restore restored} into the store when they are
+ * missing there; generated inputs are not archived but written again from their
+ * spec and seed.
+ */
+@Slf4j
+@Service
+public class TestDataService {
+
+    // Keys of the problems that were parsed, the only ones cases can be stored for
+    private static final String PROBLEMS_KEY = "test-data:problems";
+
+    private final StoredTestCaseRepository repository;
+    private final TestDataStore store;
+    private final GridFsTemplate archive;
+    private final StringRedisTemplate redisTemplate;
+    private final int maxCasesPerProblem;
+    private final int maxCasesPerUser;
+    private final long maxBytesPerUser;
+    private final long maxGeneratedBytes;
+
+    // Parsed problems are recorded here rather than on the source's parser threads, whose time
+    // counts toward its timeout and circuit breaker
+    private final ThreadPoolExecutor importer = importer();
+
+    public TestDataService(StoredTestCaseRepository repository, TestDataStore store, GridFsTemplate archive,
+            StringRedisTemplate redisTemplate,
+            @Value("${codegenie.execution.test-data.max-cases-per-problem:200}") int maxCasesPerProblem,
+            @Value("${codegenie.execution.test-data.max-cases-per-user:100}") int maxCasesPerUser,
+            @Value("${codegenie.execution.test-data.max-mb-per-user:32}") long maxMbPerUser,
+            @Value("${codegenie.execution.test-data.max-generated-mb:8}") long maxGeneratedMb) {
+        this.repository = repository;
+        this.store = store;
+        this.archive = archive;
+        this.redisTemplate = redisTemplate;
+        this.maxCasesPerProblem = maxCasesPerProblem;
+        this.maxCasesPerUser = maxCasesPerUser;
+        this.maxBytesPerUser = maxMbPerUser << 20;
+        this.maxGeneratedBytes = maxGeneratedMb << 20;
+    }
+
+    public static String problemKey(String source, String sourceId) {
+        ProblemSpec spec = new ProblemSpec();
+        spec.setSource(source);
+        spec.setSourceId(sourceId);
+        return StressTestSourceService.problemKey(spec);
+    }
+
+    public List<StoredTestCase> list(String problemKey) {
+        return repository.findByProblemKeyOrderByCreatedAtAsc(problemKey);
+    }
+
+    /** @return {@code null} if there is no such case */
+    public StoredTestCase find(String id) {
+        return TestDataStore.isId(id) ? repository.findById(id).orElse(null) : null;
+    }
+
+    /**
+     * {@link #recordProblem Records} a parsed problem and {@link #importExamples imports}
+     * its examples on this service's own threads. When those are backed up the
+     * problem is still recorded, on the calling thread, and the import is left to
+     * the next parse.
+     */
+    public CompletableFuture<Void> recordParsed(ProblemSpec spec) {
+        try {
+            return CompletableFuture.runAsync(() -> {
+                recordProblem(spec);
+                importExamples(spec);
+            }, importer);
+        } catch (RejectedExecutionException e) {
+            log.warn("Example import skipped for {}: importer is busy", spec.getTitle());
+            recordProblem(spec);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /** Records a parsed problem, so users can store cases for it. Best effort, like the example import. */
+    public void recordProblem(ProblemSpec spec) {
+        if (spec == null || spec.getSource() == null || spec.getSourceId() == null) {
+            return;
+        }
+        try {
+            redisTemplate.opsForSet().add(PROBLEMS_KEY, StressTestSourceService.problemKey(spec));
+        } catch (RuntimeException e) {
+            log.warn("Problem {} could not be recorded: {}", spec.getTitle(), e.getMessage());
+        }
+    }
+
+    /**
+     * Stores the statement's examples for the problem, again for any whose files
+     * this instance does not have. Best effort: a failure is logged and the
+     * examples stay inline.
+     */
+    public void importExamples(ProblemSpec spec) {
+        if (spec == null || spec.getExamples() == null || spec.getExamples().isEmpty()) {
+            return;
+        }
+        String problemKey = StressTestSourceService.problemKey(spec);
+        try {
+            List<Example> examples = spec.getExamples();
+            for (int i = 0; i < examples.size(); i++) {
+                String id = stableId(problemKey + "#example-" + i);
+                StoredTestCase existing = find(id);
+                if (existing != null && !existing.isMissing() && store.input(id) != null) {
+                    continue;
+                }
+                Example example = examples.get(i);
+                StoredTestCase stored = describe(id, problemKey, StoredTestCase.Kind.SAMPLE,
+                        "Example " + (i + 1), null);
+                write(stored, StdinSource.of(example.getInput()), example.getOutput());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Example import failed for {}: {}", spec.getTitle(), e.getMessage());
+        }
+    }
+
+    /**
+     * Saves a case typed in by a user, or by staff (kept as {@link StoredTestCase.Kind#STAFF}).
+     *
+     * @throws IllegalArgumentException if the problem was never parsed, if it or the user has no
+     *         room left, or if the input is larger than the user's remaining quota
+     */
+    public StoredTestCase save(String problemKey, String label, String input, String expectedOutput,
+            String userId, boolean staff) {
+        long room = checkRoom(problemKey, userId, staff);
+        StoredTestCase stored = describe(newId(), problemKey,
+                staff ? StoredTestCase.Kind.STAFF : StoredTestCase.Kind.USER, label, userId);
+        return write(stored, limited(StdinSource.of(input), room,
+                "Your stored test cases may hold at most " + (maxBytesPerUser >> 20) + " MB of input"), expectedOutput);
+    }
+
+    /**
+     * Writes one input from a generator spec to disk and saves it as a case. The
+     * input is capped far below what a run may generate; larger ones are run
+     * from the generator instead of being stored.
+     *
+     * @throws IllegalArgumentException if the spec is invalid, lists several sizes, or cannot be
+     *         produced within the cap, if the problem was never parsed, or if it or the user
+     *         has no room left
+     */
+    public StoredTestCase saveGenerated(String problemKey, String label, String generator, Long seed,
+            String expectedOutput, String userId, boolean staff) {
+        long room = checkRoom(problemKey, userId, staff);
+        List<InputGenerator> variants = InputGenerator.parse(generator).variants();
+        if (variants.size() != 1) {
+            throw new IllegalArgumentException("A stored generated case must have a single size");
+        }
+        long usedSeed = seed != null ? seed : 1L;
+        StoredTestCase stored = describe(newId(), problemKey, StoredTestCase.Kind.GENERATED,
+                label != null ? label : variants.get(0).describe(), userId);
+        stored.setGenerator(generator);
+        stored.setSeed(usedSeed);
+        String tooLarge = room < maxGeneratedBytes
+                ? "Your stored test cases may hold at most " + (maxBytesPerUser >> 20) + " MB of input"
+                : "A stored generated input may be at most " + (maxGeneratedBytes >> 20)
+                        + " MB; run larger ones from the generator instead";
+        return write(stored, limited(variants.get(0).stdin(usedSeed), Math.min(room, maxGeneratedBytes), tooLarge),
+                expectedOutput);
+    }
+
+    /**
+     * Keeps an LLM-written case whose expected output the problem's reference
+     * solution reproduced, tagged with that reference. Stored once per distinct
+     * input and reference.
+     *
+     * @return {@code null} if the case is stored already or the problem has no room left
+     */
+    public StoredTestCase saveVerified(String problemKey, String input, String expectedOutput,
+            String referenceHash) {
+        String id = stableId(problemKey + "#verified-" + referenceHash + "-" + input);
+        if (find(id) != null || repository.countByProblemKey(problemKey) >= maxCasesPerProblem) {
+            return null;
+        }
+        StoredTestCase stored = describe(id, problemKey, StoredTestCase.Kind.VERIFIED,
+                "Confirmed by the reference solution", null);
+        stored.setReferenceHash(referenceHash);
+        return write(stored, StdinSource.of(input), expectedOutput);
+    }
+
+    /**
+     * Deletes the problem's confirmed cases, except those confirmed by the
+     * reference {@code keptReferenceHash} ({@code null} deletes them all), once the
+     * reference that confirmed them is evicted or replaced. Best effort.
+     */
+    public void dropVerified(String problemKey, String keptReferenceHash) {
+        try {
+            for (StoredTestCase stored : repository.findByProblemKeyAndKind(problemKey,
+                    StoredTestCase.Kind.VERIFIED)) {
+                if (keptReferenceHash == null || !keptReferenceHash.equals(stored.getReferenceHash())) {
+                    remove(stored.getId());
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Confirmed cases of {} could not be dropped: {}", problemKey, e.getMessage());
+        }
+    }
+
+    /**
+     * Makes sure the case's files are in the {@link TestDataStore}: a generated
+     * input is written again from its spec, anything else is copied back from the
+     * archive. A case that cannot be restored, because it was stored before
+     * contents were archived, is marked missing; a missing example is written
+     * again the next time its problem is parsed.
+     *
+     * @return whether the files are there
+     */
+    public boolean restore(StoredTestCase stored) {
+        String id = stored.getId();
+        if (store.input(id) != null) {
+            return true;
+        }
+        if (stored.isMissing()) {
+            return false;
+        }
+        try {
+            StdinSource input = stored.getKind() == StoredTestCase.Kind.GENERATED
+                    ? InputGenerator.parse(stored.getGenerator()).variants().get(0).stdin(stored.getSeed())
+                    : archived(inputName(id));
+            String expectedOutput = null;
+            if (input != null && stored.isExpectedOutput()) {
+                StdinSource output = archived(outputName(id));
+                expectedOutput = output != null ? archivedText(output) : null;
+            }
+            if (input == null || stored.isExpectedOutput() && expectedOutput == null) {
+                log.warn("Test data {} is gone from this instance and the archive", id);
+                stored.setMissing(true);
+                repository.save(stored);
+                return false;
+            }
+            store.write(id, input, expectedOutput);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Test data {} could not be restored: {}", id, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Deletes a case its creator or staff asks to delete; imported examples stay.
+     *
+     * @return {@code false} if there is no such case or it may not be deleted by the user
+     */
+    public boolean delete(String id, String userId, boolean staff) {
+        StoredTestCase stored = find(id);
+        if (stored == null || stored.getKind() == StoredTestCase.Kind.SAMPLE
+                || !(staff || userId.equals(stored.getCreatedBy()))) {
+            return false;
+        }
+        remove(id);
+        return true;
+    }
+
+    private void remove(String id) {
+        repository.deleteById(id);
+        try {
+            store.delete(id);
+        } catch (IOException e) {
+            log.warn("Test data files of {} could not be deleted: {}", id, e.getMessage());
+        }
+        archive.delete(Query.query(GridFsCriteria.whereFilename().in(inputName(id), outputName(id))));
+    }
+
+    /**
+     * @return how many bytes of input the user may still store
+     * @throws IllegalArgumentException if the problem was never parsed, or if it or the user has no room left
+     */
+    private long checkRoom(String problemKey, String userId, boolean staff) {
+        if (!Boolean.TRUE.equals(redisTemplate.opsForSet().isMember(PROBLEMS_KEY, problemKey))) {
+            throw new IllegalArgumentException("Unknown problem " + problemKey + "; load it before storing test cases");
+        }
+        if (repository.countByProblemKey(problemKey) >= maxCasesPerProblem) {
+            throw new IllegalArgumentException("This problem already has " + maxCasesPerProblem + " stored test cases");
+        }
+        if (staff) {
+            return Long.MAX_VALUE;
+        }
+        List<StoredTestCase> own = repository.findByCreatedBy(userId);
+        if (own.size() >= maxCasesPerUser) {
+            throw new IllegalArgumentException("You already have " + maxCasesPerUser + " stored test cases");
+        }
+        long room = maxBytesPerUser - own.stream().mapToLong(StoredTestCase::getInputBytes).sum();
+        if (room <= 0) {
+            throw new IllegalArgumentException("Your stored test cases already hold " + (maxBytesPerUser >> 20)
+                    + " MB of input");
+        }
+        return room;
+    }
+
+    // Fails the write (and so the save) as soon as the input grows past the limit
+    private static StdinSource limited(StdinSource input, long limit, String message) {
+        return out -> input.writeTo(new FilterOutputStream(out) {
+            private long written;
+
+            @Override
+            public void write(int b) throws IOException {
+                count(1);
+                out.write(b);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                count(length);
+                out.write(bytes, offset, length);
+            }
+
+            private void count(int length) {
+                written += length;
+                if (written > limit) {
+                    throw new IllegalArgumentException(message);
+                }
+            }
+        });
+    }
+
+    private static StoredTestCase describe(String id, String problemKey, StoredTestCase.Kind kind, String label,
+            String userId) {
+        StoredTestCase stored = new StoredTestCase();
+        stored.setId(id);
+        stored.setProblemKey(problemKey);
+        stored.setKind(kind);
+        stored.setLabel(label);
+        stored.setCreatedBy(userId);
+        stored.setCreatedAt(LocalDateTime.now());
+        return stored;
+    }
+
+    // Files and archive first, so a case that is found always has its input
+    private StoredTestCase write(StoredTestCase stored, StdinSource input, String expectedOutput) {
+        String id = stored.getId();
+        try {
+            stored.setInputBytes(store.write(id, input, expectedOutput));
+            if (stored.getKind() != StoredTestCase.Kind.GENERATED) {
+                try (InputStream in = Files.newInputStream(store.input(id).file())) {
+                    archive(inputName(id), in);
+                }
+            }
+            if (expectedOutput != null) {
+                archive(outputName(id), new ByteArrayInputStream(expectedOutput.getBytes(StandardCharsets.UTF_8)));
+            } else {
+                archive.delete(Query.query(GridFsCriteria.whereFilename().is(outputName(id))));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Test data could not be written", e);
+        }
+        stored.setExpectedOutput(expectedOutput != null);
+        return repository.save(stored);
+    }
+
+    // Replaces an earlier copy; instances writing the same stable id write the same content
+    private void archive(String name, InputStream content) {
+        archive.delete(Query.query(GridFsCriteria.whereFilename().is(name)));
+        archive.store(content, name);
+    }
+
+    /** @return {@code null} if nothing is archived under the name */
+    private StdinSource archived(String name) {
+        GridFSFile file = archive.findOne(Query.query(GridFsCriteria.whereFilename().is(name)));
+        if (file == null) {
+            return null;
+        }
+        return out -> {
+            try (InputStream in = archive.getResource(file).getInputStream()) {
+                in.transferTo(out);
+            }
+        };
+    }
+
+    private static String archivedText(StdinSource content) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        content.writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static String inputName(String id) {
+        return "test-data/" + id + ".in";
+    }
+
+    private static String outputName(String id) {
+        return "test-data/" + id + ".out";
+    }
+
+    private static String newId() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+
+    // Derived from the content, so instances saving the same case at once write the same one
+    private static String stableId(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(content.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        importer.shutdownNow();
+    }
+
+    private static ThreadPoolExecutor importer() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(2, 2, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(64),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "test-data-import-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
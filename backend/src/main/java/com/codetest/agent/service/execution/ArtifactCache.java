@@ -0,0 +1,303 @@
+package com.codetest.agent.service.execution;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.nio.file.attribute.FileTime;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Compiled submissions keyed by a hash of language, toolchain and source. The
+ * same code is typically run many times (example cases, then a counterexample
+ * batch, then again after a one-line fix elsewhere), so compiling once and
+ * reusing the artifact directory saves the javac/g++ step on every re-run.
+ *
+ * Concurrent requests for the same key wait for a single compile. Entries are
+ * evicted LRU; an evicted artifact directory is deleted once the last run
+ * holding a {@link Lease} on it has finished. Failed compiles are only shared
+ * with the requests already waiting for them, never cached: a compile that hit
+ * its time limit on a busy host would otherwise fail that code until evicted.
+ *
+ * Successful compiles are marked on disk and picked up again after a restart,
+ * which matters most for g++ (1-3 s per compile). Toolchain keys include the
+ * compiler version, so artifacts from an older compiler are never matched and
+ * just age out of the LRU.
+ */
+@Slf4j
+@Component
+public class ArtifactCache {
+
+    // Written into an artifact directory after a successful compile; holds the compiler output
+    private static final String COMPLETE_MARKER = ".codegenie-complete";
+
+    private final MeterRegistry meterRegistry;
+    private final Path root;
+    private final int maxEntries;
+
+    // access-ordered: iteration starts at the least recently used entry
+    private final LinkedHashMap<String, CompletableFuture<Entry>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    public ArtifactCache(MeterRegistry meterRegistry,
+            @Value("${codegenie.execution.artifact-cache.dir:${java.io.tmpdir}/codegenie-artifacts}") String root,
+            @Value("${codegenie.execution.artifact-cache.max-entries:256}") int maxEntries) {
+        this.meterRegistry = meterRegistry;
+        this.root = Path.of(root);
+        this.maxEntries = maxEntries;
+    }
+
+    @PostConstruct
+    void loadArtifacts() throws IOException {
+        Files.createDirectories(root);
+        List<Path> complete = new ArrayList<>();
+        try (Stream<Path> languages = Files.list(root)) {
+            for (Path language : languages.toList()) {
+                if (!Files.isDirectory(language)) {
+                    continue;
+                }
+                try (Stream<Path> dirs = Files.list(language)) {
+                    for (Path dir : dirs.toList()) {
+                        if (Files.isRegularFile(dir.resolve(COMPLETE_MARKER))) {
+                            complete.add(dir);
+                        } else {
+                            deleteDirectory(dir.toFile()); // compile interrupted by the last shutdown
+                        }
+                    }
+                }
+            }
+        }
+
+        // The marker is touched on every hit, so its mtime restores the LRU order.
+        complete.sort(Comparator.comparing(ArtifactCache::lastUsed));
+        synchronized (this) {
+            for (Path dir : complete) {
+                String output = Files.readString(dir.resolve(COMPLETE_MARKER));
+                entries.put(dir.getFileName().toString(),
+                        CompletableFuture.completedFuture(new Entry(dir, new CompilationResult(true, output))));
+            }
+            evictIfNeeded();
+        }
+        log.info("Loaded {} compiled artifacts from {}", entries.size(), root);
+    }
+
+    /**
+     * Returns the compiled artifact for {@code code}, compiling it if needed, and
+     * makes it available to {@code sandbox}. The caller must close the lease when
+     * its runs are finished.
+     */
+    public Lease acquire(LanguageRuntime runtime, String code, long compileTimeoutMs, SandboxExecutor.Session sandbox)
+            throws IOException, InterruptedException {
+        String key = key(runtime, code);
+        while (true) {
+            CompletableFuture<Entry> created = new CompletableFuture<>();
+            CompletableFuture<Entry> existing;
+            synchronized (this) {
+                existing = entries.get(key);
+                if (existing == null) {
+                    entries.put(key, created);
+                    evictIfNeeded();
+                }
+            }
+
+            Entry entry;
+            if (existing == null) {
+                count(runtime, "miss");
+                entry = compile(runtime, code, key, compileTimeoutMs, sandbox, created);
+            } else {
+                count(runtime, "hit");
+                entry = await(existing);
+                if (entry == null) {
+                    continue; // the compile we waited for crashed; try it ourselves
+                }
+                touch(entry);
+            }
+
+            Lease lease = null;
+            synchronized (this) {
+                if (!entry.evicted) {
+                    entry.leases++;
+                    lease = new Lease(entry);
+                }
+            }
+            if (lease == null) {
+                continue; // evicted between compile and lease: compile again
+            }
+            if (entry.compilation.success()) {
+                try {
+                    sandbox.copyIn(entry.dir);
+                } catch (IOException | InterruptedException | RuntimeException e) {
+                    lease.close();
+                    throw e;
+                }
+            }
+            return lease;
+        }
+    }
+
+    Path root() {
+        return root;
+    }
+
+    private Entry compile(LanguageRuntime runtime, String code, String key, long compileTimeoutMs,
+            SandboxExecutor.Session sandbox, CompletableFuture<Entry> created) throws IOException, InterruptedException {
+        try {
+            Path dir = Files.createDirectories(root.resolve(runtime.language()).resolve(key));
+            CompilationResult compilation = runtime.compile(code, dir, compileTimeoutMs, sandbox);
+            if (compilation.success()) {
+                Files.writeString(dir.resolve(COMPLETE_MARKER), compilation.output());
+            } else {
+                deleteDirectory(dir.toFile());
+                synchronized (this) {
+                    entries.remove(key, created);
+                }
+            }
+            Entry entry = new Entry(dir, compilation);
+            created.complete(entry);
+            return entry;
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            synchronized (this) {
+                entries.remove(key, created);
+            }
+            created.complete(null);
+            throw e;
+        }
+    }
+
+    private Entry await(CompletableFuture<Entry> future) throws InterruptedException, IOException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw new IOException("Compilation failed", e.getCause());
+        }
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<String, CompletableFuture<Entry>>> it = entries.entrySet().iterator();
+        while (entries.size() > maxEntries && it.hasNext()) {
+            CompletableFuture<Entry> future = it.next().getValue();
+            if (!future.isDone()) {
+                continue; // still compiling
+            }
+            it.remove();
+            Entry entry = future.getNow(null);
+            if (entry != null) {
+                entry.evicted = true;
+                if (entry.leases == 0) {
+                    deleteDirectory(entry.dir.toFile());
+                }
+            }
+        }
+    }
+
+    private synchronized void release(Entry entry) {
+        entry.leases--;
+        if (entry.evicted && entry.leases == 0) {
+            deleteDirectory(entry.dir.toFile());
+        }
+    }
+
+    private static void touch(Entry entry) {
+        if (!entry.compilation.success()) {
+            return;
+        }
+        try {
+            Files.setLastModifiedTime(entry.dir.resolve(COMPLETE_MARKER),
+                    FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Deleted by a concurrent eviction; the order only matters after a restart anyway.
+        }
+    }
+
+    private static FileTime lastUsed(Path dir) {
+        try {
+            return Files.getLastModifiedTime(dir.resolve(COMPLETE_MARKER));
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private void count(LanguageRuntime runtime, String result) {
+        meterRegistry.counter("codegenie.execution.artifact", "language", runtime.language(), "result", result)
+                .increment();
+    }
+
+    private static String key(LanguageRuntime runtime, String code) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(runtime.language().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(runtime.toolchainKey().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(code.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static void deleteDirectory(File directory) {
+        File[] allContents = directory.listFiles();
+        if (allContents != null) {
+            for (File file : allContents) {
+                deleteDirectory(file);
+            }
+        }
+        directory.delete();
+    }
+
+    private static final class Entry {
+        private final Path dir;
+        private final CompilationResult compilation;
+        private int leases;
+        private boolean evicted;
+
+        private Entry(Path dir, CompilationResult compilation) {
+            this.dir = dir;
+            this.compilation = compilation;
+        }
+    }
+
+    /** A compiled artifact that stays on disk until closed. */
+    public final class Lease implements AutoCloseable {
+        private final Entry entry;
+        private boolean closed;
+
+        private Lease(Entry entry) {
+            this.entry = entry;
+        }
+
+        public Path dir() {
+            return entry.dir;
+        }
+
+        public CompilationResult compilation() {
+            return entry.compilation;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                release(entry);
+            }
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.codetest.agent.service.execution;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * C11 with gcc. Same harness layout as {@link CppRuntime}, but without templates
+ * the argument readers are generated per type: scalars, strings, and
+ * Programmers-style arrays ({@code int arr[], size_t arr_len}).
+ */
+@Component
+public class CRuntime implements LanguageRuntime {
+
+    private static final String NATIVE_HEADER = HarnessResources.read("codegenie_native.h");
+
+    private static final Pattern VOID_MAIN = Pattern.compile("\\bvoid\\s+main\\s*\\(");
+    private static final Set<String> INTEGRAL_TYPES = Set.of("int", "long", "long long", "short", "unsigned",
+            "unsigned int", "unsigned long", "unsigned long long", "long int", "long long int", "size_t",
+            "int64_t", "int32_t", "uint64_t", "uint32_t");
+    private static final Set<String> FLOATING_TYPES = Set.of("double", "float", "long double");
+    private static final Set<String> BOOLEAN_TYPES = Set.of("bool", "_Bool");
+
+    @Value("${codegenie.execution.c.compiler:gcc}")
+    private String compiler;
+
+    @Value("${codegenie.execution.c.flags:-std=gnu11 -O2 -pipe}")
+    private String flags;
+
+    @Override
+    public String language() {
+        return "c";
+    }
+
+    @Override
+    public String toolchainKey() {
+        return compiler + " " + CompilerProcess.version(compiler, "-dumpfullversion") + " " + flags
+                + " -lm|harness:" + Integer.toHexString(NATIVE_HEADER.hashCode());
+    }
+
+    @Override
+    public CompilationResult compile(String code, Path artifactDir, long timeoutMs, SandboxExecutor.Session sandbox)
+            throws IOException, InterruptedException {
+        String harness;
+        try {
+            harness = harnessSource(code);
+        } catch (IllegalArgumentException e) {
+            return new CompilationResult(false, e.getMessage());
+        }
+        Files.writeString(artifactDir.resolve("solution.c"), code);
+        Files.writeString(artifactDir.resolve("codegenie_native.h"), NATIVE_HEADER);
+        Files.writeString(artifactDir.resolve("codegenie_main.c"), harness);
+
+        List<String> command = new ArrayList<>();
+        command.add(compiler);
+        command.addAll(List.of(flags.trim().split("\\s+")));
+        command.addAll(List.of("-o", artifactDir.resolve("solution").toString(),
+                artifactDir.resolve("codegenie_main.c").toString(), "-lm"));
+        return CompilerProcess.run(sandbox, command, artifactDir, timeoutMs);
+    }
+
+    @Override
+    public List<String> runCommand(Path artifactDir, ResourceLimits limits) {
+        return List.of(artifactDir.resolve("solution").toString());
+    }
+
+    @Override
+    public boolean isOutOfMemory(String stderr) {
+        // malloc just returns NULL; running out shows up as an RSS-limit kill instead
+        return false;
+    }
+
+    static String harnessSource(String code) {
+        StringBuilder out = new StringBuilder();
+        // Common headers first so that renaming a void main below cannot touch them.
+        out.append("#include <ctype.h>\n#include <limits.h>\n#include <math.h>\n#include <stdbool.h>\n")
+                .append("#include <stdint.h>\n")
+                .append("#include \"codegenie_native.h\"\n");
+
+        if (VOID_MAIN.matcher(code).find()) {
+            // gcc accepts void main, but the exit code is then whatever was left in
+            // the return register: call it from a main that returns 0.
+            out.append("#define main codegenie_user_main\n");
+            out.append("#include \"solution.c\"\n");
+            out.append("#undef main\n\n");
+            out.append("int main(void) {\n");
+            out.append("    static char codegenie_program[] = \"solution\";\n");
+            out.append("    static char *codegenie_argv[] = {codegenie_program, NULL};\n");
+            out.append("    (void) codegenie_argv;\n");
+            out.append("    cg_init();\n");
+            out.append("    cg_invoke_start();\n");
+            out.append("    codegenie_user_main(")
+                    .append(SolutionSignature.mainTakesArgs(code) ? "1, codegenie_argv" : "").append(");\n");
+            out.append("    cg_invoke_end();\n");
+            out.append("    return 0;\n");
+            out.append("}\n");
+            return out.toString();
+        }
+        if (SolutionSignature.hasMain(code)) {
+            // Any other main stays the program's entry point, so one that ends
+            // without "return 0;" still exits with 0; timing starts from a constructor.
+            out.append("#include \"solution.c\"\n\n");
+            out.append("__attribute__((constructor)) static void codegenie_start(void) {\n");
+            out.append("    cg_init();\n");
+            out.append("    cg_invoke_start();\n");
+            out.append("}\n");
+            return out.toString();
+        }
+
+        SolutionSignature signature = SolutionSignature.find(code);
+        if (signature == null) {
+            throw new IllegalArgumentException("Neither main() nor a solution(...) function was found.");
+        }
+        out.append("#include \"solution.c\"\n\n");
+        out.append("int main(void) {\n");
+        out.append("    cg_init();\n");
+        out.append("    cg_load_input();\n");
+
+        List<SolutionSignature.Parameter> parameters = signature.parameters();
+        List<String> arguments = new ArrayList<>();
+        for (int i = 0; i < parameters.size(); i++) {
+            SolutionSignature.Parameter parameter = parameters.get(i);
+            String variable = "codegenie_arg_" + i;
+            String elementType = arrayElementType(parameter.type());
+            if (elementType == null) {
+                out.append("    ").append(parameter.type()).append(' ').append(variable).append(" = ")
+                        .append(readExpression(parameter.type(), parameter.name())).append(";\n");
+                arguments.add(variable);
+                continue;
+            }
+            // Array: read into a growing buffer; a following integral parameter is its length.
+            String length = "codegenie_len_" + i;
+            String capacity = "codegenie_cap_" + i;
+            String bracketed = "codegenie_bracketed_" + i;
+            out.append("    size_t ").append(length).append(" = 0, ").append(capacity).append(" = 16;\n");
+            out.append("    ").append(elementType).append(" *").append(variable).append(" = malloc(")
+                    .append(capacity).append(" * sizeof(").append(elementType).append("));\n");
+            out.append("    int ").append(bracketed).append(" = cg_array_begin();\n");
+            out.append("    while (cg_array_has_next(").append(bracketed).append(")) {\n");
+            out.append("        if (").append(length).append(" == ").append(capacity).append(") {\n");
+            out.append("            ").append(capacity).append(" *= 2;\n");
+            out.append("            ").append(variable).append(" = realloc(").append(variable).append(", ")
+                    .append(capacity).append(" * sizeof(").append(elementType).append("));\n");
+            out.append("        }\n");
+            out.append("        ").append(variable).append('[').append(length).append("++] = ")
+                    .append(readExpression(elementType, parameter.name())).append(";\n");
+            out.append("    }\n");
+            arguments.add(variable);
+            if (i + 1 < parameters.size() && INTEGRAL_TYPES.contains(parameters.get(i + 1).type())) {
+                arguments.add("(" + parameters.get(i + 1).type() + ") " + length);
+                i++;
+            }
+        }
+
+        String call = "solution(" + String.join(", ", arguments) + ")";
+        String returnType = signature.returnType();
+        out.append("    cg_invoke_start();\n");
+        if (returnType.equals("void")) {
+            out.append("    ").append(call).append(";\n");
+            out.append("    cg_invoke_end();\n");
+            out.append("    cg_print_output_marker();\n");
+            out.append("    printf(\"null\\n\");\n");
+        } else {
+            out.append("    ").append(returnType).append(" codegenie_result = ").append(call).append(";\n");
+            out.append("    cg_invoke_end();\n");
+            out.append("    cg_print_output_marker();\n");
+            out.append("    ").append(printStatement(returnType)).append('\n');
+        }
+        out.append("    return 0;\n");
+        out.append("}\n");
+        return out.toString();
+    }
+
+    /** Element type for {@code T[]} / {@code T*} parameters; {@code char*} is a string, not an array. */
+    private static String arrayElementType(String type) {
+        if (type.endsWith("[]")) {
+            return type.substring(0, type.length() - 2);
+        }
+        if (type.endsWith("*") && !type.equals("char*")) {
+            return type.substring(0, type.length() - 1);
+        }
+        return null;
+    }
+
+    private static String readExpression(String type, String name) {
+        if (INTEGRAL_TYPES.contains(type)) {
+            return "(" + type + ") cg_read_long()";
+        }
+        if (FLOATING_TYPES.contains(type)) {
+            return "(" + type + ") cg_read_double()";
+        }
+        if (BOOLEAN_TYPES.contains(type)) {
+            return "cg_read_bool()";
+        }
+        if (type.equals("char")) {
+            return "cg_read_char()";
+        }
+        if (type.equals("char*")) {
+            return "cg_read_string()";
+        }
+        throw new IllegalArgumentException("Unsupported parameter type '" + type + "' for " + name);
+    }
+
+    /** Formats like the Java runner (Double.toString, true/false). */
+    private static String printStatement(String type) {
+        if (INTEGRAL_TYPES.contains(type)) {
+            return "printf(\"%lld\\n\", (long long) codegenie_result);";
+        }
+        if (FLOATING_TYPES.contains(type)) {
+            return "if ((double) (long long) codegenie_result == (double) codegenie_result) "
+                    + "printf(\"%.1f\\n\", (double) codegenie_result); "
+                    + "else printf(\"%.15g\\n\", (double) codegenie_result);";
+        }
+        if (BOOLEAN_TYPES.contains(type)) {
+            return "printf(\"%s\\n\", codegenie_result ? \"true\" : \"false\");";
+        }
+        if (type.equals("char")) {
+            return "printf(\"%c\\n\", codegenie_result);";
+        }
+        if (type.equals("char*")) {
+            return "printf(\"%s\\n\", codegenie_result ? codegenie_result : \"null\");";
+        }
+        throw new IllegalArgumentException("Unsupported return type '" + type + "': the C runtime can print "
+                + "numbers, booleans, characters and strings.");
+    }
+}
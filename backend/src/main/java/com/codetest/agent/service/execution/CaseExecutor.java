@@ -0,0 +1,19 @@
+package com.codetest.agent.service.execution;
+
+import java.io.IOException;
+
+/**
+ * Runs the test cases of one submission. Opened per submission by
+ * {@link LanguageRuntime#openExecutor} and closed when all cases are done.
+ */
+public interface CaseExecutor extends AutoCloseable {
+
+    ProcessRun run(StdinSource stdin, long timeoutMs) throws IOException, InterruptedException;
+
+    default ProcessRun run(String stdin, long timeoutMs) throws IOException, InterruptedException {
+        return run(StdinSource.of(stdin), timeoutMs);
+    }
+
+    @Override
+    void close();
+}
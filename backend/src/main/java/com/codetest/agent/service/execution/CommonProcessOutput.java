@@ -0,0 +1,77 @@
+package com.codetest.agent.service.execution;
+
+import java.io.InputStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Captures stdout and stderr of a child process on a shared pool of reader
+ * threads. Stdout is kept up to the output limit; one byte more kills the
+ * process (Output Limit Exceeded). Stderr keeps its head and tail.
+ */
+final class CommonProcessOutput {
+
+    static final int STDERR_HALF_BYTES = 32 * 1024;
+
+    // Cached, so threads are reused across test cases; the scheduler bounds how many run at once.
+    private static final AtomicInteger READER_COUNT = new AtomicInteger();
+    private static final ExecutorService READERS = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "process-output-" + READER_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Process process;
+    private final OutputBuffer stdout;
+    private final OutputBuffer stderr = OutputBuffer.headAndTail(STDERR_HALF_BYTES);
+    private Future<?> outReader;
+    private Future<?> errReader;
+
+    CommonProcessOutput(Process process, int stdoutLimitBytes) {
+        this.process = process;
+        this.stdout = OutputBuffer.limited(stdoutLimitBytes, process::destroyForcibly);
+    }
+
+    void start() {
+        outReader = drainAsync(process.getInputStream(), stdout);
+        errReader = drainAsync(process.getErrorStream(), stderr);
+    }
+
+    /** Waits briefly for both streams to reach EOF after the process exited. */
+    void join() throws InterruptedException {
+        await(outReader, 1000);
+        await(errReader, 1000);
+    }
+
+    String getStdout() {
+        return stdout.toString();
+    }
+
+    String getStderr() {
+        return stderr.toString();
+    }
+
+    boolean outputLimitExceeded() {
+        return stdout.overflowed();
+    }
+
+    static Future<?> drainAsync(InputStream in, OutputBuffer buffer) {
+        return READERS.submit(() -> buffer.drain(in));
+    }
+
+    static void await(Future<?> reader, long timeoutMs) throws InterruptedException {
+        if (reader == null) {
+            return;
+        }
+        try {
+            reader.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            // A grandchild still holds the pipe open; use what was read so far.
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package com.codetest.agent.service.execution;
+
+/** Outcome of a runtime's compile step; {@code output} is the compiler's merged stdout/stderr. */
+public record CompilationResult(boolean success, String output) {
+}
@@ -0,0 +1,84 @@
+package com.codetest.agent.service.execution;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/** Runs a compiler (or syntax checker) to completion with a time limit. */
+final class CompilerProcess {
+
+    private static final long VERSION_TIMEOUT_MS = 10_000;
+    // Template errors can run to megabytes; nobody reads past the first and last screens.
+    private static final int OUTPUT_HALF_BYTES = 32 * 1024;
+    private static final Map<List<String>, String> VERSIONS = new ConcurrentHashMap<>();
+
+    private CompilerProcess() {
+    }
+
+    /**
+     * First line of a version command such as {@code g++ -dumpfullversion}, cached for
+     * the life of the process. Goes into toolchain keys so that artifacts kept on disk
+     * are not reused after the compiler is upgraded.
+     */
+    static String version(String... command) {
+        return VERSIONS.computeIfAbsent(List.of(command), CompilerProcess::queryVersion);
+    }
+
+    private static String queryVersion(List<String> command) {
+        try {
+            Path dir = Path.of(System.getProperty("java.io.tmpdir"));
+            CompilationResult result = run(command, dir, VERSION_TIMEOUT_MS);
+            String output = result.output().strip();
+            int newline = output.indexOf('\n');
+            return result.success() ? (newline < 0 ? output : output.substring(0, newline)) : "unknown";
+        } catch (IOException e) {
+            return "unknown";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "unknown";
+        }
+    }
+
+    /** Runs a trusted command (version query, header precompile, docker CLI) as a child of the backend. */
+    static CompilationResult run(List<String> command, Path workDir, long timeoutMs)
+            throws IOException, InterruptedException {
+        return run(SandboxExecutor.LOCAL, command, workDir, timeoutMs);
+    }
+
+    static CompilationResult run(SandboxExecutor.Session sandbox, List<String> command, Path workDir, long timeoutMs)
+            throws IOException, InterruptedException {
+        ProcessBuilder compileBuilder = new ProcessBuilder(command);
+        compileBuilder.directory(workDir.toFile());
+        compileBuilder.redirectErrorStream(true);
+        sandbox.copyIn(workDir);
+        Process compileProcess = sandbox.startCompiler(compileBuilder);
+
+        // Close stdin
+        compileProcess.getOutputStream().close();
+
+        // Capture output
+        OutputBuffer output = OutputBuffer.headAndTail(OUTPUT_HALF_BYTES);
+        Future<?> outputReader = CommonProcessOutput.drainAsync(compileProcess.getInputStream(), output);
+
+        boolean finished = compileProcess.waitFor(timeoutMs, TimeUnit.MILLISECONDS);
+
+        if (!finished) {
+            compileProcess.destroyForcibly();
+            return new CompilationResult(false, "Compilation Time Limit Exceeded (" + timeoutMs + " ms)");
+        }
+
+        CommonProcessOutput.await(outputReader, 1000);
+
+        // Absolute artifact paths mean nothing to the user
+        String message = output.toString().replace(workDir.toString() + "/", "");
+        boolean success = compileProcess.exitValue() == 0;
+        if (success) {
+            sandbox.copyOut(workDir);
+        }
+        return new CompilationResult(success, message);
+    }
+}
@@ -0,0 +1,201 @@
+package com.codetest.agent.service.execution;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * C++17 with g++. The submission is included into a generated
+ * {@code codegenie_main.cpp}: stdin programs keep their {@code main} and are
+ * timed from a static constructor, {@code solution(...)} functions get typed argument
+ * readers generated from their signature (see codegenie_native.hpp).
+ *
+ * Parsing {@code <bits/stdc++.h>} is most of a compile, so it is precompiled once
+ * per compiler and flag set at start-up. g++ looks for {@code bits/stdc++.h.gch}
+ * in each include directory before the header itself and falls back to the
+ * header next to it when the .gch does not match, so the harness stays unchanged.
+ */
+@Slf4j
+@Component
+public class CppRuntime implements LanguageRuntime {
+
+    private static final String NATIVE_HEADER = HarnessResources.read("codegenie_native.h");
+    private static final String CPP_HEADER = HarnessResources.read("codegenie_native.hpp");
+
+    @Value("${codegenie.execution.cpp.compiler:g++}")
+    private String compiler;
+
+    @Value("${codegenie.execution.cpp.flags:-std=c++17 -O2 -pipe}")
+    private String flags;
+
+    @Value("${codegenie.execution.cpp.precompiled-header.enabled:true}")
+    private boolean precompiledHeaderEnabled;
+
+    @Value("${codegenie.execution.cpp.precompiled-header.dir:${java.io.tmpdir}/codegenie-pch}")
+    private String precompiledHeaderRoot;
+
+    @Value("${codegenie.execution.cpp.precompiled-header.timeout-ms:60000}")
+    private long precompiledHeaderTimeoutMs;
+
+    // Include directory holding bits/stdc++.h.gch, once it has been built
+    private volatile Path precompiledHeaderDir;
+
+    @PostConstruct
+    void startPrecompiledHeaderBuild() {
+        if (!precompiledHeaderEnabled) {
+            return;
+        }
+        // Takes a few seconds; compiles that start before it is ready just parse the header.
+        Thread thread = new Thread(this::buildPrecompiledHeader, "cpp-precompiled-header");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void buildPrecompiledHeader() {
+        try {
+            // A .gch is only valid for the compiler and flags that built it.
+            String version = CompilerProcess.version(compiler, "-dumpfullversion");
+            Path includeDir = Path.of(precompiledHeaderRoot,
+                    Integer.toHexString((compiler + " " + version + " " + flags).hashCode()));
+            Path header = includeDir.resolve("bits").resolve("stdc++.h.gch");
+            if (!Files.exists(header)) {
+                Files.createDirectories(header.getParent());
+                Path seed = Files.writeString(includeDir.resolve("codegenie_pch.hpp"), "#include <bits/stdc++.h>\n");
+                Path building = header.resolveSibling("stdc++.h.gch." + ProcessHandle.current().pid());
+
+                List<String> command = new ArrayList<>();
+                command.add(compiler);
+                command.addAll(List.of(flags.trim().split("\\s+")));
+                command.addAll(List.of("-x", "c++-header", seed.toString(), "-o", building.toString()));
+                CompilationResult result = CompilerProcess.run(command, includeDir, precompiledHeaderTimeoutMs);
+                if (!result.success()) {
+                    Files.deleteIfExists(building);
+                    log.warn("Could not precompile <bits/stdc++.h>: {}", result.output());
+                    return;
+                }
+                Files.move(building, header, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            // The .gch only serves the harness's first include; a second one (from the
+            // submission) would otherwise stop at this directory and fail.
+            Files.writeString(header.resolveSibling("stdc++.h"), "#include_next <bits/stdc++.h>\n");
+            precompiledHeaderDir = includeDir;
+            log.info("Using precompiled <bits/stdc++.h> from {}", includeDir);
+        } catch (IOException e) {
+            log.warn("Could not precompile <bits/stdc++.h>: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public String language() {
+        return "cpp";
+    }
+
+    @Override
+    public Set<String> aliases() {
+        return Set.of("c++");
+    }
+
+    @Override
+    public String toolchainKey() {
+        return compiler + " " + CompilerProcess.version(compiler, "-dumpfullversion") + " " + flags
+                + "|harness:" + Integer.toHexString((NATIVE_HEADER + CPP_HEADER).hashCode());
+    }
+
+    @Override
+    public CompilationResult compile(String code, Path artifactDir, long timeoutMs, SandboxExecutor.Session sandbox)
+            throws IOException, InterruptedException {
+        String harness;
+        try {
+            harness = harnessSource(code);
+        } catch (IllegalArgumentException e) {
+            return new CompilationResult(false, e.getMessage());
+        }
+        Files.writeString(artifactDir.resolve("solution.cpp"), code);
+        Files.writeString(artifactDir.resolve("codegenie_native.h"), NATIVE_HEADER);
+        Files.writeString(artifactDir.resolve("codegenie_native.hpp"), CPP_HEADER);
+        Files.writeString(artifactDir.resolve("codegenie_main.cpp"), harness);
+
+        List<String> command = new ArrayList<>();
+        command.add(compiler);
+        command.addAll(List.of(flags.trim().split("\\s+")));
+        Path pchDir = precompiledHeaderDir;
+        if (pchDir != null) {
+            command.addAll(List.of("-I", pchDir.toString()));
+        }
+        command.addAll(List.of("-o", artifactDir.resolve("solution").toString(),
+                artifactDir.resolve("codegenie_main.cpp").toString()));
+        return CompilerProcess.run(sandbox, command, artifactDir, timeoutMs);
+    }
+
+    @Override
+    public List<String> runCommand(Path artifactDir, ResourceLimits limits) {
+        return List.of(artifactDir.resolve("solution").toString());
+    }
+
+    @Override
+    public boolean isOutOfMemory(String stderr) {
+        return stderr.contains("std::bad_alloc");
+    }
+
+    static String harnessSource(String code) {
+        StringBuilder out = new StringBuilder();
+        out.append("#include <bits/stdc++.h>\n");
+        out.append("#include \"codegenie_native.hpp\"\n");
+
+        if (SolutionSignature.hasMain(code)) {
+            // The program's own main stays the entry point, so one that ends without
+            // "return 0;" still returns 0; timing starts from a constructor.
+            out.append("#include \"solution.cpp\"\n\n");
+            out.append("__attribute__((constructor)) static void codegenie_start() {\n");
+            out.append("    cg_init();\n");
+            out.append("    cg_invoke_start();\n");
+            out.append("}\n");
+            return out.toString();
+        }
+
+        SolutionSignature signature = SolutionSignature.find(code);
+        if (signature == null) {
+            throw new IllegalArgumentException("Neither main() nor a solution(...) function was found.");
+        }
+        out.append("#include \"solution.cpp\"\n\n");
+        out.append("int main() {\n");
+        out.append("    cg_init();\n");
+        out.append("    cg_load_input();\n");
+        List<String> arguments = new ArrayList<>();
+        for (SolutionSignature.Parameter parameter : signature.parameters()) {
+            if (parameter.type().endsWith("[]") || parameter.type().endsWith("*")) {
+                throw new IllegalArgumentException("Unsupported parameter type for " + parameter.name()
+                        + ": use vector<...> instead of arrays or pointers.");
+            }
+            String variable = "codegenie_arg_" + arguments.size();
+            out.append("    auto ").append(variable).append(" = codegenie::read<").append(parameter.type())
+                    .append(">();\n");
+            arguments.add(variable);
+        }
+        String call = "solution(" + String.join(", ", arguments) + ")";
+        out.append("    cg_invoke_start();\n");
+        if (signature.returnType().equals("void")) {
+            out.append("    ").append(call).append(";\n");
+            out.append("    cg_invoke_end();\n");
+            out.append("    codegenie::printResult(\"null\");\n");
+        } else {
+            out.append("    auto codegenie_result = ").append(call).append(";\n");
+            out.append("    cg_invoke_end();\n");
+            out.append("    codegenie::printResult(codegenie_result);\n");
+        }
+        out.append("    return 0;\n");
+        out.append("}\n");
+        return out.toString();
+    }
+}
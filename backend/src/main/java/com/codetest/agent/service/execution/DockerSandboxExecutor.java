@@ -0,0 +1,460 @@
+package com.codetest.agent.service.execution;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs compiles and test cases inside Docker containers, through the Docker
+ * socket mounted into the backend. A cold {@code docker run} costs several
+ * hundred ms, so containers are created ahead of time and kept idling
+ * ({@code sleep infinity}): no network, read-only root file system, capped
+ * memory, CPUs and pids. A submission borrows one container; its processes
+ * start via {@code docker exec}, compilers as root and user programs as
+ * {@code run-user}. Afterwards the container is recycled off the request path
+ * with {@code docker restart}, which kills anything left running and resets
+ * its tmpfs.
+ *
+ * A container never sees other submissions' files. Commands refer to artifact
+ * and workspace paths of the backend; in the container those roots are private
+ * tmpfs mounts, into which a session copies the artifacts it runs (read-only
+ * for the user's program) and creates its working directory, owned by
+ * {@code run-user}. Compiles run on a copy too, and what the compiler wrote is
+ * copied back into the artifact cache. Files move as tar streams over
+ * {@code docker exec}. The Java runner and the precompiled header are the same
+ * for everyone: they live on {@code toolchain-volume}, mounted read-write in
+ * the backend and read-only in the containers, at the same path; {@link #start}
+ * refuses to run when they are configured anywhere else.
+ *
+ * The backend's RSS watchdog cannot see into a container; there the
+ * container's memory cap applies instead, and peak RSS is not reported.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "codegenie.execution.sandbox.type", havingValue = "docker")
+public class DockerSandboxExecutor implements SandboxExecutor {
+
+    private static final String LABEL = "codegenie.sandbox.host";
+    private static final long DOCKER_TIMEOUT_MS = 30_000;
+    private static final long KILL_TIMEOUT_MS = 5_000;
+    private static final Path MOUNT_TABLE = Path.of("/proc/self/mountinfo");
+
+    private final MeterRegistry meterRegistry;
+    private final String docker;
+    private final String image;
+    private final String toolchainVolume;
+    private final Path artifactRoot;
+    private final Path workspaceRoot;
+    private final Map<String, Path> toolchainDirs = new LinkedHashMap<>();
+    private final int size;
+    private final int memoryMb;
+    private final String cpus;
+    private final int pidsLimit;
+    private final int tmpfsMb;
+    private final String runUser;
+    private final String host;
+
+    private final BlockingQueue<String> idle = new LinkedBlockingQueue<>();
+    private final AtomicInteger recyclerThreads = new AtomicInteger();
+    private final ExecutorService recycler = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "sandbox-pool-" + recyclerThreads.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public DockerSandboxExecutor(MeterRegistry meterRegistry, ArtifactCache artifactCache,
+            WorkspaceManager workspaceManager,
+            @Value("${codegenie.execution.sandbox.docker.command:docker}") String docker,
+            @Value("${codegenie.execution.sandbox.docker.image:codegenie-sandbox:latest}") String image,
+            @Value("${codegenie.execution.sandbox.docker.toolchain-volume:codegenie-toolchain:/var/codegenie-toolchain}")
+            String toolchainVolume,
+            @Value("${codegenie.execution.java.runner-dir:${java.io.tmpdir}/codegenie-java-runner}") String javaRunnerDir,
+            @Value("${codegenie.execution.cpp.precompiled-header.dir:${java.io.tmpdir}/codegenie-pch}")
+            String precompiledHeaderDir,
+            @Value("${codegenie.execution.sandbox.docker.pool-size:4}") int size,
+            @Value("${codegenie.execution.sandbox.docker.memory-mb:1024}") int memoryMb,
+            @Value("${codegenie.execution.sandbox.docker.cpus:1}") String cpus,
+            @Value("${codegenie.execution.sandbox.docker.pids-limit:128}") int pidsLimit,
+            @Value("${codegenie.execution.sandbox.docker.tmpfs-mb:64}") int tmpfsMb,
+            @Value("${codegenie.execution.sandbox.docker.run-user:65534:65534}") String runUser) throws IOException {
+        this.meterRegistry = meterRegistry;
+        this.docker = docker;
+        this.image = image;
+        this.toolchainVolume = toolchainVolume;
+        this.artifactRoot = artifactCache.root().toAbsolutePath().normalize();
+        this.workspaceRoot = workspaceManager.root().toAbsolutePath().normalize();
+        toolchainDirs.put("codegenie.execution.java.runner-dir", Path.of(javaRunnerDir));
+        toolchainDirs.put("codegenie.execution.cpp.precompiled-header.dir", Path.of(precompiledHeaderDir));
+        this.size = size;
+        this.memoryMb = memoryMb;
+        this.cpus = cpus;
+        this.pidsLimit = pidsLimit;
+        this.tmpfsMb = tmpfsMb;
+        this.runUser = runUser;
+        this.host = InetAddress.getLocalHost().getHostName();
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        checkToolchainDirs();
+        removeContainers(); // left behind by a crash of this host's previous backend
+        meterRegistry.gauge("codegenie.execution.sandbox.containers.idle", idle, BlockingQueue::size);
+        for (int i = 0; i < size; i++) {
+            recycler.execute(this::replenish);
+        }
+    }
+
+    /**
+     * A runner or header outside the toolchain volume, or a volume the backend
+     * itself has not mounted, would only show up as "file not found" from every
+     * compile and run.
+     */
+    private void checkToolchainDirs() throws IOException {
+        String[] parts = toolchainVolume.split(":");
+        if (parts.length < 2 || !parts[1].startsWith("/")) {
+            throw new IllegalStateException("codegenie.execution.sandbox.docker.toolchain-volume must be "
+                    + "<volume>:<absolute mount point>, not " + toolchainVolume);
+        }
+        Path mountPoint = Path.of(parts[1]).normalize();
+        for (Map.Entry<String, Path> dir : toolchainDirs.entrySet()) {
+            if (!dir.getValue().toAbsolutePath().normalize().startsWith(mountPoint)) {
+                throw new IllegalStateException(dir.getKey() + " (" + dir.getValue() + ") must be under " + mountPoint
+                        + ", where sandbox containers mount " + parts[0]);
+            }
+        }
+        for (Path root : List.of(artifactRoot, workspaceRoot)) {
+            if (root.startsWith(mountPoint)) {
+                throw new IllegalStateException(root + " must not be under the read-only toolchain volume "
+                        + mountPoint);
+            }
+        }
+        if (Files.isReadable(MOUNT_TABLE) && Files.readAllLines(MOUNT_TABLE).stream()
+                .map(line -> line.split(" "))
+                .noneMatch(fields -> fields.length > 4 && fields[4].equals(mountPoint.toString()))) {
+            throw new IllegalStateException("The backend has not mounted " + parts[0] + " at " + mountPoint
+                    + "; sandbox containers would not see the runner and precompiled header it builds there");
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        recycler.shutdownNow();
+        removeContainers();
+    }
+
+    @Override
+    public Session open() throws IOException, InterruptedException {
+        String container = idle.poll();
+        meterRegistry.counter("codegenie.execution.sandbox.borrow", "result", container != null ? "warm" : "cold")
+                .increment();
+        if (container == null) {
+            container = createContainer();
+        }
+        return new ContainerSession(container);
+    }
+
+    private void replenish() {
+        if (idle.size() >= size) {
+            return;
+        }
+        try {
+            idle.add(createContainer());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not start a sandbox container: {}", e.getMessage());
+        }
+    }
+
+    private void recycle(String container, boolean used) {
+        try {
+            if (idle.size() >= size) {
+                remove(container);
+                return;
+            }
+            if (used && !docker("restart", "-t", "0", container).success()) {
+                remove(container);
+                replenish();
+                return;
+            }
+            idle.add(container);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not recycle sandbox container {}: {}", container, e.getMessage());
+        }
+    }
+
+    private String createContainer() throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>(List.of("run", "-d",
+                "--label", LABEL + "=" + host,
+                "--network", "none",
+                "--read-only",
+                "--tmpfs", "/tmp:rw,nosuid,nodev,size=" + tmpfsMb + "m",
+                // Private copies of this container's sessions' files; emptied by every restart
+                "--tmpfs", artifactRoot + ":rw,exec,nosuid,nodev,size=" + tmpfsMb + "m",
+                "--tmpfs", workspaceRoot + ":rw,exec,nosuid,nodev,size=" + tmpfsMb + "m",
+                "--memory", memoryMb + "m",
+                "--memory-swap", memoryMb + "m",
+                "--cpus", cpus,
+                "--pids-limit", String.valueOf(pidsLimit),
+                "--cap-drop", "ALL",
+                "--cap-add", "CHOWN", // root hands the working directory to run-user; the program itself has none
+                "--security-opt", "no-new-privileges",
+                "-v", toolchainVolume + ":ro",
+                image, "sleep", "infinity"));
+        CompilationResult result = docker(command.toArray(new String[0]));
+        if (!result.success()) {
+            throw new IOException("docker run failed: " + result.output().strip());
+        }
+        String output = result.output().strip();
+        return output.substring(output.lastIndexOf('\n') + 1); // container id; pull progress comes before it
+    }
+
+    private void removeContainers() {
+        try {
+            CompilationResult result = docker("ps", "-aq", "--filter", "label=" + LABEL + "=" + host);
+            List<String> ids = result.success() ? List.of(result.output().strip().split("\\s+")) : List.of();
+            for (String id : ids) {
+                if (!id.isEmpty()) {
+                    remove(id);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.warn("Could not clean up sandbox containers: {}", e.getMessage());
+        }
+    }
+
+    private void remove(String container) throws IOException, InterruptedException {
+        docker("rm", "-f", container);
+    }
+
+    private CompilationResult docker(String... args) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(docker);
+        command.addAll(List.of(args));
+        return CompilerProcess.run(command, Path.of(System.getProperty("java.io.tmpdir")), DOCKER_TIMEOUT_MS);
+    }
+
+    /** Runs {@code from | to}: a tar stream from one side of the container boundary to the other. */
+    private static void pipe(List<String> from, List<String> to) throws IOException, InterruptedException {
+        List<Process> processes = ProcessBuilder.startPipeline(List.of(
+                new ProcessBuilder(from).redirectError(ProcessBuilder.Redirect.DISCARD),
+                new ProcessBuilder(to).redirectErrorStream(true)));
+        Process source = processes.get(0);
+        Process sink = processes.get(1);
+        OutputBuffer output = OutputBuffer.headAndTail(4096);
+        Future<?> reader = CommonProcessOutput.drainAsync(sink.getInputStream(), output);
+        boolean finished = sink.waitFor(DOCKER_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                && source.waitFor(KILL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        if (!finished) {
+            processes.forEach(Process::destroyForcibly);
+            throw new IOException("Copying files across the sandbox timed out");
+        }
+        CommonProcessOutput.await(reader, 1000);
+        if (source.exitValue() != 0 || sink.exitValue() != 0) {
+            throw new IOException("Copying files across the sandbox failed: " + output.toString().strip());
+        }
+    }
+
+    private final class ContainerSession implements Session {
+        private final String container;
+        // Directories this session has in its container already
+        private final Set<Path> present = ConcurrentHashMap.newKeySet();
+        private volatile boolean used;
+        private boolean closed;
+
+        private ContainerSession(String container) {
+            this.container = container;
+        }
+
+        @Override
+        public void copyIn(Path dir) throws IOException, InterruptedException {
+            Path target = dir.toAbsolutePath().normalize();
+            if (present.contains(target)) {
+                return;
+            }
+            used = true;
+            pipe(List.of("tar", "-C", target.toString(), "-cf", "-", "."),
+                    List.of(docker, "exec", "-i", "--user", "0:0", container, "sh", "-c",
+                            "mkdir -p \"$1\" && tar -C \"$1\" --no-same-owner -xf - && chmod -R a+rX,go-w \"$1\"",
+                            "sh", target.toString()));
+            present.add(target);
+        }
+
+        @Override
+        public void copyOut(Path dir) throws IOException, InterruptedException {
+            Path target = dir.toAbsolutePath().normalize();
+            pipe(List.of(docker, "exec", "--user", "0:0", container, "tar", "-C", target.toString(), "-cf", "-", "."),
+                    List.of("tar", "-C", target.toString(), "--no-same-owner", "-xf", "-"));
+        }
+
+        @Override
+        public Process startCompiler(ProcessBuilder builder) throws IOException {
+            return exec(builder, "0:0");
+        }
+
+        @Override
+        public Process start(ProcessBuilder builder) throws IOException {
+            if (builder.directory() != null) {
+                createWorkDir(builder.directory().toPath().toAbsolutePath().normalize());
+            }
+            return exec(builder, runUser);
+        }
+
+        /** The program's working directory: its own, and the only place in the container it may write. */
+        private void createWorkDir(Path dir) throws IOException {
+            if (present.contains(dir)) {
+                return;
+            }
+            used = true;
+            try {
+                CompilationResult result = docker("exec", "--user", "0:0", container, "sh", "-c",
+                        "mkdir -p \"$1\" && chmod 700 \"$1\" && chown \"$2\" \"$1\"", "sh", dir.toString(), runUser);
+                if (!result.success()) {
+                    throw new IOException("Could not create " + dir + " in the sandbox: " + result.output().strip());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while preparing the sandbox");
+            }
+            present.add(dir);
+        }
+
+        private Process exec(ProcessBuilder builder, String user) throws IOException {
+            used = true;
+            List<String> command = new ArrayList<>(List.of(docker, "exec", "-i", "--user", user));
+            if (builder.directory() != null) {
+                command.addAll(List.of("-w", builder.directory().getAbsolutePath()));
+            }
+            command.add(container);
+            if (builder.redirectErrorStream()) {
+                // docker exec keeps the two streams apart; merge them inside the container
+                command.addAll(List.of("sh", "-c", "exec \"$0\" \"$@\" 2>&1"));
+            }
+            command.addAll(builder.command());
+            return new ContainerProcess(new ProcessBuilder(command).start(), container, user);
+        }
+
+        @Override
+        public boolean isLocal() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                recycler.execute(() -> recycle(container, used));
+            } catch (RuntimeException e) {
+                // Shutting down; stop() removes the container
+            }
+        }
+    }
+
+    /**
+     * The {@code docker exec} client. Killing the client does not stop the
+     * command inside the container, so destroying it also kills every process
+     * of that user there (a session runs one process at a time).
+     */
+    private final class ContainerProcess extends Process {
+        private final Process client;
+        private final String container;
+        private final String user;
+
+        private ContainerProcess(Process client, String container, String user) {
+            this.client = client;
+            this.container = container;
+            this.user = user;
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return client.getOutputStream();
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return client.getInputStream();
+        }
+
+        @Override
+        public InputStream getErrorStream() {
+            return client.getErrorStream();
+        }
+
+        @Override
+        public int waitFor() throws InterruptedException {
+            return client.waitFor();
+        }
+
+        @Override
+        public boolean waitFor(long timeout, TimeUnit unit) throws InterruptedException {
+            return client.waitFor(timeout, unit);
+        }
+
+        @Override
+        public int exitValue() {
+            return client.exitValue();
+        }
+
+        @Override
+        public boolean isAlive() {
+            return client.isAlive();
+        }
+
+        @Override
+        public long pid() {
+            return client.pid();
+        }
+
+        @Override
+        public void destroy() {
+            destroyForcibly();
+        }
+
+        @Override
+        public Process destroyForcibly() {
+            try {
+                CompilerProcess.run(List.of(docker, "exec", "--user", user, container, "sh", "-c", "kill -9 -1"),
+                        Path.of(System.getProperty("java.io.tmpdir")), KILL_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                log.warn("Could not kill processes in sandbox container {}: {}", container, e.getMessage());
+            }
+            client.destroyForcibly();
+            return this;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.codetest.agent.service.execution;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Character-for-character, apart from leading/trailing whitespace and CRLF vs
+ * LF; the comparison before checkers existed.
+ */
+@Component
+public class ExactOutputChecker implements OutputChecker {
+
+    @Override
+    public String name() {
+        return "exact";
+    }
+
+    @Override
+    public Result check(CharSequence expected, CharSequence actual) {
+        int i = trimStart(expected);
+        int j = trimStart(actual);
+        int expectedEnd = trimEnd(expected, i);
+        int actualEnd = trimEnd(actual, j);
+        int line = 1;
+        while (i < expectedEnd && j < actualEnd) {
+            if (isCrlf(expected, i, expectedEnd)) {
+                i++;
+                continue;
+            }
+            if (isCrlf(actual, j, actualEnd)) {
+                j++;
+                continue;
+            }
+            char c = expected.charAt(i);
+            if (c != actual.charAt(j)) {
+                return Result.rejected("Line " + line + " differs");
+            }
+            if (c == '\n') {
+                line++;
+            }
+            i++;
+            j++;
+        }
+        if (i < expectedEnd) {
+            return Result.rejected("Line " + line + ": output ended early");
+        }
+        if (j < actualEnd) {
+            return Result.rejected("Line " + line + ": unexpected extra output");
+        }
+        return Result.ACCEPTED;
+    }
+
+    private static boolean isCrlf(CharSequence text, int index, int end) {
+        return text.charAt(index) == '\r' && index + 1 < end && text.charAt(index + 1) == '\n';
+    }
+
+    private static int trimStart(CharSequence text) {
+        int i = 0;
+        while (i < text.length() && text.charAt(i) <= ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int trimEnd(CharSequence text, int start) {
+        int end = text.length();
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+}
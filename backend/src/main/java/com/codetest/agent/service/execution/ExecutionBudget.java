@@ -0,0 +1,59 @@
+package com.codetest.agent.service.execution;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Time budget for one submission, derived from the problem's scraped time limit
+ * ("1 초", "2 seconds", "500 ms") and a per-language multiplier. The limit comes
+ * with the request, so it is capped: a single case holds an execution slot for
+ * as long as its limit allows.
+ *
+ * @param timeLimitMs        the judge's limit as written on the problem page
+ * @param multiplier         language allowance (e.g. 3.0 for Python)
+ * @param perCaseMs          user time allowed for a single test case
+ * @param submissionBudgetMs wall time allowed for all test cases together
+ */
+public record ExecutionBudget(long timeLimitMs, double multiplier, long perCaseMs, long submissionBudgetMs) {
+
+    public static final long DEFAULT_TIME_LIMIT_MS = 2000;
+
+    private static final Pattern TIME_PATTERN = Pattern.compile(
+            "(\\d+(?:\\.\\d+)?)\\s*(ms|밀리초|millis|milliseconds?|초|s|sec|secs|seconds?)?",
+            Pattern.CASE_INSENSITIVE);
+
+    public static ExecutionBudget of(String timeLimit, double multiplier, long submissionBudgetMs,
+            long maxTimeLimitMs) {
+        long timeLimitMs = Math.min(parseTimeLimitMs(timeLimit, DEFAULT_TIME_LIMIT_MS), maxTimeLimitMs);
+        long perCaseMs = (long) Math.ceil(timeLimitMs * multiplier);
+        return new ExecutionBudget(timeLimitMs, multiplier, perCaseMs, submissionBudgetMs);
+    }
+
+    /** Verdict text that states the real limit, not just the scaled one. */
+    public String timeLimitExceeded(long userTimeMs) {
+        String scaled = multiplier == 1.0 ? "" : " × " + multiplier;
+        return "Time Limit Exceeded (" + userTimeMs + " ms > " + timeLimitMs + " ms" + scaled + ")";
+    }
+
+    /** For runs killed by the watchdog, where the exact user time is unknown. */
+    public String timeLimitExceeded() {
+        String scaled = multiplier == 1.0 ? "" : " × " + multiplier;
+        return "Time Limit Exceeded (limit " + timeLimitMs + " ms" + scaled + ")";
+    }
+
+    static long parseTimeLimitMs(String text, long defaultMs) {
+        if (text == null || text.isBlank()) {
+            return defaultMs;
+        }
+        Matcher matcher = TIME_PATTERN.matcher(text);
+        if (!matcher.find()) {
+            return defaultMs;
+        }
+        double value = Double.parseDouble(matcher.group(1));
+        String unit = matcher.group(2) == null ? "" : matcher.group(2).toLowerCase(Locale.ROOT);
+        boolean millis = unit.equals("ms") || unit.equals("밀리초") || unit.startsWith("milli");
+        long ms = millis ? Math.round(value) : Math.round(value * 1000);
+        return ms <= 0 ? defaultMs : ms;
+    }
+}
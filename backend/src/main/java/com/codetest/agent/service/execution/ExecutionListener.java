@@ -0,0 +1,16 @@
+package com.codetest.agent.service.execution;
+
+import com.codetest.agent.dto.ExecutionEvent;
+
+/**
+ * Receives the {@link ExecutionEvent}s of one submission as they happen, on the
+ * thread running it. Must not block for long: the next test case waits.
+ */
+@FunctionalInterface
+public interface ExecutionListener {
+
+    ExecutionListener NONE = event -> {
+    };
+
+    void onEvent(ExecutionEvent event);
+}
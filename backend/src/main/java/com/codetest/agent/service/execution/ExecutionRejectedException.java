@@ -0,0 +1,21 @@
+package com.codetest.agent.service.execution;
+
+/**
+ * Thrown when the {@link ExecutionScheduler} sheds a submission: the backlog
+ * (or the user's share of it) is full, or it waited too long for a slot.
+ */
+public class ExecutionRejectedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSeconds;
+
+    public ExecutionRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,210 @@
+package com.codetest.agent.service.execution;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control in front of compile-and-run. At most {@code max-concurrent}
+ * submissions (default: one per core) hold a slot at a time; the rest wait in
+ * per-user FIFO queues that are served round-robin, so one user submitting in a
+ * loop cannot push everyone else to the back. The backlog is bounded in total
+ * and per user, and a submission that cannot be queued, or waits longer than
+ * {@code max-wait-ms}, fails fast with {@link ExecutionRejectedException}.
+ *
+ * Slots are only granted here; the submission runs on the caller's thread
+ * ({@link #admit}) or wherever the caller continues the ticket
+ * ({@link #admitAsync}).
+ */
+@Component
+public class ExecutionScheduler {
+
+    private static final String METRIC_WAIT = "codegenie.execution.queue.wait";
+
+    private final MeterRegistry meterRegistry;
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final int maxQueuedPerUser;
+    private final long maxWaitMs;
+
+    private final Map<String, ArrayDeque<Waiter>> queues = new HashMap<>();
+    private final ArrayDeque<String> turnOrder = new ArrayDeque<>(); // users with waiters, next to serve first
+    private int running;
+    private int queued;
+
+    public ExecutionScheduler(MeterRegistry meterRegistry,
+            @Value("${codegenie.execution.scheduler.max-concurrent:0}") int maxConcurrent,
+            @Value("${codegenie.execution.scheduler.max-queued:64}") int maxQueued,
+            @Value("${codegenie.execution.scheduler.max-queued-per-user:8}") int maxQueuedPerUser,
+            @Value("${codegenie.execution.scheduler.max-wait-ms:30000}") long maxWaitMs) {
+        this.meterRegistry = meterRegistry;
+        this.maxConcurrent = maxConcurrent > 0 ? maxConcurrent : Runtime.getRuntime().availableProcessors();
+        this.maxQueued = maxQueued;
+        this.maxQueuedPerUser = maxQueuedPerUser;
+        this.maxWaitMs = maxWaitMs;
+        Gauge.builder("codegenie.execution.running", this, s -> s.snapshot(true)).register(meterRegistry);
+        Gauge.builder("codegenie.execution.queued", this, s -> s.snapshot(false)).register(meterRegistry);
+    }
+
+    /**
+     * Blocks until {@code userId} gets a slot. The slot must be closed when the
+     * submission is done.
+     *
+     * @throws ExecutionRejectedException if the backlog is full or the wait times out
+     */
+    public Slot admit(String userId) throws InterruptedException {
+        CompletableFuture<Slot> ticket = admitAsync(userId);
+        try {
+            return ticket.get();
+        } catch (ExecutionException e) {
+            throw (ExecutionRejectedException) e.getCause();
+        } catch (InterruptedException e) {
+            if (!ticket.completeExceptionally(e)) {
+                ticket.join().close(); // granted just as we were interrupted: hand the slot on
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Queues {@code userId} for a slot without blocking. The returned ticket
+     * completes with the slot, or exceptionally with
+     * {@link ExecutionRejectedException} if it waited longer than
+     * {@code max-wait-ms}; continuations may run on the thread that released the
+     * slot. Completing the ticket yourself withdraws from the queue.
+     *
+     * @throws ExecutionRejectedException right away if the backlog is full
+     */
+    public CompletableFuture<Slot> admitAsync(String userId) {
+        long startedAt = System.nanoTime();
+        Waiter waiter;
+        synchronized (this) {
+            if (running < maxConcurrent && queued == 0) {
+                running++;
+                record("immediate", startedAt);
+                return CompletableFuture.completedFuture(new Slot());
+            }
+            ArrayDeque<Waiter> queue = queues.get(userId);
+            if (queued >= maxQueued || (queue != null && queue.size() >= maxQueuedPerUser)) {
+                record("rejected", startedAt);
+                throw new ExecutionRejectedException("Too many submissions are waiting to run. Please retry shortly.",
+                        retryAfterSeconds());
+            }
+            waiter = new Waiter(userId);
+            if (queue == null) {
+                queue = new ArrayDeque<>();
+                queues.put(userId, queue);
+                turnOrder.addLast(userId);
+            }
+            queue.addLast(waiter);
+            queued++;
+        }
+
+        CompletableFuture.delayedExecutor(maxWaitMs, TimeUnit.MILLISECONDS).execute(() -> {
+            if (!waiter.ticket.isDone()) {
+                waiter.ticket.completeExceptionally(new ExecutionRejectedException(
+                        "The server is busy running other submissions. Please retry shortly.", retryAfterSeconds()));
+            }
+        });
+        waiter.ticket.whenComplete((slot, error) -> {
+            if (error == null) {
+                record("queued", startedAt);
+                return;
+            }
+            remove(waiter);
+            record(error instanceof ExecutionRejectedException ? "timeout" : "withdrawn", startedAt);
+        });
+        return waiter.ticket;
+    }
+
+    private synchronized void remove(Waiter waiter) {
+        ArrayDeque<Waiter> queue = queues.get(waiter.userId);
+        if (queue != null && queue.remove(waiter)) {
+            queued--;
+            if (queue.isEmpty()) {
+                queues.remove(waiter.userId);
+                turnOrder.remove(waiter.userId);
+            }
+        }
+    }
+
+    private void release() {
+        List<Waiter> granted = new ArrayList<>();
+        synchronized (this) {
+            running--;
+            // Round-robin: take one waiter from the user at the head of the turn order,
+            // then move that user to the back if they still have more waiting.
+            while (running < maxConcurrent && queued > 0) {
+                String userId = turnOrder.pollFirst();
+                ArrayDeque<Waiter> queue = queues.get(userId);
+                granted.add(queue.pollFirst());
+                queued--;
+                if (queue.isEmpty()) {
+                    queues.remove(userId);
+                } else {
+                    turnOrder.addLast(userId);
+                }
+                running++;
+            }
+        }
+        // Outside the lock: completing a ticket runs the waiter's continuations.
+        for (Waiter waiter : granted) {
+            Slot slot = new Slot();
+            if (!waiter.ticket.complete(slot)) {
+                slot.close(); // timed out or withdrawn a moment ago: pass it on
+            }
+        }
+    }
+
+    private synchronized long retryAfterSeconds() {
+        // Rough guess: each wave of maxConcurrent submissions takes a couple of seconds
+        return Math.max(1, (queued / Math.max(1, maxConcurrent)) * 2L);
+    }
+
+    private synchronized int snapshot(boolean runningCount) {
+        return runningCount ? running : queued;
+    }
+
+    private void record(String outcome, long startedAt) {
+        Timer.builder(METRIC_WAIT)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+    }
+
+    private static final class Waiter {
+        private final String userId;
+        private final CompletableFuture<Slot> ticket = new CompletableFuture<>();
+
+        private Waiter(String userId) {
+            this.userId = userId;
+        }
+    }
+
+    /** A held execution slot. */
+    public final class Slot implements AutoCloseable {
+        private boolean closed;
+
+        private Slot() {
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                release();
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.codetest.agent.service.execution;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Like {@link TokenOutputChecker}, but numbers match when they are within an
+ * absolute or relative tolerance of each other, for problems that accept
+ * answers "within 10^-6". {@code float:1e-9} overrides the configured tolerance.
+ */
+@Component
+public class FloatOutputChecker extends TokenOutputChecker {
+
+    private final double tolerance;
+
+    public FloatOutputChecker(@Value("${codegenie.execution.checker.float-tolerance:1e-6}") double tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    @Override
+    public String name() {
+        return "float";
+    }
+
+    @Override
+    public OutputChecker withArgument(String argument) {
+        try {
+            return new FloatOutputChecker(Double.parseDouble(argument));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid float tolerance: " + argument);
+        }
+    }
+
+    @Override
+    public OutputChecker forPrintedResult() {
+        return new FloatOutputChecker(tolerance) {
+            @Override
+            protected boolean structural() {
+                return true;
+            }
+        };
+    }
+
+    @Override
+    protected boolean tokensMatch(OutputTokenizer expected, OutputTokenizer actual) {
+        if (expected.sameToken(actual)) {
+            return true;
+        }
+        if (!looksNumeric(expected) || !looksNumeric(actual)) {
+            return false;
+        }
+        try {
+            double want = Double.parseDouble(expected.token());
+            double got = Double.parseDouble(actual.token());
+            double diff = Math.abs(want - got);
+            return diff <= tolerance || diff <= tolerance * Math.max(Math.abs(want), Math.abs(got));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    // Cheap pre-check, so words never go through parseDouble ("Infinity", "NaN" and hex floats excluded)
+    private static boolean looksNumeric(OutputTokenizer token) {
+        char c = token.firstChar();
+        return (c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.';
+    }
+}
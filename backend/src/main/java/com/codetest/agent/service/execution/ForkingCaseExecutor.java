@@ -0,0 +1,121 @@
+package com.codetest.agent.service.execution;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Starts a fresh process for every test case, in the submission's sandbox. */
+final class ForkingCaseExecutor implements CaseExecutor {
+
+    private static final long FEEDER_JOIN_MS = 1000;
+
+    // Cached, like the output readers; the scheduler bounds how many run at once.
+    private static final AtomicInteger FEEDER_COUNT = new AtomicInteger();
+    private static final ExecutorService FEEDERS = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "process-input-" + FEEDER_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final SandboxExecutor.Session sandbox;
+    private final List<String> command;
+    private final Path workDir;
+    private final long rssLimitKb;
+    private final int outputLimitBytes;
+
+    ForkingCaseExecutor(SandboxExecutor.Session sandbox, List<String> command, Path workDir, long rssLimitKb,
+            int outputLimitBytes) {
+        this.sandbox = sandbox;
+        this.command = command;
+        this.workDir = workDir;
+        this.rssLimitKb = rssLimitKb;
+        this.outputLimitBytes = outputLimitBytes;
+    }
+
+    @Override
+    public ProcessRun run(StdinSource stdin, long timeoutMs) throws IOException, InterruptedException {
+        ProcessBuilder runBuilder = new ProcessBuilder(command);
+        runBuilder.directory(workDir.toFile());
+
+        long startedAt = System.nanoTime();
+        Process runProcess = sandbox.start(runBuilder);
+        // In a container the cgroup memory cap takes over; /proc here cannot see the process.
+        ProcessMemoryMonitor.Watch memoryWatch = sandbox.isLocal()
+                ? ProcessMemoryMonitor.watch(runProcess, rssLimitKb)
+                : ProcessMemoryMonitor.unwatched();
+
+        // Drain and feed concurrently, so a program that prints while reading cannot stall on either pipe
+        CommonProcessOutput outputHandler = new CommonProcessOutput(runProcess, outputLimitBytes);
+        outputHandler.start();
+        Future<?> feeder = feedAsync(runProcess, stdin);
+
+        boolean finished;
+        try {
+            finished = runProcess.waitFor(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            runProcess.destroyForcibly();
+            memoryWatch.stop();
+            throw e;
+        }
+        long wallTimeMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        memoryWatch.stop();
+
+        if (!finished || memoryWatch.limitExceeded()) {
+            runProcess.destroyForcibly();
+        }
+        // Once the process is gone the feeder's next write fails, so this does not wait long
+        RuntimeException inputFailure = awaitFeeder(feeder);
+        outputHandler.join();
+        if (inputFailure != null) {
+            throw inputFailure;
+        }
+
+        return new ProcessRun(finished, memoryWatch.limitExceeded(), outputHandler.outputLimitExceeded(),
+                finished ? runProcess.exitValue() : -1, outputHandler.getStdout(), outputHandler.getStderr(),
+                wallTimeMs, memoryWatch.peakRssKb());
+    }
+
+    /**
+     * Writes the input on a feeder thread and closes the pipe. If the input cannot
+     * be produced the run is void: the process is killed and the feeder fails.
+     */
+    private static Future<?> feedAsync(Process process, StdinSource stdin) {
+        return FEEDERS.submit(() -> {
+            try (OutputStream input = new BufferedOutputStream(process.getOutputStream(), StdinSource.CHUNK_BYTES)) {
+                stdin.writeTo(input);
+            } catch (IOException e) {
+                // Exited (or was killed) before reading all of its input
+            } catch (RuntimeException e) {
+                process.destroyForcibly();
+                throw e;
+            }
+            return null;
+        });
+    }
+
+    /** @return why the input could not be produced, or {@code null} */
+    private static RuntimeException awaitFeeder(Future<?> feeder) throws InterruptedException {
+        try {
+            feeder.get(FEEDER_JOIN_MS, TimeUnit.MILLISECONDS);
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause() instanceof RuntimeException failure ? failure : null;
+        } catch (TimeoutException e) {
+            // Stuck writing to a pipe a grandchild still holds open; it fails once that one exits
+            return null;
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+}
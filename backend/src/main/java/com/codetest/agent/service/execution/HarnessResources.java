@@ -0,0 +1,23 @@
+package com.codetest.agent.service.execution;
+
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/** Harness sources shipped under {@code src/main/resources/runtime}. */
+final class HarnessResources {
+
+    private HarnessResources() {
+    }
+
+    static String read(String name) {
+        try (InputStream in = new ClassPathResource("runtime/" + name).getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Missing harness resource runtime/" + name, e);
+        }
+    }
+}
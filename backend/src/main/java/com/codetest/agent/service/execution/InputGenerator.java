@@ -0,0 +1,679 @@
+package com.codetest.agent.service.execution;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Expands a compact input spec ({@code TestCase.generator}) into a program's
+ * stdin, so large inputs never travel through the API. A spec is a list of
+ * clauses separated by newlines, {@code ;} or top-level commas; each clause
+ * either sets a variable or prints one or more lines:
+ *
+ * <pre>
+ * n = 1e3 | 1e4 | 1e5 | 2e5          constant; alternatives give one run per value
+ * k = int in [1, n]                  random
+ * n k                                a line with these values (expressions without spaces)
+ * array of n ints in [1, 1e9]        one line of n values
+ * sorted | desc | distinct | as list modify the array before (also written after it)
+ * permutation of n                   1..n shuffled
+ * m lines of 2 ints in [1, n]        m lines of 2 values each
+ * string of n chars in [a-z]         one line; also in "#." (default a-z)
+ * n strings of m chars in "#."       n lines
+ * </pre>
+ *
+ * Numbers may be written {@code 200000}, {@code 2e5}, {@code 2*10^5} or
+ * {@code 10^9+7}. Output is deterministic for a given seed. Sorted and distinct
+ * arrays are streamed from order statistics, so only unsorted distinct arrays and
+ * permutations are held in memory, as primitive arrays.
+ */
+public final class InputGenerator {
+
+    static final long MAX_INPUT_BYTES = 256L << 20;
+    private static final long MAX_SHUFFLED = 10_000_000;
+
+    private static final Pattern NAME = Pattern.compile("[A-Za-z_]\\w*");
+    private static final Pattern ASSIGN = Pattern.compile("([A-Za-z_]\\w*)\\s*=\\s*(.+)");
+    private static final Pattern RANDOM_INT = Pattern.compile("(?i)int\\s+in\\s+\\[([^,\\]]+),([^\\]]+)]");
+    private static final Pattern ARRAY = Pattern.compile(
+            "(?i)array\\s+of\\s+(.+?)\\s+ints?\\s+in\\s+\\[([^,\\]]+),([^\\]]+)]((?:\\s+(?:sorted|desc|descending|distinct|as\\s+list))*)");
+    private static final Pattern PERMUTATION = Pattern.compile(
+            "(?i)permutation\\s+of\\s+(.+?)((?:\\s+(?:as\\s+list))*)");
+    private static final Pattern LINES = Pattern.compile(
+            "(?i)(.+?)\\s+lines\\s+of\\s+(.+?)\\s+ints?\\s+in\\s+\\[([^,\\]]+),([^\\]]+)]");
+    private static final Pattern STRINGS = Pattern.compile(
+            "(?i)(?:(.+?)\\s+strings|string)\\s+of\\s+(.+?)\\s+chars?(?:\\s+in\\s+(.+))?");
+    private static final Pattern KEYWORD = Pattern.compile("(?i).*\\b(array|permutation|lines|strings?|chars?|ints?)\\b.*");
+    private static final Pattern MODIFIER = Pattern.compile("(?i)sorted|desc|descending|distinct|as\\s+list");
+
+    private final String spec;
+    private final List<Clause> clauses;
+    private final String scalingVariable;
+    private final List<Expr> alternatives;
+    private final int choice;
+
+    private InputGenerator(String spec, List<Clause> clauses, String scalingVariable, List<Expr> alternatives,
+            int choice) {
+        this.spec = spec;
+        this.clauses = clauses;
+        this.scalingVariable = scalingVariable;
+        this.alternatives = alternatives;
+        this.choice = choice;
+    }
+
+    /** @throws IllegalArgumentException with a message for the user if the spec is not valid */
+    public static InputGenerator parse(String spec) {
+        List<Clause> clauses = new ArrayList<>();
+        Set<String> defined = new HashSet<>();
+        String scalingVariable = null;
+        List<Expr> alternatives = List.of();
+        for (String text : splitClauses(spec)) {
+            Matcher matcher;
+            if ((matcher = ASSIGN.matcher(text)).matches()) {
+                String name = matcher.group(1);
+                String value = matcher.group(2).trim();
+                Matcher random = RANDOM_INT.matcher(value);
+                if (random.matches()) {
+                    clauses.add(new RandomInt(name, Expr.parse(random.group(1), defined),
+                            Expr.parse(random.group(2), defined)));
+                } else if (value.contains("|")) {
+                    if (scalingVariable != null) {
+                        throw new IllegalArgumentException("Only one variable can have alternatives ('"
+                                + scalingVariable + "' already has)");
+                    }
+                    List<Expr> values = new ArrayList<>();
+                    for (String alternative : value.split("\\|")) {
+                        values.add(Expr.parse(alternative, Set.of()));
+                    }
+                    scalingVariable = name;
+                    alternatives = values;
+                    clauses.add(new Scaling(name));
+                } else {
+                    clauses.add(new Constant(name, Expr.parse(value, defined)));
+                }
+                defined.add(name);
+            } else if ((matcher = ARRAY.matcher(text)).matches()) {
+                Array array = new Array(Expr.parse(matcher.group(1), defined), Expr.parse(matcher.group(2), defined),
+                        Expr.parse(matcher.group(3), defined), false);
+                array.modify(matcher.group(4));
+                clauses.add(array);
+            } else if ((matcher = PERMUTATION.matcher(text)).matches()) {
+                Expr count = Expr.parse(matcher.group(1), defined);
+                Array permutation = new Array(count, Expr.constant(1), count, true);
+                permutation.modify(matcher.group(2));
+                clauses.add(permutation);
+            } else if ((matcher = MODIFIER.matcher(text)).matches()) {
+                if (clauses.isEmpty() || !(clauses.get(clauses.size() - 1) instanceof Array array)) {
+                    throw new IllegalArgumentException("'" + text + "' must follow an array");
+                }
+                array.modify(text);
+            } else if ((matcher = LINES.matcher(text)).matches()) {
+                clauses.add(new Lines(Expr.parse(matcher.group(1), defined), Expr.parse(matcher.group(2), defined),
+                        Expr.parse(matcher.group(3), defined), Expr.parse(matcher.group(4), defined)));
+            } else if ((matcher = STRINGS.matcher(text)).matches()) {
+                Expr count = matcher.group(1) != null ? Expr.parse(matcher.group(1), defined) : Expr.constant(1);
+                clauses.add(new Strings(count, Expr.parse(matcher.group(2), defined), charset(matcher.group(3))));
+            } else if (KEYWORD.matcher(text).matches()) {
+                throw new IllegalArgumentException("Cannot read '" + text
+                        + "'; expected e.g. 'array of n ints in [1, 1e9]' or 'string of n chars in [a-z]'");
+            } else {
+                List<Expr> values = new ArrayList<>();
+                for (String value : text.split("\\s+")) {
+                    values.add(Expr.parse(value, defined));
+                }
+                clauses.add(new Values(values));
+            }
+        }
+        if (clauses.isEmpty()) {
+            throw new IllegalArgumentException("Empty input generator");
+        }
+        return new InputGenerator(spec, List.copyOf(clauses), scalingVariable, alternatives, 0);
+    }
+
+    /** One generator per alternative of the scaling variable, in the order written; just this one without. */
+    public List<InputGenerator> variants() {
+        if (scalingVariable == null) {
+            return List.of(this);
+        }
+        List<InputGenerator> variants = new ArrayList<>();
+        for (int i = 0; i < alternatives.size(); i++) {
+            variants.add(new InputGenerator(spec, clauses, scalingVariable, alternatives, i));
+        }
+        return variants;
+    }
+
+    /** The variable with alternatives, or {@code null}. */
+    public String scalingVariable() {
+        return scalingVariable;
+    }
+
+    public long scalingValue() {
+        return scalingVariable == null ? 0 : alternatives.get(choice).eval(Map.of());
+    }
+
+    /** The spec on one line, with this variant's value, e.g. {@code "n = 1e3 | 1e5; n; ... (n=100000)"}. */
+    public String describe() {
+        String oneLine = String.join("; ", splitClauses(spec));
+        return scalingVariable == null ? oneLine : oneLine + " (" + scalingVariable + "=" + scalingValue() + ")";
+    }
+
+    public StdinSource stdin(long seed) {
+        return out -> {
+            Generation generation = new Generation(out, new SplittableRandom(seed), scalingValue());
+            try {
+                for (Clause clause : clauses) {
+                    clause.write(generation);
+                }
+            } catch (ArithmeticException | IllegalArgumentException e) {
+                throw new IllegalArgumentException("Input generator: " + e.getMessage(), e);
+            }
+            generation.flush();
+        };
+    }
+
+    private static List<String> splitClauses(String spec) {
+        List<String> clauses = new ArrayList<>();
+        StringBuilder clause = new StringBuilder();
+        int depth = 0;
+        boolean quoted = false;
+        for (int i = 0; i <= spec.length(); i++) {
+            char c = i < spec.length() ? spec.charAt(i) : '\n';
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (!quoted && (c == '[' || c == '(')) {
+                depth++;
+            } else if (!quoted && (c == ']' || c == ')')) {
+                depth--;
+            }
+            if (!quoted && depth <= 0 && (c == '\n' || c == ';' || c == ',')) {
+                String text = clause.toString().trim();
+                if (!text.isEmpty()) {
+                    clauses.add(text);
+                }
+                clause.setLength(0);
+            } else {
+                clause.append(c);
+            }
+        }
+        return clauses;
+    }
+
+    private static byte[] charset(String text) {
+        if (text == null) {
+            return charset("[a-z]");
+        }
+        text = text.trim();
+        StringBuilder chars = new StringBuilder();
+        if (text.length() >= 2 && text.startsWith("\"") && text.endsWith("\"")) {
+            chars.append(text, 1, text.length() - 1);
+        } else if (text.length() >= 2 && text.startsWith("[") && text.endsWith("]")) {
+            String ranges = text.substring(1, text.length() - 1);
+            for (int i = 0; i < ranges.length(); i++) {
+                if (i + 2 < ranges.length() && ranges.charAt(i + 1) == '-') {
+                    for (char c = ranges.charAt(i); c <= ranges.charAt(i + 2); c++) {
+                        chars.append(c);
+                    }
+                    i += 2;
+                } else {
+                    chars.append(ranges.charAt(i));
+                }
+            }
+        } else {
+            throw new IllegalArgumentException("Characters must be \"quoted\" or a [a-z] class: " + text);
+        }
+        for (int i = 0; i < chars.length(); i++) {
+            if (chars.charAt(i) <= ' ' || chars.charAt(i) > '~') {
+                throw new IllegalArgumentException("Only printable ASCII characters can be generated");
+            }
+        }
+        if (chars.isEmpty()) {
+            throw new IllegalArgumentException("Empty character set: " + text);
+        }
+        return chars.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    // --- Clauses ---
+
+    private interface Clause {
+        void write(Generation generation) throws IOException;
+    }
+
+    private record Constant(String name, Expr value) implements Clause {
+        @Override
+        public void write(Generation generation) {
+            generation.variables.put(name, value.eval(generation.variables));
+        }
+    }
+
+    private record Scaling(String name) implements Clause {
+        @Override
+        public void write(Generation generation) {
+            generation.variables.put(name, generation.scalingValue);
+        }
+    }
+
+    private record RandomInt(String name, Expr low, Expr high) implements Clause {
+        @Override
+        public void write(Generation generation) {
+            generation.variables.put(name, generation.nextLong(low.eval(generation.variables),
+                    high.eval(generation.variables)));
+        }
+    }
+
+    private record Values(List<Expr> values) implements Clause {
+        @Override
+        public void write(Generation generation) throws IOException {
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0) {
+                    generation.write(' ');
+                }
+                generation.writeLong(values.get(i).eval(generation.variables));
+            }
+            generation.write('\n');
+        }
+    }
+
+    private static final class Array implements Clause {
+        private final Expr count;
+        private final Expr low;
+        private final Expr high;
+        private final boolean permutation;
+        private boolean sorted;
+        private boolean descending;
+        private boolean distinct;
+        private boolean list;
+
+        private Array(Expr count, Expr low, Expr high, boolean permutation) {
+            this.count = count;
+            this.low = low;
+            this.high = high;
+            this.permutation = permutation;
+            this.distinct = permutation;
+        }
+
+        void modify(String modifiers) {
+            String normalized = modifiers.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+            for (String modifier : normalized.split(" (?!list)")) {
+                switch (modifier) {
+                    case "" -> {
+                    }
+                    case "sorted" -> sorted = true;
+                    case "desc", "descending" -> descending = true;
+                    case "distinct" -> distinct = true;
+                    case "as list" -> list = true;
+                    default -> throw new IllegalArgumentException("Unknown array modifier: " + modifier);
+                }
+                if (permutation && (sorted || descending)) {
+                    throw new IllegalArgumentException("A permutation cannot be sorted");
+                }
+            }
+        }
+
+        @Override
+        public void write(Generation generation) throws IOException {
+            long n = generation.count(count);
+            long lo = low.eval(generation.variables);
+            long hi = high.eval(generation.variables);
+            if (hi < lo) {
+                throw new IllegalArgumentException("Empty range [" + lo + ", " + hi + "]");
+            }
+            if (distinct && n > 0 && hi - lo < n - 1) {
+                throw new IllegalArgumentException(n + " distinct values do not fit in [" + lo + ", " + hi + "]");
+            }
+            generation.write(list ? "[" : "");
+            if (distinct && !sorted && !descending) {
+                writeShuffled(generation, n, lo, hi);
+            } else if (sorted || descending) {
+                writeOrdered(generation, n, lo, hi);
+            } else {
+                for (long i = 0; i < n; i++) {
+                    separate(generation, i);
+                    generation.writeLong(generation.nextLong(lo, hi));
+                }
+            }
+            generation.write(list ? "]\n" : "\n");
+        }
+
+        /**
+         * Order statistics of n uniform draws, from the smallest up (or the largest
+         * down), one at a time. Distinct values are non-decreasing draws from a range
+         * shortened by n - 1, plus their index.
+         */
+        private void writeOrdered(Generation generation, long n, long lo, long hi) throws IOException {
+            long span = (distinct ? hi - lo - (n - 1) : hi - lo) + 1;
+            double u = descending ? 1.0 : 0.0;
+            for (long i = 0; i < n; i++) {
+                double step = Math.pow(generation.random.nextDouble(), 1.0 / (n - i));
+                u = descending ? u * step : u + (1 - u) * (1 - step);
+                long offset = Math.min(span - 1, (long) (u * span));
+                long value = lo + offset;
+                if (distinct) {
+                    value += descending ? n - 1 - i : i;
+                }
+                separate(generation, i);
+                generation.writeLong(value);
+            }
+        }
+
+        private void writeShuffled(Generation generation, long n, long lo, long hi) throws IOException {
+            if (n > MAX_SHUFFLED) {
+                throw new IllegalArgumentException("Shuffled distinct arrays are limited to " + MAX_SHUFFLED
+                        + " values");
+            }
+            long[] values = new long[(int) n];
+            long span = hi - lo - (n - 1) + 1;
+            if (permutation) {
+                for (int i = 0; i < n; i++) {
+                    values[i] = lo + i;
+                }
+            } else {
+                double u = 0.0;
+                for (int i = 0; i < n; i++) {
+                    u += (1 - u) * (1 - Math.pow(generation.random.nextDouble(), 1.0 / (n - i)));
+                    values[i] = lo + Math.min(span - 1, (long) (u * span)) + i;
+                }
+            }
+            for (int i = values.length - 1; i > 0; i--) {
+                int j = generation.random.nextInt(i + 1);
+                long swap = values[i];
+                values[i] = values[j];
+                values[j] = swap;
+            }
+            for (int i = 0; i < values.length; i++) {
+                separate(generation, i);
+                generation.writeLong(values[i]);
+            }
+        }
+
+        private void separate(Generation generation, long index) throws IOException {
+            if (index > 0) {
+                generation.write(list ? ", " : " ");
+            }
+        }
+    }
+
+    private record Lines(Expr count, Expr perLine, Expr low, Expr high) implements Clause {
+        @Override
+        public void write(Generation generation) throws IOException {
+            long lines = generation.count(count);
+            long values = generation.count(perLine);
+            long lo = low.eval(generation.variables);
+            long hi = high.eval(generation.variables);
+            if (hi < lo) {
+                throw new IllegalArgumentException("Empty range [" + lo + ", " + hi + "]");
+            }
+            for (long line = 0; line < lines; line++) {
+                for (long i = 0; i < values; i++) {
+                    if (i > 0) {
+                        generation.write(' ');
+                    }
+                    generation.writeLong(generation.nextLong(lo, hi));
+                }
+                generation.write('\n');
+            }
+        }
+    }
+
+    private record Strings(Expr count, Expr length, byte[] chars) implements Clause {
+        @Override
+        public void write(Generation generation) throws IOException {
+            long lines = generation.count(count);
+            long n = generation.count(length);
+            for (long line = 0; line < lines; line++) {
+                for (long i = 0; i < n; i++) {
+                    generation.write(chars[generation.random.nextInt(chars.length)]);
+                }
+                generation.write('\n');
+            }
+        }
+    }
+
+    // --- Output ---
+
+    /** Variables, the seeded random source and a byte buffer in front of the program's stdin. */
+    private static final class Generation {
+        private final Map<String, Long> variables = new HashMap<>();
+        private final OutputStream out;
+        private final SplittableRandom random;
+        private final long scalingValue;
+        private final byte[] buffer = new byte[1 << 16];
+        private final byte[] digits = new byte[20];
+        private int position;
+        private long written;
+
+        private Generation(OutputStream out, SplittableRandom random, long scalingValue) {
+            this.out = out;
+            this.random = random;
+            this.scalingValue = scalingValue;
+        }
+
+        long nextLong(long lo, long hi) {
+            if (hi < lo) {
+                throw new IllegalArgumentException("Empty range [" + lo + ", " + hi + "]");
+            }
+            if (hi == Long.MAX_VALUE) {
+                return lo == Long.MIN_VALUE ? random.nextLong() : random.nextLong(lo - 1, hi) + 1;
+            }
+            return random.nextLong(lo, hi + 1);
+        }
+
+        long count(Expr expr) {
+            long value = expr.eval(variables);
+            if (value < 0) {
+                throw new IllegalArgumentException("Negative count: " + value);
+            }
+            return value;
+        }
+
+        void write(String text) throws IOException {
+            for (int i = 0; i < text.length(); i++) {
+                write((byte) text.charAt(i));
+            }
+        }
+
+        void write(char c) throws IOException {
+            write((byte) c);
+        }
+
+        void write(byte b) throws IOException {
+            if (position == buffer.length) {
+                drain();
+            }
+            buffer[position++] = b;
+        }
+
+        void writeLong(long value) throws IOException {
+            if (value == Long.MIN_VALUE) {
+                write(Long.toString(value));
+                return;
+            }
+            if (value < 0) {
+                write('-');
+                value = -value;
+            }
+            int length = 0;
+            do {
+                digits[length++] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while (value > 0);
+            while (length > 0) {
+                write(digits[--length]);
+            }
+        }
+
+        void flush() throws IOException {
+            drain();
+            out.flush();
+        }
+
+        private void drain() throws IOException {
+            written += position;
+            if (written > MAX_INPUT_BYTES) {
+                throw new IllegalArgumentException("Generated input exceeds " + (MAX_INPUT_BYTES >> 20) + " MB");
+            }
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    // --- Expressions ---
+
+    /** Integer arithmetic over variables: + - * / % ^, parentheses, literals like 2e5 or 1.5e6. */
+    private interface Expr {
+        long eval(Map<String, Long> variables);
+
+        static Expr constant(long value) {
+            return variables -> value;
+        }
+
+        static Expr parse(String text, Set<String> defined) {
+            ExprParser parser = new ExprParser(text.trim(), defined);
+            Expr expr = parser.sum();
+            if (parser.position < parser.text.length()) {
+                throw new IllegalArgumentException("Cannot read '" + text.trim() + "'");
+            }
+            return expr;
+        }
+    }
+
+    private static final class ExprParser {
+        private final String text;
+        private final Set<String> defined;
+        private int position;
+
+        private ExprParser(String text, Set<String> defined) {
+            this.text = text;
+            this.defined = defined;
+        }
+
+        Expr sum() {
+            Expr left = product();
+            while (true) {
+                if (accept('+')) {
+                    Expr l = left, r = product();
+                    left = v -> Math.addExact(l.eval(v), r.eval(v));
+                } else if (accept('-')) {
+                    Expr l = left, r = product();
+                    left = v -> Math.subtractExact(l.eval(v), r.eval(v));
+                } else {
+                    return left;
+                }
+            }
+        }
+
+        private Expr product() {
+            Expr left = power();
+            while (true) {
+                if (accept('*')) {
+                    Expr l = left, r = power();
+                    left = v -> Math.multiplyExact(l.eval(v), r.eval(v));
+                } else if (accept('/')) {
+                    Expr l = left, r = power();
+                    left = v -> l.eval(v) / r.eval(v);
+                } else if (accept('%')) {
+                    Expr l = left, r = power();
+                    left = v -> l.eval(v) % r.eval(v);
+                } else {
+                    return left;
+                }
+            }
+        }
+
+        private Expr power() {
+            Expr base = unary();
+            if (!accept('^')) {
+                return base;
+            }
+            Expr exponent = power();
+            return v -> {
+                long b = base.eval(v);
+                long e = exponent.eval(v);
+                if (e < 0) {
+                    throw new IllegalArgumentException("Negative exponent in '" + text + "'");
+                }
+                if (b == 0 || b == 1) {
+                    return e == 0 ? 1 : b;
+                }
+                if (b == -1) {
+                    return e % 2 == 0 ? 1 : -1;
+                }
+                if (e > 63) {
+                    throw new ArithmeticException("long overflow");
+                }
+                long result = 1;
+                for (; e > 0; e--) {
+                    result = Math.multiplyExact(result, b);
+                }
+                return result;
+            };
+        }
+
+        private Expr unary() {
+            if (accept('-')) {
+                Expr operand = unary();
+                return v -> Math.negateExact(operand.eval(v));
+            }
+            if (accept('(')) {
+                Expr inner = sum();
+                if (!accept(')')) {
+                    throw new IllegalArgumentException("Missing ')' in '" + text + "'");
+                }
+                return inner;
+            }
+            skipSpaces();
+            int start = position;
+            if (position < text.length() && (Character.isDigit(text.charAt(position)))) {
+                while (position < text.length() && (Character.isDigit(text.charAt(position))
+                        || text.charAt(position) == '.' || text.charAt(position) == 'e'
+                        || text.charAt(position) == 'E'
+                        || (position > start && (text.charAt(position - 1) == 'e' || text.charAt(position - 1) == 'E')
+                                && text.charAt(position) == '+'))) {
+                    position++;
+                }
+                String literal = text.substring(start, position);
+                try {
+                    long value = new BigDecimal(literal).longValueExact();
+                    return Expr.constant(value);
+                } catch (ArithmeticException | NumberFormatException e) {
+                    throw new IllegalArgumentException("Not an integer: " + literal);
+                }
+            }
+            Matcher name = NAME.matcher(text).region(position, text.length());
+            if (name.lookingAt()) {
+                String variable = name.group();
+                position = name.end();
+                if (!defined.contains(variable)) {
+                    throw new IllegalArgumentException("Unknown variable '" + variable + "'");
+                }
+                return v -> v.get(variable);
+            }
+            throw new IllegalArgumentException("Cannot read '" + text + "'");
+        }
+
+        private boolean accept(char c) {
+            skipSpaces();
+            if (position < text.length() && text.charAt(position) == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void skipSpaces() {
+            while (position < text.length() && text.charAt(position) == ' ') {
+                position++;
+            }
+        }
+    }
+}
@@ -0,0 +1,678 @@
+package com.codetest.agent.service.execution;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Java: {@code Solution} compiled with javac, run through the ReflectionRunner
+ * entry point. The runner calls {@code Solution.main} for stdin programs and
+ * otherwise parses the arguments of {@code solution(...)} from stdin. It never
+ * changes between submissions, so it is compiled once per javac/runner version
+ * into its own directory and put on the classpath of every run.
+ */
+@Slf4j
+@Component
+public class JavaRuntime implements LanguageRuntime {
+
+    private static final long RUNNER_COMPILE_TIMEOUT_MS = 60_000;
+
+    @Value("${codegenie.execution.java.compiler:javac}")
+    private String compiler;
+
+    @Value("${codegenie.execution.java.command:java}")
+    private String command;
+
+    @Value("${codegenie.execution.java.runner-dir:${java.io.tmpdir}/codegenie-java-runner}")
+    private String runnerRoot;
+
+    // Compiled ReflectionRunner classes, once available
+    private volatile Path runnerDir;
+
+    @PostConstruct
+    void compileRunner() {
+        try {
+            runnerDir();
+        } catch (IOException e) {
+            // Retried on the first Java compile
+            log.warn("Could not compile the Java runner: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public String language() {
+        return "java";
+    }
+
+    @Override
+    public String toolchainKey() {
+        return compiler + " " + CompilerProcess.version(compiler, "-version") + " -encoding UTF-8|runner:"
+                + runnerVersion();
+    }
+
+    @Override
+    public CompilationResult compile(String code, Path artifactDir, long timeoutMs, SandboxExecutor.Session sandbox)
+            throws IOException, InterruptedException {
+        runnerDir(); // make sure the run can find it
+        // Logic in prepareJavaCode replaces "public class X" with "public class Solution"
+        Path sourcePath = artifactDir.resolve("Solution.java");
+        Files.writeString(sourcePath, prepareJavaCode(code, "Solution"));
+
+        return CompilerProcess.run(sandbox, List.of(compiler, "-encoding", "UTF-8", "-d", artifactDir.toString(),
+                sourcePath.toString()), artifactDir, timeoutMs);
+    }
+
+    @Override
+    public List<String> runCommand(Path artifactDir, ResourceLimits limits) {
+        return runCommand(artifactDir, limits, List.of());
+    }
+
+    @Override
+    public boolean supportsProfiling() {
+        return true;
+    }
+
+    /**
+     * The runner samples the user's code when {@code codegenie.profileMs} (the time limit) is set.
+     * Serial GC leaves safepoint polls out of counted loops, and a stack sample has to wait for
+     * one, so profiled runs keep them in every 1000 iterations.
+     */
+    @Override
+    public CaseExecutor openProfiledExecutor(Path artifactDir, Path workDir, ResourceLimits limits,
+            SandboxExecutor.Session sandbox, long timeLimitMs) {
+        List<String> command = runCommand(artifactDir, limits, List.of("-Dcodegenie.profileMs=" + timeLimitMs,
+                "-XX:+UseCountedLoopSafepoints", "-XX:LoopStripMiningIter=1000"));
+        return new ForkingCaseExecutor(sandbox, command, workDir, rssLimitKb(limits), limits.outputLimitBytes());
+    }
+
+    private List<String> runCommand(Path artifactDir, ResourceLimits limits, List<String> options) {
+        Path runner;
+        try {
+            runner = runnerDir();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while compiling the Java runner", e);
+        }
+        List<String> runCommand = new ArrayList<>(List.of(command, "-Dfile.encoding=UTF-8"));
+        runCommand.addAll(options);
+        // Runner first, so a user class of the same name cannot shadow it
+        runCommand.addAll(List.of("-Xmx" + limits.heapLimitMb() + "m", "-XX:+UseSerialGC",
+                "-cp", runner + File.pathSeparator + artifactDir, "ReflectionRunner"));
+        return runCommand;
+    }
+
+    private Path runnerDir() throws IOException, InterruptedException {
+        Path dir = runnerDir;
+        if (dir == null) {
+            synchronized (this) {
+                if (runnerDir == null) {
+                    runnerDir = buildRunner();
+                }
+                dir = runnerDir;
+            }
+        }
+        return dir;
+    }
+
+    /** Compiles the runner into {@code <runner-dir>/<version>}, unless a previous start already did. */
+    private Path buildRunner() throws IOException, InterruptedException {
+        Path root = Files.createDirectories(Path.of(runnerRoot));
+        Path dir = root.resolve(runnerVersion());
+        if (Files.isRegularFile(dir.resolve("ReflectionRunner.class"))) {
+            return dir;
+        }
+        Path building = Files.createTempDirectory(root, runnerVersion() + ".");
+        try {
+            Path runnerPath = Files.writeString(building.resolve("ReflectionRunner.java"), REFLECTION_RUNNER_SOURCE);
+            CompilationResult result = CompilerProcess.run(List.of(compiler, "-encoding", "UTF-8", "-d",
+                    building.toString(), runnerPath.toString()), building, RUNNER_COMPILE_TIMEOUT_MS);
+            if (!result.success()) {
+                throw new IOException("javac failed on ReflectionRunner: " + result.output());
+            }
+            // createTempDirectory makes it owner-only; sandboxed runs use another uid
+            Files.setPosixFilePermissions(building, PosixFilePermissions.fromString("rwxr-xr-x"));
+            Files.move(building, dir, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Compiled the Java runner into {}", dir);
+        } catch (FileAlreadyExistsException | DirectoryNotEmptyException e) {
+            // Another instance sharing the directory got there first
+        } finally {
+            deleteDirectory(building.toFile());
+        }
+        return dir;
+    }
+
+    /** Changes with the runner source and the JDK that compiles it. */
+    private String runnerVersion() {
+        String version = CompilerProcess.version(compiler, "-version");
+        return Integer.toHexString((compiler + " " + version + "\0" + REFLECTION_RUNNER_SOURCE).hashCode());
+    }
+
+    private static void deleteDirectory(File directory) {
+        File[] allContents = directory.listFiles();
+        if (allContents != null) {
+            for (File file : allContents) {
+                deleteDirectory(file);
+            }
+        }
+        directory.delete();
+    }
+
+    /** -Xmx is the problem's limit; the JVM itself gets the configured overhead on top. */
+    @Override
+    public long rssLimitKb(ResourceLimits limits) {
+        return limits.rssLimitKb();
+    }
+
+    @Override
+    public boolean isOutOfMemory(String stderr) {
+        return stderr.contains("java.lang.OutOfMemoryError");
+    }
+
+    private String prepareJavaCode(String code, String className) {
+        if (code.contains("class " + className)) {
+            return code;
+        }
+        return code.replaceAll("public\\s+class\\s+\\w+", "public class " + className);
+    }
+
+    // --- Reflection Runner Wrapper Code ---
+    // This wrapper handles parsing input arguments from stdin based on the method
+    // signature
+    // and printing the result to stdout.
+    // Arguments are decoded by a byte-level tokenizer (no Scanner/regex) so that
+    // 10^5-10^6 element arrays don't eat into the time limit, and the runner reports
+    // its own parse/invoke timings on stderr (see STATS_MARKER).
+    private static final String REFLECTION_RUNNER_SOURCE = """
+            import java.lang.management.GarbageCollectorMXBean;
+            import java.lang.management.ManagementFactory;
+            import java.lang.management.MemoryPoolMXBean;
+            import java.lang.management.MemoryType;
+            import java.lang.management.ThreadMXBean;
+            import java.lang.reflect.Array;
+            import java.lang.reflect.InvocationTargetException;
+            import java.lang.reflect.Method;
+            import java.lang.reflect.Modifier;
+            import java.util.*;
+            import java.io.*;
+
+            public class ReflectionRunner {
+                private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+                private static final long MAIN_THREAD_ID = Thread.currentThread().getId();
+
+                // Hot-spot sampling, when the server asks for a profile: -Dcodegenie.profileMs=<time limit>
+                private static final long PROFILE_LIMIT_MS = Long.getLong("codegenie.profileMs", 0L);
+                private static final int PROFILE_INTERVAL_MS = 2;
+                private static final int PROFILE_TOP = 10;
+                private static final Map<String, int[]> selfSamples = new HashMap<>();
+                private static final Map<String, int[]> totalSamples = new HashMap<>();
+                private static final Map<String, int[]> lineSamples = new HashMap<>();
+                private static int samples;
+                private static volatile long invokeAllocatedStart = -1;
+                private static volatile long invokeAllocatedEnd = -1;
+
+                // Timings are reported from a shutdown hook so they survive System.exit() in user code.
+                private static final long startedAt = System.nanoTime();
+                private static volatile long parseStartedAt;
+                private static volatile long invokeStartedAt;
+                private static volatile long invokeEndedAt;
+                private static volatile long invokeCpuStartedAt;
+                private static volatile long invokeCpuEndedAt;
+
+                public static void main(String[] args) {
+                    Runtime.getRuntime().addShutdownHook(new Thread(ReflectionRunner::printStats));
+                    try {
+                        Class<?> clazz = Class.forName("Solution");
+
+                        // Stdin programs (BOJ style): time the user's own main.
+                        Method mainMethod = findMain(clazz);
+                        if (mainMethod != null) {
+                            parseStartedAt = System.nanoTime();
+                            invoke(mainMethod, null, new Object[] { new String[0] });
+                            System.out.flush();
+                            return;
+                        }
+
+                        Method method = null;
+                        for (Method m : clazz.getDeclaredMethods()) {
+                            if (m.getName().equals("solution")) { // Convention: 'solution'
+                                method = m;
+                                break;
+                            }
+                        }
+                        if (method == null) {
+                            // Fallback: use the first public method that returns something
+                            for (Method m : clazz.getMethods()) {
+                                if (m.getDeclaringClass() != Object.class && !m.getName().equals("main")) {
+                                    method = m;
+                                    break;
+                                }
+                            }
+                        }
+
+                        if (method == null) {
+                            System.err.println("No solution method found in Solution class.");
+                            System.exit(1);
+                        }
+
+                        method.setAccessible(true);
+                        Object instance = clazz.getDeclaredConstructor().newInstance();
+                        Class<?>[] paramTypes = method.getParameterTypes();
+                        Object[] params = new Object[paramTypes.length];
+
+                        // Arguments are read with a byte-level tokenizer: values may be separated by
+                        // whitespace and/or commas, arrays are written as [a, b, c] (nested for 2D),
+                        // strings may be quoted ("a b") or bare.
+                        parseStartedAt = System.nanoTime();
+                        ArgReader reader = new ArgReader(System.in);
+                        for (int i = 0; i < paramTypes.length; i++) {
+                            params[i] = reader.read(paramTypes[i]);
+                        }
+
+                        Object result = invoke(method, instance, params);
+
+                        System.out.println("===CODEGENIE_OUTPUT_START===");
+                        printResult(result);
+                        System.out.flush();
+                    } catch (Throwable e) {
+                        e.printStackTrace();
+                        System.exit(1);
+                    }
+                }
+
+                private static Method findMain(Class<?> clazz) {
+                    try {
+                        Method main = clazz.getMethod("main", String[].class);
+                        return Modifier.isStatic(main.getModifiers()) ? main : null;
+                    } catch (NoSuchMethodException e) {
+                        return null;
+                    }
+                }
+
+                /** Times only the user's code: wall clock and CPU time of the calling thread. */
+                private static Object invoke(Method method, Object instance, Object[] params) throws Throwable {
+                    System.err.println("===CODEGENIE_INVOKE_START===");
+                    if (PROFILE_LIMIT_MS > 0) {
+                        invokeAllocatedStart = allocatedBytes();
+                    }
+                    invokeCpuStartedAt = THREADS.getCurrentThreadCpuTime();
+                    invokeStartedAt = System.nanoTime();
+                    if (PROFILE_LIMIT_MS > 0) {
+                        startSampler(Thread.currentThread());
+                    }
+                    try {
+                        return method.invoke(instance, params);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    } finally {
+                        invokeEndedAt = System.nanoTime();
+                        invokeCpuEndedAt = THREADS.getCurrentThreadCpuTime();
+                        if (PROFILE_LIMIT_MS > 0) {
+                            invokeAllocatedEnd = allocatedBytes();
+                        }
+                    }
+                }
+
+                private static long allocatedBytes() {
+                    return THREADS instanceof com.sun.management.ThreadMXBean hotspot
+                            ? hotspot.getThreadAllocatedBytes(MAIN_THREAD_ID) : -1;
+                }
+
+                /**
+                 * Samples the user's thread until the call returns. Past the time limit it exits the
+                 * JVM itself, so the shutdown hook still prints the profile before the server would
+                 * kill the run; the user time in STATS then reads as Time Limit Exceeded.
+                 */
+                private static void startSampler(Thread target) {
+                    Thread sampler = new Thread(() -> {
+                        try {
+                            while (invokeEndedAt == 0) {
+                                Thread.sleep(PROFILE_INTERVAL_MS);
+                                sample(target.getStackTrace());
+                                if (invokeEndedAt == 0
+                                        && System.nanoTime() - invokeStartedAt > PROFILE_LIMIT_MS * 1_000_000L) {
+                                    System.exit(1);
+                                }
+                            }
+                        } catch (InterruptedException e) {
+                            // shutting down
+                        }
+                    }, "codegenie-sampler");
+                    sampler.setDaemon(true);
+                    sampler.start();
+                }
+
+                /** Counts the running frame, every method of the user's call on the stack, and the innermost user line. */
+                private static synchronized void sample(StackTraceElement[] stack) {
+                    int bottom = 0;
+                    while (bottom < stack.length && !stack[bottom].getClassName().equals("ReflectionRunner")) {
+                        bottom++;
+                    }
+                    if (bottom == 0 || bottom == stack.length || invokeEndedAt != 0) {
+                        return; // not (or no longer) in the user's call
+                    }
+                    samples++;
+                    selfSamples.computeIfAbsent(methodOf(stack[0]), k -> new int[1])[0]++;
+                    Set<String> seen = new HashSet<>();
+                    boolean lineCounted = false;
+                    for (int i = 0; i < bottom; i++) {
+                        String className = stack[i].getClassName();
+                        if (className.startsWith("java.lang.reflect.") || className.startsWith("jdk.internal.reflect.")) {
+                            continue;
+                        }
+                        String method = methodOf(stack[i]);
+                        if (seen.add(method)) {
+                            totalSamples.computeIfAbsent(method, k -> new int[1])[0]++;
+                        }
+                        if (!lineCounted && isUserClass(className)) {
+                            lineSamples.computeIfAbsent(method + ":" + stack[i].getLineNumber(), k -> new int[1])[0]++;
+                            lineCounted = true;
+                        }
+                    }
+                }
+
+                private static String methodOf(StackTraceElement frame) {
+                    return frame.getClassName() + "." + frame.getMethodName();
+                }
+
+                private static boolean isUserClass(String className) {
+                    return !(className.startsWith("java.") || className.startsWith("javax.")
+                            || className.startsWith("jdk.") || className.startsWith("sun.")
+                            || className.startsWith("com.sun."));
+                }
+
+                private static synchronized void printProfile() {
+                    long allocatedEnd = invokeAllocatedEnd >= 0 ? invokeAllocatedEnd : allocatedBytes();
+                    long allocated = invokeAllocatedStart >= 0 && allocatedEnd >= 0 ? allocatedEnd - invokeAllocatedStart : -1;
+                    System.err.println("===CODEGENIE_PROFILE=== samples=" + samples + " intervalMs=" + PROFILE_INTERVAL_MS
+                            + " allocatedBytes=" + allocated);
+                    printTop("self", selfSamples);
+                    printTop("total", totalSamples);
+                    printTop("line", lineSamples);
+                }
+
+                private static void printTop(String kind, Map<String, int[]> counts) {
+                    List<Map.Entry<String, int[]>> entries = new ArrayList<>(counts.entrySet());
+                    entries.sort((a, b) -> Integer.compare(b.getValue()[0], a.getValue()[0]));
+                    for (int i = 0; i < Math.min(PROFILE_TOP, entries.size()); i++) {
+                        System.err.println("===CODEGENIE_PROFILE=== " + kind + " " + entries.get(i).getValue()[0] + " "
+                                + entries.get(i).getKey());
+                    }
+                }
+
+                private static void printStats() {
+                    if (invokeStartedAt == 0) return;
+                    long endedAt = invokeEndedAt != 0 ? invokeEndedAt : System.nanoTime();
+                    long cpuEndedAt = invokeEndedAt != 0 ? invokeCpuEndedAt : THREADS.getThreadCpuTime(MAIN_THREAD_ID);
+                    System.out.flush();
+                    long gcTimeMs = 0;
+                    long gcCount = 0;
+                    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                        gcTimeMs += Math.max(0, gc.getCollectionTime());
+                        gcCount += Math.max(0, gc.getCollectionCount());
+                    }
+                    long heapPeakBytes = 0;
+                    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                        if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                            heapPeakBytes += pool.getPeakUsage().getUsed();
+                        }
+                    }
+                    System.err.println("===CODEGENIE_STATS=== setupNanos=" + (parseStartedAt - startedAt)
+                            + " parseNanos=" + (invokeStartedAt - parseStartedAt)
+                            + " invokeNanos=" + (endedAt - invokeStartedAt)
+                            + " invokeCpuNanos=" + Math.max(0, cpuEndedAt - invokeCpuStartedAt)
+                            + " gcTimeMs=" + gcTimeMs
+                            + " gcCount=" + gcCount
+                            + " heapPeakBytes=" + heapPeakBytes);
+                    if (PROFILE_LIMIT_MS > 0) {
+                        printProfile();
+                    }
+                    System.err.flush();
+                }
+
+                private static void printResult(Object result) {
+                    if (result == null) {
+                        System.out.println("null");
+                    } else if (result.getClass().isArray()) {
+                        if (result instanceof int[]) System.out.println(Arrays.toString((int[]) result));
+                        else if (result instanceof long[]) System.out.println(Arrays.toString((long[]) result));
+                        else if (result instanceof double[]) System.out.println(Arrays.toString((double[]) result));
+                        else if (result instanceof boolean[]) System.out.println(Arrays.toString((boolean[]) result));
+                        else if (result instanceof char[]) System.out.println(Arrays.toString((char[]) result));
+                        else if (result instanceof Object[]) System.out.println(Arrays.deepToString((Object[]) result));
+                        else System.out.println(result); // Fallback
+                    } else {
+                        System.out.println(result);
+                    }
+                }
+
+                /** Hand-written tokenizer over a buffered DataInputStream; no regex, no Scanner. */
+                static final class ArgReader {
+                    private final DataInputStream in;
+                    private final byte[] buf = new byte[1 << 16];
+                    private int len;
+                    private int pos;
+
+                    ArgReader(InputStream in) {
+                        this.in = new DataInputStream(in);
+                    }
+
+                    private int peek() throws IOException {
+                        if (pos == len) {
+                            len = in.read(buf, 0, buf.length);
+                            pos = 0;
+                            if (len <= 0) {
+                                len = 0;
+                                return -1;
+                            }
+                        }
+                        return buf[pos];
+                    }
+
+                    private int next() throws IOException {
+                        int c = peek();
+                        if (c != -1) pos++;
+                        return c;
+                    }
+
+                    private static boolean isSeparator(int c) {
+                        return c == ',' || c == ' ' || c == '\\n' || c == '\\r' || c == '\\t';
+                    }
+
+                    private void skipSeparators() throws IOException {
+                        int c;
+                        while ((c = peek()) != -1 && isSeparator(c)) pos++;
+                    }
+
+                    /** Skips separators on the current line only; returns true when the line ended. */
+                    private boolean skipInlineSeparators() throws IOException {
+                        int c;
+                        while ((c = peek()) != -1 && isSeparator(c)) {
+                            pos++;
+                            if (c == '\\n') return true;
+                        }
+                        return c == -1;
+                    }
+
+                    Object read(Class<?> type) throws IOException {
+                        if (type == int.class || type == Integer.class) return readInt();
+                        if (type == long.class || type == Long.class) return readLong();
+                        if (type == double.class || type == Double.class) return readDouble();
+                        if (type == float.class || type == Float.class) return (float) readDouble();
+                        if (type == boolean.class || type == Boolean.class) return readBoolean();
+                        if (type == char.class || type == Character.class) return readChar();
+                        if (type == String.class) return readString();
+                        if (type.isArray()) return readArray(type.getComponentType());
+                        throw new IllegalArgumentException("Unsupported parameter type: " + type.getName());
+                    }
+
+                    long readLong() throws IOException {
+                        skipSeparators();
+                        int c = next();
+                        boolean negative = false;
+                        if (c == '-' || c == '+') {
+                            negative = c == '-';
+                            c = next();
+                        }
+                        if (c < '0' || c > '9') throw new InputMismatchException("Expected a number");
+                        // Accumulated as a negative number, so Long.MIN_VALUE fits
+                        long value = 0;
+                        try {
+                            while (c >= '0' && c <= '9') {
+                                value = Math.subtractExact(Math.multiplyExact(value, 10), c - '0');
+                                int p = peek();
+                                if (p < '0' || p > '9') break;
+                                c = next();
+                            }
+                            return negative ? value : Math.negateExact(value);
+                        } catch (ArithmeticException e) {
+                            throw new InputMismatchException("Number out of range for long");
+                        }
+                    }
+
+                    int readInt() throws IOException {
+                        long value = readLong();
+                        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                            throw new InputMismatchException("Number out of range for int: " + value);
+                        }
+                        return (int) value;
+                    }
+
+                    double readDouble() throws IOException {
+                        return Double.parseDouble(readBareToken());
+                    }
+
+                    boolean readBoolean() throws IOException {
+                        String token = readBareToken();
+                        if (token.equalsIgnoreCase("true") || token.equals("1")) return true;
+                        if (token.equalsIgnoreCase("false") || token.equals("0")) return false;
+                        throw new InputMismatchException("Expected a boolean but got " + token);
+                    }
+
+                    char readChar() throws IOException {
+                        String token = readString();
+                        if (token.isEmpty()) throw new InputMismatchException("Expected a character");
+                        return token.charAt(0);
+                    }
+
+                    String readString() throws IOException {
+                        skipSeparators();
+                        int quote = peek();
+                        if (quote != '"' && quote != '\\'') return readBareToken();
+                        pos++;
+                        ByteArrayOutputStream out = new ByteArrayOutputStream();
+                        int c;
+                        while ((c = next()) != -1 && c != quote) {
+                            if (c == '\\\\') {
+                                int escaped = next();
+                                if (escaped == 'n') c = '\\n';
+                                else if (escaped == 't') c = '\\t';
+                                else if (escaped != -1) c = escaped;
+                            }
+                            out.write(c);
+                        }
+                        return out.toString("UTF-8");
+                    }
+
+                    /** A run of bytes up to the next separator or closing bracket. */
+                    private String readBareToken() throws IOException {
+                        skipSeparators();
+                        int start = pos;
+                        ByteArrayOutputStream spill = null;
+                        int c;
+                        while ((c = peek()) != -1 && !isSeparator(c) && c != ']') {
+                            pos++;
+                            if (pos == len) {
+                                // token crosses a buffer refill
+                                if (spill == null) spill = new ByteArrayOutputStream();
+                                spill.write(buf, start, pos - start);
+                                peek(); // refills and resets pos (to 0, also at end of input)
+                                start = pos;
+                            }
+                        }
+                        if (spill == null) return new String(buf, start, pos - start, "UTF-8");
+                        spill.write(buf, start, pos - start);
+                        return spill.toString("UTF-8");
+                    }
+
+                    /**
+                     * Reads "[a, b, c]" (elements may themselves be arrays). Without an opening
+                     * bracket the rest of the current line is taken as the elements.
+                     */
+                    Object readArray(Class<?> component) throws IOException {
+                        skipSeparators();
+                        boolean bracketed = peek() == '[';
+                        if (bracketed) pos++;
+
+                        if (component == int.class) {
+                            int[] values = new int[16];
+                            int size = 0;
+                            while (hasMoreElements(bracketed)) {
+                                if (size == values.length) values = Arrays.copyOf(values, size * 2);
+                                values[size++] = readInt();
+                            }
+                            return Arrays.copyOf(values, size);
+                        }
+                        if (component == long.class) {
+                            long[] values = new long[16];
+                            int size = 0;
+                            while (hasMoreElements(bracketed)) {
+                                if (size == values.length) values = Arrays.copyOf(values, size * 2);
+                                values[size++] = readLong();
+                            }
+                            return Arrays.copyOf(values, size);
+                        }
+                        if (component == double.class) {
+                            double[] values = new double[16];
+                            int size = 0;
+                            while (hasMoreElements(bracketed)) {
+                                if (size == values.length) values = Arrays.copyOf(values, size * 2);
+                                values[size++] = readDouble();
+                            }
+                            return Arrays.copyOf(values, size);
+                        }
+
+                        List<Object> values = new ArrayList<>();
+                        while (hasMoreElements(bracketed)) {
+                            values.add(read(component));
+                        }
+                        Object array = Array.newInstance(component, values.size());
+                        for (int i = 0; i < values.size(); i++) {
+                            Array.set(array, i, values.get(i));
+                        }
+                        return array;
+                    }
+
+                    private boolean hasMoreElements(boolean bracketed) throws IOException {
+                        if (!bracketed) {
+                            return !skipInlineSeparators();
+                        }
+                        skipSeparators();
+                        int c = peek();
+                        if (c == ']') {
+                            pos++;
+                            return false;
+                        }
+                        if (c == -1) throw new InputMismatchException("Unterminated array: missing ']'");
+                        return true;
+                    }
+                }
+            }
+            """;
+}
@@ -0,0 +1,76 @@
+package com.codetest.agent.service.execution;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * How one language is compiled and run. Every runtime wraps the submission in a
+ * harness that follows the same protocol as the Java ReflectionRunner: stdin
+ * programs are run as-is, Programmers-style {@code solution(...)} functions get
+ * their arguments parsed from stdin and the result printed after the output
+ * marker, and only the user's code is timed (INVOKE/STATS markers on stderr).
+ */
+public interface LanguageRuntime {
+
+    /** Canonical id, also used for {@code codegenie.execution.time-multiplier.<language>}. */
+    String language();
+
+    /** Other names the frontend or older clients send (e.g. "c++", "python3"). */
+    default Set<String> aliases() {
+        return Set.of();
+    }
+
+    /**
+     * Compiler, flags and harness version. Part of the artifact cache key, so it
+     * must change whenever the same source would compile to something different.
+     */
+    String toolchainKey();
+
+    /**
+     * Writes the submission and its harness into {@code artifactDir} and compiles
+     * them there, with the compiler started in {@code sandbox}.
+     */
+    CompilationResult compile(String code, Path artifactDir, long timeoutMs, SandboxExecutor.Session sandbox)
+            throws IOException, InterruptedException;
+
+    /** Command for one run; the working directory is a per-submission scratch directory. */
+    List<String> runCommand(Path artifactDir, ResourceLimits limits);
+
+    /**
+     * Opens the executor for one submission's test cases. By default every case
+     * forks {@link #runCommand}; runtimes with warm workers override this.
+     */
+    default CaseExecutor openExecutor(Path artifactDir, Path workDir, ResourceLimits limits,
+            SandboxExecutor.Session sandbox) {
+        return new ForkingCaseExecutor(sandbox, runCommand(artifactDir, limits), workDir, rssLimitKb(limits),
+                limits.outputLimitBytes());
+    }
+
+    /**
+     * Whether {@link #openProfiledExecutor} samples the user's code. The runner then
+     * prints {@code ===CODEGENIE_PROFILE===} lines on stderr next to the STATS line.
+     */
+    default boolean supportsProfiling() {
+        return false;
+    }
+
+    /**
+     * Like {@link #openExecutor}, with the user's code sampled for hot spots. A run still
+     * going after {@code timeLimitMs} of user time ends itself so its profile is printed.
+     * Falls back to an unprofiled executor where profiling is not supported.
+     */
+    default CaseExecutor openProfiledExecutor(Path artifactDir, Path workDir, ResourceLimits limits,
+            SandboxExecutor.Session sandbox, long timeLimitMs) {
+        return openExecutor(artifactDir, workDir, limits, sandbox);
+    }
+
+    /** RSS cap for the child. By default the whole process counts against the problem's limit. */
+    default long rssLimitKb(ResourceLimits limits) {
+        return limits.memoryLimitMb() * 1024L;
+    }
+
+    /** Whether stderr shows the program failed for lack of memory (reported as MLE). */
+    boolean isOutOfMemory(String stderr);
+}
@@ -0,0 +1,34 @@
+package com.codetest.agent.service.execution;
+
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/** Looks up the {@link LanguageRuntime} for an {@code ExecutionRequest.language} value. */
+@Component
+public class LanguageRuntimes {
+
+    private static final String DEFAULT_LANGUAGE = "java";
+
+    private final Map<String, LanguageRuntime> runtimes = new HashMap<>();
+
+    public LanguageRuntimes(List<LanguageRuntime> runtimes) {
+        for (LanguageRuntime runtime : runtimes) {
+            this.runtimes.put(runtime.language(), runtime);
+            for (String alias : runtime.aliases()) {
+                this.runtimes.put(alias, runtime);
+            }
+        }
+    }
+
+    /** @return the runtime, or {@code null} when the language is not supported */
+    public LanguageRuntime forLanguage(String language) {
+        if (language == null || language.isBlank()) {
+            return runtimes.get(DEFAULT_LANGUAGE);
+        }
+        return runtimes.get(language.trim().toLowerCase(Locale.ROOT));
+    }
+}
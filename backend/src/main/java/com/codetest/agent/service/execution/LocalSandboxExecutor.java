@@ -0,0 +1,15 @@
+package com.codetest.agent.service.execution;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/** Runs everything as child processes of the backend, isolated only by the RSS watchdog and time limits. */
+@Component
+@ConditionalOnProperty(name = "codegenie.execution.sandbox.type", havingValue = "local", matchIfMissing = true)
+public class LocalSandboxExecutor implements SandboxExecutor {
+
+    @Override
+    public Session open() {
+        return LOCAL;
+    }
+}
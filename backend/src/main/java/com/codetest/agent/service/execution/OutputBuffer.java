@@ -0,0 +1,105 @@
+package com.codetest.agent.service.execution;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Byte-capped capture of one output stream. The first {@code headLimit} bytes
+ * are kept, then a ring of the last {@code tailLimit} bytes; anything in
+ * between is dropped and replaced by a truncation marker. Keeping the tail
+ * matters for stderr, where the harness prints its STATS line last.
+ *
+ * With an overflow action the buffer calls it once as soon as more than
+ * {@code headLimit + tailLimit} bytes have been written (e.g. to kill a program
+ * printing in a loop), so memory stays bounded whatever the child does.
+ */
+final class OutputBuffer {
+
+    private static final int CHUNK = 8192;
+
+    private final int headLimit;
+    private final byte[] tail;
+    private final Runnable onOverflow;
+    private final ByteArrayOutputStream head = new ByteArrayOutputStream();
+    private int tailStart;
+    private int tailSize;
+    private long totalBytes;
+    private boolean overflowed;
+
+    private OutputBuffer(int headLimit, int tailLimit, Runnable onOverflow) {
+        this.headLimit = headLimit;
+        this.tail = new byte[tailLimit];
+        this.onOverflow = onOverflow;
+    }
+
+    /** Keeps everything up to {@code limitBytes}; one byte more triggers {@code onOverflow}. */
+    static OutputBuffer limited(int limitBytes, Runnable onOverflow) {
+        return new OutputBuffer(limitBytes, 0, onOverflow);
+    }
+
+    /** Keeps the first and last {@code halfBytes} bytes and marks what was cut out. */
+    static OutputBuffer headAndTail(int halfBytes) {
+        return new OutputBuffer(halfBytes, halfBytes, null);
+    }
+
+    /** Reads {@code in} to the end (or until it fails) into this buffer. */
+    void drain(InputStream in) {
+        byte[] chunk = new byte[CHUNK];
+        try (in) {
+            int read;
+            while ((read = in.read(chunk)) != -1) {
+                write(chunk, 0, read);
+            }
+        } catch (IOException e) {
+            // Process killed or stream closed: keep what was read.
+        }
+    }
+
+    synchronized void write(byte[] bytes, int offset, int length) {
+        totalBytes += length;
+        int toHead = Math.min(length, headLimit - head.size());
+        if (toHead > 0) {
+            head.write(bytes, offset, toHead);
+            offset += toHead;
+            length -= toHead;
+        }
+        for (int i = 0; i < length && tail.length > 0; i++) {
+            tail[(tailStart + tailSize) % tail.length] = bytes[offset + i];
+            if (tailSize < tail.length) {
+                tailSize++;
+            } else {
+                tailStart = (tailStart + 1) % tail.length;
+            }
+        }
+        if (!overflowed && totalBytes > (long) headLimit + tail.length) {
+            overflowed = true;
+            if (onOverflow != null) {
+                onOverflow.run();
+            }
+        }
+    }
+
+    /** More bytes were written than the buffer keeps. */
+    synchronized boolean overflowed() {
+        return overflowed;
+    }
+
+    @Override
+    public synchronized String toString() {
+        String text = head.toString(StandardCharsets.UTF_8);
+        long dropped = totalBytes - head.size() - tailSize;
+        if (dropped > 0) {
+            text += "\n... [" + dropped + " bytes truncated] ...\n";
+        }
+        if (tailSize > 0) {
+            byte[] ordered = new byte[tailSize];
+            for (int i = 0; i < tailSize; i++) {
+                ordered[i] = tail[(tailStart + i) % tail.length];
+            }
+            text += new String(ordered, StandardCharsets.UTF_8);
+        }
+        return text;
+    }
+}
@@ -0,0 +1,49 @@
+package com.codetest.agent.service.execution;
+
+/**
+ * Decides whether a run's output matches the expected output. Implementations
+ * are Spring beans looked up by {@link #name()} through {@link OutputCheckers};
+ * {@code ExecutionRequest.checker} picks one per submission.
+ *
+ * Checkers walk both outputs in place (see {@link OutputTokenizer}) instead of
+ * splitting or normalizing copies, since outputs can be up to the output limit.
+ */
+public interface OutputChecker {
+
+    /** Id used in {@code ExecutionRequest.checker}, e.g. {@code tokens} or {@code float:1e-6}. */
+    String name();
+
+    Result check(CharSequence expected, CharSequence actual);
+
+    /**
+     * The checker configured by the part after the colon in {@code name:argument}
+     * (e.g. the tolerance of {@code float:1e-9}). Most checkers take no argument.
+     *
+     * @throws IllegalArgumentException if the argument is not understood
+     */
+    default OutputChecker withArgument(String argument) {
+        throw new IllegalArgumentException("Checker '" + name() + "' takes no argument");
+    }
+
+    /**
+     * The checker for an answer printed by a harness's {@code printResult} (after
+     * {@code ===CODEGENIE_OUTPUT_START===}), whose arrays may be spelled differently
+     * from the expected output. By default the checker itself.
+     */
+    default OutputChecker forPrintedResult() {
+        return this;
+    }
+
+    /**
+     * @param accepted   whether the output is correct
+     * @param difference where it first differs, for the user; {@code null} when accepted
+     */
+    record Result(boolean accepted, String difference) {
+
+        public static final Result ACCEPTED = new Result(true, null);
+
+        public static Result rejected(String difference) {
+            return new Result(false, difference);
+        }
+    }
+}
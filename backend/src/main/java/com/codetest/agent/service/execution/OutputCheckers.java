@@ -0,0 +1,87 @@
+package com.codetest.agent.service.execution;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/** Looks up the {@link OutputChecker} for an {@code ExecutionRequest.checker} value such as {@code float:1e-9}. */
+@Slf4j
+@Component
+public class OutputCheckers {
+
+    private static final String DEFAULT_CHECKER = "tokens";
+
+    // "10^-6", "10⁻⁶", "1e-6" in statements that allow an error margin
+    private static final Pattern TOLERANCE = Pattern.compile("10\\s*\\^\\s*\\{?\\s*-\\s*(\\d+)|10⁻([⁰¹²³⁴⁵⁶⁷⁸⁹]+)|\\b1e-(\\d+)");
+    private static final Pattern ALLOWS_ERROR = Pattern.compile("오차|(absolute|relative) error", Pattern.CASE_INSENSITIVE);
+    private static final String SUPERSCRIPT_DIGITS = "⁰¹²³⁴⁵⁶⁷⁸⁹";
+
+    private final Map<String, OutputChecker> checkers = new HashMap<>();
+
+    public OutputCheckers(List<OutputChecker> checkers) {
+        for (OutputChecker checker : checkers) {
+            this.checkers.put(checker.name(), checker);
+        }
+    }
+
+    /** @return the checker; the default one when the spec is empty or not understood */
+    public OutputChecker forName(String spec) {
+        if (spec == null || spec.isBlank()) {
+            return checkers.get(DEFAULT_CHECKER);
+        }
+        String name = spec.trim().toLowerCase(Locale.ROOT);
+        String argument = null;
+        int colon = name.indexOf(':');
+        if (colon >= 0) {
+            argument = name.substring(colon + 1).trim();
+            name = name.substring(0, colon).trim();
+        }
+        OutputChecker checker = checkers.get(name);
+        if (checker == null) {
+            log.warn("Unknown output checker '{}', using '{}'", spec, DEFAULT_CHECKER);
+            return checkers.get(DEFAULT_CHECKER);
+        }
+        if (argument == null || argument.isEmpty()) {
+            return checker;
+        }
+        try {
+            return checker.withArgument(argument);
+        } catch (IllegalArgumentException e) {
+            log.warn("{}; using '{}' as configured", e.getMessage(), checker.name());
+            return checker;
+        }
+    }
+
+    /**
+     * Guesses the checker a problem statement calls for: {@code float:<tolerance>}
+     * when it accepts answers within an error margin, otherwise {@code null} (the default).
+     */
+    public static String suggest(String problemText) {
+        if (problemText == null || !ALLOWS_ERROR.matcher(problemText).find()) {
+            return null;
+        }
+        Matcher matcher = TOLERANCE.matcher(problemText);
+        if (!matcher.find()) {
+            return "float";
+        }
+        String exponent;
+        if (matcher.group(1) != null) {
+            exponent = matcher.group(1);
+        } else if (matcher.group(2) != null) {
+            StringBuilder digits = new StringBuilder();
+            for (char c : matcher.group(2).toCharArray()) {
+                digits.append(SUPERSCRIPT_DIGITS.indexOf(c));
+            }
+            exponent = digits.toString();
+        } else {
+            exponent = matcher.group(3);
+        }
+        return "float:1e-" + exponent;
+    }
+}
@@ -0,0 +1,116 @@
+package com.codetest.agent.service.execution;
+
+/**
+ * Walks the whitespace-separated tokens of an output without copying it: the
+ * current token is a {@code [start, end)} range of the original text.
+ *
+ * In structural mode the punctuation of printed collections ({@code [ ] ( ) { } ,})
+ * forms tokens of its own and a quoted token stands for its content, so
+ * {@code [1,2]}, {@code [1, 2]} and {@code ["a"]} vs {@code [a]} compare equal.
+ * That is how {@code printResult} formats arrays, and how problem statements
+ * (and LLM-written test cases) tend to spell them.
+ */
+final class OutputTokenizer {
+
+    private static final int MAX_SHOWN_LENGTH = 40;
+
+    private final CharSequence text;
+    private final boolean structural;
+    private int pos;
+    private int start;
+    private int end;
+    private boolean quoted;
+    private int count;
+
+    OutputTokenizer(CharSequence text, boolean structural) {
+        this.text = text;
+        this.structural = structural;
+    }
+
+    /** Advances to the next token; {@code false} at the end of the text. */
+    boolean next() {
+        int length = text.length();
+        while (pos < length && Character.isWhitespace(text.charAt(pos))) {
+            pos++;
+        }
+        if (pos >= length) {
+            return false;
+        }
+        count++;
+        quoted = false;
+        char c = text.charAt(pos);
+        if (structural && isPunctuation(c)) {
+            start = pos;
+            end = ++pos;
+            return true;
+        }
+        if (structural && (c == '"' || c == '\'')) {
+            int close = indexOf(c, pos + 1);
+            if (close > 0) {
+                start = pos + 1;
+                end = close;
+                quoted = true;
+                pos = close + 1;
+                return true;
+            }
+        }
+        start = pos;
+        while (pos < length && !Character.isWhitespace(text.charAt(pos))
+                && !(structural && isPunctuation(text.charAt(pos)))) {
+            pos++;
+        }
+        end = pos;
+        return true;
+    }
+
+    /** 1-based number of the current token. */
+    int count() {
+        return count;
+    }
+
+    boolean sameToken(OutputTokenizer other) {
+        int length = end - start;
+        if (length != other.end - other.start) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (text.charAt(start + i) != other.text.charAt(other.start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    boolean isPunctuation() {
+        return structural && end - start == 1 && isPunctuation(text.charAt(start)) && !quoted;
+    }
+
+    char firstChar() {
+        return text.charAt(start);
+    }
+
+    String token() {
+        return text.subSequence(start, end).toString();
+    }
+
+    /** The token, shortened and quoted for messages. */
+    String shown() {
+        String token = end - start > MAX_SHOWN_LENGTH
+                ? text.subSequence(start, start + MAX_SHOWN_LENGTH) + "..."
+                : token();
+        return "\"" + token + "\"";
+    }
+
+    private int indexOf(char c, int from) {
+        for (int i = from; i < text.length(); i++) {
+            if (text.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isPunctuation(char c) {
+        return c == '[' || c == ']' || c == '(' || c == ')' || c == '{' || c == '}' || c == ',';
+    }
+}
@@ -0,0 +1,107 @@
+package com.codetest.agent.service.execution;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples the resident set size of child processes from {@code /proc/<pid>/status}
+ * and kills a process whose RSS goes over its limit. The heap limit alone (-Xmx)
+ * does not cover metaspace, thread stacks or direct buffers, so this is what
+ * keeps one submission from exhausting the host. On systems without procfs the
+ * monitor is a no-op.
+ */
+public final class ProcessMemoryMonitor {
+
+    private static final long SAMPLE_INTERVAL_MS = 20;
+    private static final boolean PROCFS_AVAILABLE = Files.isDirectory(Path.of("/proc/self"));
+
+    private static final ScheduledExecutorService SAMPLER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "rss-sampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ProcessMemoryMonitor() {
+    }
+
+    public static Watch watch(Process process, long rssLimitKb) {
+        Watch watch = new Watch(process, rssLimitKb);
+        if (PROCFS_AVAILABLE) {
+            watch.sample();
+            watch.future = SAMPLER.scheduleAtFixedRate(watch::sample, SAMPLE_INTERVAL_MS, SAMPLE_INTERVAL_MS,
+                    TimeUnit.MILLISECONDS);
+        }
+        return watch;
+    }
+
+    /** A watch that never samples, for processes this host cannot see (e.g. inside a container). */
+    public static Watch unwatched() {
+        return new Watch(null, 0);
+    }
+
+    public static final class Watch {
+        private final Process process;
+        private final Path statusFile;
+        private final long rssLimitKb;
+        private volatile long peakRssKb;
+        private volatile boolean limitExceeded;
+        private ScheduledFuture<?> future;
+
+        private Watch(Process process, long rssLimitKb) {
+            this.process = process;
+            this.statusFile = process != null ? Path.of("/proc", String.valueOf(process.pid()), "status") : null;
+            this.rssLimitKb = rssLimitKb;
+        }
+
+        private void sample() {
+            if (!process.isAlive()) {
+                return;
+            }
+            try {
+                long rssKb = 0;
+                long hwmKb = 0;
+                for (String line : Files.readAllLines(statusFile)) {
+                    if (line.startsWith("VmRSS:")) {
+                        rssKb = parseKb(line);
+                    } else if (line.startsWith("VmHWM:")) {
+                        hwmKb = parseKb(line);
+                    }
+                }
+                peakRssKb = Math.max(peakRssKb, Math.max(rssKb, hwmKb));
+                if (rssLimitKb > 0 && rssKb > rssLimitKb && !limitExceeded) {
+                    limitExceeded = true;
+                    process.destroyForcibly();
+                }
+            } catch (IOException | RuntimeException e) {
+                // Process exited between isAlive() and the read: nothing to sample.
+            }
+        }
+
+        private static long parseKb(String line) {
+            String value = line.substring(line.indexOf(':') + 1).trim();
+            int space = value.indexOf(' ');
+            return Long.parseLong(space < 0 ? value : value.substring(0, space));
+        }
+
+        /** Stops sampling; the collected peak stays available. */
+        public void stop() {
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+
+        /** Peak RSS seen while sampling, 0 when procfs is unavailable. */
+        public long peakRssKb() {
+            return peakRssKb;
+        }
+
+        public boolean limitExceeded() {
+            return limitExceeded;
+        }
+    }
+}
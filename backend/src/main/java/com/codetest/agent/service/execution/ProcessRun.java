@@ -0,0 +1,18 @@
+package com.codetest.agent.service.execution;
+
+/**
+ * Raw outcome of running one test case, before any verdict is derived.
+ *
+ * @param finished              false when the run was killed for exceeding its timeout
+ * @param memoryLimitExceeded   true when the RSS watchdog killed it
+ * @param outputLimitExceeded   true when stdout went over the output limit (the run is then killed)
+ * @param exitCode              exit status; meaningful only when finished
+ * @param stdout                what was written to stdout, up to the output limit
+ * @param stderr                what was written to stderr, harness markers included; the middle of
+ *                              very long output is replaced by a truncation marker
+ * @param wallTimeMs            time from start (or hand-off to a warm worker) to exit
+ * @param peakRssKb             peak resident set size, 0 when not measured
+ */
+public record ProcessRun(boolean finished, boolean memoryLimitExceeded, boolean outputLimitExceeded, int exitCode,
+        String stdout, String stderr, long wallTimeMs, long peakRssKb) {
+}
@@ -0,0 +1,82 @@
+package com.codetest.agent.service.execution;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Python 3. "Compiling" is a py_compile syntax check so that syntax errors are
+ * reported as compilation failures (and cached) instead of failing every test
+ * case; python_runner.py then runs the module as a stdin program or calls its
+ * {@code solution(...)}. Test cases run on warm interpreters from the
+ * {@link PythonWorkerPool} unless the pool is disabled.
+ */
+@Component
+@RequiredArgsConstructor
+public class PythonRuntime implements LanguageRuntime {
+
+    private static final String RUNNER_SOURCE = HarnessResources.read("python_runner.py");
+
+    @Value("${codegenie.execution.python.command:python3}")
+    private String command;
+
+    @Value("${codegenie.execution.python.worker-pool.enabled:true}")
+    private boolean workerPoolEnabled;
+
+    private final PythonWorkerPool workerPool;
+
+    @Override
+    public String language() {
+        return "python";
+    }
+
+    @Override
+    public Set<String> aliases() {
+        return Set.of("python3", "py");
+    }
+
+    @Override
+    public String toolchainKey() {
+        return command + " " + CompilerProcess.version(command, "--version") + "|runner:"
+                + Integer.toHexString(RUNNER_SOURCE.hashCode());
+    }
+
+    @Override
+    public CompilationResult compile(String code, Path artifactDir, long timeoutMs, SandboxExecutor.Session sandbox)
+            throws IOException, InterruptedException {
+        Path sourcePath = artifactDir.resolve("solution.py");
+        Files.writeString(sourcePath, code);
+        Files.writeString(artifactDir.resolve("python_runner.py"), RUNNER_SOURCE);
+        return CompilerProcess.run(sandbox, List.of(command, "-m", "py_compile", sourcePath.toString()),
+                artifactDir, timeoutMs);
+    }
+
+    @Override
+    public List<String> runCommand(Path artifactDir, ResourceLimits limits) {
+        // -B: the artifact directory is shared by concurrent runs, never write into it
+        return List.of(command, "-B", artifactDir.resolve("python_runner.py").toString(),
+                artifactDir.resolve("solution.py").toString());
+    }
+
+    @Override
+    public CaseExecutor openExecutor(Path artifactDir, Path workDir, ResourceLimits limits,
+            SandboxExecutor.Session sandbox) {
+        // Warm workers are local processes; in a container sandbox every case forks.
+        if (!workerPoolEnabled || !sandbox.isLocal()) {
+            return LanguageRuntime.super.openExecutor(artifactDir, workDir, limits, sandbox);
+        }
+        return workerPool.session(artifactDir.resolve("solution.py"), workDir, rssLimitKb(limits),
+                limits.outputLimitBytes());
+    }
+
+    @Override
+    public boolean isOutOfMemory(String stderr) {
+        return stderr.contains("MemoryError");
+    }
+}
@@ -0,0 +1,332 @@
+package com.codetest.agent.service.execution;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pre-started Python interpreters (python_worker.py) that run submissions
+ * in-process, so a test case no longer pays 30-80 ms of interpreter start-up
+ * and imports. A worker serves the cases of one submission and is then thrown
+ * away, as is any worker whose run crashed, timed out or hit the memory limit;
+ * replacements are started in the background to keep {@code size} workers idle.
+ */
+@Slf4j
+@Component
+public class PythonWorkerPool {
+
+    private static final String READY = "READY";
+    private static final String DONE = "DONE\t";
+    private static final String EXITED = "\0EXITED"; // reader sentinel: the worker's stdout closed
+    // RLIMIT_FSIZE for a run's output files. Above the output limit, so that going over it shows
+    // as a longer stdout file, and roomy enough that debug logging to stderr works as when forking.
+    private static final long MIN_FILE_LIMIT_BYTES = 8L * 1024 * 1024;
+    // A written input leaves this share of the workspace store (usually /dev/shm) free for the
+    // run's output files and for other submissions
+    private static final int RESERVED_SPACE_DIVISOR = 4;
+
+    private final MeterRegistry meterRegistry;
+    private final String command;
+    private final int size;
+    private final long startTimeoutMs;
+
+    private final BlockingQueue<Worker> idle = new LinkedBlockingQueue<>();
+    private final ExecutorService spawner = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "python-worker-spawner");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Path workerDir;
+
+    public PythonWorkerPool(MeterRegistry meterRegistry,
+            @Value("${codegenie.execution.python.command:python3}") String command,
+            @Value("${codegenie.execution.python.worker-pool.size:4}") int size,
+            @Value("${codegenie.execution.python.worker-pool.start-timeout-ms:10000}") long startTimeoutMs) {
+        this.meterRegistry = meterRegistry;
+        this.command = command;
+        this.size = size;
+        this.startTimeoutMs = startTimeoutMs;
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        workerDir = Files.createTempDirectory("codegenie-python-worker");
+        Files.writeString(workerDir.resolve("python_runner.py"), HarnessResources.read("python_runner.py"));
+        Files.writeString(workerDir.resolve("python_worker.py"), HarnessResources.read("python_worker.py"));
+        meterRegistry.gauge("codegenie.execution.python.workers.idle", idle, BlockingQueue::size);
+        for (int i = 0; i < size; i++) {
+            spawner.execute(this::replenish);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        spawner.shutdownNow();
+        Worker worker;
+        while ((worker = idle.poll()) != null) {
+            worker.destroy();
+        }
+    }
+
+    /** Executor for one submission; {@code sourcePath} is the compiled-checked solution.py. */
+    public CaseExecutor session(Path sourcePath, Path workDir, long rssLimitKb, int outputLimitBytes) {
+        return new Session(sourcePath, workDir, rssLimitKb, outputLimitBytes);
+    }
+
+    private Worker borrow() throws IOException, InterruptedException {
+        Worker worker;
+        while ((worker = idle.poll()) != null && !worker.isAlive()) {
+            worker.destroy();
+        }
+        spawner.execute(this::replenish);
+        meterRegistry.counter("codegenie.execution.python.workers.borrow", "result", worker != null ? "warm" : "cold")
+                .increment();
+        return worker != null ? worker : startWorker();
+    }
+
+    private void replenish() {
+        if (idle.size() >= size) {
+            return;
+        }
+        try {
+            idle.add(startWorker());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not start a Python worker: {}", e.getMessage());
+        }
+    }
+
+    private Worker startWorker() throws IOException, InterruptedException {
+        Worker worker = Worker.start(List.of(command, "-B", workerDir.resolve("python_worker.py").toString()),
+                workerDir);
+        String line = worker.poll(startTimeoutMs);
+        if (!READY.equals(line)) {
+            worker.destroy();
+            throw new IOException("Python worker did not start (got " + (line == null ? "no reply" : line) + ")");
+        }
+        return worker;
+    }
+
+    private final class Session implements CaseExecutor {
+        private final Path sourcePath;
+        private final Path workDir;
+        private final long rssLimitKb;
+        private final int outputLimitBytes;
+        private Worker worker;
+        private int caseIndex;
+
+        private Session(Path sourcePath, Path workDir, long rssLimitKb, int outputLimitBytes) {
+            this.sourcePath = sourcePath;
+            this.workDir = workDir;
+            this.rssLimitKb = rssLimitKb;
+            this.outputLimitBytes = outputLimitBytes;
+        }
+
+        @Override
+        public ProcessRun run(StdinSource stdin, long timeoutMs) throws IOException, InterruptedException {
+            if (worker == null) {
+                worker = borrow();
+            }
+            int index = caseIndex++;
+            long fileLimitBytes = Math.max(MIN_FILE_LIMIT_BYTES, outputLimitBytes + 1L);
+            // Workers run on this host, so a stored input is read where it lies
+            Path stdinFile = stdin.file();
+            Path writtenInput = stdinFile == null ? workDir.resolve("case-" + index + ".in") : null;
+            Path stdoutFile = workDir.resolve("case-" + index + ".out");
+            Path stderrFile = workDir.resolve("case-" + index + ".err");
+            try {
+                if (writtenInput != null) {
+                    writeInput(stdin, writtenInput, 2 * fileLimitBytes);
+                    stdinFile = writtenInput;
+                }
+
+                worker.resetPeakRss();
+                ProcessMemoryMonitor.Watch memoryWatch = ProcessMemoryMonitor.watch(worker.process, rssLimitKb);
+                long startedAt = System.nanoTime();
+                worker.send(String.join("\t", "RUN", sourcePath.toString(), stdinFile.toString(),
+                        stdoutFile.toString(), stderrFile.toString(), String.valueOf(fileLimitBytes)));
+                String reply = worker.poll(timeoutMs);
+                long wallTimeMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+                memoryWatch.stop();
+
+                OutputBuffer stdout = OutputBuffer.limited(outputLimitBytes, null);
+                OutputBuffer stderr = OutputBuffer.headAndTail(CommonProcessOutput.STDERR_HALF_BYTES);
+                read(stdoutFile, stdout);
+                read(stderrFile, stderr);
+
+                boolean finished = reply != null;
+                boolean done = finished && reply.startsWith(DONE);
+                int exitCode = done ? Integer.parseInt(reply.substring(DONE.length()))
+                        : finished ? worker.exitCode() : -1;
+                if (!done || memoryWatch.limitExceeded() || stdout.overflowed()) {
+                    // Timed out, killed by the watchdog, over the output limit, or the user's code took
+                    // the interpreter down (os._exit, segfault in an extension): this worker is done.
+                    worker.destroy();
+                    worker = null;
+                }
+                return new ProcessRun(finished, memoryWatch.limitExceeded(), stdout.overflowed(), exitCode,
+                        stdout.toString(), stderr.toString(), wallTimeMs, memoryWatch.peakRssKb());
+            } finally {
+                // Not kept until the submission ends: a few large cases would fill the workspace store.
+                // The worker lets go of them after each run, so the space comes back now.
+                delete(writtenInput);
+                delete(stdoutFile);
+                delete(stderrFile);
+            }
+        }
+
+        /**
+         * Writes an input the worker will read, failing before it leaves less
+         * than {@code outputReserveBytes} plus a share of the store free.
+         */
+        private void writeInput(StdinSource stdin, Path file, long outputReserveBytes) throws IOException {
+            FileStore store = Files.getFileStore(workDir);
+            long room = store.getUsableSpace() - store.getTotalSpace() / RESERVED_SPACE_DIVISOR - outputReserveBytes;
+            try (OutputStream input = new FilterOutputStream(Files.newOutputStream(file)) {
+                private long written;
+
+                @Override
+                public void write(int b) throws IOException {
+                    count(1);
+                    out.write(b);
+                }
+
+                @Override
+                public void write(byte[] bytes, int offset, int length) throws IOException {
+                    count(length);
+                    out.write(bytes, offset, length);
+                }
+
+                private void count(int length) throws IOException {
+                    written += length;
+                    if (written > room) {
+                        throw new IOException("Input does not fit in the scratch space ("
+                                + Math.max(0, room >> 20) + " MB available)");
+                    }
+                }
+            }) {
+                stdin.writeTo(input);
+            }
+        }
+
+        /** Workers are never reused across submissions. */
+        @Override
+        public void close() {
+            if (worker != null) {
+                worker.destroy();
+                worker = null;
+            }
+        }
+
+        private void read(Path file, OutputBuffer buffer) throws IOException {
+            try {
+                buffer.drain(Files.newInputStream(file));
+            } catch (NoSuchFileException e) {
+                // The run never got as far as opening it
+            }
+        }
+
+        private void delete(Path file) {
+            if (file == null) {
+                return;
+            }
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.debug("Could not delete {}: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    private static final class Worker {
+        private final Process process;
+        private final BufferedWriter control;
+        private final BlockingQueue<String> replies = new LinkedBlockingQueue<>();
+
+        private Worker(Process process) {
+            this.process = process;
+            this.control = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+        }
+
+        static Worker start(List<String> command, Path dir) throws IOException {
+            ProcessBuilder builder = new ProcessBuilder(command);
+            builder.directory(dir.toFile());
+            // Only the worker's own failures reach this stream; runs write to their files.
+            builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+            Worker worker = new Worker(builder.start());
+            Thread reader = new Thread(worker::readReplies, "python-worker-" + worker.process.pid());
+            reader.setDaemon(true);
+            reader.start();
+            return worker;
+        }
+
+        private void readReplies() {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    replies.add(line);
+                }
+            } catch (IOException e) {
+                // Worker killed
+            } finally {
+                replies.add(EXITED);
+            }
+        }
+
+        void send(String line) throws IOException {
+            control.write(line);
+            control.newLine();
+            control.flush();
+        }
+
+        /** @return the next reply, or {@code null} on timeout */
+        String poll(long timeoutMs) throws InterruptedException {
+            return replies.poll(timeoutMs, TimeUnit.MILLISECONDS);
+        }
+
+        /** Resets VmHWM so the peak RSS of a run does not include earlier runs. */
+        void resetPeakRss() {
+            try {
+                Files.writeString(Path.of("/proc", String.valueOf(process.pid()), "clear_refs"), "5");
+            } catch (IOException | RuntimeException e) {
+                // No procfs or not permitted: the peak then spans the whole submission.
+            }
+        }
+
+        int exitCode() throws InterruptedException {
+            return process.waitFor(1, TimeUnit.SECONDS) ? process.exitValue() : -1;
+        }
+
+        boolean isAlive() {
+            return process.isAlive();
+        }
+
+        void destroy() {
+            process.destroyForcibly();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.codetest.agent.service.execution;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Memory and output limits for one submission; the memory limit is derived
+ * from the problem's scraped memory limit (e.g. "128 MB"), capped because it
+ * comes with the request.
+ */
+public record ResourceLimits(int memoryLimitMb, int rssOverheadMb, int outputLimitKb) {
+
+    public static final int DEFAULT_MEMORY_LIMIT_MB = 256;
+
+    private static final Pattern MEMORY_PATTERN = Pattern.compile("(\\d+(?:\\.\\d+)?)\\s*([GMK]I?B?)?",
+            Pattern.CASE_INSENSITIVE);
+
+    public static ResourceLimits forMemoryLimit(String memoryLimit, int maxMemoryLimitMb, int rssOverheadMb,
+            int outputLimitKb) {
+        return new ResourceLimits(Math.min(parseMemoryLimitMb(memoryLimit, DEFAULT_MEMORY_LIMIT_MB), maxMemoryLimitMb),
+                rssOverheadMb, outputLimitKb);
+    }
+
+    /** Heap for the child (-Xmx): the judge's limit itself. */
+    public int heapLimitMb() {
+        return memoryLimitMb;
+    }
+
+    /** Whole-process cap: heap plus room for metaspace, code cache and stacks. */
+    public long rssLimitKb() {
+        return (long) (memoryLimitMb + rssOverheadMb) * 1024;
+    }
+
+    /** Stdout a run may produce; one byte more is Output Limit Exceeded. */
+    public int outputLimitBytes() {
+        return outputLimitKb * 1024;
+    }
+
+    static int parseMemoryLimitMb(String text, int defaultMb) {
+        if (text == null || text.isBlank()) {
+            return defaultMb;
+        }
+        Matcher matcher = MEMORY_PATTERN.matcher(text.replace(",", ""));
+        if (!matcher.find()) {
+            return defaultMb;
+        }
+        double value = Double.parseDouble(matcher.group(1));
+        String unit = matcher.group(2) == null ? "M" : matcher.group(2).toUpperCase(Locale.ROOT);
+        if (unit.startsWith("G")) {
+            value *= 1024;
+        } else if (unit.startsWith("K")) {
+            value /= 1024;
+        }
+        return value < 1 ? defaultMb : (int) Math.ceil(value);
+    }
+}
@@ -0,0 +1,71 @@
+package com.codetest.agent.service.execution;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Where untrusted compiles and runs execute. {@code codegenie.execution.sandbox.type}
+ * selects the implementation: {@code local} starts them as child processes of
+ * the backend ({@link LocalSandboxExecutor}), {@code docker} dispatches them
+ * into pooled containers ({@link DockerSandboxExecutor}).
+ */
+public interface SandboxExecutor {
+
+    /** Child processes of the backend itself; also used for toolchain chores (versions, PCH). */
+    Session LOCAL = new Session() {
+        @Override
+        public Process startCompiler(ProcessBuilder builder) throws IOException {
+            return builder.start();
+        }
+
+        @Override
+        public Process start(ProcessBuilder builder) throws IOException {
+            return builder.start();
+        }
+
+        @Override
+        public boolean isLocal() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    /** Opens the environment for one submission's compile and test runs. */
+    Session open() throws IOException, InterruptedException;
+
+    /**
+     * One submission's share of the sandbox. Processes are described by a
+     * {@link ProcessBuilder} (command, working directory, stderr merging) and
+     * see the same paths as the backend, though not necessarily the same files:
+     * a session that does not share the backend's file system gets copies of the
+     * directories it is given, and a working directory of its own.
+     */
+    interface Session extends AutoCloseable {
+
+        /**
+         * Makes a directory the backend wrote (sources, a compiled artifact) visible
+         * to the session's processes, read-only for the user's program.
+         */
+        default void copyIn(Path dir) throws IOException, InterruptedException {
+        }
+
+        /** Brings back what a compiler wrote into {@code dir} in the session. */
+        default void copyOut(Path dir) throws IOException, InterruptedException {
+        }
+
+        /** Starts a compiler, which may write into its working directory (the artifact directory). */
+        Process startCompiler(ProcessBuilder builder) throws IOException;
+
+        /** Starts the user's program. */
+        Process start(ProcessBuilder builder) throws IOException;
+
+        /** Whether processes are children of the backend, so pids, /proc sampling and warm workers apply. */
+        boolean isLocal();
+
+        @Override
+        void close();
+    }
+}
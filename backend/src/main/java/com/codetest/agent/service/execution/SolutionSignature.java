@@ -0,0 +1,84 @@
+package com.codetest.agent.service.execution;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The {@code solution(...)} signature of a C or C++ submission, read from the
+ * source text so the generated harness knows which arguments to parse. Types
+ * are normalized: {@code const} and references are dropped, and array
+ * parameters ({@code int arr[]}) are reported as {@code int[]}.
+ */
+record SolutionSignature(String returnType, List<Parameter> parameters) {
+
+    record Parameter(String type, String name) {
+    }
+
+    private static final Pattern SOLUTION = Pattern.compile(
+            "(?m)^[ \\t]*([^\\n;{}()#/]+?)\\s*\\bsolution\\s*\\(([^)]*)\\)\\s*(?:const\\s*)?\\{");
+    private static final Pattern PARAMETER = Pattern.compile("^(.*?)\\s*\\b([A-Za-z_]\\w*)\\s*(\\[\\s*\\])?$",
+            Pattern.DOTALL);
+    private static final Pattern MAIN = Pattern.compile("\\b(?:int|void)\\s+main\\s*\\(");
+    private static final Pattern MAIN_WITH_ARGS = Pattern.compile("\\bmain\\s*\\(\\s*int\\b");
+
+    /** @return the signature, or {@code null} when there is no solution function */
+    static SolutionSignature find(String code) {
+        Matcher matcher = SOLUTION.matcher(code);
+        if (!matcher.find()) {
+            return null;
+        }
+        String returnType = normalize(matcher.group(1).replaceAll("\\b(static|inline|extern)\\b", ""));
+        List<Parameter> parameters = new ArrayList<>();
+        for (String raw : splitTopLevel(matcher.group(2))) {
+            if (raw.isBlank() || raw.trim().equals("void")) {
+                continue;
+            }
+            Matcher parameter = PARAMETER.matcher(raw.trim());
+            if (!parameter.matches() || parameter.group(1).isBlank()) {
+                throw new IllegalArgumentException("Cannot read parameter '" + raw.trim() + "' of solution()");
+            }
+            String type = normalize(parameter.group(1)) + (parameter.group(3) != null ? "[]" : "");
+            parameters.add(new Parameter(type, parameter.group(2)));
+        }
+        return new SolutionSignature(returnType, parameters);
+    }
+
+    /** Stdin programs (BOJ style) define main() themselves. */
+    static boolean hasMain(String code) {
+        return MAIN.matcher(code).find();
+    }
+
+    static boolean mainTakesArgs(String code) {
+        return MAIN_WITH_ARGS.matcher(code).find();
+    }
+
+    private static String normalize(String type) {
+        return type.replaceAll("\\bconst\\b", "")
+                .replace("&", "")
+                .replaceAll("\\s+", " ")
+                .replaceAll("\\s*([<>*,])\\s*", "$1")
+                .trim();
+    }
+
+    /** Splits on commas outside template brackets ({@code map<int, int> m, int k}). */
+    private static List<String> splitTopLevel(String parameters) {
+        List<String> parts = new ArrayList<>();
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i < parameters.length(); i++) {
+            char c = parameters.charAt(i);
+            if (c == '<') {
+                depth++;
+            } else if (c == '>') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                parts.add(parameters.substring(start, i));
+                start = i + 1;
+            }
+        }
+        parts.add(parameters.substring(start));
+        return parts;
+    }
+}
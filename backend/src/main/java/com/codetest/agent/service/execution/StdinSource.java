@@ -0,0 +1,90 @@
+package com.codetest.agent.service.execution;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * What a test case's program reads on stdin. Written straight into the child's
+ * pipe (or the Python worker's input file), so generated inputs never exist as
+ * one Java string and inline ones are not copied into a second buffer.
+ */
+@FunctionalInterface
+public interface StdinSource {
+
+    int CHUNK_BYTES = 64 * 1024;
+
+    StdinSource EMPTY = out -> {
+    };
+
+    /**
+     * Writes the whole input; may be called once per run.
+     *
+     * @throws IOException if {@code out} fails, e.g. the program exited without reading it all
+     * @throws IllegalArgumentException if the input cannot be produced (see {@link InputGenerator})
+     */
+    void writeTo(OutputStream out) throws IOException;
+
+    /** The file holding exactly this input, if there is one, so it can be read in place. */
+    default Path file() {
+        return null;
+    }
+
+    /** UTF-8, encoded a chunk at a time as it is written. */
+    static StdinSource of(String text) {
+        if (text == null || text.isEmpty()) {
+            return EMPTY;
+        }
+        return out -> {
+            // Replacing unpaired surrogates, as String.getBytes does
+            CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            CharBuffer chars = CharBuffer.wrap(text);
+            ByteBuffer bytes = ByteBuffer.allocate((int) Math.min(CHUNK_BYTES, text.length() * 3L));
+            boolean flushing = false;
+            while (true) {
+                CoderResult result = flushing ? encoder.flush(bytes) : encoder.encode(chars, bytes, true);
+                out.write(bytes.array(), 0, bytes.position());
+                bytes.clear();
+                if (result.isUnderflow()) {
+                    if (flushing) {
+                        return;
+                    }
+                    flushing = true;
+                }
+            }
+        };
+    }
+
+    /** A stored input, streamed from the page cache by the channel rather than read into the heap. */
+    static StdinSource ofFile(Path path) {
+        return new StdinSource() {
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                    WritableByteChannel target = Channels.newChannel(out);
+                    long size = channel.size();
+                    for (long position = 0; position < size; ) {
+                        position += channel.transferTo(position, size - position, target);
+                    }
+                }
+            }
+
+            @Override
+            public Path file() {
+                return path;
+            }
+        };
+    }
+}
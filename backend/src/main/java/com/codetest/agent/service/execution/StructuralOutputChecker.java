@@ -0,0 +1,27 @@
+package com.codetest.agent.service.execution;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Like {@link TokenOutputChecker}, with printed collections compared structurally:
+ * {@code [1,2]}, {@code [1, 2]} and {@code ["a"]} vs {@code [a]} match (see
+ * {@link OutputTokenizer}). Used for {@code printResult} answers, or on request.
+ */
+@Component
+public class StructuralOutputChecker extends TokenOutputChecker {
+
+    @Override
+    public String name() {
+        return "structural";
+    }
+
+    @Override
+    public OutputChecker forPrintedResult() {
+        return this;
+    }
+
+    @Override
+    protected boolean structural() {
+        return true;
+    }
+}
@@ -0,0 +1,145 @@
+package com.codetest.agent.service.execution;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+/**
+ * Inputs and expected outputs of stored test cases, one file each under
+ * {@code codegenie.execution.test-data.dir}, named by the case id. Runs stream
+ * an input from its file ({@link StdinSource#ofFile}); a submission
+ * {@link #prefetch prefetches} its inputs while it compiles, so they are in the
+ * page cache by the time the first case starts.
+ */
+@Slf4j
+@Component
+public class TestDataStore {
+
+    private static final Pattern ID = Pattern.compile("[0-9a-f]{32}");
+    private static final int PREFETCH_BUFFER_BYTES = 1 << 20;
+
+    private static final ExecutorService PREFETCHER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "test-data-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Path root;
+    // Only used on the prefetch thread
+    private final ByteBuffer prefetchBuffer = ByteBuffer.allocateDirect(PREFETCH_BUFFER_BYTES);
+
+    public TestDataStore(
+            @Value("${codegenie.execution.test-data.dir:${java.io.tmpdir}/codegenie-test-data}") String root) {
+        this.root = Path.of(root);
+    }
+
+    @PostConstruct
+    void createRoot() throws IOException {
+        Files.createDirectories(root);
+    }
+
+    public static boolean isId(String id) {
+        return id != null && ID.matcher(id).matches();
+    }
+
+    /**
+     * Writes a case's files, replacing any earlier ones; a reader never sees a half-written file.
+     *
+     * @return the size of the input in bytes
+     * @throws IllegalArgumentException if the input cannot be produced (see {@link InputGenerator})
+     */
+    public long write(String id, StdinSource input, String expectedOutput) throws IOException {
+        Path inputFile = inputFile(id);
+        Path partial = Files.createTempFile(root, id, ".partial");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(partial),
+                    StdinSource.CHUNK_BYTES)) {
+                input.writeTo(out);
+            }
+            Files.move(partial, inputFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+        if (expectedOutput != null) {
+            Path partialOutput = Files.createTempFile(root, id, ".partial");
+            try {
+                Files.writeString(partialOutput, expectedOutput, StandardCharsets.UTF_8);
+                Files.move(partialOutput, outputFile(id), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(partialOutput);
+            }
+        } else {
+            Files.deleteIfExists(outputFile(id));
+        }
+        return Files.size(inputFile);
+    }
+
+    /** @return {@code null} if there is no input stored under the id */
+    public StdinSource input(String id) {
+        Path file = inputFile(id);
+        return Files.isRegularFile(file) ? StdinSource.ofFile(file) : null;
+    }
+
+    /** The input as text, for showing a small case in the results. */
+    public String inputText(String id) throws IOException {
+        return Files.readString(inputFile(id), StandardCharsets.UTF_8);
+    }
+
+    /** @return {@code null} if the case has no expected output */
+    public String expectedOutput(String id) throws IOException {
+        Path file = outputFile(id);
+        return Files.isRegularFile(file) ? Files.readString(file, StandardCharsets.UTF_8) : null;
+    }
+
+    public void delete(String id) throws IOException {
+        Files.deleteIfExists(inputFile(id));
+        Files.deleteIfExists(outputFile(id));
+    }
+
+    /** Reads the input once in the background to warm the page cache. */
+    public void prefetch(String id) {
+        Path file = inputFile(id);
+        PREFETCHER.execute(() -> {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                while (channel.read(prefetchBuffer) > 0) {
+                    prefetchBuffer.clear();
+                }
+            } catch (IOException e) {
+                prefetchBuffer.clear();
+                log.debug("Test data prefetch failed for {}: {}", id, e.getMessage());
+            }
+        });
+    }
+
+    private Path inputFile(String id) {
+        return root.resolve(checked(id) + ".in");
+    }
+
+    private Path outputFile(String id) {
+        return root.resolve(checked(id) + ".out");
+    }
+
+    // Ids end up in file names
+    private static String checked(String id) {
+        if (!isId(id)) {
+            throw new IllegalArgumentException("Invalid test data id: " + id);
+        }
+        return id;
+    }
+}
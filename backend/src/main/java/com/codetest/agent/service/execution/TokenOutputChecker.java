@@ -0,0 +1,54 @@
+package com.codetest.agent.service.execution;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * The default: outputs match when they have the same whitespace-separated tokens,
+ * however they are separated by spaces and line breaks. Answers printed by
+ * {@code printResult} are compared structurally (see {@link StructuralOutputChecker}).
+ */
+@Component
+public class TokenOutputChecker implements OutputChecker {
+
+    @Override
+    public String name() {
+        return "tokens";
+    }
+
+    @Override
+    public Result check(CharSequence expected, CharSequence actual) {
+        OutputTokenizer want = new OutputTokenizer(expected, structural());
+        OutputTokenizer got = new OutputTokenizer(actual, structural());
+        while (true) {
+            boolean hasWant = want.next();
+            boolean hasGot = got.next();
+            if (!hasWant && !hasGot) {
+                return Result.ACCEPTED;
+            }
+            if (!hasWant) {
+                return Result.rejected("Unexpected output after " + (got.count() - 1) + " tokens: " + got.shown());
+            }
+            if (!hasGot) {
+                return Result.rejected("Output ended after " + (want.count() - 1) + " tokens; expected "
+                        + want.shown() + " next");
+            }
+            if (!tokensMatch(want, got)) {
+                return Result.rejected("Token " + got.count() + ": expected " + want.shown() + ", got " + got.shown());
+            }
+        }
+    }
+
+    @Override
+    public OutputChecker forPrintedResult() {
+        return new StructuralOutputChecker();
+    }
+
+    /** Whether collection punctuation and quotes are tokens of their own (see {@link OutputTokenizer}). */
+    protected boolean structural() {
+        return false;
+    }
+
+    protected boolean tokensMatch(OutputTokenizer expected, OutputTokenizer actual) {
+        return expected.sameToken(actual);
+    }
+}
@@ -0,0 +1,129 @@
+package com.codetest.agent.service.execution;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * For answers that may come in any order: when the expected output is one
+ * printed list ({@code [3, 1, 2]}), its top-level elements are compared as a
+ * multiset; otherwise its lines are. Elements and lines are compared token-wise,
+ * like {@link TokenOutputChecker}.
+ */
+@Component
+public class UnorderedOutputChecker implements OutputChecker {
+
+    @Override
+    public String name() {
+        return "unordered";
+    }
+
+    @Override
+    public Result check(CharSequence expected, CharSequence actual) {
+        List<String> want = listElements(expected);
+        List<String> got;
+        if (want != null) {
+            got = listElements(actual);
+            if (got == null) {
+                return Result.rejected("Expected a list like " + abbreviate(expected));
+            }
+        } else {
+            want = lines(expected);
+            got = lines(actual);
+        }
+
+        Map<String, Integer> balance = new HashMap<>();
+        for (String item : want) {
+            balance.merge(item, 1, Integer::sum);
+        }
+        for (String item : got) {
+            balance.merge(item, -1, Integer::sum);
+        }
+        for (String item : got) {
+            if (balance.get(item) < 0) {
+                return Result.rejected("Unexpected element " + abbreviate(item) + counts(want, got));
+            }
+        }
+        for (String item : want) {
+            if (balance.get(item) > 0) {
+                return Result.rejected("Missing element " + abbreviate(item) + counts(want, got));
+            }
+        }
+        return Result.ACCEPTED;
+    }
+
+    private static String counts(List<String> want, List<String> got) {
+        return want.size() == got.size() ? "" : " (" + got.size() + " elements, expected " + want.size() + ")";
+    }
+
+    /** Normalized top-level elements, or {@code null} if the text is not a single list. */
+    private static List<String> listElements(CharSequence text) {
+        OutputTokenizer tokens = new OutputTokenizer(text, true);
+        if (!tokens.next() || !tokens.isPunctuation() || tokens.firstChar() != '[') {
+            return null;
+        }
+        List<String> elements = new ArrayList<>();
+        StringBuilder element = new StringBuilder();
+        int depth = 1;
+        while (tokens.next()) {
+            if (depth == 0) {
+                return null; // more after the closing bracket
+            }
+            if (tokens.isPunctuation()) {
+                char c = tokens.firstChar();
+                if (c == '[' || c == '(' || c == '{') {
+                    depth++;
+                } else if (c == ']' || c == ')' || c == '}') {
+                    depth--;
+                }
+                if (depth == 0 || (depth == 1 && c == ',')) {
+                    if (!element.isEmpty()) {
+                        elements.add(element.toString());
+                    }
+                    element.setLength(0);
+                    continue;
+                }
+            }
+            if (!element.isEmpty()) {
+                element.append(' ');
+            }
+            element.append(tokens.token());
+        }
+        return depth == 0 ? elements : null;
+    }
+
+    private static List<String> lines(CharSequence text) {
+        List<String> lines = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i <= text.length(); i++) {
+            if (i == text.length() || text.charAt(i) == '\n') {
+                String line = normalize(text.subSequence(start, i));
+                if (!line.isEmpty()) {
+                    lines.add(line);
+                }
+                start = i + 1;
+            }
+        }
+        return lines;
+    }
+
+    private static String normalize(CharSequence line) {
+        OutputTokenizer tokens = new OutputTokenizer(line, true);
+        StringBuilder normalized = new StringBuilder();
+        while (tokens.next()) {
+            if (!normalized.isEmpty()) {
+                normalized.append(' ');
+            }
+            normalized.append(tokens.token());
+        }
+        return normalized.toString();
+    }
+
+    private static String abbreviate(CharSequence text) {
+        String trimmed = text.toString().trim();
+        return "\"" + (trimmed.length() > 40 ? trimmed.substring(0, 40) + "..." : trimmed) + "\"";
+    }
+}
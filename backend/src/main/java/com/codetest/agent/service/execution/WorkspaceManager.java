@@ -0,0 +1,229 @@
+package com.codetest.agent.service.execution;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Scratch working directories for submissions (the runs' cwd, the Python
+ * workers' per-case files). Directories live on a RAM-backed mount when there
+ * is one ({@code /dev/shm} unless {@code dir} says otherwise), are created
+ * ahead of time and recycled: closing a {@link Workspace} hands it to a
+ * background cleaner that empties it and puts it back in the pool, so neither
+ * mkdir nor the recursive delete is on the request path.
+ *
+ * A periodic audit reports the pool's disk usage and counts leaked
+ * directories: workspaces held longer than {@code leak-threshold-ms}, and
+ * directories under the root that belong to no workspace at all.
+ */
+@Slf4j
+@Component
+public class WorkspaceManager {
+
+    private static final Path SHARED_MEMORY = Path.of("/dev/shm");
+
+    private final MeterRegistry meterRegistry;
+    private final Path root;
+    private final int poolSize;
+    private final long leakThresholdMs;
+    private final long auditIntervalMs;
+
+    private final ConcurrentLinkedDeque<Path> idle = new ConcurrentLinkedDeque<>();
+    private final Map<Path, Long> inUse = new ConcurrentHashMap<>(); // dir -> acquired at (ms)
+    private final Map<Path, Boolean> cleaning = new ConcurrentHashMap<>();
+    private final AtomicInteger created = new AtomicInteger();
+    private final AtomicLong diskUsageBytes = new AtomicLong();
+    private final AtomicLong leaked = new AtomicLong();
+    private final ScheduledExecutorService cleaner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "workspace-cleaner");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public WorkspaceManager(MeterRegistry meterRegistry,
+            @Value("${codegenie.execution.workspace.dir:}") String root,
+            @Value("${codegenie.execution.workspace.pool-size:16}") int poolSize,
+            @Value("${codegenie.execution.workspace.leak-threshold-ms:600000}") long leakThresholdMs,
+            @Value("${codegenie.execution.workspace.audit-interval-ms:60000}") long auditIntervalMs) {
+        this.meterRegistry = meterRegistry;
+        this.root = root.isBlank() ? defaultRoot() : Path.of(root);
+        this.poolSize = poolSize;
+        this.leakThresholdMs = leakThresholdMs;
+        this.auditIntervalMs = auditIntervalMs;
+    }
+
+    private static Path defaultRoot() {
+        if (Files.isDirectory(SHARED_MEMORY) && Files.isWritable(SHARED_MEMORY)) {
+            return SHARED_MEMORY.resolve("codegenie-workspaces");
+        }
+        return Path.of(System.getProperty("java.io.tmpdir"), "codegenie-workspaces");
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        // Workspaces of a previous process are garbage by definition.
+        deleteDirectory(root.toFile());
+        Files.createDirectories(root);
+        for (int i = 0; i < poolSize; i++) {
+            idle.add(newDirectory());
+        }
+        Gauge.builder("codegenie.execution.workspace.idle", idle, ConcurrentLinkedDeque::size)
+                .register(meterRegistry);
+        Gauge.builder("codegenie.execution.workspace.in-use", inUse, Map::size).register(meterRegistry);
+        Gauge.builder("codegenie.execution.workspace.leaked", leaked, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("codegenie.execution.workspace.disk.bytes", diskUsageBytes, AtomicLong::get)
+                .register(meterRegistry);
+        cleaner.scheduleWithFixedDelay(this::audit, auditIntervalMs, auditIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Execution workspaces in {} ({} pre-created)", root, poolSize);
+    }
+
+    @PreDestroy
+    void stop() {
+        cleaner.shutdownNow();
+    }
+
+    Path root() {
+        return root;
+    }
+
+    /** An empty directory for one submission; close it when its runs are finished. */
+    public Workspace acquire() throws IOException {
+        Path dir = idle.pollFirst();
+        meterRegistry.counter("codegenie.execution.workspace.acquire", "result", dir != null ? "pooled" : "created")
+                .increment();
+        if (dir == null) {
+            dir = newDirectory();
+        }
+        inUse.put(dir, System.currentTimeMillis());
+        return new Workspace(dir);
+    }
+
+    private Path newDirectory() throws IOException {
+        return Files.createDirectory(root.resolve("ws-" + created.incrementAndGet()));
+    }
+
+    private void release(Path dir) {
+        inUse.remove(dir);
+        cleaning.put(dir, Boolean.TRUE);
+        try {
+            cleaner.execute(() -> recycle(dir));
+        } catch (RuntimeException e) {
+            // Shutting down
+            cleaning.remove(dir);
+        }
+    }
+
+    private void recycle(Path dir) {
+        try {
+            File[] contents = dir.toFile().listFiles();
+            if (contents != null) {
+                for (File file : contents) {
+                    deleteDirectory(file);
+                }
+            }
+            boolean empty = isEmpty(dir);
+            if (empty && idle.size() < poolSize) {
+                idle.addLast(dir);
+            } else {
+                deleteDirectory(dir.toFile());
+                if (!empty) {
+                    meterRegistry.counter("codegenie.execution.workspace.cleanup.failed").increment();
+                    log.warn("Could not empty workspace {}; dropped from the pool", dir);
+                }
+            }
+        } finally {
+            cleaning.remove(dir);
+        }
+    }
+
+    private void audit() {
+        try {
+            long now = System.currentTimeMillis();
+            long stale = inUse.values().stream().filter(acquiredAt -> now - acquiredAt > leakThresholdMs).count();
+            long orphaned = 0;
+            long bytes = 0;
+            try (Stream<Path> dirs = Files.list(root)) {
+                for (Path dir : dirs.toList()) {
+                    if (!idle.contains(dir) && !inUse.containsKey(dir) && !cleaning.containsKey(dir)) {
+                        orphaned++;
+                    }
+                }
+            }
+            try (Stream<Path> files = Files.walk(root)) {
+                bytes = files.filter(Files::isRegularFile).mapToLong(WorkspaceManager::sizeOf).sum();
+            }
+            if (stale + orphaned > 0) {
+                log.warn("{} execution workspaces held longer than {} ms, {} orphaned under {}", stale,
+                        leakThresholdMs, orphaned, root);
+            }
+            leaked.set(stale + orphaned);
+            diskUsageBytes.set(bytes);
+        } catch (IOException | RuntimeException e) {
+            // Files come and go while we walk; the next audit will do.
+            log.debug("Workspace audit failed: {}", e.getMessage());
+        }
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static boolean isEmpty(Path dir) {
+        String[] contents = dir.toFile().list();
+        return contents != null && contents.length == 0;
+    }
+
+    private static void deleteDirectory(File directory) {
+        File[] allContents = directory.listFiles();
+        if (allContents != null) {
+            for (File file : allContents) {
+                deleteDirectory(file);
+            }
+        }
+        directory.delete();
+    }
+
+    /** A scratch directory that goes back to the pool when closed. */
+    public final class Workspace implements AutoCloseable {
+        private final Path dir;
+        private boolean closed;
+
+        private Workspace(Path dir) {
+            this.dir = dir;
+        }
+
+        public Path dir() {
+            return dir;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                release(dir);
+            }
+        }
+    }
+}
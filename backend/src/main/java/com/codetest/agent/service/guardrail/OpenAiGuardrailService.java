@@ -1,7 +1,8 @@
 package com.codetest.agent.service.guardrail;
 
+import com.codetest.agent.service.LlmJsonExtractor;
 import com.codetest.agent.service.LlmService;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.JsonNode;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
@@ -15,7 +16,7 @@ import java.util.Map;
 public class OpenAiGuardrailService implements GuardrailService {
 
     private final LlmService llmService;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final LlmJsonExtractor jsonExtractor;
 
     @Override
     public ValidationResult validate(String mode, String userContent) {
@@ -86,22 +87,13 @@ public class OpenAiGuardrailService implements GuardrailService {
 
             String jsonResponse = llmService.getChatResponse(messages);
 
-            // Basic cleanup if LLM adds markdown
-            if (jsonResponse.contains("```json")) {
-                jsonResponse = jsonResponse.substring(jsonResponse.indexOf("```json") + 7);
-                if (jsonResponse.contains("```"))
-                    jsonResponse = jsonResponse.substring(0, jsonResponse.lastIndexOf("```"));
-            } else if (jsonResponse.contains("```")) {
-                jsonResponse = jsonResponse.substring(jsonResponse.indexOf("```") + 3);
-                if (jsonResponse.contains("```"))
-                    jsonResponse = jsonResponse.substring(0, jsonResponse.lastIndexOf("```"));
+            // The verdict object, wherever the LLM put it in its answer
+            JsonNode result = jsonExtractor.readObject(jsonResponse);
+            if (result == null || !result.path("allowed").isBoolean()) {
+                throw new IllegalStateException("No verdict in response");
             }
-
-            Map<String, Object> result = objectMapper.readValue(jsonResponse.trim(),
-                    new com.fasterxml.jackson.core.type.TypeReference<>() {
-                    });
-            boolean allowed = (Boolean) result.get("allowed");
-            String reason = (String) result.get("reason");
+            boolean allowed = result.get("allowed").asBoolean();
+            String reason = result.path("reason").isTextual() ? result.get("reason").asText() : null;
 
             return new ValidationResult(allowed, reason);
 
@@ -0,0 +1,183 @@
+package com.codetest.agent.service.problem;
+
+import com.codetest.agent.dto.Example;
+import com.codetest.agent.dto.ProblemSpec;
+import org.jsoup.Connection;
+import org.jsoup.HttpStatusException;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.codetest.agent.service.problem.ProblemHtmlFormatter.getFormattedText;
+
+@Component
+public class BaekjoonProblemParser implements ProblemSourceParser {
+
+    private static final Pattern PROBLEM_PATH_PATTERN = Pattern.compile("/problem/(\\d{1,9})/?");
+    private static final Pattern BARE_ID_PATTERN = Pattern.compile("\\d{1,9}");
+    private static final Pattern CANONICAL_URL_PATTERN = Pattern.compile(
+            "https://www\\.acmicpc\\.net/problem/(\\d{1,9})");
+    private static final Set<String> HOSTS = Set.of("www.acmicpc.net", "acmicpc.net");
+
+    @Value("${codegenie.problem-source.baekjoon.timeout-ms:10000}")
+    private long timeoutMs;
+
+    @Value("${codegenie.problem-source.baekjoon.max-concurrency:4}")
+    private int maxConcurrency;
+
+    @Override
+    public String platform() {
+        return "baekjoon";
+    }
+
+    @Override
+    public long timeoutMs() {
+        return timeoutMs;
+    }
+
+    @Override
+    public int maxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Accepts only problem pages on acmicpc.net or bare problem ids, and always
+     * returns a URL rebuilt from the id, which becomes the problem's key.
+     */
+    @Override
+    public String resolveUrl(String input) {
+        String text = input.trim();
+        // Handle case where user just inputs the problem ID
+        if (BARE_ID_PATTERN.matcher(text).matches()) {
+            return problemUrl(text);
+        }
+        try {
+            URI uri = new URI(text);
+            Matcher path = PROBLEM_PATH_PATTERN.matcher(uri.getPath() == null ? "" : uri.getPath());
+            if (("https".equalsIgnoreCase(uri.getScheme()) || "http".equalsIgnoreCase(uri.getScheme()))
+                    && uri.getHost() != null && HOSTS.contains(uri.getHost().toLowerCase(Locale.ROOT))
+                    && path.matches()) {
+                return problemUrl(path.group(1));
+            }
+        } catch (URISyntaxException e) {
+            // Falls through to the rejection below
+        }
+        throw new IllegalArgumentException("Invalid Baekjoon URL or Problem ID");
+    }
+
+    private static String problemUrl(String id) {
+        return "https://www.acmicpc.net/problem/" + id;
+    }
+
+    @Override
+    public String problemId(String url) {
+        Matcher matcher = CANONICAL_URL_PATTERN.matcher(url);
+        return matcher.matches() ? matcher.group(1) : null;
+    }
+
+    @Override
+    public Connection connect(String url) {
+        return Jsoup.connect(url)
+                .userAgent("Mozilla/5.0 (compatible; Googlebot/2.1; +http://www.google.com/bot.html)")
+                .referrer("https://www.google.com/")
+                .timeout((int) timeoutMs);
+    }
+
+    @Override
+    public IOException translateHttpError(HttpStatusException e) {
+        if (e.getStatusCode() == 403) {
+            return new IOException(
+                    "Access Denied (403) by Baekjoon. Server IP might be blocked or User-Agent rejected.", e);
+        }
+        return e;
+    }
+
+    @Override
+    public ProblemSpec parse(Document doc, String url) {
+        ProblemSpec spec = new ProblemSpec();
+        spec.setSource("BAEKJOON");
+        spec.setSourceId(problemId(url));
+
+        Element titleElement = doc.selectFirst("#problem_title");
+        if (titleElement != null) {
+            spec.setTitle(titleElement.text());
+        }
+
+        // Parse Time/Memory Limits from the table
+        Element infoTable = doc.selectFirst("#problem-info");
+        if (infoTable != null) {
+            Elements rows = infoTable.select("tr");
+            if (!rows.isEmpty()) {
+                // Usually the first row has headers, second row has values
+                // Or headers are th, values are td
+                // BOJ structure:
+                // <thead><tr><th>시간 제한</th><th>메모리 제한</th>...</tr></thead>
+                // <tbody><tr><td>1 초</td><td>128 MB</td>...</tr></tbody>
+                Element timeLimit = infoTable.selectFirst("td:nth-child(1)");
+                if (timeLimit != null)
+                    spec.setTimeLimit(timeLimit.text());
+
+                Element memoryLimit = infoTable.selectFirst("td:nth-child(2)");
+                if (memoryLimit != null)
+                    spec.setMemoryLimit(memoryLimit.text());
+            }
+        }
+
+        Element description = doc.selectFirst("#problem_description");
+        if (description != null) {
+            spec.setDescription(getFormattedText(description));
+        }
+
+        Element inputDesc = doc.selectFirst("#problem_input");
+        if (inputDesc != null) {
+            spec.setInputFormat(getFormattedText(inputDesc));
+        }
+
+        Element outputDesc = doc.selectFirst("#problem_output");
+        if (outputDesc != null) {
+            spec.setOutputFormat(getFormattedText(outputDesc));
+        }
+
+        // Constraints (Hint or Limit) - BOJ usually puts limits in the table, but
+        // sometimes there are specific constraints in text
+        // Usually 'problem_limit' doesn't exist as a standard ID, constraints are often
+        // in Description or Input section.
+        // But let's check if there is a specific section.
+        // Sometimes there is a 'hint' section
+        Element hint = doc.selectFirst("#problem_hint");
+        if (hint != null) {
+            spec.setConstraints(getFormattedText(hint)); // Using constraints field for hint/notes if available
+        }
+
+        // Sample inputs and outputs
+        List<Example> examples = new ArrayList<>();
+        Elements sampleInputs = doc.select("[id^=sample-input-]");
+        Elements sampleOutputs = doc.select("[id^=sample-output-]");
+
+        for (int i = 0; i < sampleInputs.size(); i++) {
+            Example example = new Example();
+            example.setInput(sampleInputs.get(i).text());
+
+            if (i < sampleOutputs.size()) {
+                example.setOutput(sampleOutputs.get(i).text());
+            }
+            examples.add(example);
+        }
+        spec.setExamples(examples);
+
+        return spec;
+    }
+}
@@ -0,0 +1,18 @@
+package com.codetest.agent.service.problem;
+
+import com.codetest.agent.dto.ProblemSpec;
+
+/**
+ * Last known state of a scraped problem page: the validators the site gave us,
+ * a hash of the raw body and the spec parsed from it.
+ */
+public record CachedProblemPage(String url, String etag, String lastModified, String contentHash,
+        ProblemSpec spec, long validatedAt) {
+
+    CachedProblemPage revalidated(String etag, String lastModified, long now) {
+        return new CachedProblemPage(url,
+                etag != null ? etag : this.etag,
+                lastModified != null ? lastModified : this.lastModified,
+                contentHash, spec, now);
+    }
+}
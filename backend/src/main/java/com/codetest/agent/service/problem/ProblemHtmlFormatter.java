@@ -0,0 +1,32 @@
+package com.codetest.agent.service.problem;
+
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.TextNode;
+
+final class ProblemHtmlFormatter {
+
+    private ProblemHtmlFormatter() {
+    }
+
+    static String getFormattedText(Element element) {
+        if (element == null)
+            return "";
+        Element clone = element.clone();
+
+        // Use placeholders for formatting
+        clone.select("br").after("{{NEWLINE}}");
+        clone.select("p").before("{{NEWLINE}}{{NEWLINE}}");
+        clone.select("pre").before("{{NEWLINE}}```{{NEWLINE}}").after("{{NEWLINE}}```{{NEWLINE}}");
+        clone.select("li").before("{{NEWLINE}}- ");
+        clone.select("tr").before("{{NEWLINE}}");
+        clone.select("td, th").after(" ");
+
+        // Handle images
+        for (Element img : clone.select("img")) {
+            img.replaceWith(new TextNode("[Image]"));
+        }
+
+        String text = clone.text();
+        return text.replace("{{NEWLINE}}", "\n").trim();
+    }
+}
@@ -0,0 +1,53 @@
+package com.codetest.agent.service.problem;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Redis-backed store of {@link CachedProblemPage}s, shared by every backend
+ * instance and keyed by platform and problem id, so every way of writing a
+ * problem's URL finds the same page. Cache failures are logged and treated as misses so that parsing
+ * still works when Redis is unavailable.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProblemPageCache {
+
+    private static final String KEY_PREFIX = "problem:page:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${codegenie.problem-cache.retention-days:30}")
+    private long retentionDays;
+
+    public CachedProblemPage get(String platform, String problemId) {
+        try {
+            String json = redisTemplate.opsForValue().get(key(platform, problemId));
+            return json == null ? null : objectMapper.readValue(json, CachedProblemPage.class);
+        } catch (Exception e) {
+            log.warn("Problem page cache read failed for {} {}: {}", platform, problemId, e.getMessage());
+            return null;
+        }
+    }
+
+    public void put(String platform, String problemId, CachedProblemPage page) {
+        try {
+            redisTemplate.opsForValue().set(key(platform, problemId), objectMapper.writeValueAsString(page),
+                    Duration.ofDays(retentionDays));
+        } catch (Exception e) {
+            log.warn("Problem page cache write failed for {}: {}", page.url(), e.getMessage());
+        }
+    }
+
+    private String key(String platform, String problemId) {
+        return KEY_PREFIX + platform + ":" + problemId;
+    }
+}
@@ -0,0 +1,106 @@
+package com.codetest.agent.service.problem;
+
+import com.codetest.agent.dto.ProblemSpec;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jsoup.Connection;
+import org.jsoup.HttpStatusException;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Fetches problem pages with HTTP revalidation. Cached specs are served as-is
+ * while fresh; after that (or on an explicit refresh) we send a conditional
+ * request with the stored {@code ETag}/{@code Last-Modified} and only re-parse
+ * when the site returns a body whose hash differs from the cached one. Only
+ * canonical problem URLs are cached, under the problem's id.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProblemPageFetcher {
+
+    private static final int HTTP_NOT_MODIFIED = 304;
+
+    private final ProblemPageCache pageCache;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${codegenie.problem-cache.fresh-ms:21600000}") // 6 hours
+    private long freshMs;
+
+    public ProblemSpec fetch(ProblemSourceParser parser, String input, boolean refresh) throws IOException {
+        String url = parser.resolveUrl(input);
+        String platform = parser.platform();
+        String problemId = parser.problemId(url);
+        long now = System.currentTimeMillis();
+
+        CachedProblemPage cached = problemId == null ? null : pageCache.get(platform, problemId);
+        if (cached != null && !refresh && now - cached.validatedAt() < freshMs) {
+            count(platform, "fresh_hit");
+            return cached.spec();
+        }
+
+        Connection connection = parser.connect(url);
+        if (cached != null) {
+            if (cached.etag() != null)
+                connection.header("If-None-Match", cached.etag());
+            if (cached.lastModified() != null)
+                connection.header("If-Modified-Since", cached.lastModified());
+        }
+
+        Connection.Response response;
+        try {
+            response = connection.execute();
+        } catch (HttpStatusException e) {
+            throw parser.translateHttpError(e);
+        }
+
+        String etag = response.header("ETag");
+        String lastModified = response.header("Last-Modified");
+
+        if (cached != null && response.statusCode() == HTTP_NOT_MODIFIED) {
+            pageCache.put(platform, problemId, cached.revalidated(etag, lastModified, now));
+            count(platform, "not_modified");
+            return cached.spec();
+        }
+
+        byte[] body = response.bodyAsBytes();
+        String contentHash = sha256(body);
+
+        if (cached != null && contentHash.equals(cached.contentHash())) {
+            // Site ignores validators (or the page was re-rendered identically): skip re-parsing.
+            pageCache.put(platform, problemId, cached.revalidated(etag, lastModified, now));
+            count(platform, "unchanged");
+            return cached.spec();
+        }
+
+        Document doc = Jsoup.parse(new ByteArrayInputStream(body), response.charset(), url);
+        ProblemSpec spec = parser.parse(doc, url);
+        if (problemId != null) {
+            pageCache.put(platform, problemId, new CachedProblemPage(url, etag, lastModified, contentHash, spec, now));
+        }
+        count(platform, cached == null ? "miss" : "changed");
+        return spec;
+    }
+
+    private void count(String platform, String result) {
+        meterRegistry.counter("codegenie.problem.fetch", "source", platform, "result", result).increment();
+    }
+
+    private static String sha256(byte[] body) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.codetest.agent.service.problem;
+
+import com.codetest.agent.dto.ProblemSpec;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Routes parse requests to the matching {@link ProblemSourceParser} and isolates
+ * each source behind its own bounded executor, timeout and circuit breaker, so a
+ * slow or blocked judge site cannot starve the servlet threads of other sources.
+ */
+@Slf4j
+@Service
+public class ProblemParsingService {
+
+    private static final String METRIC_PARSE = "codegenie.problem.parse";
+
+    private final Map<String, SourceGuard> guards = new HashMap<>();
+    private final ProblemPageFetcher pageFetcher;
+    private final MeterRegistry meterRegistry;
+
+    public ProblemParsingService(List<ProblemSourceParser> parsers, ProblemPageFetcher pageFetcher,
+            MeterRegistry meterRegistry,
+            @Value("${codegenie.problem-source.circuit.failure-threshold:5}") int failureThreshold,
+            @Value("${codegenie.problem-source.circuit.open-duration-ms:30000}") long openDurationMs) {
+        this.pageFetcher = pageFetcher;
+        this.meterRegistry = meterRegistry;
+        for (ProblemSourceParser parser : parsers) {
+            SourceGuard guard = new SourceGuard(parser, new SourceCircuitBreaker(failureThreshold, openDurationMs));
+            guards.put(parser.platform().toLowerCase(Locale.ROOT), guard);
+            Gauge.builder("codegenie.problem.circuit.open", guard.breaker,
+                    b -> b.state() == SourceCircuitBreaker.State.OPEN ? 1 : 0)
+                    .tag("source", parser.platform())
+                    .register(meterRegistry);
+            Gauge.builder("codegenie.problem.parse.active", guard.executor, ThreadPoolExecutor::getActiveCount)
+                    .tag("source", parser.platform())
+                    .register(meterRegistry);
+        }
+    }
+
+    public boolean supports(String platform) {
+        return platform != null && guards.containsKey(platform.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Parses asynchronously on the source's own executor. The returned future
+     * fails with {@link TimeoutException} after the source timeout, counted from
+     * when the executor starts the parse rather than from submission, and with
+     * {@link ProblemSourceUnavailableException} when the source is shedding load.
+     * With {@code refresh} the cached spec is revalidated against the site even
+     * if it is still fresh.
+     */
+    public CompletableFuture<ProblemSpec> parse(String platform, String url, boolean refresh) {
+        if (!supports(platform)) {
+            throw new IllegalArgumentException("Unsupported platform: " + platform);
+        }
+        SourceGuard guard = guards.get(platform.toLowerCase(Locale.ROOT));
+        String source = guard.parser.platform();
+
+        if (!guard.breaker.tryAcquire()) {
+            record(source, "circuit_open", 0);
+            return CompletableFuture.failedFuture(new ProblemSourceUnavailableException(
+                    source + " is temporarily unavailable (too many recent failures). Please retry shortly."));
+        }
+
+        long startedAt = System.nanoTime();
+        CompletableFuture<ProblemSpec> result = new CompletableFuture<>();
+        Future<?> task;
+        try {
+            task = guard.executor.submit(() -> {
+                // Time spent queued behind other parses says nothing about the source,
+                // so it must not end in a timeout that the breaker counts
+                result.orTimeout(guard.parser.timeoutMs(), TimeUnit.MILLISECONDS);
+                try {
+                    result.complete(pageFetcher.fetch(guard.parser, url, refresh));
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Rejection is load shedding, not a source failure.
+            guard.breaker.onIgnored();
+            record(source, "rejected", 0);
+            return CompletableFuture.failedFuture(
+                    new ProblemSourceUnavailableException(source + " is busy. Please retry shortly."));
+        }
+
+        return result.whenComplete((spec, error) -> {
+            long elapsed = System.nanoTime() - startedAt;
+            if (error == null) {
+                guard.breaker.onSuccess();
+                record(source, "success", elapsed);
+                return;
+            }
+            if (error instanceof IllegalArgumentException) {
+                // Bad user input says nothing about the health of the source.
+                guard.breaker.onIgnored();
+                record(source, "invalid", elapsed);
+                return;
+            }
+            if (error instanceof TimeoutException) {
+                task.cancel(true);
+                record(source, "timeout", elapsed);
+            } else {
+                record(source, "error", elapsed);
+            }
+            guard.breaker.onFailure();
+            log.warn("Problem parse failed for {} ({}): {}", source, url, error.toString());
+        });
+    }
+
+    private void record(String source, String outcome, long elapsedNanos) {
+        Timer.builder(METRIC_PARSE)
+                .tag("source", source)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        guards.values().forEach(guard -> guard.executor.shutdownNow());
+    }
+
+    private static final class SourceGuard {
+        private final ProblemSourceParser parser;
+        private final SourceCircuitBreaker breaker;
+        private final ThreadPoolExecutor executor;
+
+        private SourceGuard(ProblemSourceParser parser, SourceCircuitBreaker breaker) {
+            this.parser = parser;
+            this.breaker = breaker;
+            AtomicInteger threadIndex = new AtomicInteger();
+            this.executor = new ThreadPoolExecutor(parser.maxConcurrency(), parser.maxConcurrency(),
+                    60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(Math.max(1, parser.queueCapacity())),
+                    runnable -> {
+                        Thread thread = new Thread(runnable,
+                                "problem-parser-" + parser.platform() + "-" + threadIndex.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    new ThreadPoolExecutor.AbortPolicy());
+            this.executor.allowCoreThreadTimeOut(true);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.codetest.agent.service.problem;
+
+import com.codetest.agent.dto.ProblemSpec;
+import org.jsoup.Connection;
+import org.jsoup.HttpStatusException;
+import org.jsoup.nodes.Document;
+
+import java.io.IOException;
+
+/**
+ * A problem source (online judge) that can turn a URL into a {@link ProblemSpec}.
+ * Implementations are discovered as Spring beans; each one gets its own bounded
+ * executor, timeout and circuit breaker in {@link ProblemParsingService}.
+ * Fetching (and conditional revalidation) is done by {@link ProblemPageFetcher};
+ * parsers only describe how to connect and how to read the page.
+ */
+public interface ProblemSourceParser {
+
+    /** Platform key used by {@code /api/parse?platform=...} (e.g. "baekjoon"). */
+    String platform();
+
+    /** Turns user input (full URL or bare problem id) into the canonical page URL. */
+    String resolveUrl(String input);
+
+    /** The problem id in a canonical page URL, or {@code null} if {@code url} is not one. */
+    String problemId(String url);
+
+    /** A configured (user agent, referrer, timeout) but not yet executed request. */
+    Connection connect(String url);
+
+    ProblemSpec parse(Document doc, String url);
+
+    /** Hook for source-specific messages on 4xx/5xx responses. */
+    default IOException translateHttpError(HttpStatusException e) {
+        return e;
+    }
+
+    /** Max wall time for a single parse, including the HTTP fetch. */
+    long timeoutMs();
+
+    /** Max number of concurrent fetches against this source. */
+    int maxConcurrency();
+
+    /** Requests allowed to wait for a free slot before being rejected. */
+    default int queueCapacity() {
+        return maxConcurrency() * 4;
+    }
+}
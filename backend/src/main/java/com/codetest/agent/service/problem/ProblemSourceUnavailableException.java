@@ -0,0 +1,14 @@
+package com.codetest.agent.service.problem;
+
+/**
+ * Thrown when a problem source refuses work without trying: its circuit is
+ * open or its bounded queue is full.
+ */
+public class ProblemSourceUnavailableException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ProblemSourceUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,221 @@
+package com.codetest.agent.service.problem;
+
+import com.codetest.agent.dto.Example;
+import com.codetest.agent.dto.ProblemSpec;
+import org.jsoup.Connection;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.codetest.agent.service.problem.ProblemHtmlFormatter.getFormattedText;
+
+@Component
+public class ProgrammersProblemParser implements ProblemSourceParser {
+
+    private static final Pattern CANONICAL_URL_PATTERN = Pattern.compile(
+            "https://school\\.programmers\\.co\\.kr/learn/courses/30/lessons/(\\d{1,9})");
+    private static final Pattern LESSON_PATH_PATTERN = Pattern.compile("/learn/courses/\\d+/lessons/(\\d{1,9})/?");
+    private static final Pattern BARE_ID_PATTERN = Pattern.compile("\\d{1,9}");
+    private static final String HOST = "school.programmers.co.kr";
+
+    @Value("${codegenie.problem-source.programmers.timeout-ms:10000}")
+    private long timeoutMs;
+
+    @Value("${codegenie.problem-source.programmers.max-concurrency:4}")
+    private int maxConcurrency;
+
+    @Override
+    public String platform() {
+        return "programmers";
+    }
+
+    @Override
+    public long timeoutMs() {
+        return timeoutMs;
+    }
+
+    @Override
+    public int maxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Accepts only lesson pages on {@value #HOST} or bare lesson ids, and always
+     * returns a URL rebuilt from the id: the id becomes the problem's key, so it
+     * must not come from a page on some other host.
+     */
+    @Override
+    public String resolveUrl(String input) {
+        String text = input.trim();
+        if (BARE_ID_PATTERN.matcher(text).matches()) {
+            return lessonUrl(text);
+        }
+        try {
+            URI uri = new URI(text);
+            Matcher path = LESSON_PATH_PATTERN.matcher(uri.getPath() == null ? "" : uri.getPath());
+            if (("https".equalsIgnoreCase(uri.getScheme()) || "http".equalsIgnoreCase(uri.getScheme()))
+                    && HOST.equalsIgnoreCase(uri.getHost()) && path.matches()) {
+                return lessonUrl(path.group(1));
+            }
+        } catch (URISyntaxException e) {
+            // Falls through to the rejection below
+        }
+        throw new IllegalArgumentException("Invalid Programmers URL or Problem ID");
+    }
+
+    private static String lessonUrl(String id) {
+        return "https://" + HOST + "/learn/courses/30/lessons/" + id;
+    }
+
+    @Override
+    public String problemId(String url) {
+        Matcher matcher = CANONICAL_URL_PATTERN.matcher(url);
+        return matcher.matches() ? matcher.group(1) : null;
+    }
+
+    @Override
+    public Connection connect(String url) {
+        return Jsoup.connect(url)
+                .userAgent(
+                        "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36")
+                .referrer("https://school.programmers.co.kr/")
+                .timeout((int) timeoutMs);
+    }
+
+    @Override
+    public ProblemSpec parse(Document doc, String url) {
+        ProblemSpec spec = new ProblemSpec();
+        spec.setSource("PROGRAMMERS");
+
+        spec.setSourceId(problemId(url));
+
+        spec.setTitle(doc.title());
+
+        Element container = doc.selectFirst(".guide-section-description");
+        if (container != null) {
+            // 1. Try to parse Examples table first (it's usually reliable)
+            List<Example> examples = new ArrayList<>();
+            Element table = container.selectFirst("table");
+            if (table != null) {
+                examples.addAll(parseExamples(table));
+            }
+            spec.setExamples(examples);
+            if (!examples.isEmpty()) {
+                spec.setInputFormat("See examples below.");
+                spec.setOutputFormat("See examples below.");
+            }
+
+            // 2. Try structured parsing for Description and Constraints
+            StringBuilder descriptionBuilder = new StringBuilder();
+            StringBuilder constraintsBuilder = new StringBuilder();
+
+            boolean foundConstraints = false;
+            String currentSection = "DESCRIPTION";
+
+            for (Element child : container.children()) {
+                String text = child.text().trim();
+
+                // Skip the table if we already parsed it
+                if (child.tagName().equals("table"))
+                    continue;
+
+                // Header detection
+                boolean isHeader = child.tagName().matches("h[1-6]") || child.tagName().equals("strong")
+                        || text.equals("제한사항") || text.equals("제한 사항")
+                        || text.startsWith("입출력 예");
+
+                if (isHeader) {
+                    if (text.contains("제한사항") || text.contains("제한 사항")) {
+                        currentSection = "CONSTRAINTS";
+                        foundConstraints = true;
+                        continue;
+                    } else if (text.contains("입출력 예")) {
+                        currentSection = "EXAMPLES"; // We already parsed table, so just ignore or capture text
+                        continue;
+                    } else if (text.contains("문제 설명")) {
+                        currentSection = "DESCRIPTION";
+                        continue;
+                    }
+                }
+
+                if ("DESCRIPTION".equals(currentSection)) {
+                    descriptionBuilder.append(getFormattedText(child)).append("\n");
+                } else if ("CONSTRAINTS".equals(currentSection)) {
+                    String formatted = getFormattedText(child);
+                    if (!formatted.startsWith("-") && !formatted.isEmpty()) {
+                        constraintsBuilder.append("- ").append(formatted).append("\n");
+                    } else {
+                        constraintsBuilder.append(formatted).append("\n");
+                    }
+                }
+            }
+
+            spec.setDescription(descriptionBuilder.toString().trim());
+            spec.setConstraints(constraintsBuilder.toString().trim());
+
+            // 3. Fallback: If constraints are empty, try splitting the full text
+            if (!foundConstraints || spec.getConstraints().isEmpty()) {
+                String fullText = getFormattedText(container);
+
+                // Simple regex split
+                String[] parts = fullText.split("제한사항|제한 사항");
+                if (parts.length > 1) {
+                    spec.setDescription(parts[0].trim());
+
+                    String rest = parts[1];
+                    String[] constraintParts = rest.split("입출력 예");
+                    if (constraintParts.length > 0) {
+                        spec.setConstraints(constraintParts[0].trim());
+                    }
+                }
+            }
+
+        } else {
+            spec.setDescription(
+                    "Could not retrieve full description (Programmers problems may require a browser to view).");
+        }
+
+        return spec;
+    }
+
+    private List<Example> parseExamples(Element table) {
+        List<Example> examples = new ArrayList<>();
+        Elements rows = table.select("tr");
+
+        if (rows.size() > 1) {
+            for (int i = 1; i < rows.size(); i++) {
+                Element row = rows.get(i);
+                Elements cols = row.select("td");
+
+                if (cols.isEmpty())
+                    continue;
+
+                Example example = new Example();
+
+                String output = cols.last().text();
+                example.setOutput(output);
+
+                StringBuilder inputBuilder = new StringBuilder();
+                for (int j = 0; j < cols.size() - 1; j++) {
+                    if (j > 0)
+                        inputBuilder.append(", ");
+                    inputBuilder.append(cols.get(j).text());
+                }
+                example.setInput(inputBuilder.toString());
+
+                examples.add(example);
+            }
+        }
+        return examples;
+    }
+}
@@ -0,0 +1,62 @@
+package com.codetest.agent.service.problem;
+
+/**
+ * Minimal consecutive-failure circuit breaker for a single problem source.
+ * CLOSED -> OPEN after {@code failureThreshold} failures in a row; after
+ * {@code openDurationMs} a single trial call is let through (HALF_OPEN).
+ */
+class SourceCircuitBreaker {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openDurationMs;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+
+    SourceCircuitBreaker(int failureThreshold, long openDurationMs) {
+        this.failureThreshold = failureThreshold;
+        this.openDurationMs = openDurationMs;
+    }
+
+    synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openDurationMs) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            return true;
+        }
+        // HALF_OPEN: only the trial call already in flight may pass
+        return state == State.CLOSED;
+    }
+
+    synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        state = State.CLOSED;
+    }
+
+    /** The call finished without telling us anything about the source's health. */
+    synchronized void onIgnored() {
+        if (state == State.HALF_OPEN) {
+            // openedAt is already expired, so the next call becomes the new trial
+            state = State.OPEN;
+        }
+    }
+
+    synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+    }
+
+    synchronized State state() {
+        return state;
+    }
+}
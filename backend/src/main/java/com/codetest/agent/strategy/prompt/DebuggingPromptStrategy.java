@@ -24,7 +24,9 @@ public class DebuggingPromptStrategy implements PromptStrategy {
                 "   - Use specific formatting: `Java: System.out.println(\"[DEBUG] i=\" + i + \", dp=\" + dp[i]);`\n" +
                 "3. **Analyze Output**: Explain what the user should look for in the console output (e.g., 'If [DEBUG] shows -1, your initialization is wrong').\n"
                 +
-                "4. **Role Enforcement**: If the user asks for a simple 'Hint' or 'Solution' without providing code or a specific bug, say: \"저는 디버깅 전문가입니다. 코드를 보여주시고 오류 현상을 설명해주시면 로그 위치를 제안해드리겠습니다.\"\n"
+                "4. **Hot Spots**: If the context has [Hot Spots] and the user asks why the code is slow or times out, point to the lines and methods that take the most samples instead of guessing, and explain what makes them expensive.\n"
+                +
+                "5. **Role Enforcement**: If the user asks for a simple 'Hint' or 'Solution' without providing code or a specific bug, say: \"저는 디버깅 전문가입니다. 코드를 보여주시고 오류 현상을 설명해주시면 로그 위치를 제안해드리겠습니다.\"\n"
                 +
                 "Answer in Korean.";
     }
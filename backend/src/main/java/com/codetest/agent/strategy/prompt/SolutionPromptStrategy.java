@@ -20,6 +20,8 @@ public class SolutionPromptStrategy implements PromptStrategy {
                 "1. **Analyze User Code**: Deeply understand the `[User Code]` and the user's intended logic.\n" +
                 "2. **Feasibility Check**: Determine if the user's approach can solve the problem within constraints (Time/Memory).\n"
                 +
+                "   - If a `[Measured Complexity]` section is given, base the verdict on those server measurements, not on reading the code alone.\n"
+                +
                 "3. **Conditional Guidance**:\n" +
                 "   - **If Valid**: Acknowledge the good approach and suggest the **immediate next step**.\n" +
                 "   - **If Invalid**: Explain **why** it fails (e.g., 'O(N^2) leads to Time Limit Exceeded') and propose the **first step** of a correct approach.\n"
@@ -0,0 +1,214 @@
+/*
+ * Harness support shared by the C and C++ runtimes: an argument tokenizer with
+ * the same input format as the Java ReflectionRunner ("[1, 2, 3]", quoted or
+ * bare strings, comma/whitespace separators) and the timing/stats protocol
+ * (INVOKE_START marker, STATS line on exit) that CodeExecutionService parses.
+ *
+ * Plain C so that it compiles as either language.
+ */
+#ifndef CODEGENIE_NATIVE_H
+#define CODEGENIE_NATIVE_H
+
+#include <stdio.h>
+#include <stdlib.h>
+#include <string.h>
+#include <time.h>
+
+static char *cg_buf;
+static size_t cg_len;
+static size_t cg_pos;
+
+static long long cg_started_at;
+static long long cg_parse_started_at;
+static long long cg_invoke_started_at;
+static long long cg_invoke_ended_at;
+static long long cg_cpu_started_at;
+static long long cg_cpu_ended_at;
+
+static long long cg_nanos(clockid_t clock) {
+    struct timespec ts;
+    clock_gettime(clock, &ts);
+    return ts.tv_sec * 1000000000LL + ts.tv_nsec;
+}
+
+static void cg_print_stats(void) {
+    long long ended_at, cpu_ended_at;
+    if (cg_invoke_started_at == 0) return;
+    ended_at = cg_invoke_ended_at != 0 ? cg_invoke_ended_at : cg_nanos(CLOCK_MONOTONIC);
+    cpu_ended_at = cg_invoke_ended_at != 0 ? cg_cpu_ended_at : cg_nanos(CLOCK_PROCESS_CPUTIME_ID);
+    fflush(stdout);
+    fprintf(stderr, "===CODEGENIE_STATS=== setupNanos=%lld parseNanos=%lld invokeNanos=%lld invokeCpuNanos=%lld\n",
+            cg_parse_started_at - cg_started_at, cg_invoke_started_at - cg_parse_started_at,
+            ended_at - cg_invoke_started_at, cpu_ended_at - cg_cpu_started_at);
+}
+
+/* Called first thing in main(); stats are printed even if the user calls exit(). */
+static void cg_init(void) {
+    cg_started_at = cg_nanos(CLOCK_MONOTONIC);
+    cg_parse_started_at = cg_started_at;
+    atexit(cg_print_stats);
+}
+
+static void cg_invoke_start(void) {
+    fprintf(stderr, "===CODEGENIE_INVOKE_START===\n");
+    cg_cpu_started_at = cg_nanos(CLOCK_PROCESS_CPUTIME_ID);
+    cg_invoke_started_at = cg_nanos(CLOCK_MONOTONIC);
+}
+
+static void cg_invoke_end(void) {
+    cg_invoke_ended_at = cg_nanos(CLOCK_MONOTONIC);
+    cg_cpu_ended_at = cg_nanos(CLOCK_PROCESS_CPUTIME_ID);
+}
+
+/* --- argument tokenizer (function mode only; stdin programs read stdin themselves) --- */
+
+static void cg_load_input(void) {
+    size_t cap = 1 << 16;
+    size_t n;
+    cg_parse_started_at = cg_nanos(CLOCK_MONOTONIC);
+    cg_buf = (char *) malloc(cap + 1);
+    while ((n = fread(cg_buf + cg_len, 1, cap - cg_len, stdin)) > 0) {
+        cg_len += n;
+        if (cg_len == cap) {
+            cap *= 2;
+            cg_buf = (char *) realloc(cg_buf, cap + 1);
+        }
+    }
+    cg_buf[cg_len] = '\0';
+}
+
+static void cg_fail(const char *expected) {
+    fprintf(stderr, "Input mismatch: expected %s at offset %lu\n", expected, (unsigned long) cg_pos);
+    exit(1);
+}
+
+static int cg_peek(void) {
+    return cg_pos < cg_len ? (unsigned char) cg_buf[cg_pos] : -1;
+}
+
+static int cg_is_separator(int c) {
+    return c == ',' || c == ' ' || c == '\n' || c == '\r' || c == '\t';
+}
+
+static void cg_skip_separators(void) {
+    while (cg_pos < cg_len && cg_is_separator((unsigned char) cg_buf[cg_pos])) cg_pos++;
+}
+
+/* Skips separators on the current line only; returns 1 when the line ended. */
+static int cg_skip_inline_separators(void) {
+    int c;
+    while ((c = cg_peek()) != -1 && cg_is_separator(c)) {
+        cg_pos++;
+        if (c == '\n') return 1;
+    }
+    return c == -1;
+}
+
+static long long cg_read_long(void) {
+    long long value = 0;
+    int negative = 0;
+    int c;
+    cg_skip_separators();
+    c = cg_peek();
+    if (c == '-' || c == '+') {
+        negative = c == '-';
+        cg_pos++;
+        c = cg_peek();
+    }
+    if (c < '0' || c > '9') cg_fail("a number");
+    while ((c = cg_peek()) >= '0' && c <= '9') {
+        value = value * 10 + (c - '0');
+        cg_pos++;
+    }
+    return negative ? -value : value;
+}
+
+static double cg_read_double(void) {
+    char *end;
+    double value;
+    cg_skip_separators();
+    value = strtod(cg_buf + cg_pos, &end);
+    if (end == cg_buf + cg_pos) cg_fail("a number");
+    cg_pos = (size_t) (end - cg_buf);
+    return value;
+}
+
+/* Returns a malloc'd, NUL-terminated copy; quoted strings support \n, \t and \" escapes. */
+static char *cg_read_string(void) {
+    size_t start, n = 0;
+    char *out;
+    int quote;
+    cg_skip_separators();
+    quote = cg_peek();
+    if (quote == '"' || quote == '\'') {
+        cg_pos++;
+        out = (char *) malloc(cg_len - cg_pos + 1);
+        while (cg_pos < cg_len && cg_buf[cg_pos] != quote) {
+            char c = cg_buf[cg_pos++];
+            if (c == '\\' && cg_pos < cg_len) {
+                char escaped = cg_buf[cg_pos++];
+                c = escaped == 'n' ? '\n' : escaped == 't' ? '\t' : escaped;
+            }
+            out[n++] = c;
+        }
+        if (cg_pos < cg_len) cg_pos++; /* closing quote */
+        out[n] = '\0';
+        return out;
+    }
+    start = cg_pos;
+    while (cg_pos < cg_len && !cg_is_separator((unsigned char) cg_buf[cg_pos]) && cg_buf[cg_pos] != ']') cg_pos++;
+    n = cg_pos - start;
+    out = (char *) malloc(n + 1);
+    memcpy(out, cg_buf + start, n);
+    out[n] = '\0';
+    return out;
+}
+
+static int cg_read_bool(void) {
+    char *token = cg_read_string();
+    int value;
+    if (strcmp(token, "true") == 0 || strcmp(token, "1") == 0) value = 1;
+    else if (strcmp(token, "false") == 0 || strcmp(token, "0") == 0) value = 0;
+    else cg_fail("a boolean");
+    free(token);
+    return value;
+}
+
+static char cg_read_char(void) {
+    char *token = cg_read_string();
+    char value = token[0];
+    if (value == '\0') cg_fail("a character");
+    free(token);
+    return value;
+}
+
+/* Consumes an opening '[' if present; returns whether the array is bracketed. */
+static int cg_array_begin(void) {
+    cg_skip_separators();
+    if (cg_peek() == '[') {
+        cg_pos++;
+        return 1;
+    }
+    return 0;
+}
+
+/* Without brackets the rest of the current line is taken as the elements. */
+static int cg_array_has_next(int bracketed) {
+    int c;
+    if (!bracketed) return !cg_skip_inline_separators();
+    cg_skip_separators();
+    c = cg_peek();
+    if (c == ']') {
+        cg_pos++;
+        return 0;
+    }
+    if (c == -1) cg_fail("']'");
+    return 1;
+}
+
+static void cg_print_output_marker(void) {
+    fflush(stdout);
+    fputs("===CODEGENIE_OUTPUT_START===\n", stdout);
+}
+
+#endif
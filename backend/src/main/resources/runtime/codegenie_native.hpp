@@ -0,0 +1,77 @@
+// C++ layer over codegenie_native.h: typed readers for solution() parameters and
+// a printer that formats results the way the Java runner does (Arrays.toString).
+#ifndef CODEGENIE_NATIVE_HPP
+#define CODEGENIE_NATIVE_HPP
+
+#include "codegenie_native.h"
+
+#include <iostream>
+#include <string>
+#include <type_traits>
+#include <vector>
+
+namespace codegenie {
+
+template <class T> struct Reader;
+
+template <class T> T read() { return Reader<T>::read(); }
+
+template <> struct Reader<std::string> {
+    static std::string read() {
+        char *token = cg_read_string();
+        std::string value(token);
+        free(token);
+        return value;
+    }
+};
+
+template <> struct Reader<bool> {
+    static bool read() { return cg_read_bool() != 0; }
+};
+
+template <> struct Reader<char> {
+    static char read() { return cg_read_char(); }
+};
+
+template <class T> struct Reader {
+    static T read() {
+        static_assert(std::is_arithmetic<T>::value, "Unsupported parameter type");
+        if (std::is_floating_point<T>::value) return static_cast<T>(cg_read_double());
+        return static_cast<T>(cg_read_long());
+    }
+};
+
+template <class T> struct Reader<std::vector<T>> {
+    static std::vector<T> read() {
+        std::vector<T> values;
+        int bracketed = cg_array_begin();
+        while (cg_array_has_next(bracketed)) values.push_back(Reader<T>::read());
+        return values;
+    }
+};
+
+inline void print(std::ostream &out, const std::string &value) { out << value; }
+inline void print(std::ostream &out, const char *value) { out << (value ? value : "null"); }
+inline void print(std::ostream &out, bool value) { out << (value ? "true" : "false"); }
+inline void print(std::ostream &out, char value) { out << value; }
+
+template <class T> void print(std::ostream &out, const T &value) { out << value; }
+
+template <class T> void print(std::ostream &out, const std::vector<T> &values) {
+    out << '[';
+    for (size_t i = 0; i < values.size(); i++) {
+        if (i > 0) out << ", ";
+        print(out, values[i]); // const vector<bool> yields plain bools here
+    }
+    out << ']';
+}
+
+template <class T> void printResult(const T &value) {
+    std::cout << "===CODEGENIE_OUTPUT_START===\n";
+    print(std::cout, value);
+    std::cout << std::endl;
+}
+
+} // namespace codegenie
+
+#endif
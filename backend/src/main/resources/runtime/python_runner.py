@@ -0,0 +1,215 @@
+"""CodeGenie harness for Python submissions.
+
+Mirrors the Java ReflectionRunner: a module that only defines solution() gets its
+arguments parsed from stdin and the return value printed after the output marker;
+anything else is run as a stdin program. Only the user's code is timed, and the
+timings are reported on stderr in the STATS line that CodeExecutionService parses.
+
+usage: python3 python_runner.py solution.py
+"""
+import ast
+import sys
+import time
+import traceback
+
+INVOKE_MARKER = "===CODEGENIE_INVOKE_START==="
+STATS_MARKER = "===CODEGENIE_STATS==="
+OUTPUT_MARKER = "===CODEGENIE_OUTPUT_START==="
+
+
+class _Timings:
+    """Timestamps of one run; printed as the STATS line when the run ends."""
+
+    def __init__(self):
+        self.started_at = time.perf_counter_ns()
+        self.parse_started_at = 0
+        self.invoke_started_at = 0
+        self.invoke_ended_at = 0
+        self.cpu_started_at = 0
+        self.cpu_ended_at = 0
+
+    def invoke(self, fn, *args):
+        sys.stderr.write(INVOKE_MARKER + "\n")
+        sys.stderr.flush()
+        self.cpu_started_at = time.process_time_ns()
+        self.invoke_started_at = time.perf_counter_ns()
+        try:
+            return fn(*args)
+        finally:
+            self.invoke_ended_at = time.perf_counter_ns()
+            self.cpu_ended_at = time.process_time_ns()
+
+    def print_stats(self):
+        if self.invoke_started_at == 0:
+            return
+        try:
+            sys.stdout.flush()
+        except Exception:
+            pass
+        sys.stderr.write("%s setupNanos=%d parseNanos=%d invokeNanos=%d invokeCpuNanos=%d\n" % (
+            STATS_MARKER, self.parse_started_at - self.started_at, self.invoke_started_at - self.parse_started_at,
+            self.invoke_ended_at - self.invoke_started_at, max(0, self.cpu_ended_at - self.cpu_started_at)))
+        sys.stderr.flush()
+
+
+class ArgReader:
+    """Same format as the Java runner: [a, b, c] arrays (nested for 2D), quoted or
+    bare strings, values separated by whitespace and/or commas. Python has no
+    declared parameter types, so bare tokens become int, float, bool or str."""
+
+    SEPARATORS = ", \n\r\t"
+
+    def __init__(self, text):
+        self.text = text
+        self.pos = 0
+
+    def _skip(self):
+        text, pos = self.text, self.pos
+        while pos < len(text) and text[pos] in self.SEPARATORS:
+            pos += 1
+        self.pos = pos
+
+    def read(self):
+        self._skip()
+        if self.pos >= len(self.text):
+            raise ValueError("Input mismatch: not enough arguments")
+        c = self.text[self.pos]
+        if c == "[":
+            self.pos += 1
+            values = []
+            while True:
+                self._skip()
+                if self.pos >= len(self.text):
+                    raise ValueError("Unterminated array: missing ']'")
+                if self.text[self.pos] == "]":
+                    self.pos += 1
+                    return values
+                values.append(self.read())
+        if c == '"' or c == "'":
+            return self._read_quoted(c)
+        return self._coerce(self._read_bare())
+
+    def _read_quoted(self, quote):
+        self.pos += 1
+        out = []
+        text = self.text
+        while self.pos < len(text) and text[self.pos] != quote:
+            c = text[self.pos]
+            self.pos += 1
+            if c == "\\" and self.pos < len(text):
+                escaped = text[self.pos]
+                self.pos += 1
+                c = "\n" if escaped == "n" else "\t" if escaped == "t" else escaped
+            out.append(c)
+        self.pos += 1
+        return "".join(out)
+
+    def _read_bare(self):
+        start = self.pos
+        text = self.text
+        while self.pos < len(text) and text[self.pos] not in self.SEPARATORS and text[self.pos] != "]":
+            self.pos += 1
+        return text[start:self.pos]
+
+    @staticmethod
+    def _coerce(token):
+        try:
+            return int(token)
+        except ValueError:
+            pass
+        try:
+            return float(token)
+        except ValueError:
+            pass
+        if token == "true" or token == "True":
+            return True
+        if token == "false" or token == "False":
+            return False
+        return token
+
+
+def _format(value):
+    """Formats like Java's Arrays.deepToString so expected outputs match across languages."""
+    if value is None:
+        return "null"
+    if value is True:
+        return "true"
+    if value is False:
+        return "false"
+    if isinstance(value, (list, tuple)):
+        return "[" + ", ".join(_format(v) for v in value) + "]"
+    return str(value)
+
+
+def _is_function_module(tree):
+    """True when the top level only defines things (Programmers style); a module that
+    does work at import time is a stdin program even if it defines solution()."""
+    has_solution = False
+    for node in tree.body:
+        if isinstance(node, ast.FunctionDef) and node.name == "solution":
+            has_solution = True
+        elif isinstance(node, (ast.Import, ast.ImportFrom, ast.FunctionDef, ast.ClassDef,
+                               ast.Assign, ast.AnnAssign)):
+            continue
+        elif isinstance(node, ast.Expr) and isinstance(node.value, ast.Constant):
+            continue  # docstring
+        elif isinstance(node, ast.If) and "__name__" in ast.dump(node.test):
+            continue  # if __name__ == "__main__": never runs here
+        else:
+            return False
+    return has_solution
+
+
+def _execute(source, timings):
+    tree = ast.parse(source, "solution.py")
+    code = compile(tree, "solution.py", "exec")
+
+    if not _is_function_module(tree):
+        timings.parse_started_at = time.perf_counter_ns()
+        timings.invoke(exec, code, {"__name__": "__main__", "__builtins__": __builtins__})
+        return
+
+    namespace = {"__name__": "solution", "__builtins__": __builtins__}
+    exec(code, namespace)
+    solution = namespace["solution"]
+
+    timings.parse_started_at = time.perf_counter_ns()
+    reader = ArgReader(sys.stdin.buffer.read().decode("utf-8"))
+    arg_count = solution.__code__.co_argcount
+    args = [reader.read() for _ in range(arg_count)]
+
+    result = timings.invoke(solution, *args)
+    sys.stdout.write(OUTPUT_MARKER + "\n")
+    sys.stdout.write(_format(result) + "\n")
+    sys.stdout.flush()
+
+
+def run(source_path):
+    """Runs one submission against the current sys.stdin/stdout/stderr and returns
+    its exit code. Also used in-process by python_worker.py."""
+    with open(source_path, encoding="utf-8") as f:
+        source = f.read()
+    timings = _Timings()
+    try:
+        _execute(source, timings)
+        return 0
+    except SystemExit as e:
+        if e.code is None:
+            return 0
+        if isinstance(e.code, int):
+            return e.code
+        sys.stderr.write(str(e.code) + "\n")
+        return 1
+    except BaseException as e:
+        tb = e.__traceback__
+        # Drop the harness frames so the trace starts in the user's code.
+        while tb is not None and tb.tb_frame.f_code.co_filename != "solution.py":
+            tb = tb.tb_next
+        traceback.print_exception(type(e), e, tb or e.__traceback__)
+        return 1
+    finally:
+        timings.print_stats()
+
+
+if __name__ == "__main__":
+    sys.exit(run(sys.argv[1]))
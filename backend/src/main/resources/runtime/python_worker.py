@@ -0,0 +1,86 @@
+"""Pre-started Python process that runs submissions in-process (see PythonWorkerPool).
+
+Interpreter start-up and the usual imports are paid once, ahead of time. The
+control protocol is line based on the original stdin/stdout:
+
+    <- READY
+    -> RUN<TAB>source<TAB>stdin-file<TAB>stdout-file<TAB>stderr-file<TAB>max-file-bytes
+    <- DONE<TAB>exit-code
+
+For each run fds 0/1/2 are pointed at the given files, so user code that uses
+open(0), os.read(0, ...) or os.write(1, ...) behaves as in a normal process,
+and output written before a crash is still on disk for the caller to read.
+After the run they point at /dev/null again, so the caller can delete the files.
+RLIMIT_FSIZE caps those files during the run; Python ignores SIGXFSZ, so
+writes past the cap fail with EFBIG instead of killing the worker.
+Every run gets a fresh namespace; the worker is thrown away after the
+submission (or sooner, if a run crashes or times out).
+"""
+import os
+import resource
+import sys
+
+# Warm the modules submissions import most often.
+import bisect  # noqa: F401
+import collections  # noqa: F401
+import functools  # noqa: F401
+import heapq  # noqa: F401
+import itertools  # noqa: F401
+import math  # noqa: F401
+import re  # noqa: F401
+import string  # noqa: F401
+
+import python_runner
+
+
+def _redirect(fd, path, flags):
+    target = os.open(path, flags, 0o600)
+    if target != fd:  # the previous run may have closed fd (open(0).read() does)
+        os.dup2(target, fd)
+        os.close(target)
+
+
+def main():
+    control_in = os.fdopen(os.dup(0), "r", encoding="utf-8")
+    control_out = os.fdopen(os.dup(1), "w", encoding="utf-8")
+    default_recursion_limit = sys.getrecursionlimit()
+    _, hard_file_limit = resource.getrlimit(resource.RLIMIT_FSIZE)
+
+    control_out.write("READY\n")
+    control_out.flush()
+
+    for line in control_in:
+        command, source, stdin_path, stdout_path, stderr_path, max_file_bytes = line.rstrip("\n").split("\t")
+        if command != "RUN":
+            continue
+        max_file_bytes = int(max_file_bytes)
+        if hard_file_limit != resource.RLIM_INFINITY:
+            max_file_bytes = min(max_file_bytes, hard_file_limit)
+
+        os.chdir(os.path.dirname(stdin_path))  # the submission's scratch directory
+        _redirect(0, stdin_path, os.O_RDONLY)
+        _redirect(1, stdout_path, os.O_WRONLY | os.O_CREAT | os.O_TRUNC)
+        _redirect(2, stderr_path, os.O_WRONLY | os.O_CREAT | os.O_TRUNC)
+        sys.stdin = open(0, "r", encoding="utf-8", closefd=False)
+        sys.stdout = open(1, "w", encoding="utf-8", closefd=False)
+        sys.stderr = open(2, "w", encoding="utf-8", closefd=False)
+        sys.setrecursionlimit(default_recursion_limit)
+        resource.setrlimit(resource.RLIMIT_FSIZE, (max_file_bytes, hard_file_limit))
+
+        exit_code = python_runner.run(source)
+
+        for stream in (sys.stdout, sys.stderr):
+            try:
+                stream.flush()
+            except Exception:
+                pass
+        resource.setrlimit(resource.RLIMIT_FSIZE, (hard_file_limit, hard_file_limit))
+        # Let go of the run's files, so the caller can delete them and get the space back
+        for fd in (0, 1, 2):
+            _redirect(fd, os.devnull, os.O_RDWR)
+        control_out.write("DONE\t%d\n" % exit_code)
+        control_out.flush()
+
+
+if __name__ == "__main__":
+    main()
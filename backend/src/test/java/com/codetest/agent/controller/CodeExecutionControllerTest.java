@@ -0,0 +1,80 @@
+package com.codetest.agent.controller;
+
+import com.codetest.agent.config.SecurityConfig;
+import com.codetest.agent.dto.ExecutionJob;
+import com.codetest.agent.security.JwtTokenProvider;
+import com.codetest.agent.security.OAuth2FailureHandler;
+import com.codetest.agent.security.OAuth2SuccessHandler;
+import com.codetest.agent.service.ExecutionJobService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(CodeExecutionController.class)
+@Import(SecurityConfig.class)
+@TestPropertySource(properties = {
+        "GOOGLE_CLIENT_ID=test-client",
+        "GOOGLE_CLIENT_SECRET=test-secret"
+})
+class CodeExecutionControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ExecutionJobService executionJobService;
+
+    @MockBean
+    private JwtTokenProvider jwtTokenProvider;
+
+    @MockBean
+    private OAuth2SuccessHandler oAuth2SuccessHandler;
+
+    @MockBean
+    private OAuth2FailureHandler oAuth2FailureHandler;
+
+    @Test
+    void streamJob_ShouldDeliverEventsOnAsyncDispatch() throws Exception {
+        SseEmitter emitter = new SseEmitter(5_000L);
+        when(executionJobService.find(eq("job-1"), anyString())).thenReturn(new ExecutionJob());
+        when(executionJobService.stream("job-1")).thenReturn(emitter);
+
+        MvcResult result = mockMvc.perform(get("/api/execute/job-1/events")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer mock_dev_token_test")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        emitter.send(SseEmitter.event().name("summary").data("done"));
+        emitter.complete();
+
+        // The JWT filter does not run on the async dispatch; it must still be authorized
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("event:summary")));
+    }
+
+    @Test
+    void streamJob_ShouldRejectUnauthenticatedRequest() throws Exception {
+        mockMvc.perform(get("/api/execute/job-1/events").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isUnauthorized());
+    }
+}
@@ -2,18 +2,30 @@ package com.codetest.agent.service;
 
 import com.codetest.agent.domain.Conversation;
 import com.codetest.agent.domain.Message;
+import com.codetest.agent.dto.ExecutionResponse;
+import com.codetest.agent.dto.ProblemSpec;
+import com.codetest.agent.dto.TestResult;
 import com.codetest.agent.repository.ConversationRepository;
+import com.codetest.agent.service.guardrail.GuardrailService;
+import com.codetest.agent.service.guardrail.ValidationResult;
+import com.codetest.agent.strategy.prompt.CounterexamplePromptStrategy;
+import com.codetest.agent.strategy.prompt.PromptStrategy;
+import com.codetest.agent.strategy.prompt.SolutionPromptStrategy;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 class ChatServiceTest {
@@ -24,6 +36,22 @@ class ChatServiceTest {
     @Mock
     private LlmService llmService;
 
+    @Mock
+    private GuardrailService guardrailService;
+
+    @Mock
+    private CounterexampleCaseService counterexampleCaseService;
+
+    @Mock
+    private StressTestService stressTestService;
+
+    @Mock
+    private StressTestSourceService stressTestSourceService;
+
+    @Spy
+    private List<PromptStrategy> promptStrategies = new ArrayList<>(List.of(new SolutionPromptStrategy(),
+            new CounterexamplePromptStrategy()));
+
     @InjectMocks
     private ChatService chatService;
 
@@ -42,11 +70,12 @@ class ChatServiceTest {
         when(conversationRepository.save(any(Conversation.class))).thenAnswer(i -> i.getArguments()[0]);
 
         // When
-        Conversation result = chatService.startChat(mode, problem, code, null);
+        Conversation result = chatService.startChat(mode, problem, code, null, "user-1");
 
         // Then
         assertNotNull(result.getId());
         assertEquals(mode, result.getMode());
+        assertEquals("user-1", result.getUserId());
         assertEquals(1, result.getMessages().size());
         assertEquals("assistant", result.getMessages().get(0).getRole());
         verify(conversationRepository).save(any(Conversation.class));
@@ -61,7 +90,8 @@ class ChatServiceTest {
         conversation.setMode("SOLUTION");
 
         when(conversationRepository.findById(convId)).thenReturn(Optional.of(conversation));
-        when(llmService.getResponse(anyString())).thenReturn("AI Response");
+        when(guardrailService.validate(anyString(), anyString())).thenReturn(new ValidationResult(true, null));
+        when(llmService.getChatResponse(anyList())).thenReturn("AI Response");
         when(conversationRepository.save(any(Conversation.class))).thenAnswer(i -> i.getArguments()[0]);
 
         // When
@@ -73,4 +103,38 @@ class ChatServiceTest {
         assertEquals(2, conversation.getMessages().size()); // User + AI
         verify(conversationRepository).save(conversation);
     }
+
+    @Test
+    void sendMessage_ShouldReportAFailingCachedCaseWithoutAStressTestOrTheLlm() {
+        String convId = UUID.randomUUID().toString();
+        ProblemSpec spec = new ProblemSpec();
+        spec.setSource("BAEKJOON");
+        spec.setSourceId("1000");
+        Conversation conversation = new Conversation();
+        conversation.setId(convId);
+        conversation.setMode("COUNTEREXAMPLE");
+        conversation.setProblemSpec(spec);
+        conversation.setCodeLanguage("python");
+        conversation.setUserCode("print(0)");
+        conversation.setUserId("user-1");
+        ExecutionResponse cached = new ExecutionResponse();
+        TestResult failed = new TestResult();
+        failed.setInput("1 2");
+        failed.setExpectedOutput("3");
+        failed.setActualOutput("0");
+        cached.setTestResults(List.of(failed));
+
+        when(conversationRepository.findById(convId)).thenReturn(Optional.of(conversation));
+        when(guardrailService.validate(anyString(), anyString())).thenReturn(new ValidationResult(true, null));
+        when(counterexampleCaseService.runCached(eq(spec), eq("python"), eq("print(0)"), any(), eq("user-1"), any()))
+                .thenReturn(cached);
+        when(conversationRepository.save(any(Conversation.class))).thenAnswer(i -> i.getArguments()[0]);
+
+        Message response = chatService.sendMessage(convId, "반례를 찾아줘");
+
+        assertTrue(response.getContent().contains("반례 발견"));
+        assertTrue(response.getContent().contains("`0`"));
+        verifyNoInteractions(stressTestService, stressTestSourceService);
+        verify(llmService, never()).getChatResponse(anyList());
+    }
 }
@@ -0,0 +1,86 @@
+package com.codetest.agent.service;
+
+import com.codetest.agent.dto.ComplexityProfile;
+import com.codetest.agent.dto.ScalingPoint;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.LongUnaryOperator;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ComplexityProfileServiceTest {
+
+    private static final long[] SIZES = {4_000, 16_000, 64_000, 256_000};
+
+    @Test
+    void fit_ShouldPickTheClassTheTimingsGrowBy() {
+        assertEquals("O(N)", ComplexityProfileService.fit(points(n -> n / 100)).complexity());
+        assertEquals("O(N log N)",
+                ComplexityProfileService.fit(points(n -> Math.round(n * Math.log(n) / 100))).complexity());
+        assertEquals("O(N^2)", ComplexityProfileService.fit(points(n -> n * n / 16_000_000)).complexity());
+    }
+
+    @Test
+    void fit_ShouldNeedTwoTimingsAboveTheTimerResolution() {
+        assertNull(ComplexityProfileService.fit(points(n -> 1)));
+        assertNull(ComplexityProfileService.fit(List.of(point(4_000, 50L))));
+    }
+
+    @Test
+    void estimate_ShouldExtrapolateToTheMaximumAndJudgeIt() {
+        ComplexityProfile quadratic = profile(1_000_000, 2000);
+        ComplexityProfileService.estimate(quadratic, points(n -> n * n / 16_000_000));
+
+        assertEquals("O(N^2)", quadratic.getComplexity());
+        assertEquals(62_500, quadratic.getEstimatedMaxMs());
+        assertFalse(quadratic.getFeasible());
+
+        ComplexityProfile linear = profile(1_000_000, 20_000);
+        ComplexityProfileService.estimate(linear, points(n -> n / 100));
+
+        assertEquals("O(N)", linear.getComplexity());
+        assertEquals(10_000, linear.getEstimatedMaxMs());
+        assertTrue(linear.getFeasible());
+    }
+
+    @Test
+    void estimate_ShouldUseTheMeasuredTimeAtTheMaximumAndAnyFailure() {
+        ComplexityProfile measured = profile(256_000, 2000);
+        ComplexityProfileService.estimate(measured, points(n -> n / 100));
+
+        assertEquals(2560, measured.getEstimatedMaxMs());
+        assertFalse(measured.getFeasible());
+
+        ComplexityProfile failed = profile(1_000_000, 20_000);
+        failed.setFailedAt(1_000_000L);
+        ComplexityProfileService.estimate(failed, points(n -> n / 100));
+
+        assertFalse(failed.getFeasible());
+    }
+
+    @Test
+    void sizesUpTo_ShouldStepDownByFourFromTheTop() {
+        assertEquals(List.of(98L, 391L, 1563L, 6250L, 25_000L, 100_000L),
+                ComplexityProfileService.sizesUpTo(100_000, 6));
+        assertEquals(List.of(6250L, 25_000L, 100_000L), ComplexityProfileService.sizesUpTo(100_000, 3));
+        assertEquals(List.of(1L, 5L), ComplexityProfileService.sizesUpTo(5, 6));
+        assertEquals(List.of(3L), ComplexityProfileService.sizesUpTo(3, 6));
+    }
+
+    private static List<ScalingPoint> points(LongUnaryOperator timeMs) {
+        return LongStream.of(SIZES).mapToObj(n -> point(n, timeMs.applyAsLong(n))).toList();
+    }
+
+    private static ScalingPoint point(long n, Long timeMs) {
+        return new ScalingPoint(0, "N", n, timeMs, null, null);
+    }
+
+    private static ComplexityProfile profile(long maxN, long timeLimitMs) {
+        ComplexityProfile profile = new ComplexityProfile();
+        profile.setMaxN(maxN);
+        profile.setTimeLimitMs(timeLimitMs);
+        return profile;
+    }
+}
@@ -0,0 +1,72 @@
+package com.codetest.agent.service;
+
+import com.codetest.agent.domain.StoredTestCase;
+import com.codetest.agent.dto.ProblemSpec;
+import com.codetest.agent.dto.TestCase;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CounterexampleCaseServiceTest {
+
+    @Mock
+    private CodeExecutionService codeExecutionService;
+
+    @Mock
+    private StressTestSourceService stressTestSourceService;
+
+    @Mock
+    private TestDataService testDataService;
+
+    private CounterexampleCaseService counterexampleCaseService;
+    private ProblemSpec spec;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        counterexampleCaseService = new CounterexampleCaseService(codeExecutionService, stressTestSourceService,
+                testDataService, new SimpleMeterRegistry());
+        spec = new ProblemSpec();
+        spec.setSource("boj");
+        spec.setSourceId("1000");
+    }
+
+    @Test
+    void cached_ShouldOnlyRunCasesTheCurrentReferenceConfirmed() {
+        StressTestSourceService.StressTestSources sources =
+                new StressTestSourceService.StressTestSources("python", "print(3)", "print(1, 2)");
+        when(stressTestSourceService.cached(spec)).thenReturn(sources);
+        when(testDataService.list("boj:1000")).thenReturn(List.of(
+                verified("a", sources.referenceHash()),
+                verified("b", "an-evicted-reference"),
+                verified("c", null)));
+
+        List<TestCase> cases = counterexampleCaseService.cached(spec);
+
+        assertEquals(List.of("a"), cases.stream().map(TestCase::getTestDataId).toList());
+    }
+
+    @Test
+    void cached_ShouldRunNothingWithoutACachedReference() {
+        when(stressTestSourceService.cached(spec)).thenReturn(null);
+        when(testDataService.list("boj:1000")).thenReturn(List.of(verified("a", "some-reference")));
+
+        assertTrue(counterexampleCaseService.cached(spec).isEmpty());
+        verify(stressTestSourceService, never()).forProblem(spec);
+    }
+
+    private static StoredTestCase verified(String id, String referenceHash) {
+        StoredTestCase stored = new StoredTestCase();
+        stored.setId(id);
+        stored.setKind(StoredTestCase.Kind.VERIFIED);
+        stored.setReferenceHash(referenceHash);
+        return stored;
+    }
+}
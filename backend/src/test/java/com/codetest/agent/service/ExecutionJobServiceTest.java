@@ -0,0 +1,132 @@
+package com.codetest.agent.service;
+
+import com.codetest.agent.dto.ExecutionEvent;
+import com.codetest.agent.dto.ExecutionJob;
+import com.codetest.agent.dto.ExecutionRequest;
+import com.codetest.agent.dto.ExecutionResponse;
+import com.codetest.agent.dto.StressTestRequest;
+import com.codetest.agent.dto.StressTestResponse;
+import com.codetest.agent.dto.TestCase;
+import com.codetest.agent.dto.TestResult;
+import com.codetest.agent.service.execution.ExecutionListener;
+import com.codetest.agent.service.execution.ExecutionRejectedException;
+import com.codetest.agent.service.execution.ExecutionScheduler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ExecutionJobServiceTest {
+
+    @Mock
+    private CodeExecutionService codeExecutionService;
+
+    @Mock
+    private StressTestService stressTestService;
+
+    @Mock
+    private ExecutionJobStore jobStore;
+
+    private final Map<String, ExecutionJob.Status> stored = new ConcurrentHashMap<>();
+    private ExecutionScheduler scheduler;
+    private ExecutionJobService jobService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        doAnswer(i -> {
+            ExecutionJob job = i.getArgument(0);
+            stored.put(job.getJobId(), job.getStatus());
+            return null;
+        }).when(jobStore).save(any(ExecutionJob.class));
+        scheduler = new ExecutionScheduler(new SimpleMeterRegistry(), 1, 1, 1, 10_000);
+        jobService = new ExecutionJobService(codeExecutionService, stressTestService, scheduler, jobStore, 1000, 50);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobService.shutdown();
+    }
+
+    @Test
+    void submitStress_ShouldRunInTheBackgroundWithTheGrantedSlot() throws Exception {
+        StressTestRequest request = new StressTestRequest();
+        StressTestResponse response = new StressTestResponse();
+        response.setOutcome(StressTestResponse.Outcome.NO_COUNTEREXAMPLE);
+        when(stressTestService.run(eq(request), eq("user-1"), any(ExecutionScheduler.Slot.class)))
+                .thenReturn(response);
+
+        ExecutionJob job = jobService.submitStress(request, "user-1");
+
+        assertEquals(ExecutionJob.Status.QUEUED, job.getStatus());
+        // The slot is handed back once the job is stored as done
+        scheduler.admitAsync("user-2").get(5, TimeUnit.SECONDS).close();
+        assertEquals(ExecutionJob.Status.DONE, stored.get(job.getJobId()));
+        verify(jobStore, atLeastOnce()).save(argThat(saved -> saved.getStressResult() == response));
+    }
+
+    @Test
+    void submitStress_ShouldBeRejectedWhenTheBacklogIsFull() throws InterruptedException {
+        ExecutionScheduler.Slot held = scheduler.admit("someone");
+        jobService.submitStress(new StressTestRequest(), "user-1"); // queued
+
+        assertThrows(ExecutionRejectedException.class,
+                () -> jobService.submitStress(new StressTestRequest(), "user-2"));
+        held.close();
+    }
+
+    @Test
+    void submitStress_ShouldFailTheJobWhenTheRunThrows() {
+        when(stressTestService.run(any(), anyString(), any())).thenThrow(new IllegalStateException("boom"));
+
+        ExecutionJob job = jobService.submitStress(new StressTestRequest(), "user-1");
+
+        verify(jobStore, timeout(5000).atLeastOnce()).save(argThat(saved -> saved.getStatus() == ExecutionJob.Status.FAILED
+                && "System Error: boom".equals(saved.getError())));
+        assertNotNull(job.getJobId());
+    }
+
+    @Test
+    void submit_ShouldAppendFinishedCasesInsteadOfRewritingTheJob() throws Exception {
+        ExecutionRequest request = new ExecutionRequest();
+        request.setTestCases(List.of(new TestCase(), new TestCase()));
+        TestResult first = new TestResult();
+        TestResult second = new TestResult();
+        when(codeExecutionService.execute(eq(request), any(ExecutionScheduler.Slot.class), any()))
+                .thenAnswer(i -> {
+                    ExecutionListener listener = i.getArgument(2);
+                    listener.onEvent(ExecutionEvent.compiled(true, ""));
+                    listener.onEvent(ExecutionEvent.caseStarted(0, 2));
+                    listener.onEvent(ExecutionEvent.caseFinished(0, first));
+                    listener.onEvent(ExecutionEvent.caseStarted(1, 2));
+                    listener.onEvent(ExecutionEvent.caseFinished(1, second));
+                    return new ExecutionResponse();
+                });
+
+        ExecutionJob job = jobService.submit(request, "user-1");
+
+        scheduler.admitAsync("user-2").get(5, TimeUnit.SECONDS).close();
+        assertEquals(ExecutionJob.Status.DONE, stored.get(job.getJobId()));
+        InOrder inOrder = inOrder(jobStore);
+        inOrder.verify(jobStore).markCaseStarted(job.getJobId(), 0);
+        inOrder.verify(jobStore).appendResult(job.getJobId(), first);
+        inOrder.verify(jobStore).markCaseStarted(job.getJobId(), 1);
+        inOrder.verify(jobStore).appendResult(job.getJobId(), second);
+        // queued, running, compiled, done
+        verify(jobStore, times(4)).save(any(ExecutionJob.class));
+    }
+}
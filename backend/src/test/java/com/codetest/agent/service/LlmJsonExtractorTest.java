@@ -0,0 +1,90 @@
+package com.codetest.agent.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LlmJsonExtractorTest {
+
+    private LlmJsonExtractor extractor;
+
+    @BeforeEach
+    void setUp() {
+        extractor = new LlmJsonExtractor(new ObjectMapper());
+    }
+
+    private List<ChatService.GeneratedCase> cases(String answer) {
+        List<ChatService.GeneratedCase> cases = new ArrayList<>();
+        int count = extractor.readArray(answer, ChatService.GeneratedCase.class, cases::add);
+        assertEquals(cases.size(), count);
+        return cases;
+    }
+
+    @Test
+    void readObject_ShouldFindAnObjectInAFencedBlock() {
+        JsonNode node = extractor.readObject("Here you go:\n```json\n{\"allowed\": false, \"reason\": \"x\"}\n```\n");
+
+        assertNotNull(node);
+        assertFalse(node.get("allowed").asBoolean());
+    }
+
+    @Test
+    void readObject_ShouldSkipBracesInProseThatAreNotJson() {
+        JsonNode node = extractor.readObject("Use {curly} braces like {this}. Answer: {'allowed': true, /* ok */ reason: 'fine',}");
+
+        assertNotNull(node);
+        assertTrue(node.get("allowed").asBoolean());
+        assertEquals("fine", node.get("reason").asText());
+    }
+
+    @Test
+    void readObject_ShouldReturnNullWithoutACompleteObject() {
+        assertNull(extractor.readObject(null));
+        assertNull(extractor.readObject("No JSON here."));
+        assertNull(extractor.readObject("{\"allowed\": tr"));
+    }
+
+    @Test
+    void readArray_ShouldIgnoreProseAroundTheArray() {
+        List<ChatService.GeneratedCase> cases = cases("""
+                Sure! The cases below break the sort [see note]:
+                ```json
+                [{"input": "3\\n1 2 3", "expected": "6"}, {"input": "1\\n5", "expected": "5", "why": "single"}]
+                ```
+                Let me know if you need more [or fewer].
+                """);
+
+        assertEquals(List.of(new ChatService.GeneratedCase("3\n1 2 3", "6"), new ChatService.GeneratedCase("1\n5", "5")),
+                cases);
+    }
+
+    @Test
+    void readArray_ShouldKeepTheElementsBeforeATruncation() {
+        List<ChatService.GeneratedCase> cases = cases(
+                "[{\"input\": \"1\", \"expected\": \"1\"}, {\"input\": \"2\", \"expected\": \"4\"}, {\"input\": \"3\", \"exp");
+
+        assertEquals(2, cases.size());
+        assertEquals("4", cases.get(1).expected());
+    }
+
+    @Test
+    void readArray_ShouldSkipEmptyAndUnrelatedArrays() {
+        List<ChatService.GeneratedCase> cases = cases(
+                "Arrays like [] or [1, 2] do not count. [{'input': '7', 'expected': '49',},]");
+
+        assertEquals(List.of(new ChatService.GeneratedCase("7", "49")), cases);
+    }
+
+    @Test
+    void readArray_ShouldReturnZeroWithoutAnArray() {
+        assertEquals(0, extractor.readArray((String) null, ChatService.GeneratedCase.class, c -> fail()));
+        assertEquals(0, extractor.readArray("nothing to see", ChatService.GeneratedCase.class, c -> fail()));
+        assertEquals(0, extractor.readArray("[{\"input\": ", ChatService.GeneratedCase.class, c -> fail()));
+    }
+}
@@ -0,0 +1,217 @@
+package com.codetest.agent.service;
+
+import com.codetest.agent.domain.StoredTestCase;
+import com.codetest.agent.dto.Example;
+import com.codetest.agent.dto.ProblemSpec;
+import com.codetest.agent.repository.StoredTestCaseRepository;
+import com.codetest.agent.service.execution.TestDataStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TestDataServiceTest {
+
+    @Mock
+    private StoredTestCaseRepository repository;
+
+    @Mock
+    private GridFsTemplate archive;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private SetOperations<String, String> parsedProblems;
+
+    private final Map<String, StoredTestCase> saved = new ConcurrentHashMap<>();
+    private Path root;
+    private TestDataStore store;
+    private TestDataService testDataService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        MockitoAnnotations.openMocks(this);
+        when(repository.save(any(StoredTestCase.class))).thenAnswer(i -> {
+            StoredTestCase stored = i.getArgument(0);
+            saved.put(stored.getId(), stored);
+            return stored;
+        });
+        when(repository.findById(anyString())).thenAnswer(i -> Optional.ofNullable(saved.get(i.getArgument(0))));
+        when(redisTemplate.opsForSet()).thenReturn(parsedProblems);
+        when(parsedProblems.isMember("test-data:problems", "boj:1000")).thenReturn(true);
+        root = Files.createTempDirectory("test-data-test");
+        store = new TestDataStore(root.toString());
+        testDataService = new TestDataService(repository, store, archive, redisTemplate, 200, 2, 2, 1);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(root);
+    }
+
+    @Test
+    void restore_ShouldWriteAGeneratedInputAgainFromItsSpec() throws IOException {
+        StoredTestCase stored = testDataService.saveGenerated("boj:1000", null, "n = 5\nn", 7L, null, "user-1",
+                false);
+        String input = store.inputText(stored.getId());
+        store.delete(stored.getId());
+
+        assertTrue(testDataService.restore(stored));
+
+        assertEquals(input, store.inputText(stored.getId()));
+        // Not archived: the spec and seed are enough
+        verify(archive, never()).store(any(InputStream.class), eq("test-data/" + stored.getId() + ".in"));
+    }
+
+    @Test
+    void save_ShouldArchiveTheContents() {
+        Map<String, String> archived = new ConcurrentHashMap<>();
+        when(archive.store(any(InputStream.class), anyString())).thenAnswer(i -> {
+            archived.put(i.getArgument(1), read(i.getArgument(0)));
+            return null;
+        });
+
+        StoredTestCase stored = testDataService.save("boj:1000", "small", "1 2\n", "3\n", "user-1", false);
+
+        assertEquals(Map.of("test-data/" + stored.getId() + ".in", "1 2\n",
+                "test-data/" + stored.getId() + ".out", "3\n"), archived);
+    }
+
+    @Test
+    void restore_ShouldMarkTheCaseMissingWhenNothingIsArchived() throws IOException {
+        StoredTestCase stored = testDataService.save("boj:1000", "small", "1 2\n", "3\n", "user-1", false);
+        store.delete(stored.getId());
+        when(archive.findOne(any(Query.class))).thenReturn(null);
+
+        assertFalse(testDataService.restore(stored));
+
+        assertTrue(saved.get(stored.getId()).isMissing());
+        assertFalse(testDataService.restore(stored));
+        verify(archive, times(1)).findOne(any(Query.class));
+    }
+
+    @Test
+    void importExamples_ShouldWriteAgainExamplesWhoseFilesAreGone() throws IOException {
+        ProblemSpec spec = new ProblemSpec();
+        spec.setSource("boj");
+        spec.setSourceId("1000");
+        Example example = new Example();
+        example.setInput("1 2\n");
+        example.setOutput("3\n");
+        spec.setExamples(List.of(example));
+
+        testDataService.importExamples(spec);
+        String id = saved.keySet().iterator().next();
+        testDataService.importExamples(spec);
+        verify(repository, times(1)).save(any(StoredTestCase.class));
+
+        store.delete(id);
+        testDataService.importExamples(spec);
+
+        assertEquals("1 2\n", store.inputText(id));
+        assertEquals("3\n", store.expectedOutput(id));
+    }
+
+    @Test
+    void recordParsed_ShouldStoreTheProblemOffTheCallingThread() {
+        ProblemSpec spec = new ProblemSpec();
+        spec.setSource("boj");
+        spec.setSourceId("1000");
+        Example example = new Example();
+        example.setInput("1 2\n");
+        example.setOutput("3\n");
+        spec.setExamples(List.of(example));
+        Map<String, String> threads = new ConcurrentHashMap<>();
+        when(parsedProblems.add("test-data:problems", "boj:1000")).thenAnswer(i -> {
+            threads.put("record", Thread.currentThread().getName());
+            return 1L;
+        });
+
+        testDataService.recordParsed(spec).join();
+
+        assertTrue(threads.get("record").startsWith("test-data-import-"));
+        assertEquals(1, saved.size());
+    }
+
+    private static String read(InputStream content) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            content.transferTo(out);
+            return out.toString();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    void save_ShouldRejectAProblemThatWasNeverParsed() {
+        assertThrows(IllegalArgumentException.class,
+                () -> testDataService.save("boj:" + "9".repeat(10_000), null, "1\n", null, "user-1", false));
+        verify(repository, never()).save(any(StoredTestCase.class));
+    }
+
+    @Test
+    void saveGenerated_ShouldStopWritingAnInputLargerThanTheCap() throws IOException {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> testDataService.saveGenerated("boj:1000", null, "array of 1e6 ints in [1, 1e9]", 1L, null,
+                        "user-1", false));
+
+        assertTrue(e.getMessage().contains("at most 1 MB"));
+        verify(repository, never()).save(any(StoredTestCase.class));
+        try (Stream<Path> files = Files.list(root)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void save_ShouldEnforceThePerUserQuotaButNotForStaff() {
+        when(repository.findByCreatedBy("user-1")).thenAnswer(i -> saved.values().stream()
+                .filter(stored -> "user-1".equals(stored.getCreatedBy())).toList());
+        testDataService.save("boj:1000", null, "1\n", null, "user-1", false);
+        testDataService.save("boj:1000", null, "2\n", null, "user-1", false);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> testDataService.save("boj:1000", null, "3\n", null, "user-1", false));
+        assertNotNull(testDataService.save("boj:1000", null, "3\n", null, "user-1", true));
+    }
+
+    @Test
+    void dropVerified_ShouldKeepOnlyTheCasesTheCurrentReferenceConfirmed() {
+        StoredTestCase old = testDataService.saveVerified("boj:1000", "1 2\n", "3\n", "old-reference");
+        StoredTestCase current = testDataService.saveVerified("boj:1000", "1 2\n", "3\n", "new-reference");
+        assertNotEquals(old.getId(), current.getId());
+        when(repository.findByProblemKeyAndKind("boj:1000", StoredTestCase.Kind.VERIFIED))
+                .thenReturn(List.of(old, current));
+
+        testDataService.dropVerified("boj:1000", "new-reference");
+
+        verify(repository).deleteById(old.getId());
+        verify(repository, never()).deleteById(current.getId());
+        assertNull(store.input(old.getId()));
+        assertNotNull(store.input(current.getId()));
+    }
+}
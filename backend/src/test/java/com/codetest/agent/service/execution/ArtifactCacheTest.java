@@ -0,0 +1,116 @@
+package com.codetest.agent.service.execution;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArtifactCacheTest {
+
+    private Path root;
+    private ArtifactCache cache;
+    private SandboxExecutor.Session sandbox;
+    private ScriptedRuntime runtime;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        root = Files.createTempDirectory("artifact-cache-test");
+        cache = new ArtifactCache(new SimpleMeterRegistry(), root.toString(), 8);
+        cache.loadArtifacts();
+        sandbox = new LocalSandboxExecutor().open();
+        runtime = new ScriptedRuntime();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        sandbox.close();
+        FileSystemUtils.deleteRecursively(root);
+    }
+
+    @Test
+    void acquire_ShouldCompileTheSameCodeOnce() throws Exception {
+        runtime.results.add(new CompilationResult(true, ""));
+
+        try (ArtifactCache.Lease first = cache.acquire(runtime, "code", 1000, sandbox);
+                ArtifactCache.Lease second = cache.acquire(runtime, "code", 1000, sandbox)) {
+            assertEquals(first.dir(), second.dir());
+            assertTrue(Files.isRegularFile(first.dir().resolve("program")));
+        }
+        assertEquals(1, runtime.compiles);
+    }
+
+    @Test
+    void acquire_ShouldNotCacheAFailedCompile() throws Exception {
+        runtime.results.add(new CompilationResult(false, "Compilation Time Limit Exceeded"));
+        runtime.results.add(new CompilationResult(true, ""));
+
+        try (ArtifactCache.Lease failed = cache.acquire(runtime, "code", 1000, sandbox)) {
+            assertFalse(failed.compilation().success());
+            assertFalse(Files.exists(failed.dir()));
+        }
+        try (ArtifactCache.Lease retried = cache.acquire(runtime, "code", 1000, sandbox)) {
+            assertTrue(retried.compilation().success());
+        }
+        assertEquals(2, runtime.compiles);
+    }
+
+    @Test
+    void loadArtifacts_ShouldRestoreSuccessfulCompilesOnly() throws Exception {
+        runtime.results.add(new CompilationResult(true, "warning: x"));
+        cache.acquire(runtime, "code", 1000, sandbox).close();
+        Files.createDirectories(root.resolve("scripted").resolve("interrupted"));
+
+        ArtifactCache restarted = new ArtifactCache(new SimpleMeterRegistry(), root.toString(), 8);
+        restarted.loadArtifacts();
+
+        try (ArtifactCache.Lease lease = restarted.acquire(runtime, "code", 1000, sandbox)) {
+            assertEquals("warning: x", lease.compilation().output());
+        }
+        assertEquals(1, runtime.compiles);
+        assertFalse(Files.exists(root.resolve("scripted").resolve("interrupted")));
+    }
+
+    /** Compiles by writing a file and returning the next scripted result. */
+    private static final class ScriptedRuntime implements LanguageRuntime {
+        private final Deque<CompilationResult> results = new ArrayDeque<>();
+        private int compiles;
+
+        @Override
+        public String language() {
+            return "scripted";
+        }
+
+        @Override
+        public String toolchainKey() {
+            return "scripted 1";
+        }
+
+        @Override
+        public CompilationResult compile(String code, Path artifactDir, long timeoutMs,
+                SandboxExecutor.Session sandbox) throws IOException {
+            compiles++;
+            Files.writeString(artifactDir.resolve("program"), code);
+            return results.removeFirst();
+        }
+
+        @Override
+        public List<String> runCommand(Path artifactDir, ResourceLimits limits) {
+            return List.of(artifactDir.resolve("program").toString());
+        }
+
+        @Override
+        public boolean isOutOfMemory(String stderr) {
+            return false;
+        }
+    }
+}
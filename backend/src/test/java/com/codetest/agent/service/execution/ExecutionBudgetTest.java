@@ -0,0 +1,61 @@
+package com.codetest.agent.service.execution;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExecutionBudgetTest {
+
+    @Test
+    void parseTimeLimitMs_ShouldReadSecondsInEitherLanguage() {
+        assertEquals(1000, ExecutionBudget.parseTimeLimitMs("1 초", 2000));
+        assertEquals(500, ExecutionBudget.parseTimeLimitMs("0.5초", 2000));
+        assertEquals(2000, ExecutionBudget.parseTimeLimitMs("2 seconds", 9999));
+        assertEquals(1500, ExecutionBudget.parseTimeLimitMs("1.5 sec", 2000));
+        assertEquals(3000, ExecutionBudget.parseTimeLimitMs("3", 2000));
+        assertEquals(1000, ExecutionBudget.parseTimeLimitMs("1 초 (추가 시간 없음)", 2000));
+    }
+
+    @Test
+    void parseTimeLimitMs_ShouldReadMilliseconds() {
+        assertEquals(500, ExecutionBudget.parseTimeLimitMs("500 ms", 2000));
+        assertEquals(250, ExecutionBudget.parseTimeLimitMs("250밀리초", 2000));
+        assertEquals(100, ExecutionBudget.parseTimeLimitMs("100 milliseconds", 2000));
+    }
+
+    @Test
+    void parseTimeLimitMs_ShouldFallBackToTheDefault() {
+        assertEquals(2000, ExecutionBudget.parseTimeLimitMs(null, 2000));
+        assertEquals(2000, ExecutionBudget.parseTimeLimitMs("  ", 2000));
+        assertEquals(2000, ExecutionBudget.parseTimeLimitMs("제한 없음", 2000));
+        assertEquals(2000, ExecutionBudget.parseTimeLimitMs("0 초", 2000));
+    }
+
+    @Test
+    void of_ShouldScaleThePerCaseLimitByTheMultiplier() {
+        ExecutionBudget budget = ExecutionBudget.of("1 초", 3.0, 30000, 10000);
+
+        assertEquals(1000, budget.timeLimitMs());
+        assertEquals(3000, budget.perCaseMs());
+        assertEquals(30000, budget.submissionBudgetMs());
+        assertEquals(ExecutionBudget.DEFAULT_TIME_LIMIT_MS, ExecutionBudget.of(null, 1.0, 30000, 10000).perCaseMs());
+        assertEquals(150, ExecutionBudget.of("100 ms", 1.5, 30000, 10000).perCaseMs());
+    }
+
+    @Test
+    void timeLimitExceeded_ShouldStateTheLimitAsWritten() {
+        assertEquals("Time Limit Exceeded (3500 ms > 1000 ms × 3.0)",
+                ExecutionBudget.of("1 초", 3.0, 30000, 10000).timeLimitExceeded(3500));
+        assertEquals("Time Limit Exceeded (limit 2000 ms)",
+                ExecutionBudget.of("2 초", 1.0, 30000, 10000).timeLimitExceeded());
+    }
+
+    @Test
+    void of_ShouldCapTheLimitARequestStates() {
+        ExecutionBudget budget = ExecutionBudget.of("99999 초", 3.0, 30000, 10000);
+
+        assertEquals(10000, budget.timeLimitMs());
+        assertEquals(30000, budget.perCaseMs());
+        assertEquals(500, ExecutionBudget.of("500 ms", 1.0, 30000, 10000).timeLimitMs());
+    }
+}
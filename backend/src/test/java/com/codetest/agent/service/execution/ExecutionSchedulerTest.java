@@ -0,0 +1,121 @@
+package com.codetest.agent.service.execution;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExecutionSchedulerTest {
+
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private ExecutionScheduler scheduler(int maxConcurrent, int maxQueued, int maxQueuedPerUser, long maxWaitMs) {
+        return new ExecutionScheduler(meterRegistry, maxConcurrent, maxQueued, maxQueuedPerUser, maxWaitMs);
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+
+    @Test
+    void admit_ShouldGrantFreeSlotsRightAway() throws InterruptedException {
+        ExecutionScheduler scheduler = scheduler(2, 4, 4, 10_000);
+
+        ExecutionScheduler.Slot first = scheduler.admit("a");
+        ExecutionScheduler.Slot second = scheduler.admit("a");
+        CompletableFuture<ExecutionScheduler.Slot> third = scheduler.admitAsync("a");
+
+        assertEquals(2, gauge("codegenie.execution.running"));
+        assertFalse(third.isDone());
+        first.close();
+        first.close(); // a second close must not free another slot
+        assertTrue(third.isDone());
+        assertEquals(2, gauge("codegenie.execution.running"));
+        second.close();
+        third.join().close();
+        assertEquals(0, gauge("codegenie.execution.running"));
+    }
+
+    @Test
+    void release_ShouldServeUsersRoundRobin() throws InterruptedException {
+        ExecutionScheduler scheduler = scheduler(1, 16, 8, 10_000);
+        ExecutionScheduler.Slot held = scheduler.admit("x");
+        List<String> order = new ArrayList<>();
+        List<ExecutionScheduler.Slot> granted = new ArrayList<>();
+        for (String user : List.of("a", "a", "a", "b", "c")) {
+            scheduler.admitAsync(user).thenAccept(slot -> {
+                order.add(user);
+                granted.add(slot);
+            });
+        }
+
+        held.close();
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i + 1, granted.size()); // one at a time: the next waits for this slot
+            granted.get(i).close();
+        }
+
+        assertEquals(List.of("a", "b", "c", "a", "a"), order);
+    }
+
+    @Test
+    void admitAsync_ShouldRejectWhenTheBacklogIsFull() throws InterruptedException {
+        ExecutionScheduler scheduler = scheduler(1, 3, 2, 10_000);
+        ExecutionScheduler.Slot held = scheduler.admit("x");
+        scheduler.admitAsync("a");
+        scheduler.admitAsync("a");
+
+        ExecutionRejectedException perUser = assertThrows(ExecutionRejectedException.class,
+                () -> scheduler.admitAsync("a"));
+        scheduler.admitAsync("b");
+        assertThrows(ExecutionRejectedException.class, () -> scheduler.admitAsync("c"));
+
+        assertTrue(perUser.getRetryAfterSeconds() >= 1);
+        assertEquals(3, gauge("codegenie.execution.queued"));
+        held.close();
+    }
+
+    @Test
+    void admitAsync_ShouldTimeOutAndLeaveTheQueue() throws InterruptedException {
+        ExecutionScheduler scheduler = scheduler(1, 4, 4, 50);
+        ExecutionScheduler.Slot held = scheduler.admit("x");
+
+        CompletableFuture<ExecutionScheduler.Slot> ticket = scheduler.admitAsync("a");
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> ticket.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(ExecutionRejectedException.class, e.getCause());
+        assertEquals(0, gauge("codegenie.execution.queued"));
+        assertEquals(1, meterRegistry.get("codegenie.execution.queue.wait").tag("outcome", "timeout").timer().count());
+        held.close();
+        assertEquals(0, gauge("codegenie.execution.running"));
+    }
+
+    @Test
+    void admitAsync_ShouldWithdrawACancelledTicket() throws InterruptedException {
+        ExecutionScheduler scheduler = scheduler(1, 4, 4, 10_000);
+        ExecutionScheduler.Slot held = scheduler.admit("x");
+        CompletableFuture<ExecutionScheduler.Slot> withdrawn = scheduler.admitAsync("a");
+        CompletableFuture<ExecutionScheduler.Slot> next = scheduler.admitAsync("b");
+
+        withdrawn.cancel(false);
+        held.close();
+
+        assertEquals(0, gauge("codegenie.execution.queued"));
+        assertTrue(next.isDone() && !next.isCompletedExceptionally());
+        next.join().close();
+        assertEquals(0, gauge("codegenie.execution.running"));
+    }
+}
@@ -0,0 +1,136 @@
+package com.codetest.agent.service.execution;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InputGeneratorTest {
+
+    private static String generate(String spec, long seed) throws IOException {
+        return generate(InputGenerator.parse(spec), seed);
+    }
+
+    private static String generate(InputGenerator generator, long seed) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        generator.stdin(seed).writeTo(out);
+        return out.toString(StandardCharsets.US_ASCII);
+    }
+
+    private static long[] numbers(String line) {
+        return Arrays.stream(line.trim().split("[\\s,\\[\\]]+")).filter(s -> !s.isEmpty())
+                .mapToLong(Long::parseLong).toArray();
+    }
+
+    @Test
+    void stdin_ShouldBeDeterministicForASeed() throws IOException {
+        String spec = "n = 1000\nn\narray of n ints in [1, 1e9]\nstring of 50 chars in [a-c]";
+
+        String first = generate(spec, 42);
+
+        assertEquals(first, generate(spec, 42));
+        assertNotEquals(first, generate(spec, 43));
+    }
+
+    @Test
+    void parse_ShouldReadConstantsAndExpressions() throws IOException {
+        assertEquals("200000 1000000007 1024 7\n", generate("n = 2*10^5; m = 10^9+7; n m 2^10 (1+2)*2+1", 1));
+        assertEquals("1500000\n", generate("1.5e6", 1));
+    }
+
+    @Test
+    void parse_ShouldSplitClausesOnTopLevelCommasOnly() throws IOException {
+        String[] lines = generate("n = 5, array of n ints in [1, 3], n", 7).split("\n");
+
+        assertEquals(2, lines.length);
+        assertEquals(5, numbers(lines[0]).length);
+        assertEquals("5", lines[1]);
+    }
+
+    @Test
+    void array_ShouldStayInRangeAndHonorModifiers() throws IOException {
+        long[] sorted = numbers(generate("array of 1000 ints in [-5, 5] sorted", 3));
+        long[] distinct = numbers(generate("array of 100 ints in [1, 100] distinct", 3));
+        long[] descending = numbers(generate("array of 50 ints in [1, 1e9] distinct desc", 3));
+
+        assertEquals(1000, sorted.length);
+        assertTrue(Arrays.stream(sorted).allMatch(v -> v >= -5 && v <= 5));
+        long[] copy = sorted.clone();
+        Arrays.sort(copy);
+        assertArrayEquals(copy, sorted);
+        assertEquals(100, Arrays.stream(distinct).distinct().count());
+        for (int i = 1; i < descending.length; i++) {
+            assertTrue(descending[i - 1] > descending[i]);
+        }
+    }
+
+    @Test
+    void permutation_ShouldContainEachValueOnce() throws IOException {
+        String text = generate("permutation of 20 as list", 11);
+
+        assertTrue(text.startsWith("[") && text.endsWith("]\n"));
+        long[] values = numbers(text);
+        Arrays.sort(values);
+        assertArrayEquals(LongStream.rangeClosed(1, 20).toArray(), values);
+    }
+
+    @Test
+    void linesAndStrings_ShouldHaveTheRequestedShape() throws IOException {
+        String[] lines = generate("3 lines of 2 ints in [1, 9]\n2 strings of 4 chars in \"#.\"", 5).split("\n");
+
+        assertEquals(5, lines.length);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(2, numbers(lines[i]).length);
+        }
+        assertTrue(lines[3].matches("[#.]{4}") && lines[4].matches("[#.]{4}"));
+    }
+
+    @Test
+    void variants_ShouldRunOncePerAlternative() throws IOException {
+        InputGenerator generator = InputGenerator.parse("n = 1e2 | 1e3 | 1e4\nn");
+
+        List<InputGenerator> variants = generator.variants();
+
+        assertEquals("n", generator.scalingVariable());
+        assertEquals(3, variants.size());
+        assertEquals(1000, variants.get(1).scalingValue());
+        assertEquals("10000\n", generate(variants.get(2), 0));
+        assertEquals("n = 1e2 | 1e3 | 1e4; n (n=100)", variants.get(0).describe());
+    }
+
+    @Test
+    void parse_ShouldRejectInvalidSpecs() {
+        assertThrows(IllegalArgumentException.class, () -> InputGenerator.parse(""));
+        assertThrows(IllegalArgumentException.class, () -> InputGenerator.parse("array of m ints in [1, 5]"));
+        assertThrows(IllegalArgumentException.class, () -> InputGenerator.parse("array of 5 bogus"));
+        assertThrows(IllegalArgumentException.class, () -> InputGenerator.parse("sorted"));
+        assertThrows(IllegalArgumentException.class, () -> InputGenerator.parse("n = 1 | 2; m = 3 | 4"));
+        assertThrows(IllegalArgumentException.class, () -> InputGenerator.parse("permutation of 5 sorted"));
+        assertThrows(IllegalArgumentException.class, () -> InputGenerator.parse("string of 3 chars in abc"));
+    }
+
+    @Test
+    void stdin_ShouldReportValuesThatCannotBeGenerated() {
+        assertThrows(IllegalArgumentException.class,
+                () -> generate("array of 10 ints in [1, 5] distinct", 1));
+        assertThrows(IllegalArgumentException.class, () -> generate("2^64", 1));
+        assertThrows(IllegalArgumentException.class, () -> generate("array of 3 ints in [5, 1]", 1));
+    }
+
+    @Test
+    void stdin_ShouldStopAtTheInputLimit() {
+        OutputStream sink = OutputStream.nullOutputStream();
+        long lines = (InputGenerator.MAX_INPUT_BYTES / 1001) + 10;
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> InputGenerator.parse(lines + " strings of 1000 chars").stdin(1).writeTo(sink));
+        assertTrue(e.getMessage().contains("MB"));
+    }
+}
@@ -0,0 +1,151 @@
+package com.codetest.agent.service.execution;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Compiles real solutions and runs them through the ReflectionRunner, so javac and java must be on the PATH. */
+class JavaRuntimeTest {
+
+    private static final String OUTPUT_MARKER = "===CODEGENIE_OUTPUT_START===";
+
+    private Path root;
+    private JavaRuntime runtime;
+    private int artifacts;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        root = Files.createTempDirectory("java-runtime-test");
+        runtime = new JavaRuntime();
+        ReflectionTestUtils.setField(runtime, "compiler", "javac");
+        ReflectionTestUtils.setField(runtime, "command", "java");
+        ReflectionTestUtils.setField(runtime, "runnerRoot", root.resolve("runner").toString());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(root);
+    }
+
+    @Test
+    void argReader_ShouldReadOneAndTwoDimensionalArrays() throws Exception {
+        ProcessRun run = run("""
+                import java.util.Arrays;
+                public class Solution {
+                    public String solution(int[] a, int[][] b, long[] c) {
+                        return Arrays.toString(a) + Arrays.deepToString(b) + Arrays.toString(c);
+                    }
+                }
+                """, "[1, -2, 3], [[4, 5], [6], []]\n[10000000000,2]\n");
+
+        assertEquals("[1, -2, 3][[4, 5], [6], []][10000000000, 2]", result(run));
+    }
+
+    @Test
+    void argReader_ShouldReadQuotedAndBareStrings() throws Exception {
+        ProcessRun run = run("""
+                public class Solution {
+                    public String solution(String s, String t, String[] words, char c) {
+                        return s + "|" + t + "|" + String.join("/", words) + "|" + c;
+                    }
+                }
+                """, "\"a b\", 'c,d', [\"x y\", z, \"q\\\"x\"], 'k'");
+
+        assertEquals("a b|c,d|x y/z/q\"x|k", result(run));
+    }
+
+    @Test
+    void argReader_ShouldReadBooleans() throws Exception {
+        ProcessRun run = run("""
+                import java.util.Arrays;
+                public class Solution {
+                    public String solution(boolean a, Boolean b, boolean[] c) {
+                        return a + " " + b + " " + Arrays.toString(c);
+                    }
+                }
+                """, "true, FALSE, [1, 0, true]");
+
+        assertEquals("true false [true, false, true]", result(run));
+    }
+
+    @Test
+    void argReader_ShouldReadEmptyArraysAndGoOnAfterThem() throws Exception {
+        ProcessRun run = run("""
+                public class Solution {
+                    public String solution(int[] a, String[] b, int[][] c, int x) {
+                        return a.length + " " + b.length + " " + c.length + " " + x;
+                    }
+                }
+                """, "[], [ ], [[]], 7");
+
+        assertEquals("0 0 1 7", result(run));
+    }
+
+    @Test
+    void argReader_ShouldRejectIntsOutOfRange() throws Exception {
+        String intSolution = """
+                public class Solution {
+                    public int solution(int x) {
+                        return x;
+                    }
+                }
+                """;
+
+        assertEquals("-2147483648", result(run(intSolution, "-2147483648")));
+        ProcessRun tooLarge = run(intSolution, "2147483648");
+        assertEquals(1, tooLarge.exitCode());
+        assertTrue(tooLarge.stderr().contains("Number out of range for int: 2147483648"), tooLarge.stderr());
+
+        String longSolution = """
+                public class Solution {
+                    public long solution(long x) {
+                        return x;
+                    }
+                }
+                """;
+        assertEquals("-9223372036854775808", result(run(longSolution, "-9223372036854775808")));
+        ProcessRun overflow = run(longSolution, "9223372036854775808");
+        assertEquals(1, overflow.exitCode());
+        assertTrue(overflow.stderr().contains("Number out of range for long"), overflow.stderr());
+    }
+
+    @Test
+    void argReader_ShouldReadATokenThatEndsTheInput() throws Exception {
+        ProcessRun run = run("""
+                public class Solution {
+                    public String solution(int n, double d, String s) {
+                        return n + " " + d + " " + s;
+                    }
+                }
+                """, "5 2.5 abc");
+
+        assertEquals("5 2.5 abc", result(run));
+    }
+
+    private ProcessRun run(String code, String stdin) throws Exception {
+        Path artifactDir = Files.createDirectories(root.resolve("artifact-" + artifacts++));
+        CompilationResult compilation = runtime.compile(code, artifactDir, 30_000, SandboxExecutor.LOCAL);
+        assertTrue(compilation.success(), compilation.output());
+        try (CaseExecutor executor = runtime.openExecutor(artifactDir, artifactDir,
+                new ResourceLimits(256, 128, 1024), SandboxExecutor.LOCAL)) {
+            ProcessRun run = executor.run(stdin, 20_000);
+            assertTrue(run.finished());
+            return run;
+        }
+    }
+
+    private static String result(ProcessRun run) {
+        assertEquals(0, run.exitCode(), run.stderr());
+        int marker = run.stdout().indexOf(OUTPUT_MARKER);
+        assertTrue(marker >= 0, run.stdout());
+        return run.stdout().substring(marker + OUTPUT_MARKER.length()).trim();
+    }
+}
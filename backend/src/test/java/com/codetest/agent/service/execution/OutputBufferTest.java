@@ -0,0 +1,75 @@
+package com.codetest.agent.service.execution;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutputBufferTest {
+
+    private static void write(OutputBuffer buffer, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        buffer.write(bytes, 0, bytes.length);
+    }
+
+    @Test
+    void headAndTail_ShouldKeepEverythingWithinTheLimit() {
+        OutputBuffer buffer = OutputBuffer.headAndTail(4);
+        write(buffer, "abc");
+        write(buffer, "defgh");
+
+        assertEquals("abcdefgh", buffer.toString());
+        assertFalse(buffer.overflowed());
+    }
+
+    @Test
+    void headAndTail_ShouldKeepTheEndsAndMarkTheCut() {
+        OutputBuffer buffer = OutputBuffer.headAndTail(4);
+        write(buffer, "0123456789");
+        write(buffer, "ab");
+        write(buffer, "STATS");
+
+        assertEquals("0123\n... [9 bytes truncated] ...\nTATS", buffer.toString());
+        assertTrue(buffer.overflowed());
+    }
+
+    @Test
+    void headAndTail_ShouldWrapTheTailAcrossManyWrites() {
+        OutputBuffer buffer = OutputBuffer.headAndTail(3);
+        for (char c = 'a'; c <= 'z'; c++) {
+            write(buffer, String.valueOf(c));
+        }
+
+        assertEquals("abc\n... [20 bytes truncated] ...\nxyz", buffer.toString());
+    }
+
+    @Test
+    void limited_ShouldCallTheOverflowActionOnce() {
+        AtomicInteger overflows = new AtomicInteger();
+        OutputBuffer buffer = OutputBuffer.limited(5, overflows::incrementAndGet);
+
+        write(buffer, "12345");
+        assertEquals(0, overflows.get());
+        write(buffer, "6");
+        write(buffer, "789");
+
+        assertEquals(1, overflows.get());
+        assertTrue(buffer.overflowed());
+        assertEquals("12345\n... [4 bytes truncated] ...\n", buffer.toString());
+    }
+
+    @Test
+    void drain_ShouldReadTheWholeStream() {
+        byte[] input = new byte[100_000];
+        Arrays.fill(input, (byte) 'x');
+        OutputBuffer buffer = OutputBuffer.headAndTail(10);
+
+        buffer.drain(new ByteArrayInputStream(input));
+
+        assertEquals("xxxxxxxxxx\n... [99980 bytes truncated] ...\nxxxxxxxxxx", buffer.toString());
+    }
+}
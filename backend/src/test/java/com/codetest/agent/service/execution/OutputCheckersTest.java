@@ -0,0 +1,114 @@
+package com.codetest.agent.service.execution;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutputCheckersTest {
+
+    private OutputCheckers checkers;
+
+    @BeforeEach
+    void setUp() {
+        checkers = new OutputCheckers(List.of(new TokenOutputChecker(), new StructuralOutputChecker(),
+                new FloatOutputChecker(1e-6), new UnorderedOutputChecker(), new ExactOutputChecker()));
+    }
+
+    private boolean accepts(String checker, String expected, String actual) {
+        return checkers.forName(checker).check(expected, actual).accepted();
+    }
+
+    @Test
+    void forName_ShouldFallBackToTokensForEmptyOrUnknownSpecs() {
+        assertEquals("tokens", checkers.forName(null).name());
+        assertEquals("tokens", checkers.forName(" ").name());
+        assertEquals("tokens", checkers.forName("bogus").name());
+        assertEquals("float", checkers.forName("FLOAT:1e-9").name());
+        assertEquals("exact", checkers.forName("exact:anything").name());
+    }
+
+    @Test
+    void tokens_ShouldIgnoreWhitespaceLayoutOnly() {
+        assertTrue(accepts(null, "1 2\n3", "1 2 3  \n"));
+        assertFalse(accepts(null, "1 2 3", "1 2 4"));
+        assertFalse(accepts(null, "1 2", "1 2 3"));
+        assertFalse(accepts(null, "1 2 3", "1 2"));
+    }
+
+    @Test
+    void tokens_ShouldNotTreatQuotesOrBracketsAsFormatting() {
+        assertFalse(accepts(null, "abc", "\"abc\""));
+        assertFalse(accepts(null, "[1, 2]", "[1,2]"));
+    }
+
+    @Test
+    void tokens_ShouldReportWhereTheOutputsDiffer() {
+        OutputChecker.Result result = checkers.forName(null).check("1 2 3", "1 5 3");
+
+        assertFalse(result.accepted());
+        assertEquals("Token 2: expected \"2\", got \"5\"", result.difference());
+    }
+
+    @Test
+    void forPrintedResult_ShouldCompareCollectionsStructurally() {
+        OutputChecker printed = checkers.forName(null).forPrintedResult();
+
+        assertTrue(printed.check("[1, 2]", "[1,2]").accepted());
+        assertTrue(printed.check("[\"a\", \"b\"]", "[a,b]").accepted());
+        assertFalse(printed.check("[1, 2]", "[1, 3]").accepted());
+    }
+
+    @Test
+    void structural_ShouldBeAvailableOnRequest() {
+        assertTrue(accepts("structural", "[[1, 2], [3]]", "[[1,2],[3]]"));
+        assertTrue(accepts("structural", "abc", "\"abc\""));
+        assertFalse(accepts("structural", "[1]", "[1, 1]"));
+    }
+
+    @Test
+    void float_ShouldAcceptNumbersWithinTolerance() {
+        assertTrue(accepts("float", "0.3333333", "0.33333334"));
+        assertFalse(accepts("float:1e-9", "0.3333333", "0.33333334"));
+        assertTrue(accepts("float", "1e9", "1000000001"));
+        assertFalse(accepts("float", "abc", "abd"));
+        assertTrue(checkers.forName("float").forPrintedResult().check("[0.5, 1]", "[0.5000001,1]").accepted());
+    }
+
+    @Test
+    void unordered_ShouldCompareListElementsAsAMultiset() {
+        assertTrue(accepts("unordered", "[1, 2, [3,4]]", "[[3, 4],2,1]"));
+        assertFalse(accepts("unordered", "[1,2,2]", "[1,2,3]"));
+        assertFalse(accepts("unordered", "[1]", "1"));
+    }
+
+    @Test
+    void unordered_ShouldCompareQuotedStringElements() {
+        assertTrue(new UnorderedOutputChecker().check("[\"a\", \"b\"]", "[\"b\", \"a\"]").accepted());
+        assertTrue(accepts("unordered", "[\",\", \"]\"]", "[\"]\", \",\"]"));
+    }
+
+    @Test
+    void unordered_ShouldCompareLinesWhenTheOutputIsNotAList() {
+        assertTrue(accepts("unordered", "a\nb\n", "b\r\na"));
+        assertFalse(accepts("unordered", "a\nb", "a\na"));
+    }
+
+    @Test
+    void exact_ShouldOnlyIgnoreSurroundingWhitespaceAndCrlf() {
+        assertTrue(accepts("exact", "a b\r\nc", "a b\nc\n"));
+        assertFalse(accepts("exact", "a b", "a  b"));
+        assertFalse(accepts("exact", "a\nb", "a\n"));
+    }
+
+    @Test
+    void suggest_ShouldPickAToleranceFromTheStatement() {
+        assertEquals("float:1e-6", OutputCheckers.suggest("절대/상대 오차가 10^-6 이하이면 정답"));
+        assertEquals("float:1e-9", OutputCheckers.suggest("absolute or relative error 10⁻⁹"));
+        assertEquals("float:1e-4", OutputCheckers.suggest("오차 1e-4까지 허용"));
+        assertEquals("float", OutputCheckers.suggest("오차 허용"));
+        assertNull(OutputCheckers.suggest("answer within 1 second"));
+    }
+}
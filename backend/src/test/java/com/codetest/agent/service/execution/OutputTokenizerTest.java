@@ -0,0 +1,51 @@
+package com.codetest.agent.service.execution;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutputTokenizerTest {
+
+    private static List<String> tokens(String text, boolean structural) {
+        OutputTokenizer tokenizer = new OutputTokenizer(text, structural);
+        List<String> tokens = new ArrayList<>();
+        while (tokenizer.next()) {
+            tokens.add((tokenizer.isPunctuation() ? "p:" : "") + tokenizer.token());
+        }
+        return tokens;
+    }
+
+    @Test
+    void next_ShouldSplitOnWhitespaceOnlyByDefault() {
+        assertEquals(List.of("[1,2]", "\"a\""), tokens(" [1,2]\n\t\"a\" ", false));
+    }
+
+    @Test
+    void next_ShouldSplitPunctuationAndUnquoteInStructuralMode() {
+        assertEquals(List.of("p:[", "1", "p:,", "a b", "p:]"), tokens("[1,\"a b\"]", true));
+    }
+
+    @Test
+    void isPunctuation_ShouldFollowTheTokenNotTheCharacterBeforeIt() {
+        assertEquals(List.of("p:[", "a", "p:,", "b", "p:]"), tokens("[\"a\", 'b']", true));
+        assertEquals(List.of("p:[", ",", "p:,", "]", "p:]"), tokens("[\",\",\"]\"]", true));
+    }
+
+    @Test
+    void next_ShouldKeepAnUnterminatedQuoteAsText() {
+        assertEquals(List.of("\"a", "p:,", "b"), tokens("\"a, b", true));
+    }
+
+    @Test
+    void count_ShouldNumberTokensFromOne() {
+        OutputTokenizer tokenizer = new OutputTokenizer("x y", false);
+        tokenizer.next();
+        tokenizer.next();
+
+        assertEquals(2, tokenizer.count());
+        assertFalse(tokenizer.next());
+    }
+}
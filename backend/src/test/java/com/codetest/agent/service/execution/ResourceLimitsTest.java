@@ -0,0 +1,36 @@
+package com.codetest.agent.service.execution;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResourceLimitsTest {
+
+    @Test
+    void parseMemoryLimitMb_ShouldReadEachUnit() {
+        assertEquals(128, ResourceLimits.parseMemoryLimitMb("128 MB", 256));
+        assertEquals(512, ResourceLimits.parseMemoryLimitMb("512MiB", 256));
+        assertEquals(1024, ResourceLimits.parseMemoryLimitMb("1 GB", 256));
+        assertEquals(1536, ResourceLimits.parseMemoryLimitMb("1.5G", 256));
+        assertEquals(64, ResourceLimits.parseMemoryLimitMb("65,536 KB", 256));
+        assertEquals(32, ResourceLimits.parseMemoryLimitMb("32", 256));
+    }
+
+    @Test
+    void parseMemoryLimitMb_ShouldFallBackToTheDefault() {
+        assertEquals(256, ResourceLimits.parseMemoryLimitMb(null, 256));
+        assertEquals(256, ResourceLimits.parseMemoryLimitMb(" ", 256));
+        assertEquals(256, ResourceLimits.parseMemoryLimitMb("제한 없음", 256));
+        assertEquals(256, ResourceLimits.parseMemoryLimitMb("100 KB", 256));
+    }
+
+    @Test
+    void forMemoryLimit_ShouldCapTheLimitARequestStates() {
+        ResourceLimits limits = ResourceLimits.forMemoryLimit("64 GB", 1024, 128, 1024);
+
+        assertEquals(1024, limits.heapLimitMb());
+        assertEquals((1024 + 128) * 1024L, limits.rssLimitKb());
+        assertEquals(128, ResourceLimits.forMemoryLimit("128 MB", 1024, 128, 1024).heapLimitMb());
+        assertEquals(1024, ResourceLimits.forMemoryLimit("9".repeat(30) + " GB", 1024, 128, 1024).heapLimitMb());
+    }
+}
@@ -0,0 +1,36 @@
+package com.codetest.agent.service.problem;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BaekjoonProblemParserTest {
+
+    private final BaekjoonProblemParser parser = new BaekjoonProblemParser();
+
+    @Test
+    void resolveUrl_ShouldRebuildTheProblemUrlFromItsId() {
+        String canonical = "https://www.acmicpc.net/problem/1000";
+
+        assertEquals(canonical, parser.resolveUrl("1000"));
+        assertEquals(canonical, parser.resolveUrl(canonical));
+        assertEquals(canonical, parser.resolveUrl("http://acmicpc.net/problem/1000/"));
+        assertEquals(canonical, parser.resolveUrl(canonical + "?lang=ko"));
+    }
+
+    @Test
+    void resolveUrl_ShouldRejectProblemPathsOnOtherHosts() {
+        assertThrows(IllegalArgumentException.class,
+                () -> parser.resolveUrl("http://attacker.example/acmicpc.net/problem/1000"));
+        assertThrows(IllegalArgumentException.class,
+                () -> parser.resolveUrl("https://www.acmicpc.net.attacker.example/problem/1000"));
+        assertThrows(IllegalArgumentException.class, () -> parser.resolveUrl("https://www.acmicpc.net/problem/x"));
+        assertThrows(IllegalArgumentException.class, () -> parser.resolveUrl("ftp://www.acmicpc.net/problem/1000"));
+    }
+
+    @Test
+    void problemId_ShouldReadOnlyCanonicalUrls() {
+        assertEquals("1000", parser.problemId(parser.resolveUrl("1000")));
+        assertNull(parser.problemId("https://www.acmicpc.net/problem/1000?lang=ko"));
+    }
+}
@@ -0,0 +1,61 @@
+package com.codetest.agent.service.problem;
+
+import com.codetest.agent.dto.ProblemSpec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class ProblemParsingServiceTest {
+
+    @Mock
+    private ProblemSourceParser parser;
+
+    @Mock
+    private ProblemPageFetcher pageFetcher;
+
+    private ProblemParsingService parsingService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(parser.platform()).thenReturn("baekjoon");
+        when(parser.timeoutMs()).thenReturn(300L);
+        when(parser.maxConcurrency()).thenReturn(1);
+        when(parser.queueCapacity()).thenReturn(4);
+        parsingService = new ProblemParsingService(List.of(parser), pageFetcher, new SimpleMeterRegistry(), 1,
+                60_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        parsingService.shutdown();
+    }
+
+    @Test
+    void parse_ShouldNotCountTimeSpentQueuedTowardTheTimeout() throws Exception {
+        when(pageFetcher.fetch(any(ProblemSourceParser.class), anyString(), anyBoolean())).thenAnswer(i -> {
+            Thread.sleep(200);
+            return new ProblemSpec();
+        });
+
+        CompletableFuture<ProblemSpec> first = parsingService.parse("baekjoon", "1000", false);
+        CompletableFuture<ProblemSpec> second = parsingService.parse("baekjoon", "1001", false);
+
+        // The second waits 200 ms for the only slot, then takes 200 ms itself
+        assertNotNull(first.get());
+        assertNotNull(second.get());
+        assertNotNull(parsingService.parse("baekjoon", "1002", false).get());
+    }
+}
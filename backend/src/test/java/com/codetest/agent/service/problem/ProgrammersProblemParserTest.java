@@ -0,0 +1,39 @@
+package com.codetest.agent.service.problem;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProgrammersProblemParserTest {
+
+    private final ProgrammersProblemParser parser = new ProgrammersProblemParser();
+
+    @Test
+    void resolveUrl_ShouldRebuildTheLessonUrlFromItsId() {
+        String canonical = "https://school.programmers.co.kr/learn/courses/30/lessons/42840";
+
+        assertEquals(canonical, parser.resolveUrl("42840"));
+        assertEquals(canonical, parser.resolveUrl(canonical));
+        assertEquals(canonical, parser.resolveUrl(" http://school.programmers.co.kr/learn/courses/1/lessons/42840/ "));
+        assertEquals(canonical, parser.resolveUrl(canonical + "?language=java#top"));
+    }
+
+    @Test
+    void resolveUrl_ShouldRejectLessonPathsOnOtherHosts() {
+        assertThrows(IllegalArgumentException.class,
+                () -> parser.resolveUrl("http://attacker.example/learn/courses/30/lessons/42840"));
+        assertThrows(IllegalArgumentException.class,
+                () -> parser.resolveUrl("https://school.programmers.co.kr.evil.example/learn/courses/30/lessons/1"));
+        assertThrows(IllegalArgumentException.class,
+                () -> parser.resolveUrl("https://attacker.example/?next=school.programmers.co.kr/lessons/42840"));
+        assertThrows(IllegalArgumentException.class,
+                () -> parser.resolveUrl("https://school.programmers.co.kr/learn/courses/30/lessons/42840/solution"));
+        assertThrows(IllegalArgumentException.class, () -> parser.resolveUrl("9".repeat(40)));
+    }
+
+    @Test
+    void problemId_ShouldReadOnlyCanonicalUrls() {
+        assertEquals("42840", parser.problemId(parser.resolveUrl("42840")));
+        assertNull(parser.problemId("http://attacker.example/learn/courses/30/lessons/42840"));
+    }
+}
@@ -0,0 +1,71 @@
+package com.codetest.agent.service.problem;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SourceCircuitBreakerTest {
+
+    @Test
+    void onFailure_ShouldOpenAfterTheThresholdInARow() {
+        SourceCircuitBreaker breaker = new SourceCircuitBreaker(3, 60_000);
+
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+        breaker.onFailure();
+        assertEquals(SourceCircuitBreaker.State.CLOSED, breaker.state());
+        assertTrue(breaker.tryAcquire());
+
+        breaker.onFailure();
+        assertEquals(SourceCircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    void tryAcquire_ShouldLetOneTrialThroughOnceTheOpenPeriodIsOver() throws InterruptedException {
+        SourceCircuitBreaker breaker = new SourceCircuitBreaker(1, 20);
+        breaker.onFailure();
+        Thread.sleep(40);
+
+        assertTrue(breaker.tryAcquire());
+        assertEquals(SourceCircuitBreaker.State.HALF_OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+
+        breaker.onSuccess();
+        assertEquals(SourceCircuitBreaker.State.CLOSED, breaker.state());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void onFailure_ShouldReopenAfterAFailedTrial() throws InterruptedException {
+        SourceCircuitBreaker breaker = new SourceCircuitBreaker(1, 20);
+        breaker.onFailure();
+        Thread.sleep(40);
+        assertTrue(breaker.tryAcquire());
+
+        breaker.onFailure();
+
+        assertEquals(SourceCircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    void onIgnored_ShouldLeaveTheCountAndHandTheTrialToTheNextCall() throws InterruptedException {
+        SourceCircuitBreaker breaker = new SourceCircuitBreaker(2, 20);
+        breaker.onFailure();
+        breaker.onIgnored();
+        assertEquals(SourceCircuitBreaker.State.CLOSED, breaker.state());
+        breaker.onFailure();
+        assertEquals(SourceCircuitBreaker.State.OPEN, breaker.state());
+
+        Thread.sleep(40);
+        assertTrue(breaker.tryAcquire());
+        breaker.onIgnored();
+
+        assertEquals(SourceCircuitBreaker.State.OPEN, breaker.state());
+        assertTrue(breaker.tryAcquire());
+        assertEquals(SourceCircuitBreaker.State.HALF_OPEN, breaker.state());
+    }
+}
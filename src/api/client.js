@@ -48,16 +48,21 @@ const mockApiResponse = async (url, options) => {
           timestamp: new Date().toISOString()
       };
   } else if (url.includes('/execute')) {
-      // Execute endpoint does NOT wrap in { status: success, data: ... } based on client.js usage
-      const result = {
-          output: "Execution simulated in Admin Mode.\nNo real code was run.",
-          exitCode: 0,
-          executionTimeMs: 10
+      // Execute endpoint returns the job itself, not { status: success, data: ... }
+      const job = {
+          jobId: 'mock_job',
+          status: 'DONE',
+          testResults: [],
+          result: {
+              output: "Execution simulated in Admin Mode.\nNo real code was run.",
+              exitCode: 0,
+              executionTimeMs: 10
+          }
       };
       return {
           ok: true,
           status: 200,
-          json: async () => result
+          json: async () => job
       };
   }
 
@@ -92,6 +97,38 @@ const fetchWithAuth = async (url, options = {}) => {
   return response;
 };
 
+// Reads a text/event-stream response, calling onEvent(name, data) per event
+// until it returns false or the stream ends
+const readEventStream = async (response, onEvent) => {
+  const reader = response.body.getReader();
+  const decoder = new TextDecoder();
+  let buffer = '';
+  let name = 'message';
+  let data = [];
+  while (true) {
+    const { done, value } = await reader.read();
+    if (done) return;
+    buffer += decoder.decode(value, { stream: true });
+    let newline;
+    while ((newline = buffer.indexOf('\n')) >= 0) {
+      const line = buffer.slice(0, newline).replace(/\r$/, '');
+      buffer = buffer.slice(newline + 1);
+      if (line === '') {
+        if (data.length > 0 && onEvent(name, data.join('\n')) === false) {
+          reader.cancel();
+          return;
+        }
+        name = 'message';
+        data = [];
+      } else if (line.startsWith('event:')) {
+        name = line.slice(6).trim();
+      } else if (line.startsWith('data:')) {
+        data.push(line.slice(5).replace(/^ /, ''));
+      }
+    }
+  }
+};
+
 export const api = {
   // Chat
   startChat: async (mode, problemText, userCode, title) => {
@@ -163,14 +200,64 @@ export const api = {
     return result.data;
   },
 
-  // Code Execution
-  executeCode: async (language, code, testCases) => {
+  // Code Execution: submit a job, then stream its results (polling if the stream is unavailable)
+  executeCode: async (language, code, testCases, onTestResult) => {
     try {
       const response = await fetchWithAuth(`${API_BASE_URL}/execute`, {
         method: 'POST',
         body: JSON.stringify({ language, code, testCases }),
       });
-      return await response.json();
+      if (response.status === 429) {
+        const body = await response.json();
+        throw new Error(body.error || 'Server is busy. Please retry shortly.');
+      }
+      if (!response.ok) throw new Error('Failed to submit code');
+      let job = await response.json();
+
+      let reported = 0;
+      if (job.status !== 'DONE' && job.status !== 'FAILED') {
+        let outcome = null;
+        try {
+          const stream = await fetchWithAuth(`${API_BASE_URL}/execute/${job.jobId}/events`, {
+            headers: { 'Accept': 'text/event-stream' },
+          });
+          if (stream.ok && stream.body) {
+            await readEventStream(stream, (name, data) => {
+              if (name === 'caseFinished') {
+                const event = JSON.parse(data);
+                if (event.caseIndex >= reported) {
+                  if (onTestResult) onTestResult(event.testResult);
+                  reported = event.caseIndex + 1;
+                }
+              } else if (name === 'summary') {
+                outcome = { result: JSON.parse(data).summary };
+                return false;
+              } else if (name === 'error') {
+                outcome = { error: data };
+                return false;
+              }
+            });
+          }
+        } catch (streamError) {
+          console.warn('Execution stream interrupted, polling instead:', streamError);
+        }
+        if (outcome && outcome.error) throw new Error(outcome.error || 'Execution failed');
+        if (outcome) return outcome.result;
+      }
+
+      while (true) {
+        if (onTestResult) {
+          (job.testResults || []).slice(reported).forEach(onTestResult);
+        }
+        reported = Math.max(reported, (job.testResults || []).length);
+        if (job.status === 'DONE') return job.result;
+        if (job.status === 'FAILED') throw new Error(job.error || 'Execution failed');
+
+        await new Promise(resolve => setTimeout(resolve, 300));
+        const poll = await fetchWithAuth(`${API_BASE_URL}/execute/${job.jobId}`);
+        if (!poll.ok) throw new Error('Failed to fetch execution result');
+        job = await poll.json();
+      }
     } catch (error) {
       console.error('Error executing code:', error);
       throw error;
@@ -702,7 +702,15 @@ int solution(int num1, int num2) {
 
     try {
       const validTestCases = testCases.filter(tc => tc.input.trim() || tc.expectedOutput.trim());
-      const result = await api.executeCode(tempCodeLanguage, tempCodeText, validTestCases);
+      // Render verdicts as each case finishes; the final response replaces this partial one
+      const result = await api.executeCode(tempCodeLanguage, tempCodeText, validTestCases, (testResult) => {
+        setExecutionResult(prev => ({
+          exitCode: 0,
+          testResults: [...(prev?.testResults || []), testResult],
+          allPassed: (prev?.allPassed ?? true) && testResult.passed,
+          executionTimeMs: (prev?.executionTimeMs || 0) + (testResult.userTimeMs || 0)
+        }));
+      });
       setExecutionResult(result);
       if (result.exitCode === 0) {
         toast.success("실행 완료");